@@ -161,8 +161,17 @@ public class blob implements TBase<blob, blob._Fields>, java.io.Serializable, Cl
 
   public void read(TProtocol iprot) throws TException {
     ByteBuffer buffer = iprot.readBinary();
-    data = new byte[buffer.remaining()];
-    buffer.get(data);
+    if (buffer.hasArray()
+        && buffer.arrayOffset() == 0
+        && buffer.position() == 0
+        && buffer.remaining() == buffer.array().length) {
+      // the protocol has copied the binary into a new array, take it over without copying again
+      data = buffer.array();
+    } else {
+      // the binary is a view of the frame buffer, which will be reused
+      data = new byte[buffer.remaining()];
+      buffer.get(data);
+    }
     // check for required fields of primitive type, which can't be checked in the validate method
     validate();
   }
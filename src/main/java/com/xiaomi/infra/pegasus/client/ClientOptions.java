@@ -4,6 +4,7 @@
 package com.xiaomi.infra.pegasus.client;
 
 import java.time.Duration;
+import java.util.concurrent.Executor;
 
 /**
  * Client Options to control the behavior of {@link PegasusClientInterface}.
@@ -40,6 +41,37 @@ public class ClientOptions {
   public static final Duration DEFAULT_FALCON_PUSH_INTERVAL = Duration.ofSeconds(10);
   public static final boolean DEFAULT_ENABLE_WRITE_LIMIT = true;
   public static final Duration DEFAULT_META_QUERY_TIMEOUT = Duration.ofMillis(5000);
+  public static final boolean DEFAULT_ENABLE_NATIVE_EPOLL = false;
+  public static final int DEFAULT_EPOLL_BUSY_POLL_MICROS = 0;
+  public static final boolean DEFAULT_EPOLL_TCP_QUICKACK = false;
+  public static final boolean DEFAULT_EPOLL_EDGE_TRIGGERED = true;
+  public static final int DEFAULT_FLUSH_BATCH_MAX_MESSAGES = 0;
+  public static final int DEFAULT_FLUSH_BATCH_MAX_BYTES = 64 * 1024;
+  public static final Duration DEFAULT_FLUSH_BATCH_MAX_DELAY = Duration.ZERO;
+  public static final int DEFAULT_CONNECTIONS_PER_SERVER = 1;
+  public static final String DEFAULT_CONNECTION_SELECT_POLICY = "least_outstanding";
+  public static final Duration DEFAULT_TIMEOUT_TICK_INTERVAL = Duration.ofMillis(10);
+  public static final int DEFAULT_SESSION_MAX_INFLIGHT = 0;
+  public static final int DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK = 0;
+  public static final int DEFAULT_WRITE_BUFFER_LOW_WATER_MARK = 0;
+  public static final String DEFAULT_SESSION_OVERLOAD_POLICY = "fail_fast";
+  public static final boolean DEFAULT_ENABLE_ADAPTIVE_BACKUP_REQUEST = false;
+  public static final int DEFAULT_BACKUP_REQUEST_DELAY_PERCENTILE = 95;
+  public static final int DEFAULT_BACKUP_REQUEST_MAX_PERCENT = 100;
+  public static final String DEFAULT_READ_ROUTING_POLICY = "primary";
+  public static final Duration DEFAULT_CIRCUIT_BREAKER_WINDOW = Duration.ofMillis(5000);
+  public static final int DEFAULT_CIRCUIT_BREAKER_MIN_REQUESTS = 10;
+  public static final int DEFAULT_CIRCUIT_BREAKER_FAILURE_PERCENT = 0;
+  public static final Duration DEFAULT_CIRCUIT_BREAKER_SLOW_CALL = Duration.ofMillis(0);
+  public static final Duration DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION = Duration.ofMillis(3000);
+  public static final int DEFAULT_RETRY_BUDGET_PERCENT = 0;
+  public static final int DEFAULT_RETRY_BUDGET_MIN_PER_SEC = 10;
+  public static final Duration DEFAULT_RETRY_BACKOFF_BASE = Duration.ofMillis(50);
+  public static final Duration DEFAULT_RETRY_BACKOFF_MAX = Duration.ofMillis(0);
+  public static final String DEFAULT_ROUTING_CACHE_DIR = "";
+  public static final int DEFAULT_TABLE_WORKERS = 1;
+  public static final String DEFAULT_CALLBACK_MODE = "table";
+  public static final Executor DEFAULT_CALLBACK_EXECUTOR = null;
 
   private final String metaServers;
   private final Duration operationTimeout;
@@ -49,6 +81,37 @@ public class ClientOptions {
   private final Duration falconPushInterval;
   private final boolean enableWriteLimit;
   private final Duration metaQueryTimeout;
+  private final boolean enableNativeEpoll;
+  private final int epollBusyPollMicros;
+  private final boolean epollTcpQuickAck;
+  private final boolean epollEdgeTriggered;
+  private final int flushBatchMaxMessages;
+  private final int flushBatchMaxBytes;
+  private final Duration flushBatchMaxDelay;
+  private final int connectionsPerServer;
+  private final String connectionSelectPolicy;
+  private final Duration timeoutTickInterval;
+  private final int sessionMaxInflight;
+  private final int writeBufferHighWaterMark;
+  private final int writeBufferLowWaterMark;
+  private final String sessionOverloadPolicy;
+  private final boolean enableAdaptiveBackupRequest;
+  private final int backupRequestDelayPercentile;
+  private final int backupRequestMaxPercent;
+  private final String readRoutingPolicy;
+  private final Duration circuitBreakerWindow;
+  private final int circuitBreakerMinRequests;
+  private final int circuitBreakerFailurePercent;
+  private final Duration circuitBreakerSlowCall;
+  private final Duration circuitBreakerOpenDuration;
+  private final int retryBudgetPercent;
+  private final int retryBudgetMinPerSec;
+  private final Duration retryBackoffBase;
+  private final Duration retryBackoffMax;
+  private final String routingCacheDir;
+  private final int tableWorkers;
+  private final String callbackMode;
+  private final Executor callbackExecutor;
 
   protected ClientOptions(Builder builder) {
     this.metaServers = builder.metaServers;
@@ -59,6 +122,37 @@ public class ClientOptions {
     this.falconPushInterval = builder.falconPushInterval;
     this.enableWriteLimit = builder.enableWriteLimit;
     this.metaQueryTimeout = builder.metaQueryTimeout;
+    this.enableNativeEpoll = builder.enableNativeEpoll;
+    this.epollBusyPollMicros = builder.epollBusyPollMicros;
+    this.epollTcpQuickAck = builder.epollTcpQuickAck;
+    this.epollEdgeTriggered = builder.epollEdgeTriggered;
+    this.flushBatchMaxMessages = builder.flushBatchMaxMessages;
+    this.flushBatchMaxBytes = builder.flushBatchMaxBytes;
+    this.flushBatchMaxDelay = builder.flushBatchMaxDelay;
+    this.connectionsPerServer = builder.connectionsPerServer;
+    this.connectionSelectPolicy = builder.connectionSelectPolicy;
+    this.timeoutTickInterval = builder.timeoutTickInterval;
+    this.sessionMaxInflight = builder.sessionMaxInflight;
+    this.writeBufferHighWaterMark = builder.writeBufferHighWaterMark;
+    this.writeBufferLowWaterMark = builder.writeBufferLowWaterMark;
+    this.sessionOverloadPolicy = builder.sessionOverloadPolicy;
+    this.enableAdaptiveBackupRequest = builder.enableAdaptiveBackupRequest;
+    this.backupRequestDelayPercentile = builder.backupRequestDelayPercentile;
+    this.backupRequestMaxPercent = builder.backupRequestMaxPercent;
+    this.readRoutingPolicy = builder.readRoutingPolicy;
+    this.circuitBreakerWindow = builder.circuitBreakerWindow;
+    this.circuitBreakerMinRequests = builder.circuitBreakerMinRequests;
+    this.circuitBreakerFailurePercent = builder.circuitBreakerFailurePercent;
+    this.circuitBreakerSlowCall = builder.circuitBreakerSlowCall;
+    this.circuitBreakerOpenDuration = builder.circuitBreakerOpenDuration;
+    this.retryBudgetPercent = builder.retryBudgetPercent;
+    this.retryBudgetMinPerSec = builder.retryBudgetMinPerSec;
+    this.retryBackoffBase = builder.retryBackoffBase;
+    this.retryBackoffMax = builder.retryBackoffMax;
+    this.routingCacheDir = builder.routingCacheDir;
+    this.tableWorkers = builder.tableWorkers;
+    this.callbackMode = builder.callbackMode;
+    this.callbackExecutor = builder.callbackExecutor;
   }
 
   protected ClientOptions(ClientOptions original) {
@@ -70,6 +164,37 @@ public class ClientOptions {
     this.falconPushInterval = original.getFalconPushInterval();
     this.enableWriteLimit = original.isWriteLimitEnabled();
     this.metaQueryTimeout = original.getMetaQueryTimeout();
+    this.enableNativeEpoll = original.isEnableNativeEpoll();
+    this.epollBusyPollMicros = original.getEpollBusyPollMicros();
+    this.epollTcpQuickAck = original.isEpollTcpQuickAck();
+    this.epollEdgeTriggered = original.isEpollEdgeTriggered();
+    this.flushBatchMaxMessages = original.getFlushBatchMaxMessages();
+    this.flushBatchMaxBytes = original.getFlushBatchMaxBytes();
+    this.flushBatchMaxDelay = original.getFlushBatchMaxDelay();
+    this.connectionsPerServer = original.getConnectionsPerServer();
+    this.connectionSelectPolicy = original.getConnectionSelectPolicy();
+    this.timeoutTickInterval = original.getTimeoutTickInterval();
+    this.sessionMaxInflight = original.getSessionMaxInflight();
+    this.writeBufferHighWaterMark = original.getWriteBufferHighWaterMark();
+    this.writeBufferLowWaterMark = original.getWriteBufferLowWaterMark();
+    this.sessionOverloadPolicy = original.getSessionOverloadPolicy();
+    this.enableAdaptiveBackupRequest = original.isEnableAdaptiveBackupRequest();
+    this.backupRequestDelayPercentile = original.getBackupRequestDelayPercentile();
+    this.backupRequestMaxPercent = original.getBackupRequestMaxPercent();
+    this.readRoutingPolicy = original.getReadRoutingPolicy();
+    this.circuitBreakerWindow = original.getCircuitBreakerWindow();
+    this.circuitBreakerMinRequests = original.getCircuitBreakerMinRequests();
+    this.circuitBreakerFailurePercent = original.getCircuitBreakerFailurePercent();
+    this.circuitBreakerSlowCall = original.getCircuitBreakerSlowCall();
+    this.circuitBreakerOpenDuration = original.getCircuitBreakerOpenDuration();
+    this.retryBudgetPercent = original.getRetryBudgetPercent();
+    this.retryBudgetMinPerSec = original.getRetryBudgetMinPerSec();
+    this.retryBackoffBase = original.getRetryBackoffBase();
+    this.retryBackoffMax = original.getRetryBackoffMax();
+    this.routingCacheDir = original.getRoutingCacheDir();
+    this.tableWorkers = original.getTableWorkers();
+    this.callbackMode = original.getCallbackMode();
+    this.callbackExecutor = original.getCallbackExecutor();
   }
 
   /**
@@ -114,7 +239,40 @@ public class ClientOptions {
           && this.falconPerfCounterTags.equals(clientOptions.falconPerfCounterTags)
           && this.falconPushInterval.toMillis() == clientOptions.falconPushInterval.toMillis()
           && this.enableWriteLimit == clientOptions.enableWriteLimit
-          && this.metaQueryTimeout.toMillis() == clientOptions.metaQueryTimeout.toMillis();
+          && this.metaQueryTimeout.toMillis() == clientOptions.metaQueryTimeout.toMillis()
+          && this.enableNativeEpoll == clientOptions.enableNativeEpoll
+          && this.epollBusyPollMicros == clientOptions.epollBusyPollMicros
+          && this.epollTcpQuickAck == clientOptions.epollTcpQuickAck
+          && this.epollEdgeTriggered == clientOptions.epollEdgeTriggered
+          && this.flushBatchMaxMessages == clientOptions.flushBatchMaxMessages
+          && this.flushBatchMaxBytes == clientOptions.flushBatchMaxBytes
+          && this.flushBatchMaxDelay.toNanos() == clientOptions.flushBatchMaxDelay.toNanos()
+          && this.connectionsPerServer == clientOptions.connectionsPerServer
+          && this.connectionSelectPolicy.equals(clientOptions.connectionSelectPolicy)
+          && this.timeoutTickInterval.toMillis() == clientOptions.timeoutTickInterval.toMillis()
+          && this.sessionMaxInflight == clientOptions.sessionMaxInflight
+          && this.writeBufferHighWaterMark == clientOptions.writeBufferHighWaterMark
+          && this.writeBufferLowWaterMark == clientOptions.writeBufferLowWaterMark
+          && this.sessionOverloadPolicy.equals(clientOptions.sessionOverloadPolicy)
+          && this.enableAdaptiveBackupRequest == clientOptions.enableAdaptiveBackupRequest
+          && this.backupRequestDelayPercentile == clientOptions.backupRequestDelayPercentile
+          && this.backupRequestMaxPercent == clientOptions.backupRequestMaxPercent
+          && this.readRoutingPolicy.equals(clientOptions.readRoutingPolicy)
+          && this.circuitBreakerWindow.toMillis() == clientOptions.circuitBreakerWindow.toMillis()
+          && this.circuitBreakerMinRequests == clientOptions.circuitBreakerMinRequests
+          && this.circuitBreakerFailurePercent == clientOptions.circuitBreakerFailurePercent
+          && this.circuitBreakerSlowCall.toMillis()
+              == clientOptions.circuitBreakerSlowCall.toMillis()
+          && this.circuitBreakerOpenDuration.toMillis()
+              == clientOptions.circuitBreakerOpenDuration.toMillis()
+          && this.retryBudgetPercent == clientOptions.retryBudgetPercent
+          && this.retryBudgetMinPerSec == clientOptions.retryBudgetMinPerSec
+          && this.retryBackoffBase.toMillis() == clientOptions.retryBackoffBase.toMillis()
+          && this.retryBackoffMax.toMillis() == clientOptions.retryBackoffMax.toMillis()
+          && this.routingCacheDir.equals(clientOptions.routingCacheDir)
+          && this.tableWorkers == clientOptions.tableWorkers
+          && this.callbackMode.equals(clientOptions.callbackMode)
+          && this.callbackExecutor == clientOptions.callbackExecutor;
     }
     return false;
   }
@@ -140,6 +298,68 @@ public class ClientOptions {
         + enableWriteLimit
         + ", metaQueryTimeout(ms)="
         + metaQueryTimeout.toMillis()
+        + ", enableNativeEpoll="
+        + enableNativeEpoll
+        + ", epollBusyPollMicros="
+        + epollBusyPollMicros
+        + ", epollTcpQuickAck="
+        + epollTcpQuickAck
+        + ", epollEdgeTriggered="
+        + epollEdgeTriggered
+        + ", flushBatchMaxMessages="
+        + flushBatchMaxMessages
+        + ", flushBatchMaxBytes="
+        + flushBatchMaxBytes
+        + ", flushBatchMaxDelay(us)="
+        + flushBatchMaxDelay.toNanos() / 1000
+        + ", connectionsPerServer="
+        + connectionsPerServer
+        + ", connectionSelectPolicy="
+        + connectionSelectPolicy
+        + ", timeoutTickInterval(ms)="
+        + timeoutTickInterval.toMillis()
+        + ", sessionMaxInflight="
+        + sessionMaxInflight
+        + ", writeBufferHighWaterMark="
+        + writeBufferHighWaterMark
+        + ", writeBufferLowWaterMark="
+        + writeBufferLowWaterMark
+        + ", sessionOverloadPolicy="
+        + sessionOverloadPolicy
+        + ", enableAdaptiveBackupRequest="
+        + enableAdaptiveBackupRequest
+        + ", backupRequestDelayPercentile="
+        + backupRequestDelayPercentile
+        + ", backupRequestMaxPercent="
+        + backupRequestMaxPercent
+        + ", readRoutingPolicy="
+        + readRoutingPolicy
+        + ", circuitBreakerWindow(ms)="
+        + circuitBreakerWindow.toMillis()
+        + ", circuitBreakerMinRequests="
+        + circuitBreakerMinRequests
+        + ", circuitBreakerFailurePercent="
+        + circuitBreakerFailurePercent
+        + ", circuitBreakerSlowCall(ms)="
+        + circuitBreakerSlowCall.toMillis()
+        + ", circuitBreakerOpenDuration(ms)="
+        + circuitBreakerOpenDuration.toMillis()
+        + ", retryBudgetPercent="
+        + retryBudgetPercent
+        + ", retryBudgetMinPerSec="
+        + retryBudgetMinPerSec
+        + ", retryBackoffBase(ms)="
+        + retryBackoffBase.toMillis()
+        + ", retryBackoffMax(ms)="
+        + retryBackoffMax.toMillis()
+        + ", routingCacheDir="
+        + routingCacheDir
+        + ", tableWorkers="
+        + tableWorkers
+        + ", callbackMode="
+        + callbackMode
+        + ", callbackExecutor="
+        + callbackExecutor
         + '}';
   }
 
@@ -153,6 +373,37 @@ public class ClientOptions {
     private Duration falconPushInterval = DEFAULT_FALCON_PUSH_INTERVAL;
     private boolean enableWriteLimit = DEFAULT_ENABLE_WRITE_LIMIT;
     private Duration metaQueryTimeout = DEFAULT_META_QUERY_TIMEOUT;
+    private boolean enableNativeEpoll = DEFAULT_ENABLE_NATIVE_EPOLL;
+    private int epollBusyPollMicros = DEFAULT_EPOLL_BUSY_POLL_MICROS;
+    private boolean epollTcpQuickAck = DEFAULT_EPOLL_TCP_QUICKACK;
+    private boolean epollEdgeTriggered = DEFAULT_EPOLL_EDGE_TRIGGERED;
+    private int flushBatchMaxMessages = DEFAULT_FLUSH_BATCH_MAX_MESSAGES;
+    private int flushBatchMaxBytes = DEFAULT_FLUSH_BATCH_MAX_BYTES;
+    private Duration flushBatchMaxDelay = DEFAULT_FLUSH_BATCH_MAX_DELAY;
+    private int connectionsPerServer = DEFAULT_CONNECTIONS_PER_SERVER;
+    private String connectionSelectPolicy = DEFAULT_CONNECTION_SELECT_POLICY;
+    private Duration timeoutTickInterval = DEFAULT_TIMEOUT_TICK_INTERVAL;
+    private int sessionMaxInflight = DEFAULT_SESSION_MAX_INFLIGHT;
+    private int writeBufferHighWaterMark = DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK;
+    private int writeBufferLowWaterMark = DEFAULT_WRITE_BUFFER_LOW_WATER_MARK;
+    private String sessionOverloadPolicy = DEFAULT_SESSION_OVERLOAD_POLICY;
+    private boolean enableAdaptiveBackupRequest = DEFAULT_ENABLE_ADAPTIVE_BACKUP_REQUEST;
+    private int backupRequestDelayPercentile = DEFAULT_BACKUP_REQUEST_DELAY_PERCENTILE;
+    private int backupRequestMaxPercent = DEFAULT_BACKUP_REQUEST_MAX_PERCENT;
+    private String readRoutingPolicy = DEFAULT_READ_ROUTING_POLICY;
+    private Duration circuitBreakerWindow = DEFAULT_CIRCUIT_BREAKER_WINDOW;
+    private int circuitBreakerMinRequests = DEFAULT_CIRCUIT_BREAKER_MIN_REQUESTS;
+    private int circuitBreakerFailurePercent = DEFAULT_CIRCUIT_BREAKER_FAILURE_PERCENT;
+    private Duration circuitBreakerSlowCall = DEFAULT_CIRCUIT_BREAKER_SLOW_CALL;
+    private Duration circuitBreakerOpenDuration = DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION;
+    private int retryBudgetPercent = DEFAULT_RETRY_BUDGET_PERCENT;
+    private int retryBudgetMinPerSec = DEFAULT_RETRY_BUDGET_MIN_PER_SEC;
+    private Duration retryBackoffBase = DEFAULT_RETRY_BACKOFF_BASE;
+    private Duration retryBackoffMax = DEFAULT_RETRY_BACKOFF_MAX;
+    private String routingCacheDir = DEFAULT_ROUTING_CACHE_DIR;
+    private int tableWorkers = DEFAULT_TABLE_WORKERS;
+    private String callbackMode = DEFAULT_CALLBACK_MODE;
+    private Executor callbackExecutor = DEFAULT_CALLBACK_EXECUTOR;
 
     protected Builder() {}
 
@@ -255,6 +506,447 @@ public class ClientOptions {
       return this;
     }
 
+    /**
+     * Whether to use netty's native epoll transport for the RPC event loops instead of NIO. It only
+     * takes effect on Linux, the client falls back to NIO if the native library is unavailable.
+     * Defaults to {@literal false}, see {@link #DEFAULT_ENABLE_NATIVE_EPOLL}.
+     *
+     * @param enableNativeEpoll enableNativeEpoll
+     * @return {@code this}
+     */
+    public Builder enableNativeEpoll(boolean enableNativeEpoll) {
+      this.enableNativeEpoll = enableNativeEpoll;
+      return this;
+    }
+
+    /**
+     * The SO_BUSY_POLL timeout in microseconds of epoll channels, {@literal 0} means busy polling
+     * is disabled. Only takes effect when native epoll is used. Defaults to {@literal 0}, see
+     * {@link #DEFAULT_EPOLL_BUSY_POLL_MICROS}.
+     *
+     * @param epollBusyPollMicros epollBusyPollMicros
+     * @return {@code this}
+     */
+    public Builder epollBusyPollMicros(int epollBusyPollMicros) {
+      this.epollBusyPollMicros = epollBusyPollMicros;
+      return this;
+    }
+
+    /**
+     * Whether to set TCP_QUICKACK on epoll channels. Only takes effect when native epoll is used.
+     * Defaults to {@literal false}, see {@link #DEFAULT_EPOLL_TCP_QUICKACK}.
+     *
+     * @param epollTcpQuickAck epollTcpQuickAck
+     * @return {@code this}
+     */
+    public Builder epollTcpQuickAck(boolean epollTcpQuickAck) {
+      this.epollTcpQuickAck = epollTcpQuickAck;
+      return this;
+    }
+
+    /**
+     * Whether epoll channels work in edge-triggered mode, otherwise level-triggered. Only takes
+     * effect when native epoll is used. Defaults to {@literal true}, see {@link
+     * #DEFAULT_EPOLL_EDGE_TRIGGERED}.
+     *
+     * @param epollEdgeTriggered epollEdgeTriggered
+     * @return {@code this}
+     */
+    public Builder epollEdgeTriggered(boolean epollEdgeTriggered) {
+      this.epollEdgeTriggered = epollEdgeTriggered;
+      return this;
+    }
+
+    /**
+     * The max number of request frames coalesced into one flush of a connection. Frames written in
+     * the same event-loop tick are flushed together, which reduces syscalls under high concurrency.
+     * {@literal 0} means flush consolidation is disabled. Defaults to {@literal 0}, see {@link
+     * #DEFAULT_FLUSH_BATCH_MAX_MESSAGES}.
+     *
+     * @param flushBatchMaxMessages flushBatchMaxMessages
+     * @return {@code this}
+     */
+    public Builder flushBatchMaxMessages(int flushBatchMaxMessages) {
+      this.flushBatchMaxMessages = flushBatchMaxMessages;
+      return this;
+    }
+
+    /**
+     * The max number of bytes coalesced into one flush of a connection. Only takes effect when
+     * flush consolidation is enabled. Defaults to {@literal 64KB}, see {@link
+     * #DEFAULT_FLUSH_BATCH_MAX_BYTES}.
+     *
+     * @param flushBatchMaxBytes flushBatchMaxBytes
+     * @return {@code this}
+     */
+    public Builder flushBatchMaxBytes(int flushBatchMaxBytes) {
+      this.flushBatchMaxBytes = flushBatchMaxBytes;
+      return this;
+    }
+
+    /**
+     * The max delay of a deferred flush. {@literal 0} means the frames are flushed right after the
+     * tasks already queued in the event loop, so an idle connection sees no extra latency. Only
+     * takes effect when flush consolidation is enabled. Defaults to {@literal 0}, see {@link
+     * #DEFAULT_FLUSH_BATCH_MAX_DELAY}.
+     *
+     * @param flushBatchMaxDelay flushBatchMaxDelay
+     * @return {@code this}
+     */
+    public Builder flushBatchMaxDelay(Duration flushBatchMaxDelay) {
+      this.flushBatchMaxDelay = flushBatchMaxDelay;
+      return this;
+    }
+
+    /**
+     * The number of connections to each replica server. Multiple connections let the traffic to a
+     * hot server be handled by several event loops, and keep large responses from blocking small
+     * ones. Defaults to {@literal 1}, see {@link #DEFAULT_CONNECTIONS_PER_SERVER}.
+     *
+     * @param connectionsPerServer connectionsPerServer
+     * @return {@code this}
+     */
+    public Builder connectionsPerServer(int connectionsPerServer) {
+      this.connectionsPerServer = connectionsPerServer;
+      return this;
+    }
+
+    /**
+     * How to select a connection for a request when there are multiple connections per server,
+     * either {@literal "round_robin"} or {@literal "least_outstanding"}. Defaults to {@literal
+     * "least_outstanding"}, see {@link #DEFAULT_CONNECTION_SELECT_POLICY}.
+     *
+     * @param connectionSelectPolicy connectionSelectPolicy
+     * @return {@code this}
+     */
+    public Builder connectionSelectPolicy(String connectionSelectPolicy) {
+      this.connectionSelectPolicy = connectionSelectPolicy;
+      return this;
+    }
+
+    /**
+     * The tick interval of the timing wheel which tracks the request timeouts. A request times out
+     * at most one tick later than its deadline, a smaller tick makes the timeouts more precise at
+     * the cost of more frequent sweeps. Defaults to {@literal 10ms}, see {@link
+     * #DEFAULT_TIMEOUT_TICK_INTERVAL}.
+     *
+     * @param timeoutTickInterval timeoutTickInterval
+     * @return {@code this}
+     */
+    public Builder timeoutTickInterval(Duration timeoutTickInterval) {
+      this.timeoutTickInterval = timeoutTickInterval;
+      return this;
+    }
+
+    /**
+     * The max number of in-flight requests of a connection to a replica server. When it's reached,
+     * new requests are handled by the {@link #sessionOverloadPolicy(String) overload policy}.
+     * {@literal 0} means unlimited. Defaults to {@literal 0}, see {@link
+     * #DEFAULT_SESSION_MAX_INFLIGHT}.
+     *
+     * @param sessionMaxInflight sessionMaxInflight
+     * @return {@code this}
+     */
+    public Builder sessionMaxInflight(int sessionMaxInflight) {
+      this.sessionMaxInflight = sessionMaxInflight;
+      return this;
+    }
+
+    /**
+     * The high water mark in bytes of the outbound buffer of a connection. When the bytes waiting
+     * to be sent exceed it, new requests are handled by the {@link #sessionOverloadPolicy(String)
+     * overload policy} until the buffer drains below the low water mark. {@literal 0} means the
+     * outbound buffer isn't watched. Defaults to {@literal 0}, see {@link
+     * #DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK}.
+     *
+     * @param writeBufferHighWaterMark writeBufferHighWaterMark
+     * @return {@code this}
+     */
+    public Builder writeBufferHighWaterMark(int writeBufferHighWaterMark) {
+      this.writeBufferHighWaterMark = writeBufferHighWaterMark;
+      return this;
+    }
+
+    /**
+     * The low water mark in bytes of the outbound buffer of a connection. {@literal 0} means half
+     * of the high water mark. Defaults to {@literal 0}, see {@link
+     * #DEFAULT_WRITE_BUFFER_LOW_WATER_MARK}.
+     *
+     * @param writeBufferLowWaterMark writeBufferLowWaterMark
+     * @return {@code this}
+     */
+    public Builder writeBufferLowWaterMark(int writeBufferLowWaterMark) {
+      this.writeBufferLowWaterMark = writeBufferLowWaterMark;
+      return this;
+    }
+
+    /**
+     * What to do with a request when its connection is overloaded: "fail_fast" fails it with
+     * ERR_BUSY immediately, "block" blocks the caller until the request is admitted or timed out,
+     * and "queue" holds the request back and sends it once the connection drains. A caller running
+     * in the client's own event loops is never blocked, its request is queued instead. Defaults to
+     * {@literal "fail_fast"}, see {@link #DEFAULT_SESSION_OVERLOAD_POLICY}.
+     *
+     * @param sessionOverloadPolicy sessionOverloadPolicy
+     * @return {@code this}
+     */
+    public Builder sessionOverloadPolicy(String sessionOverloadPolicy) {
+      this.sessionOverloadPolicy = sessionOverloadPolicy;
+      return this;
+    }
+
+    /**
+     * Whether the delay of backup requests adapts to the recent read latency of a table. If
+     * enabled, the delay given to {@link PegasusClientInterface#openTable(String, int)} is only
+     * used until enough latency samples are collected, and then the delay tracks the {@link
+     * #backupRequestDelayPercentile(int) percentile} of the latency. Defaults to {@literal false},
+     * see {@link #DEFAULT_ENABLE_ADAPTIVE_BACKUP_REQUEST}.
+     *
+     * @param enableAdaptiveBackupRequest enableAdaptiveBackupRequest
+     * @return {@code this}
+     */
+    public Builder enableAdaptiveBackupRequest(boolean enableAdaptiveBackupRequest) {
+      this.enableAdaptiveBackupRequest = enableAdaptiveBackupRequest;
+      return this;
+    }
+
+    /**
+     * The latency percentile that the adaptive delay of backup requests tracks, e.g. {@literal 95}
+     * means a backup request is sent if a read is slower than 95% of the recent reads. Defaults to
+     * {@literal 95}, see {@link #DEFAULT_BACKUP_REQUEST_DELAY_PERCENTILE}.
+     *
+     * @param backupRequestDelayPercentile backupRequestDelayPercentile
+     * @return {@code this}
+     */
+    public Builder backupRequestDelayPercentile(int backupRequestDelayPercentile) {
+      this.backupRequestDelayPercentile = backupRequestDelayPercentile;
+      return this;
+    }
+
+    /**
+     * The max percentage of the reads of a table which may send backup requests, which bounds the
+     * extra load on the secondaries. Defaults to {@literal 100}, which means no limit, see {@link
+     * #DEFAULT_BACKUP_REQUEST_MAX_PERCENT}.
+     *
+     * @param backupRequestMaxPercent backupRequestMaxPercent
+     * @return {@code this}
+     */
+    public Builder backupRequestMaxPercent(int backupRequestMaxPercent) {
+      this.backupRequestMaxPercent = backupRequestMaxPercent;
+      return this;
+    }
+
+    /**
+     * How the reads of get, multi_get, ttl and sortkey_count are routed across the primary and the
+     * secondaries of a partition:
+     *
+     * <ul>
+     *   <li>"primary": always read from the primary.
+     *   <li>"least_outstanding": read from the replica with the least requests not responded yet.
+     *   <li>"ewma": read from the replica with the least EWMA latency weighted by the outstanding
+     *       requests.
+     * </ul>
+     *
+     * Reading from the secondaries spreads the load of hot partitions, but the data read may be
+     * slightly stale, just like the backup requests. Defaults to "primary", see {@link
+     * #DEFAULT_READ_ROUTING_POLICY}.
+     *
+     * @param readRoutingPolicy readRoutingPolicy
+     * @return {@code this}
+     */
+    public Builder readRoutingPolicy(String readRoutingPolicy) {
+      this.readRoutingPolicy = readRoutingPolicy;
+      return this;
+    }
+
+    /**
+     * The window in which the circuit breaker of each replica server counts the failed requests.
+     * The circuit breaker opens if too many requests fail in a window, then the requests to the
+     * server fail fast with ERR_SESSION_RESET, which makes the client query the meta server and
+     * retry on the new primary. Defaults to {@literal 5s}, see {@link
+     * #DEFAULT_CIRCUIT_BREAKER_WINDOW}.
+     *
+     * @param circuitBreakerWindow circuitBreakerWindow
+     * @return {@code this}
+     */
+    public Builder circuitBreakerWindow(Duration circuitBreakerWindow) {
+      this.circuitBreakerWindow = circuitBreakerWindow;
+      return this;
+    }
+
+    /**
+     * The min requests in a window to open the circuit breaker by the failure percentage, which is
+     * also the number of consecutive failures to open it regardless of the window. Defaults to
+     * {@literal 10}, see {@link #DEFAULT_CIRCUIT_BREAKER_MIN_REQUESTS}.
+     *
+     * @param circuitBreakerMinRequests circuitBreakerMinRequests
+     * @return {@code this}
+     */
+    public Builder circuitBreakerMinRequests(int circuitBreakerMinRequests) {
+      this.circuitBreakerMinRequests = circuitBreakerMinRequests;
+      return this;
+    }
+
+    /**
+     * The percentage of failed requests in a window which opens the circuit breaker, {@literal 0}
+     * disables the circuit breaker. A disabled circuit breaker never rejects requests, and only
+     * resets the connections to a replica server after all the requests to it time out for 10s.
+     * Defaults to {@literal 0}, see {@link #DEFAULT_CIRCUIT_BREAKER_FAILURE_PERCENT}.
+     *
+     * @param circuitBreakerFailurePercent circuitBreakerFailurePercent
+     * @return {@code this}
+     */
+    public Builder circuitBreakerFailurePercent(int circuitBreakerFailurePercent) {
+      this.circuitBreakerFailurePercent = circuitBreakerFailurePercent;
+      return this;
+    }
+
+    /**
+     * The responses slower than it are counted as failures by the circuit breaker, {@literal 0}
+     * means only the timeouts are failures. Defaults to {@literal 0}, see {@link
+     * #DEFAULT_CIRCUIT_BREAKER_SLOW_CALL}.
+     *
+     * @param circuitBreakerSlowCall circuitBreakerSlowCall
+     * @return {@code this}
+     */
+    public Builder circuitBreakerSlowCall(Duration circuitBreakerSlowCall) {
+      this.circuitBreakerSlowCall = circuitBreakerSlowCall;
+      return this;
+    }
+
+    /**
+     * How long the circuit breaker keeps open before it lets a probing request through. The circuit
+     * breaker closes if the probing request succeeds, or opens again otherwise. Defaults to
+     * {@literal 3s}, see {@link #DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION}.
+     *
+     * @param circuitBreakerOpenDuration circuitBreakerOpenDuration
+     * @return {@code this}
+     */
+    public Builder circuitBreakerOpenDuration(Duration circuitBreakerOpenDuration) {
+      this.circuitBreakerOpenDuration = circuitBreakerOpenDuration;
+      return this;
+    }
+
+    /**
+     * The retries of a table in a second are limited to this percentage of the first attempts, plus
+     * {@link #retryBudgetMinPerSec(int)}, so that the clients don't pile on the servers with
+     * retries during a failover. The requests beyond the budget fail with the error of their last
+     * attempt. {@literal 0} disables the retry budget, then the requests retry until their
+     * timeouts. Defaults to {@literal 0}, see {@link #DEFAULT_RETRY_BUDGET_PERCENT}.
+     *
+     * @param retryBudgetPercent retryBudgetPercent
+     * @return {@code this}
+     */
+    public Builder retryBudgetPercent(int retryBudgetPercent) {
+      this.retryBudgetPercent = retryBudgetPercent;
+      return this;
+    }
+
+    /**
+     * The retries of a table allowed in a second regardless of the first attempts, which keeps the
+     * tables with little traffic retrying. Defaults to {@literal 10}, see {@link
+     * #DEFAULT_RETRY_BUDGET_MIN_PER_SEC}.
+     *
+     * @param retryBudgetMinPerSec retryBudgetMinPerSec
+     * @return {@code this}
+     */
+    public Builder retryBudgetMinPerSec(int retryBudgetMinPerSec) {
+      this.retryBudgetMinPerSec = retryBudgetMinPerSec;
+      return this;
+    }
+
+    /**
+     * The backoff of the first retry, which doubles on each following retry up to {@link
+     * #retryBackoffMax(Duration)}. Each backoff is jittered between its half and itself, so that
+     * the clients don't retry in lockstep. Defaults to {@literal 50ms}, see {@link
+     * #DEFAULT_RETRY_BACKOFF_BASE}.
+     *
+     * @param retryBackoffBase retryBackoffBase
+     * @return {@code this}
+     */
+    public Builder retryBackoffBase(Duration retryBackoffBase) {
+      this.retryBackoffBase = retryBackoffBase;
+      return this;
+    }
+
+    /**
+     * The max backoff of the retries, {@literal 0} means a third of the operation timeout. Defaults
+     * to {@literal 0}, see {@link #DEFAULT_RETRY_BACKOFF_MAX}.
+     *
+     * @param retryBackoffMax retryBackoffMax
+     * @return {@code this}
+     */
+    public Builder retryBackoffMax(Duration retryBackoffMax) {
+      this.retryBackoffMax = retryBackoffMax;
+      return this;
+    }
+
+    /**
+     * The directory to cache the meta leader and the table configurations on disk. On startup, the
+     * tables are served with the cached configurations at once, and refreshed from meta in the
+     * background. The stale configurations are corrected once the replica servers reject the
+     * requests. Empty disables the routing cache. Defaults to {@literal ""}, see {@link
+     * #DEFAULT_ROUTING_CACHE_DIR}.
+     *
+     * @param routingCacheDir routingCacheDir
+     * @return {@code this}
+     */
+    public Builder routingCacheDir(String routingCacheDir) {
+      this.routingCacheDir = routingCacheDir;
+      return this;
+    }
+
+    /**
+     * The threads to schedule the retries and the backup requests of the tables, and to complete
+     * the futures of the operations. The retries and the backup requests of a table are sharded by
+     * partition across the threads, and the futures in turn, so the callbacks of a table may run
+     * concurrently if it's more than {@literal 1}. Defaults to {@literal 1}, see {@link
+     * #DEFAULT_TABLE_WORKERS}.
+     *
+     * @param tableWorkers tableWorkers
+     * @return {@code this}
+     */
+    public Builder tableWorkers(int tableWorkers) {
+      this.tableWorkers = tableWorkers;
+      return this;
+    }
+
+    /**
+     * The threads to notify the listeners of the operations' futures:
+     *
+     * <ul>
+     *   <li>{@literal table}: the table executors, see {@link #tableWorkers(int)}.
+     *   <li>{@literal direct}: the thread which completes the operation, usually the network I/O
+     *       thread. It saves a thread switch, but the listeners must be trivial and never block.
+     *   <li>{@literal executor}: the executor set by {@link #callbackExecutor(Executor)}.
+     *   <li>{@literal ordered}: the listeners of the operations on the same hash key are notified
+     *       in order, and the different keys concurrently. The keys are striped over the executor
+     *       set by {@link #callbackExecutor(Executor)} if any, otherwise over the table executors.
+     * </ul>
+     *
+     * Defaults to {@literal table}, see {@link #DEFAULT_CALLBACK_MODE}.
+     *
+     * @param callbackMode callbackMode
+     * @return {@code this}
+     */
+    public Builder callbackMode(String callbackMode) {
+      this.callbackMode = callbackMode;
+      return this;
+    }
+
+    /**
+     * The executor to notify the listeners of the operations' futures, which is used in the
+     * {@literal executor} and the {@literal ordered} callback modes, see {@link
+     * #callbackMode(String)}. Defaults to {@literal null}.
+     *
+     * @param callbackExecutor callbackExecutor
+     * @return {@code this}
+     */
+    public Builder callbackExecutor(Executor callbackExecutor) {
+      this.callbackExecutor = callbackExecutor;
+      return this;
+    }
+
     /**
      * Create a new instance of {@link ClientOptions}.
      *
@@ -282,7 +974,38 @@ public class ClientOptions {
         .falconPerfCounterTags(getFalconPerfCounterTags())
         .falconPushInterval(getFalconPushInterval())
         .enableWriteLimit(isWriteLimitEnabled())
-        .metaQueryTimeout(getMetaQueryTimeout());
+        .metaQueryTimeout(getMetaQueryTimeout())
+        .enableNativeEpoll(isEnableNativeEpoll())
+        .epollBusyPollMicros(getEpollBusyPollMicros())
+        .epollTcpQuickAck(isEpollTcpQuickAck())
+        .epollEdgeTriggered(isEpollEdgeTriggered())
+        .flushBatchMaxMessages(getFlushBatchMaxMessages())
+        .flushBatchMaxBytes(getFlushBatchMaxBytes())
+        .flushBatchMaxDelay(getFlushBatchMaxDelay())
+        .connectionsPerServer(getConnectionsPerServer())
+        .connectionSelectPolicy(getConnectionSelectPolicy())
+        .timeoutTickInterval(getTimeoutTickInterval())
+        .sessionMaxInflight(getSessionMaxInflight())
+        .writeBufferHighWaterMark(getWriteBufferHighWaterMark())
+        .writeBufferLowWaterMark(getWriteBufferLowWaterMark())
+        .sessionOverloadPolicy(getSessionOverloadPolicy())
+        .enableAdaptiveBackupRequest(isEnableAdaptiveBackupRequest())
+        .backupRequestDelayPercentile(getBackupRequestDelayPercentile())
+        .backupRequestMaxPercent(getBackupRequestMaxPercent())
+        .readRoutingPolicy(getReadRoutingPolicy())
+        .circuitBreakerWindow(getCircuitBreakerWindow())
+        .circuitBreakerMinRequests(getCircuitBreakerMinRequests())
+        .circuitBreakerFailurePercent(getCircuitBreakerFailurePercent())
+        .circuitBreakerSlowCall(getCircuitBreakerSlowCall())
+        .circuitBreakerOpenDuration(getCircuitBreakerOpenDuration())
+        .retryBudgetPercent(getRetryBudgetPercent())
+        .retryBudgetMinPerSec(getRetryBudgetMinPerSec())
+        .retryBackoffBase(getRetryBackoffBase())
+        .retryBackoffMax(getRetryBackoffMax())
+        .routingCacheDir(getRoutingCacheDir())
+        .tableWorkers(getTableWorkers())
+        .callbackMode(getCallbackMode())
+        .callbackExecutor(getCallbackExecutor());
     return builder;
   }
 
@@ -362,4 +1085,304 @@ public class ClientOptions {
   public Duration getMetaQueryTimeout() {
     return metaQueryTimeout;
   }
+
+  /**
+   * Whether to use netty's native epoll transport for the RPC event loops instead of NIO. Defaults
+   * to {@literal false}.
+   *
+   * @return whether to use native epoll transport.
+   */
+  public boolean isEnableNativeEpoll() {
+    return enableNativeEpoll;
+  }
+
+  /**
+   * The SO_BUSY_POLL timeout in microseconds of epoll channels. Defaults to {@literal 0}.
+   *
+   * @return the SO_BUSY_POLL timeout in microseconds.
+   */
+  public int getEpollBusyPollMicros() {
+    return epollBusyPollMicros;
+  }
+
+  /**
+   * Whether to set TCP_QUICKACK on epoll channels. Defaults to {@literal false}.
+   *
+   * @return whether to set TCP_QUICKACK.
+   */
+  public boolean isEpollTcpQuickAck() {
+    return epollTcpQuickAck;
+  }
+
+  /**
+   * Whether epoll channels work in edge-triggered mode. Defaults to {@literal true}.
+   *
+   * @return whether epoll channels are edge-triggered.
+   */
+  public boolean isEpollEdgeTriggered() {
+    return epollEdgeTriggered;
+  }
+
+  /**
+   * The max number of request frames coalesced into one flush of a connection, {@literal 0} means
+   * flush consolidation is disabled. Defaults to {@literal 0}.
+   *
+   * @return the max number of frames per flush.
+   */
+  public int getFlushBatchMaxMessages() {
+    return flushBatchMaxMessages;
+  }
+
+  /**
+   * The max number of bytes coalesced into one flush of a connection. Defaults to {@literal 64KB}.
+   *
+   * @return the max number of bytes per flush.
+   */
+  public int getFlushBatchMaxBytes() {
+    return flushBatchMaxBytes;
+  }
+
+  /**
+   * The max delay of a deferred flush. Defaults to {@literal 0}.
+   *
+   * @return the max delay of a deferred flush.
+   */
+  public Duration getFlushBatchMaxDelay() {
+    return flushBatchMaxDelay;
+  }
+
+  /**
+   * The number of connections to each replica server. Defaults to {@literal 1}.
+   *
+   * @return the number of connections to each replica server.
+   */
+  public int getConnectionsPerServer() {
+    return connectionsPerServer;
+  }
+
+  /**
+   * How to select a connection for a request when there are multiple connections per server.
+   * Defaults to {@literal "least_outstanding"}.
+   *
+   * @return the connection select policy.
+   */
+  public String getConnectionSelectPolicy() {
+    return connectionSelectPolicy;
+  }
+
+  /**
+   * The tick interval of the timing wheel which tracks the request timeouts. Defaults to {@literal
+   * 10ms}.
+   *
+   * @return the tick interval of the timeout wheel.
+   */
+  public Duration getTimeoutTickInterval() {
+    return timeoutTickInterval;
+  }
+
+  /**
+   * The max number of in-flight requests of a connection, {@literal 0} means unlimited. Defaults to
+   * {@literal 0}.
+   *
+   * @return the max number of in-flight requests of a connection.
+   */
+  public int getSessionMaxInflight() {
+    return sessionMaxInflight;
+  }
+
+  /**
+   * The high water mark in bytes of the outbound buffer of a connection, {@literal 0} means the
+   * outbound buffer isn't watched. Defaults to {@literal 0}.
+   *
+   * @return the high water mark of the outbound buffer.
+   */
+  public int getWriteBufferHighWaterMark() {
+    return writeBufferHighWaterMark;
+  }
+
+  /**
+   * The low water mark in bytes of the outbound buffer of a connection. Defaults to {@literal 0}.
+   *
+   * @return the low water mark of the outbound buffer.
+   */
+  public int getWriteBufferLowWaterMark() {
+    return writeBufferLowWaterMark;
+  }
+
+  /**
+   * What to do with a request when its connection is overloaded. Defaults to {@literal
+   * "fail_fast"}.
+   *
+   * @return the overload policy of connections.
+   */
+  public String getSessionOverloadPolicy() {
+    return sessionOverloadPolicy;
+  }
+
+  /**
+   * Whether the delay of backup requests adapts to the recent read latency of a table. Defaults to
+   * {@literal false}.
+   *
+   * @return whether the delay of backup requests is adaptive.
+   */
+  public boolean isEnableAdaptiveBackupRequest() {
+    return enableAdaptiveBackupRequest;
+  }
+
+  /**
+   * The latency percentile that the adaptive delay of backup requests tracks. Defaults to {@literal
+   * 95}.
+   *
+   * @return the latency percentile of the backup request delay.
+   */
+  public int getBackupRequestDelayPercentile() {
+    return backupRequestDelayPercentile;
+  }
+
+  /**
+   * The max percentage of the reads of a table which may send backup requests. Defaults to
+   * {@literal 100}.
+   *
+   * @return the max percentage of reads with backup requests.
+   */
+  public int getBackupRequestMaxPercent() {
+    return backupRequestMaxPercent;
+  }
+
+  /**
+   * How the reads are routed across the primary and the secondaries of a partition. Defaults to
+   * "primary".
+   *
+   * @return the read routing policy.
+   */
+  public String getReadRoutingPolicy() {
+    return readRoutingPolicy;
+  }
+
+  /**
+   * The window in which the circuit breaker counts the failed requests. Defaults to {@literal 5s}.
+   *
+   * @return the window of the circuit breaker.
+   */
+  public Duration getCircuitBreakerWindow() {
+    return circuitBreakerWindow;
+  }
+
+  /**
+   * The min requests in a window, or the consecutive failures, to open the circuit breaker.
+   * Defaults to {@literal 10}.
+   *
+   * @return the min requests to open the circuit breaker.
+   */
+  public int getCircuitBreakerMinRequests() {
+    return circuitBreakerMinRequests;
+  }
+
+  /**
+   * The percentage of failed requests in a window which opens the circuit breaker. Defaults to
+   * {@literal 50}.
+   *
+   * @return the failure percentage to open the circuit breaker.
+   */
+  public int getCircuitBreakerFailurePercent() {
+    return circuitBreakerFailurePercent;
+  }
+
+  /**
+   * The responses slower than it are counted as failures by the circuit breaker. Defaults to
+   * {@literal 0}, which counts only the timeouts.
+   *
+   * @return the slow call threshold of the circuit breaker.
+   */
+  public Duration getCircuitBreakerSlowCall() {
+    return circuitBreakerSlowCall;
+  }
+
+  /**
+   * How long the circuit breaker keeps open before it lets a probing request through. Defaults to
+   * {@literal 3s}.
+   *
+   * @return the open duration of the circuit breaker.
+   */
+  public Duration getCircuitBreakerOpenDuration() {
+    return circuitBreakerOpenDuration;
+  }
+
+  /**
+   * The retries of a table in a second are limited to this percentage of the first attempts.
+   * Defaults to {@literal 20}.
+   *
+   * @return the percentage of the retry budget.
+   */
+  public int getRetryBudgetPercent() {
+    return retryBudgetPercent;
+  }
+
+  /**
+   * The retries of a table allowed in a second regardless of the first attempts. Defaults to
+   * {@literal 10}.
+   *
+   * @return the min retries per second.
+   */
+  public int getRetryBudgetMinPerSec() {
+    return retryBudgetMinPerSec;
+  }
+
+  /**
+   * The backoff of the first retry, which doubles on each following retry. Defaults to {@literal
+   * 50ms}.
+   *
+   * @return the base of the retry backoff.
+   */
+  public Duration getRetryBackoffBase() {
+    return retryBackoffBase;
+  }
+
+  /**
+   * The max backoff of the retries. Defaults to {@literal 0}, which means a third of the operation
+   * timeout.
+   *
+   * @return the max retry backoff.
+   */
+  public Duration getRetryBackoffMax() {
+    return retryBackoffMax;
+  }
+
+  /**
+   * The directory to cache the meta leader and the table configurations on disk. Defaults to
+   * {@literal ""}, which disables the routing cache.
+   *
+   * @return the directory of the routing cache.
+   */
+  public String getRoutingCacheDir() {
+    return routingCacheDir;
+  }
+
+  /**
+   * The threads to schedule the retries and the backup requests of the tables, and to complete the
+   * futures of the operations. Defaults to {@literal 1}.
+   *
+   * @return the number of table workers.
+   */
+  public int getTableWorkers() {
+    return tableWorkers;
+  }
+
+  /**
+   * The threads to notify the listeners of the operations' futures. Defaults to {@literal table}.
+   *
+   * @return the callback mode.
+   */
+  public String getCallbackMode() {
+    return callbackMode;
+  }
+
+  /**
+   * The executor to notify the listeners of the operations' futures. Defaults to {@literal null}.
+   *
+   * @return the callback executor.
+   */
+  public Executor getCallbackExecutor() {
+    return callbackExecutor;
+  }
 }
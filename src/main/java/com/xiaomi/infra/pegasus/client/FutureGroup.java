@@ -6,6 +6,7 @@ package com.xiaomi.infra.pegasus.client;
 import io.netty.util.concurrent.Future;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class FutureGroup<Result> {
 
@@ -56,5 +57,22 @@ public class FutureGroup<Result> {
     }
   }
 
+  /** Runs the callback once all future tasks complete, whether they succeed or not. */
+  public void whenAllComplete(Runnable callback) {
+    if (asyncTasks.isEmpty()) {
+      callback.run();
+      return;
+    }
+    AtomicInteger remaining = new AtomicInteger(asyncTasks.size());
+    for (Future<Result> task : asyncTasks) {
+      task.addListener(
+          f -> {
+            if (remaining.decrementAndGet() == 0) {
+              callback.run();
+            }
+          });
+    }
+  }
+
   private List<Future<Result>> asyncTasks;
 }
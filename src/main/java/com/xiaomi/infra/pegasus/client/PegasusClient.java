@@ -5,11 +5,16 @@ package com.xiaomi.infra.pegasus.client;
 
 import com.xiaomi.infra.pegasus.rpc.*;
 import com.xiaomi.infra.pegasus.tools.Tools;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
@@ -30,8 +35,8 @@ public class PegasusClient implements PegasusClientInterface {
 
   private boolean enableWriteLimit;
   private final Properties config;
-  private final ConcurrentHashMap<String, PegasusTable> tableMap;
-  private final Object tableMapLock;
+  private final ClusterOptions clusterOptions;
+  private final ConcurrentHashMap<String, Future<PegasusTable>> tableMap;
   private final String[] metaList;
   private Cluster cluster;
 
@@ -53,23 +58,71 @@ public class PegasusClient implements PegasusClientInterface {
   }
 
   private PegasusTable getTable(String tableName, int backupRequestDelayMs) throws PException {
-    PegasusTable table = tableMap.get(tableName);
-    if (table == null) {
-      synchronized (tableMapLock) {
-        table = tableMap.get(tableName);
-        if (table == null) {
-          try {
-            TableOptions options = new TableOptions(new PegasusHasher(), backupRequestDelayMs);
-            Table internalTable = cluster.openTable(tableName, options);
-            table = new PegasusTable(this, internalTable);
-          } catch (Throwable e) {
-            throw new PException(e);
-          }
-          tableMap.put(tableName, table);
-        }
+    Future<PegasusTable> future = tableMap.get(tableName);
+    if (future == null || !future.isSuccess()) {
+      if (cluster.inExecutor()) {
+        // the async open runs on the table executors, so it can't be waited for on one of them,
+        // such as in a listener of the async interfaces
+        return openTableBlocking(tableName, backupRequestDelayMs);
+      }
+      future = asyncGetTable(tableName, backupRequestDelayMs).awaitUninterruptibly();
+      if (!future.isSuccess()) {
+        throw (PException) future.cause();
       }
     }
-    return table;
+    return future.getNow();
+  }
+
+  private PegasusTable openTableBlocking(String tableName, int backupRequestDelayMs)
+      throws PException {
+    PegasusTable table;
+    try {
+      table =
+          new PegasusTable(
+              this, cluster.openTable(tableName, newTableOptions(backupRequestDelayMs)));
+    } catch (Throwable e) {
+      throw new PException(e);
+    }
+    // an open in flight is replaced, whose waiters still get the table it opens
+    Future<PegasusTable> opened = ImmediateEventExecutor.INSTANCE.newSucceededFuture(table);
+    return tableMap.compute(tableName, (k, f) -> f != null && f.isSuccess() ? f : opened).getNow();
+  }
+
+  // the concurrent opens of a table share the same future, and the tables are opened without
+  // holding a client-wide lock
+  private Future<PegasusTable> asyncGetTable(String tableName, int backupRequestDelayMs) {
+    Future<PegasusTable> future = tableMap.get(tableName);
+    if (future != null) {
+      return future;
+    }
+    Promise<PegasusTable> promise = cluster.getExecutor().newPromise();
+    future = tableMap.putIfAbsent(tableName, promise);
+    if (future != null) {
+      return future;
+    }
+
+    cluster
+        .asyncOpenTable(tableName, newTableOptions(backupRequestDelayMs))
+        .addListener(
+            (Future<Table> f) -> {
+              if (f.isSuccess()) {
+                promise.setSuccess(new PegasusTable(this, f.getNow()));
+              } else {
+                // a failed open is not cached, so it can be retried
+                tableMap.remove(tableName, promise);
+                promise.setFailure(new PException(f.cause()));
+              }
+            });
+    return promise;
+  }
+
+  private TableOptions newTableOptions(int backupRequestDelayMs) {
+    return new TableOptions(
+        new PegasusHasher(),
+        backupRequestDelayMs,
+        clusterOptions.enableAdaptiveBackupRequest(),
+        clusterOptions.backupRequestDelayPercentile(),
+        clusterOptions.backupRequestMaxPercent());
   }
 
   // pegasus client configuration keys
@@ -85,10 +138,15 @@ public class PegasusClient implements PegasusClientInterface {
   }
 
   public PegasusClient(Properties config) throws PException {
+    this(config, null);
+  }
+
+  /** @param callbackExecutor the executor to notify the listeners of the futures, nullable. */
+  public PegasusClient(Properties config, Executor callbackExecutor) throws PException {
     this.config = config;
-    this.cluster = Cluster.createCluster(config);
-    this.tableMap = new ConcurrentHashMap<String, PegasusTable>();
-    this.tableMapLock = new Object();
+    this.clusterOptions = ClusterOptions.create(config);
+    this.cluster = Cluster.createCluster(clusterOptions, callbackExecutor);
+    this.tableMap = new ConcurrentHashMap<String, Future<PegasusTable>>();
     this.metaList = cluster.getMetaList();
     this.enableWriteLimit =
         Boolean.parseBoolean(
@@ -219,6 +277,43 @@ public class PegasusClient implements PegasusClientInterface {
     return getTable(tableName, backupRequestDelayMs);
   }
 
+  @Override
+  public Future<PegasusTableInterface> asyncOpenTable(String tableName) {
+    return asyncOpenTable(tableName, 0);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Future<PegasusTableInterface> asyncOpenTable(String tableName, int backupRequestDelayMs) {
+    return (Future<PegasusTableInterface>)
+        (Future<?>) asyncGetTable(tableName, backupRequestDelayMs);
+  }
+
+  @Override
+  public List<PegasusTableInterface> openTables(List<String> tableNames) throws PException {
+    if (cluster.inExecutor()) {
+      // can't wait for the async opens, see getTable
+      List<PegasusTableInterface> tables = new ArrayList<>(tableNames.size());
+      for (String tableName : tableNames) {
+        tables.add(getTable(tableName));
+      }
+      return tables;
+    }
+    // issue all the opens before waiting for any of them
+    List<Future<PegasusTable>> futures = new ArrayList<>(tableNames.size());
+    for (String tableName : tableNames) {
+      futures.add(asyncGetTable(tableName, 0));
+    }
+    List<PegasusTableInterface> tables = new ArrayList<>(tableNames.size());
+    for (Future<PegasusTable> future : futures) {
+      if (!future.awaitUninterruptibly().isSuccess()) {
+        throw (PException) future.cause();
+      }
+      tables.add(future.getNow());
+    }
+    return tables;
+  }
+
   @Override
   public Properties getConfiguration() {
     return config;
@@ -57,7 +57,64 @@ public class PegasusClientFactory {
     pegasusConfig.setProperty("enable_write_limit", String.valueOf(options.isWriteLimitEnabled()));
     pegasusConfig.setProperty(
         "meta_query_timeout", String.valueOf(options.getMetaQueryTimeout().toMillis()));
-    return new PegasusClient(pegasusConfig);
+    pegasusConfig.setProperty("enable_native_epoll", String.valueOf(options.isEnableNativeEpoll()));
+    pegasusConfig.setProperty(
+        "epoll_busy_poll_micros", String.valueOf(options.getEpollBusyPollMicros()));
+    pegasusConfig.setProperty("epoll_tcp_quickack", String.valueOf(options.isEpollTcpQuickAck()));
+    pegasusConfig.setProperty(
+        "epoll_edge_triggered", String.valueOf(options.isEpollEdgeTriggered()));
+    pegasusConfig.setProperty(
+        "flush_batch_max_messages", String.valueOf(options.getFlushBatchMaxMessages()));
+    pegasusConfig.setProperty(
+        "flush_batch_max_bytes", String.valueOf(options.getFlushBatchMaxBytes()));
+    pegasusConfig.setProperty(
+        "flush_batch_max_delay_micros",
+        String.valueOf(options.getFlushBatchMaxDelay().toNanos() / 1000));
+    pegasusConfig.setProperty(
+        "connections_per_server", String.valueOf(options.getConnectionsPerServer()));
+    pegasusConfig.setProperty("connection_select_policy", options.getConnectionSelectPolicy());
+    pegasusConfig.setProperty(
+        "timeout_tick_ms", String.valueOf(options.getTimeoutTickInterval().toMillis()));
+    pegasusConfig.setProperty(
+        "session_max_inflight", String.valueOf(options.getSessionMaxInflight()));
+    pegasusConfig.setProperty(
+        "write_buffer_high_water_mark", String.valueOf(options.getWriteBufferHighWaterMark()));
+    pegasusConfig.setProperty(
+        "write_buffer_low_water_mark", String.valueOf(options.getWriteBufferLowWaterMark()));
+    pegasusConfig.setProperty("session_overload_policy", options.getSessionOverloadPolicy());
+    pegasusConfig.setProperty(
+        "enable_adaptive_backup_request", String.valueOf(options.isEnableAdaptiveBackupRequest()));
+    pegasusConfig.setProperty(
+        "backup_request_delay_percentile",
+        String.valueOf(options.getBackupRequestDelayPercentile()));
+    pegasusConfig.setProperty(
+        "backup_request_max_percent", String.valueOf(options.getBackupRequestMaxPercent()));
+    pegasusConfig.setProperty("read_routing_policy", options.getReadRoutingPolicy());
+    pegasusConfig.setProperty(
+        "circuit_breaker_window_ms", String.valueOf(options.getCircuitBreakerWindow().toMillis()));
+    pegasusConfig.setProperty(
+        "circuit_breaker_min_requests", String.valueOf(options.getCircuitBreakerMinRequests()));
+    pegasusConfig.setProperty(
+        "circuit_breaker_failure_percent",
+        String.valueOf(options.getCircuitBreakerFailurePercent()));
+    pegasusConfig.setProperty(
+        "circuit_breaker_slow_call_ms",
+        String.valueOf(options.getCircuitBreakerSlowCall().toMillis()));
+    pegasusConfig.setProperty(
+        "circuit_breaker_open_ms",
+        String.valueOf(options.getCircuitBreakerOpenDuration().toMillis()));
+    pegasusConfig.setProperty(
+        "retry_budget_percent", String.valueOf(options.getRetryBudgetPercent()));
+    pegasusConfig.setProperty(
+        "retry_budget_min_per_sec", String.valueOf(options.getRetryBudgetMinPerSec()));
+    pegasusConfig.setProperty(
+        "retry_backoff_base_ms", String.valueOf(options.getRetryBackoffBase().toMillis()));
+    pegasusConfig.setProperty(
+        "retry_backoff_max_ms", String.valueOf(options.getRetryBackoffMax().toMillis()));
+    pegasusConfig.setProperty("routing_cache_dir", options.getRoutingCacheDir());
+    pegasusConfig.setProperty("table_workers", String.valueOf(options.getTableWorkers()));
+    pegasusConfig.setProperty("callback_mode", options.getCallbackMode());
+    return new PegasusClient(pegasusConfig, options.getCallbackExecutor());
   }
 
   /**
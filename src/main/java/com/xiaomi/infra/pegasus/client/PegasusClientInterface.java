@@ -3,6 +3,7 @@
 // can be found in the LICENSE file in the root directory of this source tree.
 package com.xiaomi.infra.pegasus.client;
 
+import io.netty.util.concurrent.Future;
 import java.util.*;
 import org.apache.commons.lang3.tuple.Pair;
 
@@ -64,6 +65,36 @@ public interface PegasusClientInterface {
   public PegasusTableInterface openTable(String tableName, int backupRequestDelayMs)
       throws PException;
 
+  /**
+   * Open a table asynchronously.
+   *
+   * @param tableName the table should be exist on the server, which is created before by the system
+   *     administrator
+   * @return the future of the table handler, which fails with PException if any error occurs.
+   */
+  public Future<PegasusTableInterface> asyncOpenTable(String tableName);
+
+  /**
+   * Open a table asynchronously. The meta query and the connections to the replica-servers are
+   * prepared in the background, so the caller is not blocked.
+   *
+   * @param tableName the table should be exist on the server, which is created before by the system
+   *     administrator
+   * @param backupRequestDelayMs the delay time to send backup request. If backupRequestDelayMs <=
+   *     0, The backup request is disabled.
+   * @return the future of the table handler, which fails with PException if any error occurs.
+   */
+  public Future<PegasusTableInterface> asyncOpenTable(String tableName, int backupRequestDelayMs);
+
+  /**
+   * Open the tables concurrently, which is faster than opening them one by one.
+   *
+   * @param tableNames the tables should be exist on the server
+   * @return the table handlers in the same order as tableNames
+   * @throws PException throws exception if any table fails to open.
+   */
+  public List<PegasusTableInterface> openTables(List<String> tableNames) throws PException;
+
   /**
    * Check value exist by key from the cluster
    *
@@ -0,0 +1,208 @@
+// Copyright (c) 2017, Xiaomi, Inc.  All rights reserved.
+// This source code is licensed under the Apache License Version 2.0, which
+// can be found in the LICENSE file in the root directory of this source tree.
+package com.xiaomi.infra.pegasus.client;
+
+import com.xiaomi.infra.pegasus.client.PegasusTableInterface.CheckAndMutateResult;
+import com.xiaomi.infra.pegasus.client.PegasusTableInterface.CheckAndSetResult;
+import com.xiaomi.infra.pegasus.client.PegasusTableInterface.CompareExchangeResult;
+import com.xiaomi.infra.pegasus.client.PegasusTableInterface.MultiGetResult;
+import com.xiaomi.infra.pegasus.client.PegasusTableInterface.MultiGetSortKeysResult;
+import io.netty.util.concurrent.Future;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.apache.commons.lang3.tuple.Pair;
+
+/**
+ * Implementation of {@link PegasusCompletableTableInterface}, which adapts the futures of a {@link
+ * PegasusTableInterface}. The view of a {@link PegasusTable} adapts the futures notified directly
+ * by the completing thread, so that completing a {@link CompletableFuture} takes no extra thread
+ * hop.
+ */
+public class PegasusCompletableTable implements PegasusCompletableTableInterface {
+  private final PegasusTableInterface table;
+
+  /** @param table the table whose async interfaces return netty futures. */
+  PegasusCompletableTable(PegasusTableInterface table) {
+    this.table = table;
+  }
+
+  static <T> CompletableFuture<T> toCompletableFuture(Future<T> future) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    future.addListener(
+        f -> {
+          if (future.isSuccess()) {
+            result.complete(future.getNow());
+          } else {
+            result.completeExceptionally(future.cause());
+          }
+        });
+    return result;
+  }
+
+  @Override
+  public CompletableFuture<Boolean> asyncExist(byte[] hashKey, byte[] sortKey, int timeout) {
+    return toCompletableFuture(table.asyncExist(hashKey, sortKey, timeout));
+  }
+
+  @Override
+  public CompletableFuture<Long> asyncSortKeyCount(byte[] hashKey, int timeout) {
+    return toCompletableFuture(table.asyncSortKeyCount(hashKey, timeout));
+  }
+
+  @Override
+  public CompletableFuture<byte[]> asyncGet(byte[] hashKey, byte[] sortKey, int timeout) {
+    return toCompletableFuture(table.asyncGet(hashKey, sortKey, timeout));
+  }
+
+  @Override
+  public CompletableFuture<MultiGetResult> asyncMultiGet(
+      byte[] hashKey, List<byte[]> sortKeys, int maxFetchCount, int maxFetchSize, int timeout) {
+    return toCompletableFuture(
+        table.asyncMultiGet(hashKey, sortKeys, maxFetchCount, maxFetchSize, timeout));
+  }
+
+  @Override
+  public CompletableFuture<MultiGetResult> asyncMultiGet(
+      byte[] hashKey, List<byte[]> sortKeys, int timeout) {
+    return toCompletableFuture(table.asyncMultiGet(hashKey, sortKeys, timeout));
+  }
+
+  @Override
+  public CompletableFuture<MultiGetResult> asyncMultiGet(
+      byte[] hashKey,
+      byte[] startSortKey,
+      byte[] stopSortKey,
+      MultiGetOptions options,
+      int maxFetchCount,
+      int maxFetchSize,
+      int timeout) {
+    return toCompletableFuture(
+        table.asyncMultiGet(
+            hashKey, startSortKey, stopSortKey, options, maxFetchCount, maxFetchSize, timeout));
+  }
+
+  @Override
+  public CompletableFuture<MultiGetResult> asyncMultiGet(
+      byte[] hashKey,
+      byte[] startSortKey,
+      byte[] stopSortKey,
+      MultiGetOptions options,
+      int timeout) {
+    return toCompletableFuture(
+        table.asyncMultiGet(hashKey, startSortKey, stopSortKey, options, timeout));
+  }
+
+  @Override
+  public CompletableFuture<MultiGetSortKeysResult> asyncMultiGetSortKeys(
+      byte[] hashKey, int maxFetchCount, int maxFetchSize, int timeout) {
+    return toCompletableFuture(
+        table.asyncMultiGetSortKeys(hashKey, maxFetchCount, maxFetchSize, timeout));
+  }
+
+  @Override
+  public CompletableFuture<MultiGetSortKeysResult> asyncMultiGetSortKeys(
+      byte[] hashKey, int timeout) {
+    return toCompletableFuture(table.asyncMultiGetSortKeys(hashKey, timeout));
+  }
+
+  @Override
+  public CompletableFuture<Void> asyncSet(
+      byte[] hashKey, byte[] sortKey, byte[] value, int ttlSeconds, int timeout) {
+    return toCompletableFuture(table.asyncSet(hashKey, sortKey, value, ttlSeconds, timeout));
+  }
+
+  @Override
+  public CompletableFuture<Void> asyncSet(
+      byte[] hashKey, byte[] sortKey, byte[] value, int timeout) {
+    return toCompletableFuture(table.asyncSet(hashKey, sortKey, value, timeout));
+  }
+
+  @Override
+  public CompletableFuture<Void> asyncMultiSet(
+      byte[] hashKey, List<Pair<byte[], byte[]>> values, int ttlSeconds, int timeout) {
+    return toCompletableFuture(table.asyncMultiSet(hashKey, values, ttlSeconds, timeout));
+  }
+
+  @Override
+  public CompletableFuture<Void> asyncMultiSet(
+      byte[] hashKey, List<Pair<byte[], byte[]>> values, int timeout) {
+    return toCompletableFuture(table.asyncMultiSet(hashKey, values, timeout));
+  }
+
+  @Override
+  public CompletableFuture<Void> asyncDel(byte[] hashKey, byte[] sortKey, int timeout) {
+    return toCompletableFuture(table.asyncDel(hashKey, sortKey, timeout));
+  }
+
+  @Override
+  public CompletableFuture<Void> asyncMultiDel(byte[] hashKey, List<byte[]> sortKeys, int timeout) {
+    return toCompletableFuture(table.asyncMultiDel(hashKey, sortKeys, timeout));
+  }
+
+  @Override
+  public CompletableFuture<Long> asyncIncr(
+      byte[] hashKey, byte[] sortKey, long increment, int ttlSeconds, int timeout) {
+    return toCompletableFuture(table.asyncIncr(hashKey, sortKey, increment, ttlSeconds, timeout));
+  }
+
+  @Override
+  public CompletableFuture<Long> asyncIncr(
+      byte[] hashKey, byte[] sortKey, long increment, int timeout) {
+    return toCompletableFuture(table.asyncIncr(hashKey, sortKey, increment, timeout));
+  }
+
+  @Override
+  public CompletableFuture<CheckAndSetResult> asyncCheckAndSet(
+      byte[] hashKey,
+      byte[] checkSortKey,
+      CheckType checkType,
+      byte[] checkOperand,
+      byte[] setSortKey,
+      byte[] setValue,
+      CheckAndSetOptions options,
+      int timeout) {
+    return toCompletableFuture(
+        table.asyncCheckAndSet(
+            hashKey,
+            checkSortKey,
+            checkType,
+            checkOperand,
+            setSortKey,
+            setValue,
+            options,
+            timeout));
+  }
+
+  @Override
+  public CompletableFuture<CheckAndMutateResult> asyncCheckAndMutate(
+      byte[] hashKey,
+      byte[] checkSortKey,
+      CheckType checkType,
+      byte[] checkOperand,
+      Mutations mutations,
+      CheckAndMutateOptions options,
+      int timeout) {
+    return toCompletableFuture(
+        table.asyncCheckAndMutate(
+            hashKey, checkSortKey, checkType, checkOperand, mutations, options, timeout));
+  }
+
+  @Override
+  public CompletableFuture<CompareExchangeResult> asyncCompareExchange(
+      byte[] hashKey,
+      byte[] sortKey,
+      byte[] expectedValue,
+      byte[] desiredValue,
+      int ttlSeconds,
+      int timeout) {
+    return toCompletableFuture(
+        table.asyncCompareExchange(
+            hashKey, sortKey, expectedValue, desiredValue, ttlSeconds, timeout));
+  }
+
+  @Override
+  public CompletableFuture<Integer> asyncTTL(byte[] hashKey, byte[] sortKey, int timeout) {
+    return toCompletableFuture(table.asyncTTL(hashKey, sortKey, timeout));
+  }
+}
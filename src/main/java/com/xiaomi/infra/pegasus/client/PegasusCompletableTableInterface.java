@@ -0,0 +1,155 @@
+// Copyright (c) 2017, Xiaomi, Inc.  All rights reserved.
+// This source code is licensed under the Apache License Version 2.0, which
+// can be found in the LICENSE file in the root directory of this source tree.
+package com.xiaomi.infra.pegasus.client;
+
+import com.xiaomi.infra.pegasus.client.PegasusTableInterface.CheckAndMutateResult;
+import com.xiaomi.infra.pegasus.client.PegasusTableInterface.CheckAndSetResult;
+import com.xiaomi.infra.pegasus.client.PegasusTableInterface.CompareExchangeResult;
+import com.xiaomi.infra.pegasus.client.PegasusTableInterface.MultiGetResult;
+import com.xiaomi.infra.pegasus.client.PegasusTableInterface.MultiGetSortKeysResult;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.apache.commons.lang3.tuple.Pair;
+
+/**
+ * The async interfaces of {@link PegasusTableInterface} in {@link CompletableFuture} mode, which
+ * can be composed with the other {@link java.util.concurrent.CompletionStage}s. The parameters and
+ * the results are the same as the netty future versions; if an operation fails, the future is
+ * completed exceptionally with the same cause, usually a {@link PException}.
+ *
+ * <p>The futures are completed directly by the thread which completes the operation, usually the
+ * replica I/O thread, so the non-async stages chained to them must be trivial and never block. Use
+ * the async stages, such as {@link CompletableFuture#thenApplyAsync(java.util.function.Function,
+ * java.util.concurrent.Executor)}, to run the time-consuming ones on your own executor.
+ *
+ * <p>An example:
+ *
+ * <pre>{@code
+ * PegasusCompletableTableInterface table = client.openTable(tableName).asCompletable();
+ * table.asyncGet(hashKey, sortKey, 0)
+ *     .thenCompose(value -> table.asyncSet(hashKey, otherSortKey, value, 0))
+ *     .exceptionally(e -> { e.printStackTrace(); return null; });
+ * }</pre>
+ */
+public interface PegasusCompletableTableInterface {
+  /** @see PegasusTableInterface#asyncExist(byte[], byte[], int) */
+  public CompletableFuture<Boolean> asyncExist(byte[] hashKey, byte[] sortKey, int timeout /*ms*/);
+
+  /** @see PegasusTableInterface#asyncSortKeyCount(byte[], int) */
+  public CompletableFuture<Long> asyncSortKeyCount(byte[] hashKey, int timeout /*ms*/);
+
+  /** @see PegasusTableInterface#asyncGet(byte[], byte[], int) */
+  public CompletableFuture<byte[]> asyncGet(byte[] hashKey, byte[] sortKey, int timeout /*ms*/);
+
+  /** @see PegasusTableInterface#asyncMultiGet(byte[], List, int, int, int) */
+  public CompletableFuture<MultiGetResult> asyncMultiGet(
+      byte[] hashKey,
+      List<byte[]> sortKeys,
+      int maxFetchCount,
+      int maxFetchSize,
+      int timeout /*ms*/);
+
+  /** @see PegasusTableInterface#asyncMultiGet(byte[], List, int) */
+  public CompletableFuture<MultiGetResult> asyncMultiGet(
+      byte[] hashKey, List<byte[]> sortKeys, int timeout /*ms*/);
+
+  /**
+   * @see PegasusTableInterface#asyncMultiGet(byte[], byte[], byte[], MultiGetOptions, int, int,
+   *     int)
+   */
+  public CompletableFuture<MultiGetResult> asyncMultiGet(
+      byte[] hashKey,
+      byte[] startSortKey,
+      byte[] stopSortKey,
+      MultiGetOptions options,
+      int maxFetchCount,
+      int maxFetchSize,
+      int timeout /*ms*/);
+
+  /** @see PegasusTableInterface#asyncMultiGet(byte[], byte[], byte[], MultiGetOptions, int) */
+  public CompletableFuture<MultiGetResult> asyncMultiGet(
+      byte[] hashKey,
+      byte[] startSortKey,
+      byte[] stopSortKey,
+      MultiGetOptions options,
+      int timeout /*ms*/);
+
+  /** @see PegasusTableInterface#asyncMultiGetSortKeys(byte[], int, int, int) */
+  public CompletableFuture<MultiGetSortKeysResult> asyncMultiGetSortKeys(
+      byte[] hashKey, int maxFetchCount, int maxFetchSize, int timeout /*ms*/);
+
+  /** @see PegasusTableInterface#asyncMultiGetSortKeys(byte[], int) */
+  public CompletableFuture<MultiGetSortKeysResult> asyncMultiGetSortKeys(
+      byte[] hashKey, int timeout /*ms*/);
+
+  /** @see PegasusTableInterface#asyncSet(byte[], byte[], byte[], int, int) */
+  public CompletableFuture<Void> asyncSet(
+      byte[] hashKey, byte[] sortKey, byte[] value, int ttlSeconds, int timeout /*ms*/);
+
+  /** @see PegasusTableInterface#asyncSet(byte[], byte[], byte[], int) */
+  public CompletableFuture<Void> asyncSet(
+      byte[] hashKey, byte[] sortKey, byte[] value, int timeout /*ms*/);
+
+  /** @see PegasusTableInterface#asyncMultiSet(byte[], List, int, int) */
+  public CompletableFuture<Void> asyncMultiSet(
+      byte[] hashKey, List<Pair<byte[], byte[]>> values, int ttlSeconds, int timeout /*ms*/);
+
+  /** @see PegasusTableInterface#asyncMultiSet(byte[], List, int) */
+  public CompletableFuture<Void> asyncMultiSet(
+      byte[] hashKey, List<Pair<byte[], byte[]>> values, int timeout /*ms*/);
+
+  /** @see PegasusTableInterface#asyncDel(byte[], byte[], int) */
+  public CompletableFuture<Void> asyncDel(byte[] hashKey, byte[] sortKey, int timeout /*ms*/);
+
+  /** @see PegasusTableInterface#asyncMultiDel(byte[], List, int) */
+  public CompletableFuture<Void> asyncMultiDel(
+      byte[] hashKey, List<byte[]> sortKeys, int timeout /*ms*/);
+
+  /** @see PegasusTableInterface#asyncIncr(byte[], byte[], long, int, int) */
+  public CompletableFuture<Long> asyncIncr(
+      byte[] hashKey, byte[] sortKey, long increment, int ttlSeconds, int timeout /*ms*/);
+
+  /** @see PegasusTableInterface#asyncIncr(byte[], byte[], long, int) */
+  public CompletableFuture<Long> asyncIncr(
+      byte[] hashKey, byte[] sortKey, long increment, int timeout /*ms*/);
+
+  /**
+   * @see PegasusTableInterface#asyncCheckAndSet(byte[], byte[], CheckType, byte[], byte[], byte[],
+   *     CheckAndSetOptions, int)
+   */
+  public CompletableFuture<CheckAndSetResult> asyncCheckAndSet(
+      byte[] hashKey,
+      byte[] checkSortKey,
+      CheckType checkType,
+      byte[] checkOperand,
+      byte[] setSortKey,
+      byte[] setValue,
+      CheckAndSetOptions options,
+      int timeout /*ms*/);
+
+  /**
+   * @see PegasusTableInterface#asyncCheckAndMutate(byte[], byte[], CheckType, byte[], Mutations,
+   *     CheckAndMutateOptions, int)
+   */
+  public CompletableFuture<CheckAndMutateResult> asyncCheckAndMutate(
+      byte[] hashKey,
+      byte[] checkSortKey,
+      CheckType checkType,
+      byte[] checkOperand,
+      Mutations mutations,
+      CheckAndMutateOptions options,
+      int timeout /*ms*/);
+
+  /** @see PegasusTableInterface#asyncCompareExchange(byte[], byte[], byte[], byte[], int, int) */
+  public CompletableFuture<CompareExchangeResult> asyncCompareExchange(
+      byte[] hashKey,
+      byte[] sortKey,
+      byte[] expectedValue,
+      byte[] desiredValue,
+      int ttlSeconds,
+      int timeout /*ms*/);
+
+  /** @see PegasusTableInterface#asyncTTL(byte[], byte[], int) */
+  public CompletableFuture<Integer> asyncTTL(byte[] hashKey, byte[] sortKey, int timeout /*ms*/);
+}
@@ -0,0 +1,310 @@
+// Copyright (c) 2017, Xiaomi, Inc.  All rights reserved.
+// This source code is licensed under the Apache License Version 2.0, which
+// can be found in the LICENSE file in the root directory of this source tree.
+package com.xiaomi.infra.pegasus.client;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.lang3.tuple.Pair;
+import org.slf4j.Logger;
+
+/**
+ * PegasusScanPublisher publishes the records of scanners to a subscriber as fast as the subscriber
+ * requests them. The interfaces follow the Reactive Streams specification, so a subscriber of
+ * org.reactivestreams or java.util.concurrent.Flow can be bridged by a trivial adapter.
+ *
+ * <p>Each scanner has at most one fetch outstanding, and no more scanners are fetching than the
+ * unfulfilled demand or {@code maxConcurrentScanners}, so the get_scanner/scan batches in flight
+ * are driven by the demand, and a slow subscriber holds at most a batch of each started scanner in
+ * memory. No thread is blocked waiting for the records.
+ *
+ * <p>The records of a scanner are published in order, while the records of different scanners are
+ * interleaved. The subscriber is signalled serially, on the thread which requests or the thread
+ * which completes a fetch, so it must not block. The scanners are closed once they're exhausted, or
+ * when the subscription is cancelled or fails. A publisher can be subscribed only once.
+ *
+ * <p>An example:
+ *
+ * <pre>{@code
+ * List<PegasusScannerInterface> scanners = table.getUnorderedScanners(16, new ScanOptions());
+ * new PegasusScanPublisher(scanners, 4).subscribe(subscriber);
+ * }</pre>
+ */
+public class PegasusScanPublisher {
+  private static final Logger logger =
+      org.slf4j.LoggerFactory.getLogger(PegasusScanPublisher.class);
+
+  /** Receives the records, see org.reactivestreams.Subscriber. */
+  public interface Subscriber<T> {
+    void onSubscribe(Subscription subscription);
+
+    void onNext(T item);
+
+    void onError(Throwable cause);
+
+    void onComplete();
+  }
+
+  /** The demand of a subscriber, see org.reactivestreams.Subscription. */
+  public interface Subscription {
+    void request(long n);
+
+    void cancel();
+  }
+
+  // the completion of a fetch, the record is null if the scanner is exhausted
+  private static final class Fetched {
+    final PegasusScannerInterface scanner;
+    final Pair<Pair<byte[], byte[]>, byte[]> record;
+    final Throwable cause;
+
+    Fetched(
+        PegasusScannerInterface scanner,
+        Pair<Pair<byte[], byte[]>, byte[]> record,
+        Throwable cause) {
+      this.scanner = scanner;
+      this.record = record;
+      this.cause = cause;
+    }
+  }
+
+  private final int maxConcurrentScanners;
+  private final AtomicBoolean subscribed = new AtomicBoolean(false);
+  private Subscriber<? super Pair<Pair<byte[], byte[]>, byte[]>> subscriber;
+
+  private final AtomicLong requested = new AtomicLong(0);
+  private final AtomicInteger wip = new AtomicInteger(0);
+  private final Queue<Fetched> fetched = new ConcurrentLinkedQueue<>();
+  private volatile boolean cancelled = false;
+  private volatile Throwable invalidRequest = null;
+
+  // accessed in the drain loop only
+  private final Deque<PegasusScannerInterface> pending;
+  private final Deque<PegasusScannerInterface> idle = new ArrayDeque<>();
+  private final Queue<Pair<Pair<byte[], byte[]>, byte[]>> ready = new ArrayDeque<>();
+  private int started = 0;
+  private int fetching = 0;
+  private boolean terminated = false;
+
+  public PegasusScanPublisher(PegasusScannerInterface scanner) {
+    this(Collections.singletonList(scanner), 1);
+  }
+
+  /**
+   * @param scanners the scanners to publish, such as the ones of getUnorderedScanners.
+   * @param maxConcurrentScanners how many scanners are fetching at most at the same time.
+   */
+  public PegasusScanPublisher(List<PegasusScannerInterface> scanners, int maxConcurrentScanners) {
+    if (maxConcurrentScanners <= 0) {
+      throw new IllegalArgumentException("maxConcurrentScanners must be greater than 0");
+    }
+    this.pending = new ArrayDeque<>(scanners);
+    this.maxConcurrentScanners = maxConcurrentScanners;
+  }
+
+  public void subscribe(Subscriber<? super Pair<Pair<byte[], byte[]>, byte[]>> subscriber) {
+    if (subscriber == null) {
+      throw new NullPointerException("subscriber");
+    }
+    if (!subscribed.compareAndSet(false, true)) {
+      subscriber.onSubscribe(
+          new Subscription() {
+            @Override
+            public void request(long n) {}
+
+            @Override
+            public void cancel() {}
+          });
+      subscriber.onError(new IllegalStateException("the publisher is already subscribed"));
+      return;
+    }
+    this.subscriber = subscriber;
+    subscriber.onSubscribe(
+        new Subscription() {
+          @Override
+          public void request(long n) {
+            if (n <= 0) {
+              invalidRequest =
+                  new IllegalArgumentException("the requested count must be positive: " + n);
+            } else {
+              addRequested(n);
+            }
+            drain();
+          }
+
+          @Override
+          public void cancel() {
+            cancelled = true;
+            drain();
+          }
+        });
+    // an empty publisher completes without demand
+    drain();
+  }
+
+  private void addRequested(long n) {
+    while (true) {
+      long current = requested.get();
+      if (current == Long.MAX_VALUE) {
+        return;
+      }
+      long next = current + n < 0 ? Long.MAX_VALUE : current + n;
+      if (requested.compareAndSet(current, next)) {
+        return;
+      }
+    }
+  }
+
+  // the signals are serialized by the work-in-progress counter: whoever increases it from 0 drains
+  // until no more work is missed
+  private void drain() {
+    if (wip.getAndIncrement() != 0) {
+      return;
+    }
+    int missed = 1;
+    do {
+      drainOnce();
+      missed = wip.addAndGet(-missed);
+    } while (missed != 0);
+  }
+
+  private void drainOnce() {
+    if (terminated) {
+      // close the scanners whose fetches return after the termination
+      Fetched f;
+      while ((f = fetched.poll()) != null) {
+        closeScanner(f.scanner);
+      }
+      return;
+    }
+    if (cancelled) {
+      terminate(null);
+      return;
+    }
+    if (invalidRequest != null) {
+      terminate(invalidRequest);
+      return;
+    }
+
+    Fetched f;
+    while ((f = fetched.poll()) != null) {
+      fetching--;
+      if (f.cause != null) {
+        closeScanner(f.scanner);
+        terminate(f.cause);
+        return;
+      }
+      if (f.record == null) {
+        closeScanner(f.scanner);
+        started--;
+      } else {
+        ready.add(f.record);
+        idle.add(f.scanner);
+      }
+    }
+
+    long r = requested.get();
+    long emitted = 0;
+    while (emitted != r && !ready.isEmpty()) {
+      subscriber.onNext(ready.poll());
+      emitted++;
+      if (cancelled) {
+        terminate(null);
+        return;
+      }
+    }
+    if (emitted != 0 && r != Long.MAX_VALUE) {
+      r = requested.addAndGet(-emitted);
+    }
+
+    if (ready.isEmpty() && fetching == 0 && started == 0 && pending.isEmpty()) {
+      terminated = true;
+      Subscriber<? super Pair<Pair<byte[], byte[]>, byte[]>> s = subscriber;
+      subscriber = null;
+      s.onComplete();
+      return;
+    }
+
+    // prefetch for the unfulfilled demand
+    while (fetching < r - ready.size()) {
+      PegasusScannerInterface scanner = idle.poll();
+      if (scanner == null) {
+        if (started >= maxConcurrentScanners || pending.isEmpty()) {
+          break;
+        }
+        scanner = pending.poll();
+        started++;
+      }
+      fetching++;
+      fetch(scanner);
+    }
+  }
+
+  private void fetch(PegasusScannerInterface scanner) {
+    java.util.concurrent.Future<Pair<Pair<byte[], byte[]>, byte[]>> future;
+    try {
+      future = scanner.asyncNext();
+    } catch (Throwable e) {
+      fetched.add(new Fetched(scanner, null, e));
+      return;
+    }
+    if (!(future instanceof io.netty.util.concurrent.Future)) {
+      fetched.add(
+          new Fetched(
+              scanner,
+              null,
+              new IllegalArgumentException("the scanner's future can't be listened")));
+      return;
+    }
+    @SuppressWarnings("unchecked")
+    io.netty.util.concurrent.Future<Pair<Pair<byte[], byte[]>, byte[]>> nettyFuture =
+        (io.netty.util.concurrent.Future<Pair<Pair<byte[], byte[]>, byte[]>>) future;
+    nettyFuture.addListener(
+        f -> {
+          if (nettyFuture.isSuccess()) {
+            fetched.add(new Fetched(scanner, nettyFuture.getNow(), null));
+          } else {
+            fetched.add(new Fetched(scanner, null, nettyFuture.cause()));
+          }
+          drain();
+        });
+  }
+
+  private void terminate(Throwable cause) {
+    terminated = true;
+    for (PegasusScannerInterface scanner : idle) {
+      closeScanner(scanner);
+    }
+    idle.clear();
+    for (PegasusScannerInterface scanner : pending) {
+      closeScanner(scanner);
+    }
+    pending.clear();
+    ready.clear();
+    Subscriber<? super Pair<Pair<byte[], byte[]>, byte[]>> s = subscriber;
+    subscriber = null;
+    if (cause != null) {
+      s.onError(cause);
+    }
+  }
+
+  // the scanner is closed without waiting for the server, so that the caller is never blocked
+  private static void closeScanner(PegasusScannerInterface scanner) {
+    try {
+      if (scanner instanceof PegasusScanner) {
+        ((PegasusScanner) scanner).asyncClose();
+      } else {
+        scanner.close();
+      }
+    } catch (Throwable e) {
+      logger.warn("failed to close the scanner: ", e);
+    }
+  }
+}
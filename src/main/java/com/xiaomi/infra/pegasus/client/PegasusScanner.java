@@ -13,7 +13,9 @@ import com.xiaomi.infra.pegasus.operator.rrdb_get_scanner_operator;
 import com.xiaomi.infra.pegasus.operator.rrdb_scan_operator;
 import com.xiaomi.infra.pegasus.rpc.ReplicationException;
 import com.xiaomi.infra.pegasus.rpc.Table;
+import com.xiaomi.infra.pegasus.tools.Completion;
 import io.netty.util.concurrent.*;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Deque;
 import java.util.LinkedList;
@@ -66,7 +68,7 @@ public class PegasusScanner implements PegasusScannerInterface {
     _contextId = CONTEXT_ID_COMPLETED;
     _partitionIter = _partitions.length;
     _kvs = new ArrayList<key_value>();
-    _promises = new LinkedList<DefaultPromise<Pair<Pair<byte[], byte[]>, byte[]>>>();
+    _promises = new LinkedList<DefaultPromise<?>>();
     _rpcRunning = false;
     _encounterError = false;
     _needCheckHash = needCheckHash;
@@ -75,7 +77,8 @@ public class PegasusScanner implements PegasusScannerInterface {
 
   public Pair<Pair<byte[], byte[]>, byte[]> next() throws PException {
     try {
-      return asyncNext().get(_options.timeoutMillis, TimeUnit.MILLISECONDS);
+      Completion.checkDeadLock(_table.inEventLoop());
+      return Completion.get(enqueueNext(), _options.timeoutMillis, TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) {
       throw new PException(new ReplicationException(error_code.error_types.ERR_TIMEOUT));
     } catch (TimeoutException e) {
@@ -86,7 +89,41 @@ public class PegasusScanner implements PegasusScannerInterface {
   }
 
   public Future<Pair<Pair<byte[], byte[]>, byte[]>> asyncNext() {
+    return enqueueNext();
+  }
+
+  private DefaultPromise<Pair<Pair<byte[], byte[]>, byte[]>> enqueueNext() {
     final DefaultPromise<Pair<Pair<byte[], byte[]>, byte[]>> promise = _table.newPromise();
+    enqueue(promise);
+    return promise;
+  }
+
+  @Override
+  public ScanBatch nextBatch() throws PException {
+    try {
+      Completion.checkDeadLock(_table.inEventLoop());
+      return Completion.get(enqueueNextBatch(), _options.timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      throw new PException(new ReplicationException(error_code.error_types.ERR_TIMEOUT));
+    } catch (TimeoutException e) {
+      throw new PException(new ReplicationException(error_code.error_types.ERR_TIMEOUT));
+    } catch (ExecutionException e) {
+      throw new PException(e);
+    }
+  }
+
+  @Override
+  public Future<ScanBatch> asyncNextBatch() {
+    return enqueueNextBatch();
+  }
+
+  private BatchPromise enqueueNextBatch() {
+    final BatchPromise promise = new BatchPromise(_table.getExecutor());
+    enqueue(promise);
+    return promise;
+  }
+
+  private void enqueue(DefaultPromise<?> promise) {
     synchronized (_promisesLock) {
       if (_promises.isEmpty()) {
         _promises.add(promise);
@@ -96,22 +133,61 @@ public class PegasusScanner implements PegasusScannerInterface {
         _promises.add(promise);
       }
     }
-    return promise;
   }
 
   @Override
   public void close() {
-    if (_contextId >= CONTEXT_ID_VALID_MIN) {
+    long contextId = CONTEXT_ID_COMPLETED;
+    gpid contextGpid = null;
+    long contextHash = 0;
+    synchronized (_promisesLock) {
+      _closed = true;
+      // the context of a running rpc is cleared by its callback once the rpc returns
+      if (!_rpcRunning && _contextId >= CONTEXT_ID_VALID_MIN) {
+        contextId = _contextId;
+        contextGpid = _gpid;
+        contextHash = _hash;
+        _contextId = CONTEXT_ID_COMPLETED;
+      }
+      _partitionIter = 0;
+    }
+    // waits for the server out of the lock, which the callbacks of the rpcs take
+    if (contextId >= CONTEXT_ID_VALID_MIN) {
       try {
         rrdb_clear_scanner_operator op =
-            new rrdb_clear_scanner_operator(_gpid, _table.getTableName(), _contextId, _hash);
+            new rrdb_clear_scanner_operator(
+                contextGpid, _table.getTableName(), contextId, contextHash);
         _table.operate(op, 0);
       } catch (Throwable e) {
         // ignore
       }
+    }
+  }
+
+  /** Closes the scanner like {@link #close()}, but doesn't wait for the server to clear it. */
+  void asyncClose() {
+    synchronized (_promisesLock) {
+      _closed = true;
+      if (!_rpcRunning) {
+        asyncClearContext();
+      }
+      _partitionIter = 0;
+    }
+  }
+
+  private void asyncClearContext() {
+    if (_contextId >= CONTEXT_ID_VALID_MIN) {
+      rrdb_clear_scanner_operator op =
+          new rrdb_clear_scanner_operator(_gpid, _table.getTableName(), _contextId, _hash);
+      _table.asyncOperate(
+          op,
+          new Table.ClientOPCallback() {
+            @Override
+            public void onCompletion(client_operator clientOP) {}
+          },
+          _options.timeoutMillis);
       _contextId = CONTEXT_ID_COMPLETED;
     }
-    _partitionIter = 0;
   }
 
   private void asyncStartScan() {
@@ -127,11 +203,11 @@ public class PegasusScanner implements PegasusScannerInterface {
     }
     _rpcRunning = true;
     get_scanner_request request = new get_scanner_request();
-    if (_kvs.isEmpty()) {
+    if (_lastKey == null) {
       request.start_key = _startKey;
       request.start_inclusive = _options.startInclusive;
     } else {
-      request.start_key = _kvs.get(_kvs.size() - 1).key;
+      request.start_key = _lastKey;
       request.start_inclusive = false;
     }
     request.stop_key = _stopKey;
@@ -163,7 +239,7 @@ public class PegasusScanner implements PegasusScannerInterface {
     _table.asyncOperate(op, callback, _options.timeoutMillis);
   }
 
-  private void asyncNextBatch() {
+  private void asyncScan() {
     if (_rpcRunning) {
       logger.error(
           "scan rpc already be running, encounter logic error, we just abandon this scan, "
@@ -207,15 +283,13 @@ public class PegasusScanner implements PegasusScannerInterface {
 
     if (err.errno == error_code.error_types.ERR_OK) {
       if (response.error == 0) { // ERR_OK
-        _kvs = response.kvs;
-        _readKvIter = -1;
+        onRecvBatch(response.kvs);
         _contextId = response.context_id;
       } else if (response.error
           == 1) { // rocksDB error kNotFound, that scan context has been removed
         _contextId = CONTEXT_ID_NOT_EXIST;
       } else if (response.error == 7) { // rocksDB error kIncomplete
-        _kvs = response.kvs;
-        _readKvIter = -1;
+        onRecvBatch(response.kvs);
         _contextId = CONTEXT_ID_COMPLETED;
         _incomplete = true;
       } else { // rpc succeed, but operation encounter some error in server side
@@ -228,21 +302,54 @@ public class PegasusScanner implements PegasusScannerInterface {
     }
   }
 
-  private void asyncNextInternal() {
-    if (_encounterError) {
-      for (DefaultPromise<Pair<Pair<byte[], byte[]>, byte[]>> p : _promises) {
-        p.setFailure(_cause);
-      }
-      _promises.clear();
-      // we don't reset the flag, just abandon this scan operation
-      return;
+  private void onRecvBatch(List<key_value> kvs) {
+    if (!kvs.isEmpty()) {
+      _lastKey = kvs.get(kvs.size() - 1).key;
+    }
+    if (_readKvIter + 1 >= _kvs.size() && _prefetched.isEmpty()) {
+      _kvs = kvs;
+      _readKvIter = -1;
+    } else {
+      // received ahead while the current batch is consumed
+      _prefetched.add(kvs);
+      _prefetchedBytes += bytesOf(kvs);
     }
+  }
+
+  private static long bytesOf(List<key_value> kvs) {
+    long bytes = 0;
+    for (key_value kv : kvs) {
+      bytes += kv.key.data.length + (kv.value == null ? 0 : kv.value.data.length);
+    }
+    return bytes;
+  }
+
+  private void asyncNextInternal() {
     while (!_promises.isEmpty()) {
       while (++_readKvIter >= _kvs.size()) {
+        if (!_prefetched.isEmpty()) {
+          _kvs = _prefetched.poll();
+          _prefetchedBytes -= bytesOf(_kvs);
+          _readKvIter = -1;
+          continue;
+        }
+        if (_encounterError) {
+          // the error is reported after the records received before it
+          for (DefaultPromise<?> p : _promises) {
+            p.setFailure(_cause);
+          }
+          _promises.clear();
+          // we don't reset the flag, just abandon this scan operation
+          return;
+        }
+        if (_rpcRunning) {
+          // a prefetch is running, callback will be executed in the callback of rpc
+          return;
+        }
         if (_contextId == CONTEXT_ID_COMPLETED) {
           // this scan operation got incomplete from server, abandon scan operation
           if (_incomplete) {
-            for (DefaultPromise<Pair<Pair<byte[], byte[]>, byte[]>> p : _promises) {
+            for (DefaultPromise<?> p : _promises) {
               logger.error(
                   "scan got incomplete error, " + "tableName({}), {}",
                   _table.getTableName(),
@@ -255,7 +362,7 @@ public class PegasusScanner implements PegasusScannerInterface {
 
           // reach the end of one partition, finish scan operation
           if (_partitionIter <= 0) {
-            for (DefaultPromise<Pair<Pair<byte[], byte[]>, byte[]>> p : _promises) {
+            for (DefaultPromise<?> p : _promises) {
               p.setSuccess(null);
             }
             _promises.clear();
@@ -270,21 +377,53 @@ public class PegasusScanner implements PegasusScannerInterface {
           asyncStartScan();
           return;
         } else {
-          asyncNextBatch();
+          asyncScan();
           return;
         }
       }
-      DefaultPromise<Pair<Pair<byte[], byte[]>, byte[]>> p = _promises.getFirst();
-      p.setSuccess(
-          new ImmutablePair<Pair<byte[], byte[]>, byte[]>(
-              PegasusClient.restoreKey(_kvs.get(_readKvIter).key.data),
-              _kvs.get(_readKvIter).value.data));
-      _promises.removeFirst();
+      DefaultPromise<?> p = _promises.removeFirst();
+      if (p instanceof BatchPromise) {
+        // hands over the rest of the batch, which is never modified since it's replaced by the
+        // next response
+        ((BatchPromise) p).setSuccess(new ScanBatch(_kvs, _readKvIter, _kvs.size()));
+        _readKvIter = _kvs.size() - 1;
+      } else {
+        @SuppressWarnings("unchecked")
+        DefaultPromise<Pair<Pair<byte[], byte[]>, byte[]>> recordPromise =
+            (DefaultPromise<Pair<Pair<byte[], byte[]>, byte[]>>) p;
+        recordPromise.setSuccess(
+            new ImmutablePair<Pair<byte[], byte[]>, byte[]>(
+                PegasusClient.restoreKey(_kvs.get(_readKvIter).key.data),
+                _kvs.get(_readKvIter).value.data));
+      }
+    }
+
+    if (_closed) {
+      // the context opened by a prefetch returned after closed
+      asyncClearContext();
+    } else {
+      prefetch();
     }
   }
 
+  // fetches the next batch while the current one is consumed, at most one rpc is running since a
+  // scan context serves one request at a time
+  private void prefetch() {
+    if (_options.prefetchBatches <= 0
+        || _rpcRunning
+        || _encounterError
+        || _contextId < CONTEXT_ID_VALID_MIN
+        || _prefetched.size() >= _options.prefetchBatches
+        || _prefetchedBytes >= _options.prefetchMaxBytes) {
+      return;
+    }
+    asyncScan();
+  }
+
   private void contextReset() {
-    _kvs.clear();
+    // not cleared in place, which may be still referenced by a batch
+    _kvs = new ArrayList<key_value>();
+    _lastKey = null;
     _readKvIter = -1;
     _contextId = CONTEXT_ID_NOT_EXIST;
   }
@@ -302,11 +441,25 @@ public class PegasusScanner implements PegasusScannerInterface {
 
   private List<key_value> _kvs;
   private int _readKvIter;
+  // the batches received ahead of _kvs
+  private Deque<List<key_value>> _prefetched = new ArrayDeque<List<key_value>>();
+  private long _prefetchedBytes = 0;
+  // the last key received from the current partition, where the scan restarts if the context is
+  // lost
+  private blob _lastKey;
+  private boolean _closed = false;
 
   private long _contextId;
 
+  private static final class BatchPromise extends DefaultPromise<ScanBatch> {
+    BatchPromise(EventExecutor executor) {
+      super(executor);
+    }
+  }
+
   private final Object _promisesLock = new Object();
-  private Deque<DefaultPromise<Pair<Pair<byte[], byte[]>, byte[]>>> _promises;
+  // the promises of records and batches in the order of the calls
+  private Deque<DefaultPromise<?>> _promises;
   private boolean _rpcRunning;
   // mark whether scan operation encounter error
   private boolean _encounterError;
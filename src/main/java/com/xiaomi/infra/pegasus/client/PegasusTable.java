@@ -12,10 +12,13 @@ import com.xiaomi.infra.pegasus.rpc.ReplicationException;
 import com.xiaomi.infra.pegasus.rpc.Table;
 import com.xiaomi.infra.pegasus.rpc.async.TableHandler;
 import com.xiaomi.infra.pegasus.rpc.async.TableHandler.ReplicaConfiguration;
+import com.xiaomi.infra.pegasus.tools.Completion;
 import com.xiaomi.infra.pegasus.tools.Tools;
 import com.xiaomi.infra.pegasus.tools.WriteLimiter;
 import io.netty.util.concurrent.DefaultPromise;
+import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ImmediateEventExecutor;
 import java.net.UnknownHostException;
 import java.nio.ByteBuffer;
 import java.util.*;
@@ -35,17 +38,63 @@ public class PegasusTable implements PegasusTableInterface {
   private int defaultTimeout;
   private WriteLimiter writeLimiter;
   private String metaList;
+  // the executor of the futures created by this table, null if it's decided by the table handler
+  private EventExecutor promiseExecutor;
+  // the view of this table whose futures are notified by the completing thread, which the sync
+  // interfaces wait for by parking
+  private PegasusTable directTable;
+  private PegasusCompletableTable completableTable;
 
   public PegasusTable(PegasusClient client, Table table) {
     this.table = table;
     this.defaultTimeout = table.getDefaultTimeout();
     this.writeLimiter = new WriteLimiter(client.isWriteLimitEnabled());
     this.metaList = client.getMetaList();
+    this.promiseExecutor = null;
+    this.directTable = new PegasusTable(this, ImmediateEventExecutor.INSTANCE);
+    this.completableTable = new PegasusCompletableTable(directTable);
+  }
+
+  // a view of the other table whose futures are all bound to the promise executor
+  private PegasusTable(PegasusTable other, EventExecutor promiseExecutor) {
+    this.table = other.table;
+    this.defaultTimeout = other.defaultTimeout;
+    this.writeLimiter = other.writeLimiter;
+    this.metaList = other.metaList;
+    this.promiseExecutor = promiseExecutor;
+    this.directTable = this;
+    this.completableTable = null;
+  }
+
+  private <T> DefaultPromise<T> newPromise(byte[] hashKey) {
+    if (promiseExecutor != null) {
+      return new DefaultPromise<>(promiseExecutor);
+    }
+    return table.newPromise(hashKey);
+  }
+
+  // The sync interfaces wait by parking, so they check the deadlock the way DefaultPromise.await()
+  // does: a table executor or an I/O thread of the client, e.g. in a listener of a future, may be
+  // the thread to complete the operation.
+  private <T> T waitFor(Future<T> future, long timeout, TimeUnit unit)
+      throws InterruptedException, ExecutionException, TimeoutException {
+    Completion.checkDeadLock(table.inEventLoop());
+    return Completion.get(future, timeout, unit);
+  }
+
+  private void waitForUninterruptibly(Future<?> future) {
+    Completion.checkDeadLock(table.inEventLoop());
+    Completion.awaitUninterruptibly(future);
+  }
+
+  @Override
+  public PegasusCompletableTableInterface asCompletable() {
+    return completableTable;
   }
 
   @Override
   public Future<Boolean> asyncExist(byte[] hashKey, byte[] sortKey, int timeout) {
-    final DefaultPromise<Boolean> promise = table.newPromise();
+    final DefaultPromise<Boolean> promise = newPromise(hashKey);
     asyncTTL(hashKey, sortKey, timeout)
         .addListener(
             new TTLListener() {
@@ -63,7 +112,7 @@ public class PegasusTable implements PegasusTableInterface {
 
   @Override
   public Future<Long> asyncSortKeyCount(byte[] hashKey, int timeout) {
-    final DefaultPromise<Long> promise = table.newPromise();
+    final DefaultPromise<Long> promise = newPromise(hashKey);
     if (hashKey == null || hashKey.length == 0) {
       promise.setFailure(new PException("Invalid parameter: hashKey should not be null or empty"));
       return promise;
@@ -100,7 +149,7 @@ public class PegasusTable implements PegasusTableInterface {
 
   @Override
   public Future<byte[]> asyncGet(byte[] hashKey, byte[] sortKey, int timeout /* ms */) {
-    final DefaultPromise<byte[]> promise = table.newPromise();
+    final DefaultPromise<byte[]> promise = newPromise(hashKey);
     blob request = new blob(PegasusClient.generateKey(hashKey, sortKey));
     long partitionHash = table.getHash(request.data);
     gpid gpid = table.getGpidByHash(partitionHash);
@@ -130,7 +179,7 @@ public class PegasusTable implements PegasusTableInterface {
   @Override
   public Future<Void> asyncSet(
       byte[] hashKey, byte[] sortKey, byte[] value, int ttlSeconds, int timeout /* ms */) {
-    final DefaultPromise<Void> promise = table.newPromise();
+    final DefaultPromise<Void> promise = newPromise(hashKey);
     if (value == null) {
       promise.setFailure(new PException("Invalid parameter: value should not be null"));
       return promise;
@@ -186,7 +235,7 @@ public class PegasusTable implements PegasusTableInterface {
       int maxFetchSize,
       boolean noValue,
       int timeout) {
-    final DefaultPromise<MultiGetResult> promise = table.newPromise();
+    final DefaultPromise<MultiGetResult> promise = newPromise(hashKey);
     if (hashKey == null || hashKey.length == 0) {
       promise.setFailure(new PException("Invalid parameter: hashKey should not be null or empty"));
       return promise;
@@ -293,7 +342,7 @@ public class PegasusTable implements PegasusTableInterface {
       int maxFetchCount,
       int maxFetchSize,
       int timeout /* ms */) {
-    final DefaultPromise<MultiGetResult> promise = table.newPromise();
+    final DefaultPromise<MultiGetResult> promise = newPromise(hashKey);
     if (hashKey == null || hashKey.length == 0) {
       promise.setFailure(new PException("Invalid parameter: hashKey should not be null or empty"));
       return promise;
@@ -369,7 +418,7 @@ public class PegasusTable implements PegasusTableInterface {
   @Override
   public Future<MultiGetSortKeysResult> asyncMultiGetSortKeys(
       byte[] hashKey, int maxFetchCount, int maxFetchSize, int timeout) {
-    final DefaultPromise<MultiGetSortKeysResult> promise = table.newPromise();
+    final DefaultPromise<MultiGetSortKeysResult> promise = newPromise(hashKey);
     asyncMultiGet(hashKey, null, maxFetchCount, maxFetchSize, true, timeout)
         .addListener(
             new MultiGetListener() {
@@ -402,7 +451,7 @@ public class PegasusTable implements PegasusTableInterface {
   @Override
   public Future<Void> asyncMultiSet(
       byte[] hashKey, List<Pair<byte[], byte[]>> values, int ttlSeconds, int timeout) {
-    final DefaultPromise<Void> promise = table.newPromise();
+    final DefaultPromise<Void> promise = newPromise(hashKey);
     if (hashKey == null || hashKey.length == 0) {
       promise.setFailure(new PException("Invalid parameter: hashKey should not be null or empty"));
       return promise;
@@ -481,7 +530,7 @@ public class PegasusTable implements PegasusTableInterface {
 
   @Override
   public Future<Void> asyncDel(byte[] hashKey, byte[] sortKey, int timeout) {
-    final DefaultPromise<Void> promise = table.newPromise();
+    final DefaultPromise<Void> promise = newPromise(hashKey);
     blob request = new blob(PegasusClient.generateKey(hashKey, sortKey));
     long partitionHash = table.getHash(request.data);
     gpid gpid = table.getGpidByHash(partitionHash);
@@ -509,7 +558,7 @@ public class PegasusTable implements PegasusTableInterface {
 
   @Override
   public Future<Void> asyncMultiDel(byte[] hashKey, final List<byte[]> sortKeys, int timeout) {
-    final DefaultPromise<Void> promise = table.newPromise();
+    final DefaultPromise<Void> promise = newPromise(hashKey);
     if (hashKey == null || hashKey.length == 0) {
       promise.setFailure(new PException("Invalid parameter: hashKey should not be null or empty"));
       return promise;
@@ -564,7 +613,7 @@ public class PegasusTable implements PegasusTableInterface {
   @Override
   public Future<Long> asyncIncr(
       byte[] hashKey, byte[] sortKey, long increment, int ttlSeconds, int timeout) {
-    final DefaultPromise<Long> promise = table.newPromise();
+    final DefaultPromise<Long> promise = newPromise(hashKey);
     if (ttlSeconds < -1) {
       promise.setFailure(new PException("Invalid parameter: ttlSeconds should be no less than -1"));
       return promise;
@@ -612,7 +661,7 @@ public class PegasusTable implements PegasusTableInterface {
       byte[] setValue,
       CheckAndSetOptions options,
       int timeout) {
-    final DefaultPromise<CheckAndSetResult> promise = table.newPromise();
+    final DefaultPromise<CheckAndSetResult> promise = newPromise(hashKey);
     if (hashKey == null || hashKey.length == 0) {
       promise.setFailure(new PException("Invalid parameter: hashKey should not be null or empty"));
       return promise;
@@ -717,7 +766,7 @@ public class PegasusTable implements PegasusTableInterface {
       CheckAndMutateOptions options,
       int timeout) {
 
-    final DefaultPromise<CheckAndMutateResult> promise = table.newPromise();
+    final DefaultPromise<CheckAndMutateResult> promise = newPromise(hashKey);
     if (hashKey == null || hashKey.length == 0) {
       promise.setFailure(new PException("Invalid parameter: hashKey should not be null or empty"));
       return promise;
@@ -813,7 +862,7 @@ public class PegasusTable implements PegasusTableInterface {
       byte[] desiredValue,
       int ttlSeconds,
       int timeout) {
-    final DefaultPromise<CompareExchangeResult> promise = table.newPromise();
+    final DefaultPromise<CompareExchangeResult> promise = newPromise(hashKey);
     if (hashKey == null || hashKey.length == 0) {
       promise.setFailure(new PException("Invalid parameter: hashKey should not be null or empty"));
       return promise;
@@ -885,7 +934,7 @@ public class PegasusTable implements PegasusTableInterface {
 
   @Override
   public Future<Integer> asyncTTL(byte[] hashKey, byte[] sortKey, int timeout) {
-    final DefaultPromise<Integer> promise = table.newPromise();
+    final DefaultPromise<Integer> promise = newPromise(hashKey);
     blob request = new blob(PegasusClient.generateKey(hashKey, sortKey));
 
     long partitionHash = table.getHash(request.data);
@@ -918,7 +967,8 @@ public class PegasusTable implements PegasusTableInterface {
   public boolean exist(byte[] hashKey, byte[] sortKey, int timeout) throws PException {
     if (timeout <= 0) timeout = defaultTimeout;
     try {
-      return asyncExist(hashKey, sortKey, timeout).get(timeout, TimeUnit.MILLISECONDS);
+      return waitFor(
+          directTable.asyncExist(hashKey, sortKey, timeout), timeout, TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) {
       throw PException.threadInterrupted(table.getTableName(), e);
     } catch (TimeoutException e) {
@@ -933,7 +983,8 @@ public class PegasusTable implements PegasusTableInterface {
   public long sortKeyCount(byte[] hashKey, int timeout) throws PException {
     if (timeout <= 0) timeout = defaultTimeout;
     try {
-      return asyncSortKeyCount(hashKey, timeout).get(timeout, TimeUnit.MILLISECONDS);
+      return waitFor(
+          directTable.asyncSortKeyCount(hashKey, timeout), timeout, TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) {
       throw PException.threadInterrupted(table.getTableName(), e);
     } catch (TimeoutException e) {
@@ -947,7 +998,8 @@ public class PegasusTable implements PegasusTableInterface {
   public byte[] get(byte[] hashKey, byte[] sortKey, int timeout) throws PException {
     if (timeout <= 0) timeout = defaultTimeout;
     try {
-      return asyncGet(hashKey, sortKey, timeout).get(timeout, TimeUnit.MILLISECONDS);
+      return waitFor(
+          directTable.asyncGet(hashKey, sortKey, timeout), timeout, TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) {
       throw PException.threadInterrupted(table.getTableName(), e);
     } catch (TimeoutException e) {
@@ -971,11 +1023,11 @@ public class PegasusTable implements PegasusTableInterface {
     List<Future<byte[]>> futures = new ArrayList<Future<byte[]>>();
     for (Pair<byte[], byte[]> k : keys) {
       values.add(null);
-      futures.add(asyncGet(k.getLeft(), k.getRight(), timeout));
+      futures.add(directTable.asyncGet(k.getLeft(), k.getRight(), timeout));
     }
     for (int i = 0; i < keys.size(); i++) {
       Future<byte[]> fu = futures.get(i);
-      fu.awaitUninterruptibly();
+      waitForUninterruptibly(fu);
       if (fu.isSuccess()) {
         values.set(i, fu.getNow());
       } else {
@@ -998,14 +1050,14 @@ public class PegasusTable implements PegasusTableInterface {
     results.clear();
     List<Future<byte[]>> futures = new ArrayList<Future<byte[]>>();
     for (Pair<byte[], byte[]> k : keys) {
-      futures.add(asyncGet(k.getLeft(), k.getRight(), timeout));
+      futures.add(directTable.asyncGet(k.getLeft(), k.getRight(), timeout));
     }
     int count = 0;
     PException nullEx = null;
     byte[] nullBytes = null;
     for (int i = 0; i < keys.size(); i++) {
       Future<byte[]> fu = futures.get(i);
-      fu.awaitUninterruptibly();
+      waitForUninterruptibly(fu);
       if (fu.isSuccess()) {
         results.add(Pair.of(nullEx, fu.getNow()));
         count++;
@@ -1027,8 +1079,10 @@ public class PegasusTable implements PegasusTableInterface {
     if (timeout <= 0) timeout = defaultTimeout;
     int count = sortKeys == null ? 0 : sortKeys.size();
     try {
-      return asyncMultiGet(hashKey, sortKeys, maxFetchCount, maxFetchSize, timeout)
-          .get(timeout, TimeUnit.MILLISECONDS);
+      return waitFor(
+          directTable.asyncMultiGet(hashKey, sortKeys, maxFetchCount, maxFetchSize, timeout),
+          timeout,
+          TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) {
       throw PException.threadInterrupted(table.getTableName(), e);
     } catch (TimeoutException e) {
@@ -1045,7 +1099,8 @@ public class PegasusTable implements PegasusTableInterface {
     if (timeout <= 0) timeout = defaultTimeout;
     int count = sortKeys == null ? 0 : sortKeys.size();
     try {
-      return asyncMultiGet(hashKey, sortKeys, timeout).get(timeout, TimeUnit.MILLISECONDS);
+      return waitFor(
+          directTable.asyncMultiGet(hashKey, sortKeys, timeout), timeout, TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) {
       throw PException.threadInterrupted(table.getTableName(), e);
     } catch (TimeoutException e) {
@@ -1068,9 +1123,11 @@ public class PegasusTable implements PegasusTableInterface {
       throws PException {
     if (timeout <= 0) timeout = defaultTimeout;
     try {
-      return asyncMultiGet(
-              hashKey, startSortKey, stopSortKey, options, maxFetchCount, maxFetchSize, timeout)
-          .get(timeout, TimeUnit.MILLISECONDS);
+      return waitFor(
+          directTable.asyncMultiGet(
+              hashKey, startSortKey, stopSortKey, options, maxFetchCount, maxFetchSize, timeout),
+          timeout,
+          TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) {
       throw PException.threadInterrupted(table.getTableName(), e);
     } catch (TimeoutException e) {
@@ -1091,8 +1148,10 @@ public class PegasusTable implements PegasusTableInterface {
       throws PException {
     if (timeout <= 0) timeout = defaultTimeout;
     try {
-      return asyncMultiGet(hashKey, startSortKey, stopSortKey, options, timeout)
-          .get(timeout, TimeUnit.MILLISECONDS);
+      return waitFor(
+          directTable.asyncMultiGet(hashKey, startSortKey, stopSortKey, options, timeout),
+          timeout,
+          TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) {
       throw PException.threadInterrupted(table.getTableName(), e);
     } catch (TimeoutException e) {
@@ -1116,11 +1175,11 @@ public class PegasusTable implements PegasusTableInterface {
     List<Future<MultiGetResult>> futures = new ArrayList<Future<MultiGetResult>>();
     for (Pair<byte[], List<byte[]>> k : keys) {
       values.add(null);
-      futures.add(asyncMultiGet(k.getLeft(), k.getRight(), timeout));
+      futures.add(directTable.asyncMultiGet(k.getLeft(), k.getRight(), timeout));
     }
     for (int i = 0; i < keys.size(); i++) {
       Future<MultiGetResult> fu = futures.get(i);
-      fu.awaitUninterruptibly();
+      waitForUninterruptibly(fu);
       if (fu.isSuccess()) {
         values.set(i, new HashKeyData(keys.get(i).getLeft(), fu.getNow().values));
       } else {
@@ -1146,14 +1205,14 @@ public class PegasusTable implements PegasusTableInterface {
     results.clear();
     List<Future<MultiGetResult>> futures = new ArrayList<Future<MultiGetResult>>();
     for (Pair<byte[], List<byte[]>> k : keys) {
-      futures.add(asyncMultiGet(k.getLeft(), k.getRight(), timeout));
+      futures.add(directTable.asyncMultiGet(k.getLeft(), k.getRight(), timeout));
     }
     int count = 0;
     PException nullEx = null;
     HashKeyData nullData = null;
     for (int i = 0; i < keys.size(); i++) {
       Future<MultiGetResult> fu = futures.get(i);
-      fu.awaitUninterruptibly();
+      waitForUninterruptibly(fu);
       if (fu.isSuccess()) {
         results.add(Pair.of(nullEx, new HashKeyData(keys.get(i).getLeft(), fu.getNow().values)));
         count++;
@@ -1174,8 +1233,10 @@ public class PegasusTable implements PegasusTableInterface {
       byte[] hashKey, int maxFetchCount, int maxFetchSize, int timeout) throws PException {
     if (timeout <= 0) timeout = defaultTimeout;
     try {
-      return asyncMultiGetSortKeys(hashKey, maxFetchCount, maxFetchSize, timeout)
-          .get(timeout, TimeUnit.MILLISECONDS);
+      return waitFor(
+          directTable.asyncMultiGetSortKeys(hashKey, maxFetchCount, maxFetchSize, timeout),
+          timeout,
+          TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) {
       throw PException.threadInterrupted(table.getTableName(), e);
     } catch (TimeoutException e) {
@@ -1190,7 +1251,8 @@ public class PegasusTable implements PegasusTableInterface {
   public MultiGetSortKeysResult multiGetSortKeys(byte[] hashKey, int timeout) throws PException {
     if (timeout <= 0) timeout = defaultTimeout;
     try {
-      return asyncMultiGetSortKeys(hashKey, timeout).get(timeout, TimeUnit.MILLISECONDS);
+      return waitFor(
+          directTable.asyncMultiGetSortKeys(hashKey, timeout), timeout, TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) {
       throw PException.threadInterrupted(table.getTableName(), e);
     } catch (TimeoutException e) {
@@ -1205,7 +1267,10 @@ public class PegasusTable implements PegasusTableInterface {
       throws PException {
     if (timeout <= 0) timeout = defaultTimeout;
     try {
-      asyncSet(hashKey, sortKey, value, ttlSeconds, timeout).get(timeout, TimeUnit.MILLISECONDS);
+      waitFor(
+          directTable.asyncSet(hashKey, sortKey, value, ttlSeconds, timeout),
+          timeout,
+          TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) {
       throw PException.threadInterrupted(table.getTableName(), e);
     } catch (TimeoutException e) {
@@ -1220,7 +1285,8 @@ public class PegasusTable implements PegasusTableInterface {
   public void set(byte[] hashKey, byte[] sortKey, byte[] value, int timeout) throws PException {
     if (timeout <= 0) timeout = defaultTimeout;
     try {
-      asyncSet(hashKey, sortKey, value, timeout).get(timeout, TimeUnit.MILLISECONDS);
+      waitFor(
+          directTable.asyncSet(hashKey, sortKey, value, timeout), timeout, TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) {
       throw PException.threadInterrupted(table.getTableName(), e);
     } catch (TimeoutException e) {
@@ -1256,13 +1322,13 @@ public class PegasusTable implements PegasusTableInterface {
     results.clear();
     List<Future<Void>> futures = new ArrayList<Future<Void>>();
     for (SetItem i : items) {
-      futures.add(asyncSet(i.hashKey, i.sortKey, i.value, i.ttlSeconds, timeout));
+      futures.add(directTable.asyncSet(i.hashKey, i.sortKey, i.value, i.ttlSeconds, timeout));
     }
     int count = 0;
     PException nullEx = null;
     for (int i = 0; i < items.size(); i++) {
       Future<Void> fu = futures.get(i);
-      fu.awaitUninterruptibly();
+      waitForUninterruptibly(fu);
       if (fu.isSuccess()) {
         results.add(nullEx);
         count++;
@@ -1282,7 +1348,10 @@ public class PegasusTable implements PegasusTableInterface {
     if (timeout <= 0) timeout = defaultTimeout;
     int count = values == null ? 0 : values.size();
     try {
-      asyncMultiSet(hashKey, values, ttlSeconds, timeout).get(timeout, TimeUnit.MILLISECONDS);
+      waitFor(
+          directTable.asyncMultiSet(hashKey, values, ttlSeconds, timeout),
+          timeout,
+          TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) {
       throw PException.threadInterrupted(table.getTableName(), e);
     } catch (TimeoutException e) {
@@ -1299,7 +1368,7 @@ public class PegasusTable implements PegasusTableInterface {
     if (timeout <= 0) timeout = defaultTimeout;
     int count = values == null ? 0 : values.size();
     try {
-      asyncMultiSet(hashKey, values, timeout).get(timeout, TimeUnit.MILLISECONDS);
+      waitFor(directTable.asyncMultiSet(hashKey, values, timeout), timeout, TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) {
       throw PException.threadInterrupted(table.getTableName(), e);
     } catch (TimeoutException e) {
@@ -1321,11 +1390,11 @@ public class PegasusTable implements PegasusTableInterface {
     }
     List<Future<Void>> futures = new ArrayList<Future<Void>>();
     for (HashKeyData item : items) {
-      futures.add(asyncMultiSet(item.hashKey, item.values, ttlSeconds, timeout));
+      futures.add(directTable.asyncMultiSet(item.hashKey, item.values, ttlSeconds, timeout));
     }
     for (int i = 0; i < items.size(); i++) {
       Future<Void> fu = futures.get(i);
-      fu.awaitUninterruptibly();
+      waitForUninterruptibly(fu);
       if (!fu.isSuccess()) {
         Throwable cause = fu.cause();
         throw new PException(
@@ -1350,13 +1419,13 @@ public class PegasusTable implements PegasusTableInterface {
     results.clear();
     List<Future<Void>> futures = new ArrayList<Future<Void>>();
     for (HashKeyData item : items) {
-      futures.add(asyncMultiSet(item.hashKey, item.values, ttlSeconds, timeout));
+      futures.add(directTable.asyncMultiSet(item.hashKey, item.values, ttlSeconds, timeout));
     }
     int count = 0;
     PException nullEx = null;
     for (int i = 0; i < items.size(); i++) {
       Future<Void> fu = futures.get(i);
-      fu.awaitUninterruptibly();
+      waitForUninterruptibly(fu);
       if (fu.isSuccess()) {
         results.add(nullEx);
         count++;
@@ -1374,7 +1443,7 @@ public class PegasusTable implements PegasusTableInterface {
   public void del(byte[] hashKey, byte[] sortKey, int timeout) throws PException {
     if (timeout <= 0) timeout = defaultTimeout;
     try {
-      asyncDel(hashKey, sortKey, timeout).get(timeout, TimeUnit.MILLISECONDS);
+      waitFor(directTable.asyncDel(hashKey, sortKey, timeout), timeout, TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) {
       throw PException.threadInterrupted(table.getTableName(), e);
     } catch (TimeoutException e) {
@@ -1392,11 +1461,11 @@ public class PegasusTable implements PegasusTableInterface {
     }
     List<Future<Void>> futures = new ArrayList<Future<Void>>();
     for (Pair<byte[], byte[]> k : keys) {
-      futures.add(asyncDel(k.getLeft(), k.getRight(), timeout));
+      futures.add(directTable.asyncDel(k.getLeft(), k.getRight(), timeout));
     }
     for (int i = 0; i < keys.size(); i++) {
       Future<Void> fu = futures.get(i);
-      fu.awaitUninterruptibly();
+      waitForUninterruptibly(fu);
       if (!fu.isSuccess()) {
         Throwable cause = fu.cause();
         throw new PException("Del value of keys[" + i + "] failed: " + cause.getMessage(), cause);
@@ -1416,13 +1485,13 @@ public class PegasusTable implements PegasusTableInterface {
     results.clear();
     List<Future<Void>> futures = new ArrayList<Future<Void>>();
     for (Pair<byte[], byte[]> k : keys) {
-      futures.add(asyncDel(k.getLeft(), k.getRight(), timeout));
+      futures.add(directTable.asyncDel(k.getLeft(), k.getRight(), timeout));
     }
     int count = 0;
     PException nullEx = null;
     for (int i = 0; i < keys.size(); i++) {
       Future<Void> fu = futures.get(i);
-      fu.awaitUninterruptibly();
+      waitForUninterruptibly(fu);
       if (fu.isSuccess()) {
         results.add(nullEx);
         count++;
@@ -1440,7 +1509,8 @@ public class PegasusTable implements PegasusTableInterface {
     if (timeout <= 0) timeout = defaultTimeout;
     int count = sortKeys == null ? 0 : sortKeys.size();
     try {
-      asyncMultiDel(hashKey, sortKeys, timeout).get(timeout, TimeUnit.MILLISECONDS);
+      waitFor(
+          directTable.asyncMultiDel(hashKey, sortKeys, timeout), timeout, TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) {
       throw PException.threadInterrupted(table.getTableName(), e);
     } catch (TimeoutException e) {
@@ -1500,7 +1570,10 @@ public class PegasusTable implements PegasusTableInterface {
         sortKeys.add(pairs.getKey().getValue());
         if (sortKeys.size() == maxBatchDelCount) {
           options.nextSortKey = sortKeys.get(0);
-          asyncMultiDel(hashKey, sortKeys, remainingTime).get(remainingTime, TimeUnit.MILLISECONDS);
+          waitFor(
+              directTable.asyncMultiDel(hashKey, sortKeys, remainingTime),
+              remainingTime,
+              TimeUnit.MILLISECONDS);
           lastCheckTime = System.currentTimeMillis();
           remainingTime = (int) (deadlineTime - lastCheckTime);
           if (remainingTime <= 0) {
@@ -1511,7 +1584,10 @@ public class PegasusTable implements PegasusTableInterface {
         }
       }
       if (!sortKeys.isEmpty()) {
-        asyncMultiDel(hashKey, sortKeys, remainingTime).get(remainingTime, TimeUnit.MILLISECONDS);
+        waitFor(
+            directTable.asyncMultiDel(hashKey, sortKeys, remainingTime),
+            remainingTime,
+            TimeUnit.MILLISECONDS);
         options.nextSortKey = null;
       }
     } catch (InterruptedException | ExecutionException e) {
@@ -1550,11 +1626,11 @@ public class PegasusTable implements PegasusTableInterface {
     }
     List<Future<Void>> futures = new ArrayList<Future<Void>>();
     for (Pair<byte[], List<byte[]>> k : keys) {
-      futures.add(asyncMultiDel(k.getLeft(), k.getRight(), timeout));
+      futures.add(directTable.asyncMultiDel(k.getLeft(), k.getRight(), timeout));
     }
     for (int i = 0; i < keys.size(); i++) {
       Future<Void> fu = futures.get(i);
-      fu.awaitUninterruptibly();
+      waitForUninterruptibly(fu);
       if (!fu.isSuccess()) {
         Throwable cause = fu.cause();
         throw new PException(
@@ -1576,13 +1652,13 @@ public class PegasusTable implements PegasusTableInterface {
     results.clear();
     List<Future<Void>> futures = new ArrayList<Future<Void>>();
     for (Pair<byte[], List<byte[]>> k : keys) {
-      futures.add(asyncMultiDel(k.getLeft(), k.getRight(), timeout));
+      futures.add(directTable.asyncMultiDel(k.getLeft(), k.getRight(), timeout));
     }
     int count = 0;
     PException nullEx = null;
     for (int i = 0; i < keys.size(); i++) {
       Future<Void> fu = futures.get(i);
-      fu.awaitUninterruptibly();
+      waitForUninterruptibly(fu);
       if (fu.isSuccess()) {
         results.add(nullEx);
         count++;
@@ -1601,8 +1677,10 @@ public class PegasusTable implements PegasusTableInterface {
       throws PException {
     if (timeout <= 0) timeout = defaultTimeout;
     try {
-      return asyncIncr(hashKey, sortKey, increment, ttlSeconds, timeout)
-          .get(timeout, TimeUnit.MILLISECONDS);
+      return waitFor(
+          directTable.asyncIncr(hashKey, sortKey, increment, ttlSeconds, timeout),
+          timeout,
+          TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) {
       throw PException.threadInterrupted(table.getTableName(), e);
     } catch (TimeoutException e) {
@@ -1617,7 +1695,10 @@ public class PegasusTable implements PegasusTableInterface {
   public long incr(byte[] hashKey, byte[] sortKey, long increment, int timeout) throws PException {
     if (timeout <= 0) timeout = defaultTimeout;
     try {
-      return asyncIncr(hashKey, sortKey, increment, timeout).get(timeout, TimeUnit.MILLISECONDS);
+      return waitFor(
+          directTable.asyncIncr(hashKey, sortKey, increment, timeout),
+          timeout,
+          TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) {
       throw PException.threadInterrupted(table.getTableName(), e);
     } catch (TimeoutException e) {
@@ -1641,7 +1722,8 @@ public class PegasusTable implements PegasusTableInterface {
       throws PException {
     if (timeout <= 0) timeout = defaultTimeout;
     try {
-      return asyncCheckAndSet(
+      return waitFor(
+          directTable.asyncCheckAndSet(
               hashKey,
               checkSortKey,
               checkType,
@@ -1649,8 +1731,9 @@ public class PegasusTable implements PegasusTableInterface {
               setSortKey,
               setValue,
               options,
-              timeout)
-          .get(timeout, TimeUnit.MILLISECONDS);
+              timeout),
+          timeout,
+          TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) {
       throw PException.threadInterrupted(table.getTableName(), e);
     } catch (TimeoutException e) {
@@ -1674,9 +1757,11 @@ public class PegasusTable implements PegasusTableInterface {
     if (timeout <= 0) timeout = defaultTimeout;
     int count = (mutations == null || mutations.isEmpty()) ? 1 : mutations.getMutations().size();
     try {
-      return asyncCheckAndMutate(
-              hashKey, checkSortKey, checkType, checkOperand, mutations, options, timeout)
-          .get(timeout, TimeUnit.MILLISECONDS);
+      return waitFor(
+          directTable.asyncCheckAndMutate(
+              hashKey, checkSortKey, checkType, checkOperand, mutations, options, timeout),
+          timeout,
+          TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) {
       throw PException.threadInterrupted(table.getTableName(), e);
     } catch (TimeoutException e) {
@@ -1698,9 +1783,11 @@ public class PegasusTable implements PegasusTableInterface {
       throws PException {
     if (timeout <= 0) timeout = defaultTimeout;
     try {
-      return asyncCompareExchange(
-              hashKey, sortKey, expectedValue, desiredValue, ttlSeconds, timeout)
-          .get(timeout, TimeUnit.MILLISECONDS);
+      return waitFor(
+          directTable.asyncCompareExchange(
+              hashKey, sortKey, expectedValue, desiredValue, ttlSeconds, timeout),
+          timeout,
+          TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) {
       throw PException.threadInterrupted(table.getTableName(), e);
     } catch (TimeoutException e) {
@@ -1715,7 +1802,8 @@ public class PegasusTable implements PegasusTableInterface {
   public int ttl(byte[] hashKey, byte[] sortKey, int timeout) throws PException {
     if (timeout <= 0) timeout = defaultTimeout;
     try {
-      return asyncTTL(hashKey, sortKey, timeout).get(timeout, TimeUnit.MILLISECONDS);
+      return waitFor(
+          directTable.asyncTTL(hashKey, sortKey, timeout), timeout, TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) {
       throw PException.threadInterrupted(table.getTableName(), e);
     } catch (TimeoutException e) {
@@ -1129,4 +1129,17 @@ public interface PegasusTableInterface {
    */
   public List<PegasusScannerInterface> getUnorderedScanners(
       int maxScannerCount, ScanOptions options) throws PException;
+
+  /**
+   * Get the view of this table whose async interfaces return {@link
+   * java.util.concurrent.CompletableFuture}s.
+   *
+   * <p>The default implementation adapts the futures of the async interfaces of this table, and
+   * {@link PegasusTable} overrides it with a view which takes no extra thread hop.
+   *
+   * @return the completable view, which shares the table and its resources
+   */
+  public default PegasusCompletableTableInterface asCompletable() {
+    return new PegasusCompletableTable(this);
+  }
 }
@@ -0,0 +1,91 @@
+// Copyright (c) 2017, Xiaomi, Inc.  All rights reserved.
+// This source code is licensed under the Apache License Version 2.0, which
+// can be found in the LICENSE file in the root directory of this source tree.
+package com.xiaomi.infra.pegasus.client;
+
+import com.xiaomi.infra.pegasus.apps.key_value;
+import com.xiaomi.infra.pegasus.base.blob;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+
+/**
+ * A batch of records returned by a scanner, which is a view of the scan response. The hash keys and
+ * the sort keys are split from the stored keys only when they're accessed, and the values are
+ * returned without copy.
+ */
+public class ScanBatch {
+  private final List<key_value> kvs;
+  private final int from;
+  private final int to;
+
+  /** The records of {@code kvs} in [from, to). */
+  ScanBatch(List<key_value> kvs, int from, int to) {
+    this.kvs = kvs;
+    this.from = from;
+    this.to = to;
+  }
+
+  /** @return the batch of the single record returned by {@link PegasusScannerInterface#next()}. */
+  static ScanBatch of(Pair<Pair<byte[], byte[]>, byte[]> record) {
+    if (record == null) {
+      return null;
+    }
+    key_value kv =
+        new key_value(
+            new blob(
+                PegasusClient.generateKey(record.getLeft().getLeft(), record.getLeft().getRight())),
+            new blob(record.getRight()));
+    return new ScanBatch(Collections.singletonList(kv), 0, 1);
+  }
+
+  public int size() {
+    return to - from;
+  }
+
+  /**
+   * The stored key of the i-th record, which is the 2-byte length of the hash key followed by the
+   * hash key and the sort key. It's not copied, so don't modify it.
+   */
+  public byte[] getKey(int i) {
+    return kv(i).key.data;
+  }
+
+  public byte[] getHashKey(int i) {
+    byte[] key = getKey(i);
+    return Arrays.copyOfRange(key, 2, 2 + hashKeyLength(key));
+  }
+
+  public byte[] getSortKey(int i) {
+    byte[] key = getKey(i);
+    return Arrays.copyOfRange(key, 2 + hashKeyLength(key), key.length);
+  }
+
+  /** The value of the i-th record. It's not copied, so don't modify it. */
+  public byte[] getValue(int i) {
+    return kv(i).value.data;
+  }
+
+  /** @return the i-th record in the form returned by {@link PegasusScannerInterface#next()}. */
+  public Pair<Pair<byte[], byte[]>, byte[]> get(int i) {
+    return new ImmutablePair<Pair<byte[], byte[]>, byte[]>(
+        PegasusClient.restoreKey(getKey(i)), getValue(i));
+  }
+
+  private key_value kv(int i) {
+    if (i < 0 || i >= size()) {
+      throw new IndexOutOfBoundsException("index " + i + " out of batch size " + size());
+    }
+    return kvs.get(from + i);
+  }
+
+  private static int hashKeyLength(byte[] key) {
+    Validate.isTrue(key != null && key.length >= 2);
+    int hashKeyLen = ((key[0] & 0xFF) << 8) | (key[1] & 0xFF);
+    Validate.isTrue(hashKeyLen != 0xFFFF && (2 + hashKeyLen <= key.length));
+    return hashKeyLen;
+  }
+}
@@ -19,6 +19,12 @@ public class ScanOptions {
   public FilterType sortKeyFilterType = FilterType.FT_NO_FILTER; // filter type for sort key
   public byte[] sortKeyFilterPattern = null; // filter pattern for sort key
   public boolean noValue = false; // only fetch hash_key and sort_key, but not fetch value
+  // how many batches are fetched ahead while the current batch is consumed, 0 to disable.
+  // the batches are still fetched one by one, since a scan context serves one request at a time
+  public int prefetchBatches = 0;
+  // stop fetching ahead once the prefetched batches take this many bytes of keys and values,
+  // which may be exceeded by one batch
+  public long prefetchMaxBytes = 16 * 1024 * 1024;
 
   public ScanOptions() {}
 
@@ -32,5 +38,7 @@ public class ScanOptions {
     sortKeyFilterType = o.sortKeyFilterType;
     sortKeyFilterPattern = o.sortKeyFilterPattern;
     noValue = o.noValue;
+    prefetchBatches = o.prefetchBatches;
+    prefetchMaxBytes = o.prefetchMaxBytes;
   }
 }
@@ -3,10 +3,13 @@
 // can be found in the LICENSE file in the root directory of this source tree.
 package com.xiaomi.infra.pegasus.operator;
 
+import com.xiaomi.infra.pegasus.base.blob;
 import com.xiaomi.infra.pegasus.base.error_code;
 import com.xiaomi.infra.pegasus.base.gpid;
 import com.xiaomi.infra.pegasus.replication.request_meta;
 import com.xiaomi.infra.pegasus.rpc.ThriftHeader;
+import io.netty.buffer.ByteBuf;
+import java.util.List;
 import org.apache.thrift.TException;
 import org.apache.thrift.protocol.TProtocol;
 
@@ -35,6 +38,37 @@ public abstract class client_operator {
     return header.toByteArray();
   }
 
+  public final void prepare_thrift_header(
+      ByteBuf out, int index, int meta_length, int body_length) {
+    this.header.meta_length = meta_length;
+    this.header.body_length = body_length;
+    this.header.writeTo(out, index);
+  }
+
+  /**
+   * An upper bound of the encoded size of the message body, which is used to allocate the frame
+   * buffer at once. Operators carrying user data should override it, the default value is enough
+   * for small requests.
+   */
+  public int estimated_body_size() {
+    return DEFAULT_BODY_SIZE;
+  }
+
+  // the encoded size of a blob in TBinaryProtocol, including the field header.
+  protected static int blob_size(blob b) {
+    return BLOB_OVERHEAD + (b == null || b.data == null ? 0 : b.data.length);
+  }
+
+  protected static int blobs_size(List<blob> blobs) {
+    int size = LIST_OVERHEAD;
+    if (blobs != null) {
+      for (blob b : blobs) {
+        size += blob_size(b);
+      }
+    }
+    return size;
+  }
+
   public final void prepare_thrift_meta(
       TProtocol oprot, int client_timeout, boolean isBackupRequest) throws TException {
     this.meta.setClient_timeout(client_timeout);
@@ -88,6 +122,13 @@ public abstract class client_operator {
 
   public abstract void recv_data(org.apache.thrift.protocol.TProtocol iprot) throws TException;
 
+  // the encoded size of the message header and the fixed-size fields of a request.
+  public static final int MESSAGE_OVERHEAD = 128;
+  public static final int META_SIZE = 64;
+  protected static final int DEFAULT_BODY_SIZE = 192;
+  protected static final int BLOB_OVERHEAD = 8;
+  protected static final int LIST_OVERHEAD = 8;
+
   public ThriftHeader header;
   public request_meta meta;
   public gpid pid;
@@ -39,6 +39,10 @@ public class query_cfg_operator extends client_operator {
           "query config failed: unknown result");
   }
 
+  public query_cfg_request get_request() {
+    return request;
+  }
+
   public query_cfg_response get_response() {
     return response;
   }
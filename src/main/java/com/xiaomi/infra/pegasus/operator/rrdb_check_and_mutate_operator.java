@@ -5,6 +5,7 @@ package com.xiaomi.infra.pegasus.operator;
 
 import com.xiaomi.infra.pegasus.apps.check_and_mutate_request;
 import com.xiaomi.infra.pegasus.apps.check_and_mutate_response;
+import com.xiaomi.infra.pegasus.apps.mutate;
 import com.xiaomi.infra.pegasus.apps.rrdb;
 import org.apache.thrift.TException;
 import org.apache.thrift.protocol.TMessage;
@@ -25,6 +26,22 @@ public class rrdb_check_and_mutate_operator extends client_operator {
     return "check_and_mutate";
   }
 
+  @Override
+  public int estimated_body_size() {
+    int size =
+        MESSAGE_OVERHEAD
+            + blob_size(request.hash_key)
+            + blob_size(request.check_sort_key)
+            + blob_size(request.check_operand)
+            + LIST_OVERHEAD;
+    if (request.mutate_list != null) {
+      for (mutate m : request.mutate_list) {
+        size += blob_size(m.sort_key) + blob_size(m.value) + 16;
+      }
+    }
+    return size;
+  }
+
   public void send_data(org.apache.thrift.protocol.TProtocol oprot, int seqid) throws TException {
     TMessage msg = new TMessage("RPC_RRDB_RRDB_CHECK_AND_MUTATE", TMessageType.CALL, seqid);
     oprot.writeMessageBegin(msg);
@@ -25,6 +25,16 @@ public class rrdb_check_and_set_operator extends client_operator {
     return "check_and_set";
   }
 
+  @Override
+  public int estimated_body_size() {
+    return MESSAGE_OVERHEAD
+        + blob_size(request.hash_key)
+        + blob_size(request.check_sort_key)
+        + blob_size(request.check_operand)
+        + blob_size(request.set_sort_key)
+        + blob_size(request.set_value);
+  }
+
   public void send_data(org.apache.thrift.protocol.TProtocol oprot, int seqid) throws TException {
     TMessage msg = new TMessage("RPC_RRDB_RRDB_CHECK_AND_SET", TMessageType.CALL, seqid);
     oprot.writeMessageBegin(msg);
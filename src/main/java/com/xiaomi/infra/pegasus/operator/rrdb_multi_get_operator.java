@@ -24,6 +24,16 @@ public class rrdb_multi_get_operator extends client_operator {
     return "multi_get";
   }
 
+  @Override
+  public int estimated_body_size() {
+    return MESSAGE_OVERHEAD
+        + blob_size(request.hash_key)
+        + blobs_size(request.sork_keys)
+        + blob_size(request.start_sortkey)
+        + blob_size(request.stop_sortkey)
+        + blob_size(request.sort_key_filter_pattern);
+  }
+
   public void send_data(org.apache.thrift.protocol.TProtocol oprot, int seqid) throws TException {
     TMessage msg = new TMessage("RPC_RRDB_RRDB_MULTI_GET", TMessageType.CALL, seqid);
     oprot.writeMessageBegin(msg);
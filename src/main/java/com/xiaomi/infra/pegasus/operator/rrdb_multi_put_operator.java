@@ -3,6 +3,7 @@
 // can be found in the LICENSE file in the root directory of this source tree.
 package com.xiaomi.infra.pegasus.operator;
 
+import com.xiaomi.infra.pegasus.apps.key_value;
 import com.xiaomi.infra.pegasus.apps.multi_put_request;
 import com.xiaomi.infra.pegasus.apps.rrdb;
 import com.xiaomi.infra.pegasus.apps.update_response;
@@ -25,6 +26,17 @@ public class rrdb_multi_put_operator extends client_operator {
     return "multi_put";
   }
 
+  @Override
+  public int estimated_body_size() {
+    int size = MESSAGE_OVERHEAD + blob_size(request.hash_key) + LIST_OVERHEAD;
+    if (request.kvs != null) {
+      for (key_value kv : request.kvs) {
+        size += blob_size(kv.key) + blob_size(kv.value) + 1;
+      }
+    }
+    return size;
+  }
+
   public void send_data(org.apache.thrift.protocol.TProtocol oprot, int seqid) throws TException {
     TMessage msg = new TMessage("RPC_RRDB_RRDB_MULTI_PUT", TMessageType.CALL, seqid);
     oprot.writeMessageBegin(msg);
@@ -25,6 +25,11 @@ public class rrdb_multi_remove_operator extends client_operator {
     return "multi_remove";
   }
 
+  @Override
+  public int estimated_body_size() {
+    return MESSAGE_OVERHEAD + blob_size(request.hash_key) + blobs_size(request.sork_keys);
+  }
+
   public void send_data(org.apache.thrift.protocol.TProtocol oprot, int seqid) throws TException {
     TMessage msg = new TMessage("RPC_RRDB_RRDB_MULTI_REMOVE", TMessageType.CALL, seqid);
     oprot.writeMessageBegin(msg);
@@ -25,6 +25,11 @@ public class rrdb_put_operator extends client_operator {
     return "put";
   }
 
+  @Override
+  public int estimated_body_size() {
+    return MESSAGE_OVERHEAD + blob_size(request.key) + blob_size(request.value);
+  }
+
   public void send_data(org.apache.thrift.protocol.TProtocol oprot, int seqid) throws TException {
     TMessage msg = new TMessage("RPC_RRDB_RRDB_PUT", TMessageType.CALL, seqid);
     oprot.writeMessageBegin(msg);
@@ -4,13 +4,27 @@
 package com.xiaomi.infra.pegasus.rpc;
 
 import com.xiaomi.infra.pegasus.rpc.async.ClusterManager;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
 import java.util.Properties;
+import java.util.concurrent.Executor;
 import org.apache.thrift.TException;
 
 public abstract class Cluster {
 
   public static Cluster createCluster(Properties config) throws IllegalArgumentException {
-    return new ClusterManager(ClusterOptions.create(config));
+    return createCluster(config, null);
+  }
+
+  /** @param callbackExecutor the executor to notify the listeners of the futures, nullable. */
+  public static Cluster createCluster(Properties config, Executor callbackExecutor)
+      throws IllegalArgumentException {
+    return createCluster(ClusterOptions.create(config), callbackExecutor);
+  }
+
+  public static Cluster createCluster(ClusterOptions options, Executor callbackExecutor)
+      throws IllegalArgumentException {
+    return new ClusterManager(options, callbackExecutor);
   }
 
   public abstract String[] getMetaList();
@@ -18,5 +32,16 @@ public abstract class Cluster {
   public abstract Table openTable(String name, TableOptions options)
       throws ReplicationException, TException;
 
+  /**
+   * Opens the table without blocking the caller. The future fails with {@link ReplicationException}
+   * if the table can't be opened.
+   */
+  public abstract Future<Table> asyncOpenTable(String name, TableOptions options);
+
+  public abstract EventExecutor getExecutor();
+
+  /** Whether the current thread is one of the executors returned by {@link #getExecutor()}. */
+  public abstract boolean inExecutor();
+
   public abstract void close();
 }
@@ -30,6 +30,104 @@ public class ClusterOptions {
   public static final String PEGASUS_META_QUERY_TIMEOUT_KEY = "meta_query_timeout";
   public static final String PEGASUS_META_QUERY_TIMEOUT_DEF = "5000";
 
+  public static final String PEGASUS_ENABLE_NATIVE_EPOLL_KEY = "enable_native_epoll";
+  public static final String PEGASUS_ENABLE_NATIVE_EPOLL_DEF = "false";
+
+  public static final String PEGASUS_EPOLL_BUSY_POLL_MICROS_KEY = "epoll_busy_poll_micros";
+  public static final String PEGASUS_EPOLL_BUSY_POLL_MICROS_DEF = "0";
+
+  public static final String PEGASUS_EPOLL_TCP_QUICKACK_KEY = "epoll_tcp_quickack";
+  public static final String PEGASUS_EPOLL_TCP_QUICKACK_DEF = "false";
+
+  public static final String PEGASUS_EPOLL_EDGE_TRIGGERED_KEY = "epoll_edge_triggered";
+  public static final String PEGASUS_EPOLL_EDGE_TRIGGERED_DEF = "true";
+
+  public static final String PEGASUS_FLUSH_BATCH_MAX_MESSAGES_KEY = "flush_batch_max_messages";
+  public static final String PEGASUS_FLUSH_BATCH_MAX_MESSAGES_DEF = "0";
+
+  public static final String PEGASUS_FLUSH_BATCH_MAX_BYTES_KEY = "flush_batch_max_bytes";
+  public static final String PEGASUS_FLUSH_BATCH_MAX_BYTES_DEF = "65536";
+
+  public static final String PEGASUS_FLUSH_BATCH_MAX_DELAY_MICROS_KEY =
+      "flush_batch_max_delay_micros";
+  public static final String PEGASUS_FLUSH_BATCH_MAX_DELAY_MICROS_DEF = "0";
+
+  public static final String PEGASUS_CONNECTIONS_PER_SERVER_KEY = "connections_per_server";
+  public static final String PEGASUS_CONNECTIONS_PER_SERVER_DEF = "1";
+
+  public static final String PEGASUS_CONNECTION_SELECT_POLICY_KEY = "connection_select_policy";
+  public static final String PEGASUS_CONNECTION_SELECT_POLICY_DEF = "least_outstanding";
+
+  public static final String PEGASUS_TIMEOUT_TICK_MS_KEY = "timeout_tick_ms";
+  public static final String PEGASUS_TIMEOUT_TICK_MS_DEF = "10";
+
+  public static final String PEGASUS_SESSION_MAX_INFLIGHT_KEY = "session_max_inflight";
+  public static final String PEGASUS_SESSION_MAX_INFLIGHT_DEF = "0";
+
+  public static final String PEGASUS_WRITE_BUFFER_HIGH_WATER_MARK_KEY =
+      "write_buffer_high_water_mark";
+  public static final String PEGASUS_WRITE_BUFFER_HIGH_WATER_MARK_DEF = "0";
+
+  public static final String PEGASUS_WRITE_BUFFER_LOW_WATER_MARK_KEY =
+      "write_buffer_low_water_mark";
+  public static final String PEGASUS_WRITE_BUFFER_LOW_WATER_MARK_DEF = "0";
+
+  public static final String PEGASUS_SESSION_OVERLOAD_POLICY_KEY = "session_overload_policy";
+  public static final String PEGASUS_SESSION_OVERLOAD_POLICY_DEF = "fail_fast";
+
+  public static final String PEGASUS_ENABLE_ADAPTIVE_BACKUP_REQUEST_KEY =
+      "enable_adaptive_backup_request";
+  public static final String PEGASUS_ENABLE_ADAPTIVE_BACKUP_REQUEST_DEF = "false";
+
+  public static final String PEGASUS_BACKUP_REQUEST_DELAY_PERCENTILE_KEY =
+      "backup_request_delay_percentile";
+  public static final String PEGASUS_BACKUP_REQUEST_DELAY_PERCENTILE_DEF = "95";
+
+  public static final String PEGASUS_BACKUP_REQUEST_MAX_PERCENT_KEY = "backup_request_max_percent";
+  public static final String PEGASUS_BACKUP_REQUEST_MAX_PERCENT_DEF = "100";
+
+  public static final String PEGASUS_READ_ROUTING_POLICY_KEY = "read_routing_policy";
+  public static final String PEGASUS_READ_ROUTING_POLICY_DEF = "primary";
+
+  public static final String PEGASUS_CIRCUIT_BREAKER_WINDOW_MS_KEY = "circuit_breaker_window_ms";
+  public static final String PEGASUS_CIRCUIT_BREAKER_WINDOW_MS_DEF = "5000";
+
+  public static final String PEGASUS_CIRCUIT_BREAKER_MIN_REQUESTS_KEY =
+      "circuit_breaker_min_requests";
+  public static final String PEGASUS_CIRCUIT_BREAKER_MIN_REQUESTS_DEF = "10";
+
+  public static final String PEGASUS_CIRCUIT_BREAKER_FAILURE_PERCENT_KEY =
+      "circuit_breaker_failure_percent";
+  public static final String PEGASUS_CIRCUIT_BREAKER_FAILURE_PERCENT_DEF = "0";
+
+  public static final String PEGASUS_CIRCUIT_BREAKER_SLOW_CALL_MS_KEY =
+      "circuit_breaker_slow_call_ms";
+  public static final String PEGASUS_CIRCUIT_BREAKER_SLOW_CALL_MS_DEF = "0";
+
+  public static final String PEGASUS_CIRCUIT_BREAKER_OPEN_MS_KEY = "circuit_breaker_open_ms";
+  public static final String PEGASUS_CIRCUIT_BREAKER_OPEN_MS_DEF = "3000";
+
+  public static final String PEGASUS_RETRY_BUDGET_PERCENT_KEY = "retry_budget_percent";
+  public static final String PEGASUS_RETRY_BUDGET_PERCENT_DEF = "0";
+
+  public static final String PEGASUS_RETRY_BUDGET_MIN_PER_SEC_KEY = "retry_budget_min_per_sec";
+  public static final String PEGASUS_RETRY_BUDGET_MIN_PER_SEC_DEF = "10";
+
+  public static final String PEGASUS_RETRY_BACKOFF_BASE_MS_KEY = "retry_backoff_base_ms";
+  public static final String PEGASUS_RETRY_BACKOFF_BASE_MS_DEF = "50";
+
+  public static final String PEGASUS_RETRY_BACKOFF_MAX_MS_KEY = "retry_backoff_max_ms";
+  public static final String PEGASUS_RETRY_BACKOFF_MAX_MS_DEF = "0";
+
+  public static final String PEGASUS_ROUTING_CACHE_DIR_KEY = "routing_cache_dir";
+  public static final String PEGASUS_ROUTING_CACHE_DIR_DEF = "";
+
+  public static final String PEGASUS_TABLE_WORKERS_KEY = "table_workers";
+  public static final String PEGASUS_TABLE_WORKERS_DEF = "1";
+
+  public static final String PEGASUS_CALLBACK_MODE_KEY = "callback_mode";
+  public static final String PEGASUS_CALLBACK_MODE_DEF = "table";
+
   public static String[] allKeys() {
     return new String[] {
       PEGASUS_META_SERVERS_KEY,
@@ -38,7 +136,37 @@ public class ClusterOptions {
       PEGASUS_ENABLE_PERF_COUNTER_KEY,
       PEGASUS_PERF_COUNTER_TAGS_KEY,
       PEGASUS_PUSH_COUNTER_INTERVAL_SECS_KEY,
-      PEGASUS_META_QUERY_TIMEOUT_KEY
+      PEGASUS_META_QUERY_TIMEOUT_KEY,
+      PEGASUS_ENABLE_NATIVE_EPOLL_KEY,
+      PEGASUS_EPOLL_BUSY_POLL_MICROS_KEY,
+      PEGASUS_EPOLL_TCP_QUICKACK_KEY,
+      PEGASUS_EPOLL_EDGE_TRIGGERED_KEY,
+      PEGASUS_FLUSH_BATCH_MAX_MESSAGES_KEY,
+      PEGASUS_FLUSH_BATCH_MAX_BYTES_KEY,
+      PEGASUS_FLUSH_BATCH_MAX_DELAY_MICROS_KEY,
+      PEGASUS_CONNECTIONS_PER_SERVER_KEY,
+      PEGASUS_CONNECTION_SELECT_POLICY_KEY,
+      PEGASUS_TIMEOUT_TICK_MS_KEY,
+      PEGASUS_SESSION_MAX_INFLIGHT_KEY,
+      PEGASUS_WRITE_BUFFER_HIGH_WATER_MARK_KEY,
+      PEGASUS_WRITE_BUFFER_LOW_WATER_MARK_KEY,
+      PEGASUS_SESSION_OVERLOAD_POLICY_KEY,
+      PEGASUS_ENABLE_ADAPTIVE_BACKUP_REQUEST_KEY,
+      PEGASUS_BACKUP_REQUEST_DELAY_PERCENTILE_KEY,
+      PEGASUS_BACKUP_REQUEST_MAX_PERCENT_KEY,
+      PEGASUS_READ_ROUTING_POLICY_KEY,
+      PEGASUS_CIRCUIT_BREAKER_WINDOW_MS_KEY,
+      PEGASUS_CIRCUIT_BREAKER_MIN_REQUESTS_KEY,
+      PEGASUS_CIRCUIT_BREAKER_FAILURE_PERCENT_KEY,
+      PEGASUS_CIRCUIT_BREAKER_SLOW_CALL_MS_KEY,
+      PEGASUS_CIRCUIT_BREAKER_OPEN_MS_KEY,
+      PEGASUS_RETRY_BUDGET_PERCENT_KEY,
+      PEGASUS_RETRY_BUDGET_MIN_PER_SEC_KEY,
+      PEGASUS_RETRY_BACKOFF_BASE_MS_KEY,
+      PEGASUS_RETRY_BACKOFF_MAX_MS_KEY,
+      PEGASUS_ROUTING_CACHE_DIR_KEY,
+      PEGASUS_TABLE_WORKERS_KEY,
+      PEGASUS_CALLBACK_MODE_KEY
     };
   }
 
@@ -49,6 +177,36 @@ public class ClusterOptions {
   private final String perfCounterTags;
   private final int pushCounterIntervalSecs;
   private final int metaQueryTimeout;
+  private final boolean enableNativeEpoll;
+  private final int epollBusyPollMicros;
+  private final boolean epollTcpQuickAck;
+  private final boolean epollEdgeTriggered;
+  private final int flushBatchMaxMessages;
+  private final int flushBatchMaxBytes;
+  private final int flushBatchMaxDelayMicros;
+  private final int connectionsPerServer;
+  private final String connectionSelectPolicy;
+  private final int timeoutTickMs;
+  private final int sessionMaxInflight;
+  private final int writeBufferHighWaterMark;
+  private final int writeBufferLowWaterMark;
+  private final String sessionOverloadPolicy;
+  private final boolean enableAdaptiveBackupRequest;
+  private final int backupRequestDelayPercentile;
+  private final int backupRequestMaxPercent;
+  private final String readRoutingPolicy;
+  private final int circuitBreakerWindowMs;
+  private final int circuitBreakerMinRequests;
+  private final int circuitBreakerFailurePercent;
+  private final int circuitBreakerSlowCallMs;
+  private final int circuitBreakerOpenMs;
+  private final int retryBudgetPercent;
+  private final int retryBudgetMinPerSec;
+  private final int retryBackoffBaseMs;
+  private final int retryBackoffMaxMs;
+  private final String routingCacheDir;
+  private final int tableWorkers;
+  private final String callbackMode;
 
   public int operationTimeout() {
     return this.operationTimeout;
@@ -78,6 +236,205 @@ public class ClusterOptions {
     return this.metaQueryTimeout;
   }
 
+  /**
+   * Whether to use netty's native epoll transport instead of NIO. It only takes effect on Linux
+   * where the native library can be loaded, otherwise the client falls back to NIO.
+   */
+  public boolean enableNativeEpoll() {
+    return this.enableNativeEpoll;
+  }
+
+  /** SO_BUSY_POLL in microseconds for epoll channels, 0 means disabled. */
+  public int epollBusyPollMicros() {
+    return this.epollBusyPollMicros;
+  }
+
+  /** Whether to set TCP_QUICKACK on epoll channels. */
+  public boolean epollTcpQuickAck() {
+    return this.epollTcpQuickAck;
+  }
+
+  /** Whether epoll channels work in edge-triggered mode, otherwise level-triggered. */
+  public boolean epollEdgeTriggered() {
+    return this.epollEdgeTriggered;
+  }
+
+  /**
+   * The max number of frames to be coalesced into one flush of a replica session, 0 means that
+   * flush consolidation is disabled and every request is flushed immediately.
+   */
+  public int flushBatchMaxMessages() {
+    return this.flushBatchMaxMessages;
+  }
+
+  /** The max number of bytes to be coalesced into one flush of a replica session. */
+  public int flushBatchMaxBytes() {
+    return this.flushBatchMaxBytes;
+  }
+
+  /**
+   * The max delay in microseconds of a deferred flush, 0 means the flush is issued once the tasks
+   * already queued in the event loop are executed.
+   */
+  public int flushBatchMaxDelayMicros() {
+    return this.flushBatchMaxDelayMicros;
+  }
+
+  /** The number of connections to each replica server. */
+  public int connectionsPerServer() {
+    return this.connectionsPerServer;
+  }
+
+  /**
+   * How to select a connection for a request when there are multiple connections per server, either
+   * "round_robin" or "least_outstanding".
+   */
+  public String connectionSelectPolicy() {
+    return this.connectionSelectPolicy;
+  }
+
+  /**
+   * The tick of the timing wheel which tracks the request timeouts, a request times out at most one
+   * tick later than its deadline.
+   */
+  public int timeoutTickMs() {
+    return this.timeoutTickMs;
+  }
+
+  /** The max number of in-flight requests of a connection, 0 means unlimited. */
+  public int sessionMaxInflight() {
+    return this.sessionMaxInflight;
+  }
+
+  /**
+   * The high water mark in bytes of the outbound buffer of a connection, new requests are held back
+   * when it's exceeded. 0 means netty's default is used and the outbound buffer isn't watched.
+   */
+  public int writeBufferHighWaterMark() {
+    return this.writeBufferHighWaterMark;
+  }
+
+  /**
+   * The low water mark in bytes of the outbound buffer of a connection, 0 means half of the high
+   * water mark.
+   */
+  public int writeBufferLowWaterMark() {
+    return this.writeBufferLowWaterMark;
+  }
+
+  /**
+   * What to do with a request when a connection is overloaded, either "fail_fast", "block" or
+   * "queue".
+   */
+  public String sessionOverloadPolicy() {
+    return this.sessionOverloadPolicy;
+  }
+
+  /**
+   * Whether the delay of backup requests tracks the recent latency of the table, instead of being
+   * fixed to the delay given when the table is opened.
+   */
+  public boolean enableAdaptiveBackupRequest() {
+    return this.enableAdaptiveBackupRequest;
+  }
+
+  /** The latency percentile that the adaptive delay of backup requests tracks. */
+  public int backupRequestDelayPercentile() {
+    return this.backupRequestDelayPercentile;
+  }
+
+  /** The max percentage of the requests of a table which may send backup requests. */
+  public int backupRequestMaxPercent() {
+    return this.backupRequestMaxPercent;
+  }
+
+  /**
+   * How the reads which allow backup requests are routed across the primary and the secondaries,
+   * one of "primary", "least_outstanding" and "ewma".
+   */
+  public String readRoutingPolicy() {
+    return this.readRoutingPolicy;
+  }
+
+  /** The window in which the circuit breaker of a replica server counts the failed requests. */
+  public int circuitBreakerWindowMs() {
+    return this.circuitBreakerWindowMs;
+  }
+
+  /** The min requests in a window, or the consecutive failures, to open the circuit breaker. */
+  public int circuitBreakerMinRequests() {
+    return this.circuitBreakerMinRequests;
+  }
+
+  /**
+   * The percentage of failed requests in a window which opens the circuit breaker, 0 disables the
+   * circuit breaker, which then only resets the connections to a server which has not responded for
+   * 10s.
+   */
+  public int circuitBreakerFailurePercent() {
+    return this.circuitBreakerFailurePercent;
+  }
+
+  /**
+   * The responses slower than it are counted as failures by the circuit breaker, 0 means only the
+   * timeouts are failures.
+   */
+  public int circuitBreakerSlowCallMs() {
+    return this.circuitBreakerSlowCallMs;
+  }
+
+  /** How long the circuit breaker keeps open before it lets a probing request through. */
+  public int circuitBreakerOpenMs() {
+    return this.circuitBreakerOpenMs;
+  }
+
+  /**
+   * The retries of a table in a second are limited to this percentage of the first attempts, plus
+   * retry_budget_min_per_sec. 0 disables the retry budget, which is the default.
+   */
+  public int retryBudgetPercent() {
+    return this.retryBudgetPercent;
+  }
+
+  /** The retries of a table allowed in a second regardless of the first attempts. */
+  public int retryBudgetMinPerSec() {
+    return this.retryBudgetMinPerSec;
+  }
+
+  /** The backoff of the first retry, which doubles on each following retry. */
+  public int retryBackoffBaseMs() {
+    return this.retryBackoffBaseMs;
+  }
+
+  /** The max backoff of the retries, 0 means a third of the operation timeout. */
+  public int retryBackoffMaxMs() {
+    return this.retryBackoffMaxMs;
+  }
+
+  /**
+   * The directory to cache the meta leader and the table configurations on disk, which are used on
+   * startup before meta responds. Empty disables the routing cache.
+   */
+  public String routingCacheDir() {
+    return this.routingCacheDir;
+  }
+
+  /**
+   * The threads to schedule the retries and the backup requests of the tables, and to complete the
+   * futures of the operations. The work of a table is sharded by partition across the threads.
+   */
+  public int tableWorkers() {
+    return this.tableWorkers;
+  }
+
+  /**
+   * The threads to notify the listeners of the operations' futures: table, direct, executor or
+   * ordered, see ClientOptions.Builder#callbackMode.
+   */
+  public String callbackMode() {
+    return this.callbackMode;
+  }
+
   public static ClusterOptions create(Properties config) {
     int operationTimeout =
         Integer.parseInt(
@@ -116,11 +473,12 @@ public class ClusterOptions {
         enablePerfCounter,
         perfCounterTags,
         pushIntervalSecs,
-        metaQueryTimeout);
+        metaQueryTimeout,
+        config);
   }
 
   public static ClusterOptions forTest(String[] metaList) {
-    return new ClusterOptions(1000, metaList, 1, false, null, 60, 1000);
+    return new ClusterOptions(1000, metaList, 1, false, null, 60, 1000, new Properties());
   }
 
   private ClusterOptions(
@@ -130,7 +488,8 @@ public class ClusterOptions {
       boolean enablePerfCounter,
       String perfCounterTags,
       int pushCounterIntervalSecs,
-      int metaQueryTimeout) {
+      int metaQueryTimeout,
+      Properties config) {
     this.operationTimeout = operationTimeout;
     this.metaList = metaList;
     this.asyncWorkers = asyncWorkers;
@@ -138,5 +497,117 @@ public class ClusterOptions {
     this.perfCounterTags = perfCounterTags;
     this.pushCounterIntervalSecs = pushCounterIntervalSecs;
     this.metaQueryTimeout = metaQueryTimeout;
+
+    // the following options all have defaults, so they are read from the config directly
+    // rather than being passed one by one.
+    this.enableNativeEpoll =
+        Boolean.parseBoolean(
+            config.getProperty(PEGASUS_ENABLE_NATIVE_EPOLL_KEY, PEGASUS_ENABLE_NATIVE_EPOLL_DEF));
+    this.epollBusyPollMicros =
+        Integer.parseInt(
+            config.getProperty(
+                PEGASUS_EPOLL_BUSY_POLL_MICROS_KEY, PEGASUS_EPOLL_BUSY_POLL_MICROS_DEF));
+    this.epollTcpQuickAck =
+        Boolean.parseBoolean(
+            config.getProperty(PEGASUS_EPOLL_TCP_QUICKACK_KEY, PEGASUS_EPOLL_TCP_QUICKACK_DEF));
+    this.epollEdgeTriggered =
+        Boolean.parseBoolean(
+            config.getProperty(PEGASUS_EPOLL_EDGE_TRIGGERED_KEY, PEGASUS_EPOLL_EDGE_TRIGGERED_DEF));
+    this.flushBatchMaxMessages =
+        Integer.parseInt(
+            config.getProperty(
+                PEGASUS_FLUSH_BATCH_MAX_MESSAGES_KEY, PEGASUS_FLUSH_BATCH_MAX_MESSAGES_DEF));
+    this.flushBatchMaxBytes =
+        Integer.parseInt(
+            config.getProperty(
+                PEGASUS_FLUSH_BATCH_MAX_BYTES_KEY, PEGASUS_FLUSH_BATCH_MAX_BYTES_DEF));
+    this.flushBatchMaxDelayMicros =
+        Integer.parseInt(
+            config.getProperty(
+                PEGASUS_FLUSH_BATCH_MAX_DELAY_MICROS_KEY,
+                PEGASUS_FLUSH_BATCH_MAX_DELAY_MICROS_DEF));
+    this.connectionsPerServer =
+        Integer.parseInt(
+            config.getProperty(
+                PEGASUS_CONNECTIONS_PER_SERVER_KEY, PEGASUS_CONNECTIONS_PER_SERVER_DEF));
+    this.connectionSelectPolicy =
+        config.getProperty(
+            PEGASUS_CONNECTION_SELECT_POLICY_KEY, PEGASUS_CONNECTION_SELECT_POLICY_DEF);
+    this.timeoutTickMs =
+        Integer.parseInt(
+            config.getProperty(PEGASUS_TIMEOUT_TICK_MS_KEY, PEGASUS_TIMEOUT_TICK_MS_DEF));
+    this.sessionMaxInflight =
+        Integer.parseInt(
+            config.getProperty(PEGASUS_SESSION_MAX_INFLIGHT_KEY, PEGASUS_SESSION_MAX_INFLIGHT_DEF));
+    this.writeBufferHighWaterMark =
+        Integer.parseInt(
+            config.getProperty(
+                PEGASUS_WRITE_BUFFER_HIGH_WATER_MARK_KEY,
+                PEGASUS_WRITE_BUFFER_HIGH_WATER_MARK_DEF));
+    this.writeBufferLowWaterMark =
+        Integer.parseInt(
+            config.getProperty(
+                PEGASUS_WRITE_BUFFER_LOW_WATER_MARK_KEY, PEGASUS_WRITE_BUFFER_LOW_WATER_MARK_DEF));
+    this.sessionOverloadPolicy =
+        config.getProperty(
+            PEGASUS_SESSION_OVERLOAD_POLICY_KEY, PEGASUS_SESSION_OVERLOAD_POLICY_DEF);
+    this.enableAdaptiveBackupRequest =
+        Boolean.parseBoolean(
+            config.getProperty(
+                PEGASUS_ENABLE_ADAPTIVE_BACKUP_REQUEST_KEY,
+                PEGASUS_ENABLE_ADAPTIVE_BACKUP_REQUEST_DEF));
+    this.backupRequestDelayPercentile =
+        Integer.parseInt(
+            config.getProperty(
+                PEGASUS_BACKUP_REQUEST_DELAY_PERCENTILE_KEY,
+                PEGASUS_BACKUP_REQUEST_DELAY_PERCENTILE_DEF));
+    this.backupRequestMaxPercent =
+        Integer.parseInt(
+            config.getProperty(
+                PEGASUS_BACKUP_REQUEST_MAX_PERCENT_KEY, PEGASUS_BACKUP_REQUEST_MAX_PERCENT_DEF));
+    this.readRoutingPolicy =
+        config.getProperty(PEGASUS_READ_ROUTING_POLICY_KEY, PEGASUS_READ_ROUTING_POLICY_DEF);
+    this.circuitBreakerWindowMs =
+        Integer.parseInt(
+            config.getProperty(
+                PEGASUS_CIRCUIT_BREAKER_WINDOW_MS_KEY, PEGASUS_CIRCUIT_BREAKER_WINDOW_MS_DEF));
+    this.circuitBreakerMinRequests =
+        Integer.parseInt(
+            config.getProperty(
+                PEGASUS_CIRCUIT_BREAKER_MIN_REQUESTS_KEY,
+                PEGASUS_CIRCUIT_BREAKER_MIN_REQUESTS_DEF));
+    this.circuitBreakerFailurePercent =
+        Integer.parseInt(
+            config.getProperty(
+                PEGASUS_CIRCUIT_BREAKER_FAILURE_PERCENT_KEY,
+                PEGASUS_CIRCUIT_BREAKER_FAILURE_PERCENT_DEF));
+    this.circuitBreakerSlowCallMs =
+        Integer.parseInt(
+            config.getProperty(
+                PEGASUS_CIRCUIT_BREAKER_SLOW_CALL_MS_KEY,
+                PEGASUS_CIRCUIT_BREAKER_SLOW_CALL_MS_DEF));
+    this.circuitBreakerOpenMs =
+        Integer.parseInt(
+            config.getProperty(
+                PEGASUS_CIRCUIT_BREAKER_OPEN_MS_KEY, PEGASUS_CIRCUIT_BREAKER_OPEN_MS_DEF));
+    this.retryBudgetPercent =
+        Integer.parseInt(
+            config.getProperty(PEGASUS_RETRY_BUDGET_PERCENT_KEY, PEGASUS_RETRY_BUDGET_PERCENT_DEF));
+    this.retryBudgetMinPerSec =
+        Integer.parseInt(
+            config.getProperty(
+                PEGASUS_RETRY_BUDGET_MIN_PER_SEC_KEY, PEGASUS_RETRY_BUDGET_MIN_PER_SEC_DEF));
+    this.retryBackoffBaseMs =
+        Integer.parseInt(
+            config.getProperty(
+                PEGASUS_RETRY_BACKOFF_BASE_MS_KEY, PEGASUS_RETRY_BACKOFF_BASE_MS_DEF));
+    this.retryBackoffMaxMs =
+        Integer.parseInt(
+            config.getProperty(PEGASUS_RETRY_BACKOFF_MAX_MS_KEY, PEGASUS_RETRY_BACKOFF_MAX_MS_DEF));
+    this.routingCacheDir =
+        config.getProperty(PEGASUS_ROUTING_CACHE_DIR_KEY, PEGASUS_ROUTING_CACHE_DIR_DEF);
+    this.tableWorkers =
+        Integer.parseInt(config.getProperty(PEGASUS_TABLE_WORKERS_KEY, PEGASUS_TABLE_WORKERS_DEF));
+    this.callbackMode = config.getProperty(PEGASUS_CALLBACK_MODE_KEY, PEGASUS_CALLBACK_MODE_DEF);
   }
 }
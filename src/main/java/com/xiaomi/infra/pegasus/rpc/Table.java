@@ -48,6 +48,14 @@ public abstract class Table {
     return new DefaultPromise<T>(getExecutor());
   }
 
+  /**
+   * Creates a promise of an operation on the hash key. The listeners of the promises of the same
+   * hash key are notified in order if the callback mode is ordered.
+   */
+  public final <T> DefaultPromise<T> newPromise(byte[] hashKey) {
+    return new DefaultPromise<T>(getExecutor(hashKey));
+  }
+
   public abstract int getDefaultTimeout();
 
   public abstract int getPartitionCount();
@@ -58,6 +66,16 @@ public abstract class Table {
 
   public abstract EventExecutor getExecutor();
 
+  public EventExecutor getExecutor(byte[] hashKey) {
+    return getExecutor();
+  }
+
+  /**
+   * Whether the current thread is an executor or an event loop of the client, where a synchronous
+   * operation must not wait, because the operation may have to complete in the same thread.
+   */
+  public abstract boolean inEventLoop();
+
   protected String tableName_;
   protected int appID_;
   protected KeyHasher hasher_;
@@ -7,6 +7,9 @@ package com.xiaomi.infra.pegasus.rpc;
 public class TableOptions {
   private final KeyHasher keyHasher;
   private final int backupRequestDelayMs;
+  private final boolean enableAdaptiveBackupRequest;
+  private final int backupRequestDelayPercentile;
+  private final int backupRequestMaxPercent;
 
   public KeyHasher keyHasher() {
     return this.keyHasher;
@@ -16,12 +19,43 @@ public class TableOptions {
     return this.backupRequestDelayMs;
   }
 
+  public boolean enableAdaptiveBackupRequest() {
+    return this.enableAdaptiveBackupRequest;
+  }
+
+  public int backupRequestDelayPercentile() {
+    return this.backupRequestDelayPercentile;
+  }
+
+  public int backupRequestMaxPercent() {
+    return this.backupRequestMaxPercent;
+  }
+
   public static TableOptions forTest() {
     return new TableOptions(KeyHasher.DEFAULT, 0);
   }
 
   public TableOptions(KeyHasher h, int backupRequestDelay) {
+    this(h, backupRequestDelay, false, 95, 100);
+  }
+
+  /**
+   * @param backupRequestDelay the delay of backup requests, which is the initial delay if adaptive.
+   *     Backup requests are disabled if it's not positive.
+   * @param enableAdaptiveBackupRequest whether the delay tracks the recent read latency.
+   * @param backupRequestDelayPercentile the latency percentile tracked by the adaptive delay.
+   * @param backupRequestMaxPercent the max percentage of reads which may send backup requests.
+   */
+  public TableOptions(
+      KeyHasher h,
+      int backupRequestDelay,
+      boolean enableAdaptiveBackupRequest,
+      int backupRequestDelayPercentile,
+      int backupRequestMaxPercent) {
     this.keyHasher = h;
     this.backupRequestDelayMs = backupRequestDelay;
+    this.enableAdaptiveBackupRequest = enableAdaptiveBackupRequest;
+    this.backupRequestDelayPercentile = backupRequestDelayPercentile;
+    this.backupRequestMaxPercent = backupRequestMaxPercent;
   }
 }
@@ -3,6 +3,7 @@
 // can be found in the LICENSE file in the root directory of this source tree.
 package com.xiaomi.infra.pegasus.rpc;
 
+import io.netty.buffer.ByteBuf;
 import java.nio.ByteBuffer;
 
 public class ThriftHeader {
@@ -20,4 +21,12 @@ public class ThriftHeader {
     bf.putInt(body_length);
     return bf.array();
   }
+
+  /** Writes the header into {@code buf} at {@code index} without changing its writer index. */
+  public void writeTo(ByteBuf buf, int index) {
+    buf.setBytes(index, HEADER_TYPE);
+    buf.setInt(index + 4, version);
+    buf.setInt(index + 8, meta_length);
+    buf.setInt(index + 12, body_length);
+  }
 }
@@ -0,0 +1,211 @@
+// Copyright (c) 2017, Xiaomi, Inc.  All rights reserved.
+// This source code is licensed under the Apache License Version 2.0, which
+// can be found in the LICENSE file in the root directory of this source tree.
+package com.xiaomi.infra.pegasus.rpc.async;
+
+import com.xiaomi.infra.pegasus.rpc.Table;
+import io.netty.util.concurrent.AbstractEventExecutor;
+import io.netty.util.concurrent.DefaultPromise;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import io.netty.util.concurrent.Promise;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * CallbackExecutor selects the executor to notify the listeners of an operation's future, which is
+ * the executor the future is bound to.
+ *
+ * <ul>
+ *   <li>TABLE: the table executors in turn, which is the default.
+ *   <li>DIRECT: the thread which completes the operation, usually the replica I/O thread, so the
+ *       listeners must be trivial and never block.
+ *   <li>EXECUTOR: the executor supplied by the user.
+ *   <li>ORDERED: the listeners of the same hash key are notified in order. The keys are striped
+ *       over the user executor if supplied, otherwise over the table executors.
+ * </ul>
+ */
+final class CallbackExecutor {
+  public enum Mode {
+    TABLE,
+    DIRECT,
+    EXECUTOR,
+    ORDERED;
+
+    public static Mode fromString(String name) {
+      return Mode.valueOf(name.trim().toUpperCase());
+    }
+  }
+
+  static final int ORDERED_STRIPES = 64;
+
+  private final Mode mode;
+  // the executor of the futures unless they're notified by the table executors
+  private final EventExecutor executor;
+  // the serial executors of the keys in ORDERED mode, null if striped over the table executors
+  private final EventExecutor[] stripes;
+  private final AtomicInteger next = new AtomicInteger(0);
+
+  /** @param userExecutor the executor supplied by the user, nullable except in EXECUTOR mode. */
+  CallbackExecutor(Mode mode, Executor userExecutor) {
+    this.mode = mode;
+    switch (mode) {
+      case DIRECT:
+        executor = new DelegatingEventExecutor(Runnable::run);
+        stripes = null;
+        break;
+      case EXECUTOR:
+        if (userExecutor == null) {
+          throw new IllegalArgumentException("no callback executor is supplied");
+        }
+        executor = new DelegatingEventExecutor(userExecutor);
+        stripes = null;
+        break;
+      case ORDERED:
+        if (userExecutor == null) {
+          executor = null;
+          stripes = null;
+        } else {
+          executor = new DelegatingEventExecutor(userExecutor);
+          stripes = new EventExecutor[ORDERED_STRIPES];
+          for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new DelegatingEventExecutor(new SerialExecutor(userExecutor));
+          }
+        }
+        break;
+      default:
+        executor = null;
+        stripes = null;
+    }
+  }
+
+  /** Selects the executor of a future which isn't bound to a key. */
+  EventExecutor select(EventExecutor[] tableExecutors) {
+    if (executor != null) {
+      return executor;
+    }
+    if (tableExecutors.length == 1) {
+      return tableExecutors[0];
+    }
+    return tableExecutors[(next.getAndIncrement() & Integer.MAX_VALUE) % tableExecutors.length];
+  }
+
+  /** Selects the executor of a future of the hash key, which is the same for the same key. */
+  EventExecutor select(EventExecutor[] tableExecutors, byte[] hashKey) {
+    if (mode != Mode.ORDERED) {
+      return select(tableExecutors);
+    }
+    EventExecutor[] executors = stripes != null ? stripes : tableExecutors;
+    return executors[(int) Table.remainder_unsigned(Arrays.hashCode(hashKey), executors.length)];
+  }
+
+  /**
+   * Runs the tasks on the delegate. It's never in the event loop, so that waiting for the futures
+   * bound to it doesn't fail as a deadlock, and the listeners are always handed to the delegate.
+   *
+   * <p>It owns no thread, so it's terminated as soon as it's shut down, after which the tasks are
+   * rejected. The delegate isn't shut down with it.
+   */
+  static final class DelegatingEventExecutor extends AbstractEventExecutor {
+    private final Executor delegate;
+    private final Promise<?> terminationFuture =
+        new DefaultPromise<Void>(GlobalEventExecutor.INSTANCE);
+
+    DelegatingEventExecutor(Executor delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+      if (isShutdown()) {
+        throw new RejectedExecutionException("executor is shut down");
+      }
+      delegate.execute(task);
+    }
+
+    @Override
+    public boolean inEventLoop(Thread thread) {
+      return false;
+    }
+
+    @Override
+    public boolean isShuttingDown() {
+      return isShutdown();
+    }
+
+    @Override
+    public Future<?> shutdownGracefully(long quietPeriod, long timeout, TimeUnit unit) {
+      terminationFuture.trySuccess(null);
+      return terminationFuture;
+    }
+
+    @Override
+    public Future<?> terminationFuture() {
+      return terminationFuture;
+    }
+
+    @Override
+    @Deprecated
+    public void shutdown() {
+      terminationFuture.trySuccess(null);
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return terminationFuture.isDone();
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return isShutdown();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+      return terminationFuture.await(timeout, unit);
+    }
+  }
+
+  /** Runs the tasks one by one in the submitted order on the delegate. */
+  static final class SerialExecutor implements Executor {
+    private final Executor delegate;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    SerialExecutor(Executor delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+      tasks.offer(task);
+      schedule();
+    }
+
+    private void schedule() {
+      if (!tasks.isEmpty() && running.compareAndSet(false, true)) {
+        delegate.execute(this::drain);
+      }
+    }
+
+    private void drain() {
+      try {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+          task.run();
+        }
+      } finally {
+        running.set(false);
+        // the tasks offered after the last poll
+        schedule();
+      }
+    }
+  }
+}
@@ -0,0 +1,200 @@
+// Copyright (c) 2017, Xiaomi, Inc.  All rights reserved.
+// This source code is licensed under the Apache License Version 2.0, which
+// can be found in the LICENSE file in the root directory of this source tree.
+package com.xiaomi.infra.pegasus.rpc.async;
+
+import com.xiaomi.infra.pegasus.rpc.ClusterOptions;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * CircuitBreaker of a replica session, which stops sending requests to a server that is failing.
+ *
+ * <p>It's CLOSED normally, and opens if {@code failurePercent} of the requests in a window fail, or
+ * {@code minRequests} requests fail consecutively. The timeouts and the responses slower than
+ * {@code slowCallNanos} are failures. It lets a probing request through after {@code openNanos},
+ * and closes if the probe succeeds, or opens again otherwise.
+ *
+ * <p>A disabled circuit breaker never rejects requests. It only asks for the connections to be
+ * reset after all the requests time out for {@link #SESSION_RESET_WINDOW_MS}, like the client did
+ * before the circuit breaker was added.
+ */
+public final class CircuitBreaker {
+  public enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private static final class Status {
+    final State state;
+    final long sinceNanos;
+
+    Status(State state, long sinceNanos) {
+      this.state = state;
+      this.sinceNanos = sinceNanos;
+    }
+  }
+
+  static final long SESSION_RESET_WINDOW_MS = 10 * 1000; // 10s
+
+  private final long windowNanos;
+  private final int minRequests;
+  private final int failurePercent;
+  private final long slowCallNanos;
+  private final long openNanos;
+
+  private final AtomicReference<Status> status;
+  private final AtomicLong windowStartNanos;
+  private final AtomicInteger windowRequests = new AtomicInteger(0);
+  private final AtomicInteger windowFailures = new AtomicInteger(0);
+  private final AtomicInteger consecutiveFailures = new AtomicInteger(0);
+  // Timestamp of the first timeout since the last response, used when disabled.
+  private final AtomicLong firstRecentTimedOutMs = new AtomicLong(0);
+
+  /** @param failurePercent the circuit breaker is disabled if it's not positive. */
+  public CircuitBreaker(
+      long windowMs, int minRequests, int failurePercent, long slowCallMs, long openMs) {
+    this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+    this.minRequests = Math.max(1, minRequests);
+    this.failurePercent = failurePercent;
+    this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMs);
+    this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMs);
+    long now = System.nanoTime();
+    this.status = new AtomicReference<>(new Status(State.CLOSED, now));
+    this.windowStartNanos = new AtomicLong(now);
+  }
+
+  static CircuitBreaker create(ClusterOptions options) {
+    if (options == null) {
+      return new CircuitBreaker(
+          Long.parseLong(ClusterOptions.PEGASUS_CIRCUIT_BREAKER_WINDOW_MS_DEF),
+          Integer.parseInt(ClusterOptions.PEGASUS_CIRCUIT_BREAKER_MIN_REQUESTS_DEF),
+          Integer.parseInt(ClusterOptions.PEGASUS_CIRCUIT_BREAKER_FAILURE_PERCENT_DEF),
+          Long.parseLong(ClusterOptions.PEGASUS_CIRCUIT_BREAKER_SLOW_CALL_MS_DEF),
+          Long.parseLong(ClusterOptions.PEGASUS_CIRCUIT_BREAKER_OPEN_MS_DEF));
+    }
+    return new CircuitBreaker(
+        options.circuitBreakerWindowMs(),
+        options.circuitBreakerMinRequests(),
+        options.circuitBreakerFailurePercent(),
+        options.circuitBreakerSlowCallMs(),
+        options.circuitBreakerOpenMs());
+  }
+
+  public State getState() {
+    return status.get().state;
+  }
+
+  boolean isEnabled() {
+    return failurePercent > 0;
+  }
+
+  /**
+   * Whether a request can be sent now. When the open duration passes, only the caller which turns
+   * it HALF_OPEN is let through as the probe.
+   */
+  public boolean allowRequest() {
+    if (!isEnabled()) {
+      return true;
+    }
+    Status s = status.get();
+    if (s.state == State.CLOSED) {
+      return true;
+    }
+    // a probe which is never responded is given up after another open duration
+    long now = System.nanoTime();
+    if (now - s.sinceNanos < openNanos) {
+      return false;
+    }
+    return status.compareAndSet(s, new Status(State.HALF_OPEN, now));
+  }
+
+  /**
+   * Records a response, which is a failure if it's slower than the slow call threshold.
+   *
+   * @return true if the circuit breaker is opened by this slow response.
+   */
+  public boolean onResponse(long latencyNanos) {
+    if (!isEnabled()) {
+      firstRecentTimedOutMs.set(0); // the server is currently healthy.
+      return false;
+    }
+    if (slowCallNanos > 0 && latencyNanos > slowCallNanos) {
+      return onFailure();
+    }
+    consecutiveFailures.set(0);
+    Status s = status.get();
+    if (s.state == State.HALF_OPEN) {
+      if (status.compareAndSet(s, new Status(State.CLOSED, System.nanoTime()))) {
+        resetWindow(System.nanoTime());
+      }
+      return false;
+    }
+    if (s.state == State.CLOSED) {
+      rollWindow();
+      windowRequests.incrementAndGet();
+    }
+    return false;
+  }
+
+  /**
+   * Records a failed request.
+   *
+   * @return true if the connections to the server should be reset, that is, the circuit breaker is
+   *     opened by this failure, or it's disabled and the server has not responded for {@link
+   *     #SESSION_RESET_WINDOW_MS}.
+   */
+  public boolean onFailure() {
+    if (!isEnabled()) {
+      return onFailureWhenDisabled();
+    }
+    int consecutive = consecutiveFailures.incrementAndGet();
+    Status s = status.get();
+    if (s.state == State.HALF_OPEN) {
+      // the probe fails
+      return status.compareAndSet(s, new Status(State.OPEN, System.nanoTime()));
+    }
+    if (s.state != State.CLOSED) {
+      return false;
+    }
+
+    rollWindow();
+    int requests = windowRequests.incrementAndGet();
+    int failures = windowFailures.incrementAndGet();
+    boolean trip =
+        consecutive >= minRequests
+            || (requests >= minRequests && failures * 100L >= (long) requests * failurePercent);
+    return trip && status.compareAndSet(s, new Status(State.OPEN, System.nanoTime()));
+  }
+
+  private boolean onFailureWhenDisabled() {
+    long firstTs = firstRecentTimedOutMs.get();
+    if (firstTs == 0) {
+      // it is the first timeout in the window.
+      firstRecentTimedOutMs.compareAndSet(0, System.currentTimeMillis());
+      return false;
+    }
+    // ensure that the connections are reset only once.
+    return System.currentTimeMillis() - firstTs >= SESSION_RESET_WINDOW_MS
+        && firstRecentTimedOutMs.compareAndSet(firstTs, 0);
+  }
+
+  private void rollWindow() {
+    long start = windowStartNanos.get();
+    long now = System.nanoTime();
+    if (now - start >= windowNanos && windowStartNanos.compareAndSet(start, now)) {
+      windowRequests.set(0);
+      windowFailures.set(0);
+    }
+  }
+
+  private void resetWindow(long now) {
+    windowStartNanos.set(now);
+    windowRequests.set(0);
+    windowFailures.set(0);
+    consecutiveFailures.set(0);
+  }
+}
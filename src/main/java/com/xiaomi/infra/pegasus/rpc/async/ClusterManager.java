@@ -10,15 +10,27 @@ import com.xiaomi.infra.pegasus.metrics.MetricsManager;
 import com.xiaomi.infra.pegasus.rpc.Cluster;
 import com.xiaomi.infra.pegasus.rpc.ClusterOptions;
 import com.xiaomi.infra.pegasus.rpc.ReplicationException;
+import com.xiaomi.infra.pegasus.rpc.Table;
 import com.xiaomi.infra.pegasus.rpc.TableOptions;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 
 public class ClusterManager extends Cluster {
@@ -27,13 +39,21 @@ public class ClusterManager extends Cluster {
   private int operationTimeout;
   private int retryDelay;
   private boolean enableCounter;
+  private ClusterOptions options;
+  private ReplicaSessionGroup.SelectPolicy connectionSelectPolicy;
+  private ReadRouter.Policy readRoutingPolicy;
+  private CallbackExecutor callbackExecutor;
 
-  private ConcurrentHashMap<rpc_address, ReplicaSession> replicaSessions;
+  private ConcurrentHashMap<rpc_address, ReplicaSessionGroup> replicaSessions;
   private EventLoopGroup metaGroup; // group used for handle meta logic
   private EventLoopGroup replicaGroup; // group used for handle io with replica servers
   private EventLoopGroup tableGroup; // group used for handle table logic
+  private EventExecutor[] tableExecutors; // the executors of tableGroup
+  private EventExecutor[] clientExecutors; // the executors of all the groups
+  private TimeoutWheel timeoutWheel; // tracks the timeouts of all the replica sessions
   private String[] metaList;
   private MetaSession metaSession;
+  private RoutingCache routingCache; // null if the routing cache is disabled
 
   private static final String osName;
 
@@ -44,50 +64,178 @@ public class ClusterManager extends Cluster {
   }
 
   public ClusterManager(ClusterOptions opts) throws IllegalArgumentException {
+    this(opts, null);
+  }
+
+  /** @param callbackExecutor the executor to notify the listeners of the futures, nullable. */
+  public ClusterManager(ClusterOptions opts, Executor callbackExecutor)
+      throws IllegalArgumentException {
     setTimeout(opts.operationTimeout());
+    this.options = opts;
     this.enableCounter = opts.enablePerfCounter();
     if (enableCounter) {
       MetricsManager.detectHostAndInit(opts.perfCounterTags(), opts.pushCounterIntervalSecs());
     }
 
-    replicaSessions = new ConcurrentHashMap<rpc_address, ReplicaSession>();
-    replicaGroup = getEventLoopGroupInstance(opts.asyncWorkers());
-    metaGroup = getEventLoopGroupInstance(1);
-    tableGroup = getEventLoopGroupInstance(1);
+    replicaSessions = new ConcurrentHashMap<rpc_address, ReplicaSessionGroup>();
+    connectionSelectPolicy =
+        ReplicaSessionGroup.SelectPolicy.fromString(opts.connectionSelectPolicy());
+    readRoutingPolicy = ReadRouter.Policy.fromString(opts.readRoutingPolicy());
+    this.callbackExecutor =
+        new CallbackExecutor(
+            CallbackExecutor.Mode.fromString(opts.callbackMode()), callbackExecutor);
+    boolean useEpoll = opts.enableNativeEpoll() && isEpollAvailable();
+    replicaGroup = getEventLoopGroupInstance(opts.asyncWorkers(), useEpoll);
+    metaGroup = getEventLoopGroupInstance(1, useEpoll);
+    tableGroup = getEventLoopGroupInstance(max(1, opts.tableWorkers()), useEpoll);
+    List<EventExecutor> executors = new ArrayList<>();
+    tableGroup.forEach(executors::add);
+    tableExecutors = executors.toArray(new EventExecutor[0]);
+    replicaGroup.forEach(executors::add);
+    metaGroup.forEach(executors::add);
+    clientExecutors = executors.toArray(new EventExecutor[0]);
+    timeoutWheel =
+        new TimeoutWheel(max(1, opts.timeoutTickMs()), TimeoutWheel.DEFAULT_TICKS_PER_WHEEL);
+    timeoutWheel.start(replicaGroup.next());
 
     metaList = opts.metaList();
     // the constructor of meta session is depend on the replicaSessions,
     // so the replicaSessions should be initialized earlier
-    metaSession = new MetaSession(this, opts.metaList(), opts.metaQueryTimeout(), 10, metaGroup);
+    rpc_address cachedLeader = null;
+    if (!opts.routingCacheDir().isEmpty()) {
+      routingCache = new RoutingCache(opts.routingCacheDir(), metaList);
+      cachedLeader = routingCache.loadLeader();
+      logger.info(
+          "routing cache is enabled in {}, cached meta leader({})",
+          routingCache.getDir(),
+          cachedLeader);
+    }
+    metaSession =
+        new MetaSession(
+            this, opts.metaList(), opts.metaQueryTimeout(), 10, metaGroup, cachedLeader);
+
+    if (enableCounter) {
+      // sampled out of the table executors, so that a busy one is still reported
+      metaGroup.scheduleAtFixedRate(this::reportTableExecutorQueueDepth, 1, 1, TimeUnit.SECONDS);
+    }
   }
 
+  @Override
   public EventExecutor getExecutor() {
     return tableGroup.next();
   }
 
+  @Override
+  public boolean inExecutor() {
+    for (EventExecutor executor : tableExecutors) {
+      if (executor.inEventLoop()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Whether the current thread is a table executor or an I/O event loop of this client, which must
+   * never be blocked by waiting for an operation.
+   */
+  public boolean inClientThread() {
+    for (EventExecutor executor : clientExecutors) {
+      if (executor.inEventLoop()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** @return all the table executors, rotated to begin with {@code first}. */
+  EventExecutor[] getTableExecutors(EventExecutor first) {
+    int begin = Math.max(0, Arrays.asList(tableExecutors).indexOf(first));
+    EventExecutor[] executors = new EventExecutor[tableExecutors.length];
+    for (int i = 0; i < executors.length; i++) {
+      executors[i] = tableExecutors[(begin + i) % tableExecutors.length];
+    }
+    return executors;
+  }
+
+  /** @return the tasks ready to run in the table executors. */
+  public int getTableExecutorQueueDepth() {
+    int depth = 0;
+    for (EventExecutor executor : tableExecutors) {
+      depth += queueDepth(executor);
+    }
+    return depth;
+  }
+
+  private static int queueDepth(EventExecutor executor) {
+    return executor instanceof SingleThreadEventExecutor
+        ? ((SingleThreadEventExecutor) executor).pendingTasks()
+        : 0;
+  }
+
+  private void reportTableExecutorQueueDepth() {
+    for (int i = 0; i < tableExecutors.length; i++) {
+      MetricsManager.setHistogramValue(
+          "pegasus.client.table_executor.queue_depth@" + i, queueDepth(tableExecutors[i]));
+    }
+  }
+
   public MetaSession getMetaSession() {
     return metaSession;
   }
 
+  CallbackExecutor getCallbackExecutor() {
+    return callbackExecutor;
+  }
+
+  RoutingCache getRoutingCache() {
+    return routingCache;
+  }
+
+  // for test
+  EventLoopGroup getReplicaGroup() {
+    return replicaGroup;
+  }
+
   public ReplicaSession getReplicaSession(rpc_address address) {
+    ReplicaSessionGroup group = getReplicaSessionGroup(address);
+    return group == null ? null : group.first();
+  }
+
+  // Returns all the connections to the replica server.
+  public ReplicaSessionGroup getReplicaSessionGroup(rpc_address address) {
     if (address.isInvalid()) {
       return null;
     }
-    ReplicaSession ss = replicaSessions.get(address);
-    if (ss != null) return ss;
+    ReplicaSessionGroup group = replicaSessions.get(address);
+    if (group != null) return group;
     synchronized (this) {
-      ss = replicaSessions.get(address);
-      if (ss != null) return ss;
-      ss =
-          new ReplicaSession(
-              address,
-              replicaGroup,
-              max(operationTimeout, ClusterOptions.MIN_SOCK_CONNECT_TIMEOUT));
-      replicaSessions.put(address, ss);
-      return ss;
+      group = replicaSessions.get(address);
+      if (group != null) return group;
+      ReplicaSession[] sessions = new ReplicaSession[max(1, options.connectionsPerServer())];
+      // it's the server rather than a connection that fails
+      CircuitBreaker circuitBreaker = CircuitBreaker.create(options);
+      for (int i = 0; i < sessions.length; i++) {
+        sessions[i] =
+            new ReplicaSession(
+                address,
+                replicaGroup,
+                max(operationTimeout, ClusterOptions.MIN_SOCK_CONNECT_TIMEOUT),
+                options,
+                timeoutWheel,
+                circuitBreaker,
+                this);
+      }
+      group = new ReplicaSessionGroup(sessions, connectionSelectPolicy);
+      replicaSessions.put(address, group);
+      return group;
     }
   }
 
+  public ReadRouter.Policy getReadRoutingPolicy() {
+    return readRoutingPolicy;
+  }
+
   public int getTimeout() {
     return operationTimeout;
   }
@@ -96,10 +244,32 @@ public class ClusterManager extends Cluster {
     return (timeoutMs < 3 ? 1 : timeoutMs / 3);
   }
 
+  /**
+   * The backoff before the retry, which starts from retry_backoff_base_ms and doubles on each
+   * retry, up to retry_backoff_max_ms or a third of the timeout. It's jittered between its half and
+   * itself, so that the clients don't retry in lockstep.
+   *
+   * @param retries the number of this retry, starts from 1.
+   */
+  public long getRetryDelay(long timeoutMs, int retries) {
+    long maxDelay =
+        options.retryBackoffMaxMs() > 0 ? options.retryBackoffMaxMs() : getRetryDelay(timeoutMs);
+    long delay = max(1, options.retryBackoffBaseMs());
+    for (int i = 1; i < retries && delay < maxDelay; i++) {
+      delay <<= 1;
+    }
+    delay = Math.min(delay, maxDelay);
+    return delay / 2 + ThreadLocalRandom.current().nextLong(delay - delay / 2 + 1);
+  }
+
   public int getRetryDelay() {
     return retryDelay;
   }
 
+  RetryBudget newRetryBudget() {
+    return new RetryBudget(options.retryBudgetPercent(), options.retryBudgetMinPerSec());
+  }
+
   public boolean counterEnabled() {
     return enableCounter;
   }
@@ -111,15 +281,43 @@ public class ClusterManager extends Cluster {
   }
 
   public static EventLoopGroup getEventLoopGroupInstance(int threadsCount) {
+    return getEventLoopGroupInstance(threadsCount, false);
+  }
+
+  public static EventLoopGroup getEventLoopGroupInstance(int threadsCount, boolean useEpoll) {
+    if (useEpoll) {
+      logger.debug("create epoll eventloop group");
+      return new EpollEventLoopGroup(threadsCount);
+    }
     logger.debug("create nio eventloop group");
     return new NioEventLoopGroup(threadsCount);
   }
 
-  public static Class getSocketChannelClass() {
-    logger.debug("create nio eventloop group");
+  public static Class<? extends SocketChannel> getSocketChannelClass() {
     return NioSocketChannel.class;
   }
 
+  // The channel class must match the type of the event loop group it is registered to.
+  public static Class<? extends SocketChannel> getSocketChannelClass(EventLoopGroup group) {
+    if (group instanceof EpollEventLoopGroup) {
+      return EpollSocketChannel.class;
+    }
+    return NioSocketChannel.class;
+  }
+
+  static boolean isEpollAvailable() {
+    if (osName == null || !osName.toLowerCase().startsWith("linux")) {
+      logger.warn("native epoll is only supported on linux, current os is {}, use nio", osName);
+      return false;
+    }
+    if (!Epoll.isAvailable()) {
+      logger.warn("native epoll is unavailable, use nio: ", Epoll.unavailabilityCause());
+      return false;
+    }
+    logger.info("use native epoll transport");
+    return true;
+  }
+
   @Override
   public String[] getMetaList() {
     return metaList;
@@ -130,6 +328,11 @@ public class ClusterManager extends Cluster {
     return new TableHandler(this, name, options);
   }
 
+  @Override
+  public Future<Table> asyncOpenTable(String name, TableOptions options) {
+    return TableHandler.asyncOpen(this, name, options);
+  }
+
   @Override
   public void close() {
     if (enableCounter) {
@@ -137,9 +340,10 @@ public class ClusterManager extends Cluster {
     }
 
     metaSession.closeSession();
-    for (Map.Entry<rpc_address, ReplicaSession> entry : replicaSessions.entrySet()) {
-      entry.getValue().closeSession();
+    for (Map.Entry<rpc_address, ReplicaSessionGroup> entry : replicaSessions.entrySet()) {
+      entry.getValue().closeSessions();
     }
+    timeoutWheel.stop();
 
     Future metaGroupFuture = metaGroup.shutdownGracefully();
     Future replicaGroupFuture = replicaGroup.shutdownGracefully();
@@ -166,6 +370,15 @@ public class ClusterManager extends Cluster {
       logger.warn("close table group failed: ", ex);
     }
 
+    if (routingCache != null) {
+      try {
+        routingCache.close().sync();
+        logger.info("routing cache has closed");
+      } catch (Exception ex) {
+        logger.warn("close routing cache failed: ", ex);
+      }
+    }
+
     logger.info("cluster manager has closed");
   }
 }
@@ -0,0 +1,154 @@
+// Copyright (c) 2017, Xiaomi, Inc.  All rights reserved.
+// This source code is licensed under the Apache License Version 2.0, which
+// can be found in the LICENSE file in the root directory of this source tree.
+package com.xiaomi.infra.pegasus.rpc.async;
+
+import com.xiaomi.infra.pegasus.metrics.MetricsManager;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FlushBatchHandler coalesces the flushes of a channel, so that the frames written in the same
+ * event-loop tick are sent with one syscall.
+ *
+ * <p>A flush is deferred until one of the following happens:
+ *
+ * <ul>
+ *   <li>{@code maxMessages} frames or {@code maxBytes} bytes are waiting to be flushed;
+ *   <li>the tasks already queued in the event loop are executed (maxDelayMicros == 0), which are
+ *       usually the writes issued by other caller threads at the same time;
+ *   <li>{@code maxDelayMicros} elapsed since the first deferred flush (maxDelayMicros > 0).
+ * </ul>
+ *
+ * It must be placed between the encoder and the head of the pipeline to count the encoded bytes.
+ * All the methods are called in the event loop, so no synchronization is needed.
+ */
+public class FlushBatchHandler extends ChannelDuplexHandler {
+  public static final String FRAMES_PER_FLUSH_COUNTER = "pegasus.client.frames_per_flush";
+
+  private final int maxMessages;
+  private final int maxBytes;
+  private final long maxDelayMicros;
+  private final boolean enableCounter;
+
+  private ChannelHandlerContext ctx;
+  private int pendingMessages = 0;
+  private long pendingBytes = 0;
+  private boolean flushScheduled = false;
+  private ScheduledFuture<?> delayedFlush = null;
+
+  // statistics, only for test and debug
+  private long flushCount = 0;
+  private long frameCount = 0;
+
+  private final Runnable flushTask =
+      new Runnable() {
+        @Override
+        public void run() {
+          flushScheduled = false;
+          delayedFlush = null;
+          if (pendingMessages > 0) {
+            flushNow(ctx);
+          }
+        }
+      };
+
+  public FlushBatchHandler(
+      int maxMessages, int maxBytes, long maxDelayMicros, boolean enableCounter) {
+    this.maxMessages = maxMessages;
+    this.maxBytes = maxBytes;
+    this.maxDelayMicros = maxDelayMicros;
+    this.enableCounter = enableCounter;
+  }
+
+  @Override
+  public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+    this.ctx = ctx;
+  }
+
+  @Override
+  public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise)
+      throws Exception {
+    pendingMessages++;
+    if (msg instanceof ByteBuf) {
+      pendingBytes += ((ByteBuf) msg).readableBytes();
+    }
+    ctx.write(msg, promise);
+  }
+
+  @Override
+  public void flush(ChannelHandlerContext ctx) throws Exception {
+    if (pendingMessages >= maxMessages || pendingBytes >= maxBytes) {
+      flushNow(ctx);
+      return;
+    }
+    if (!flushScheduled) {
+      flushScheduled = true;
+      if (maxDelayMicros > 0) {
+        delayedFlush = ctx.executor().schedule(flushTask, maxDelayMicros, TimeUnit.MICROSECONDS);
+      } else {
+        ctx.executor().execute(flushTask);
+      }
+    }
+  }
+
+  @Override
+  public void close(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+    flushIfNeeded(ctx);
+    ctx.close(promise);
+  }
+
+  @Override
+  public void disconnect(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+    flushIfNeeded(ctx);
+    ctx.disconnect(promise);
+  }
+
+  @Override
+  public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+    // the outbound buffer is drained or full, flush the pending frames to keep them moving.
+    if (!ctx.channel().isWritable()) {
+      flushIfNeeded(ctx);
+    }
+    ctx.fireChannelWritabilityChanged();
+  }
+
+  @Override
+  public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+    flushIfNeeded(ctx);
+  }
+
+  long getFlushCount() {
+    return flushCount;
+  }
+
+  long getFrameCount() {
+    return frameCount;
+  }
+
+  private void flushIfNeeded(ChannelHandlerContext ctx) {
+    if (pendingMessages > 0) {
+      flushNow(ctx);
+    }
+  }
+
+  private void flushNow(ChannelHandlerContext ctx) {
+    if (delayedFlush != null) {
+      delayedFlush.cancel(false);
+      delayedFlush = null;
+      flushScheduled = false;
+    }
+    flushCount++;
+    frameCount += pendingMessages;
+    if (enableCounter) {
+      MetricsManager.setHistogramValue(FRAMES_PER_FLUSH_COUNTER, pendingMessages);
+    }
+    pendingMessages = 0;
+    pendingBytes = 0;
+    ctx.flush();
+  }
+}
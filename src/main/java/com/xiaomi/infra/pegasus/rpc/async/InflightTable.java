@@ -0,0 +1,98 @@
+// Copyright (c) 2017, Xiaomi, Inc.  All rights reserved.
+// This source code is licensed under the Apache License Version 2.0, which
+// can be found in the LICENSE file in the root directory of this source tree.
+package com.xiaomi.infra.pegasus.rpc.async;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * InflightTable keeps the requests of a session which are waiting for responses, keyed by their
+ * sequence ids.
+ *
+ * <p>The entries are stored in a power-of-two ring indexed by the low bits of the sequence id, and
+ * the full sequence id of the stored entry acts as the generation of the slot. As the sequence ids
+ * are allocated incrementally, a slot is almost always released before it's reused, so put/remove
+ * are a single CAS without boxing or allocation. In the rare case that a slot is still occupied by
+ * a request sent {@code capacity} requests ago, the new entry goes to an overflow map.
+ */
+final class InflightTable {
+  static final int DEFAULT_CAPACITY = 4096;
+
+  private final AtomicReferenceArray<ReplicaSession.RequestEntry> slots;
+  private final int mask;
+  private final ConcurrentHashMap<Integer, ReplicaSession.RequestEntry> overflow =
+      new ConcurrentHashMap<Integer, ReplicaSession.RequestEntry>();
+  private final AtomicInteger size = new AtomicInteger(0);
+
+  InflightTable() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  InflightTable(int capacity) {
+    assert capacity > 0 && (capacity & (capacity - 1)) == 0 : "capacity must be a power of two";
+    this.slots = new AtomicReferenceArray<ReplicaSession.RequestEntry>(capacity);
+    this.mask = capacity - 1;
+  }
+
+  void put(ReplicaSession.RequestEntry entry) {
+    // count before publishing, so that a concurrent remove never drives the size negative.
+    size.incrementAndGet();
+    if (!slots.compareAndSet(entry.sequenceId & mask, null, entry)) {
+      overflow.put(entry.sequenceId, entry);
+    }
+  }
+
+  ReplicaSession.RequestEntry get(int seqId) {
+    ReplicaSession.RequestEntry e = slots.get(seqId & mask);
+    if (e != null && e.sequenceId == seqId) {
+      return e;
+    }
+    return overflow.isEmpty() ? null : overflow.get(seqId);
+  }
+
+  /** @return the removed entry, or null if it's not found or removed by others concurrently. */
+  ReplicaSession.RequestEntry remove(int seqId) {
+    int index = seqId & mask;
+    ReplicaSession.RequestEntry e = slots.get(index);
+    if (e != null && e.sequenceId == seqId) {
+      if (slots.compareAndSet(index, e, null)) {
+        size.decrementAndGet();
+        return e;
+      }
+      return null;
+    }
+    if (overflow.isEmpty()) {
+      return null;
+    }
+    e = overflow.remove(seqId);
+    if (e != null) {
+      size.decrementAndGet();
+    }
+    return e;
+  }
+
+  int size() {
+    return size.get();
+  }
+
+  boolean isEmpty() {
+    return size.get() == 0;
+  }
+
+  /** A weakly consistent copy of all the entries, used when the session is reset. */
+  List<ReplicaSession.RequestEntry> snapshot() {
+    List<ReplicaSession.RequestEntry> result = new ArrayList<ReplicaSession.RequestEntry>(size());
+    for (int i = 0; i < slots.length(); i++) {
+      ReplicaSession.RequestEntry e = slots.get(i);
+      if (e != null) {
+        result.add(e);
+      }
+    }
+    result.addAll(overflow.values());
+    return result;
+  }
+}
@@ -0,0 +1,100 @@
+// Copyright (c) 2017, Xiaomi, Inc.  All rights reserved.
+// This source code is licensed under the Apache License Version 2.0, which
+// can be found in the LICENSE file in the root directory of this source tree.
+package com.xiaomi.infra.pegasus.rpc.async;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * LatencyWindow estimates a latency percentile of the recent requests.
+ *
+ * <p>The latencies are counted in log-scale buckets of microseconds, each power of two is split
+ * into 8 sub-buckets, so the estimated percentile is at most 12.5% larger than the real one.
+ * Recording is lock-free, and {@link #rotate()} computes the percentile of the current window and
+ * starts a new one, once the window has collected enough samples.
+ */
+final class LatencyWindow {
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  // the latencies less than LINEAR_LIMIT us are counted one bucket per microsecond
+  private static final int LINEAR_LIMIT = SUB_BUCKET_COUNT * 2;
+  private static final int LINEAR_EXPONENT = SUB_BUCKET_BITS + 1;
+  // about 68 seconds, the larger latencies are counted into the last bucket
+  private static final int MAX_EXPONENT = 36;
+  static final int BUCKET_COUNT =
+      LINEAR_LIMIT + (MAX_EXPONENT - LINEAR_EXPONENT + 1) * SUB_BUCKET_COUNT;
+
+  static final int MIN_SAMPLES = 100;
+
+  private final int percentile;
+  private final AtomicReference<AtomicLongArray> buckets;
+
+  LatencyWindow(int percentile) {
+    this.percentile = Math.max(1, Math.min(percentile, 100));
+    this.buckets = new AtomicReference<>(new AtomicLongArray(BUCKET_COUNT + 1));
+  }
+
+  static int bucketOf(long micros) {
+    if (micros < LINEAR_LIMIT) {
+      return (int) Math.max(micros, 0);
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(micros);
+    if (exponent > MAX_EXPONENT) {
+      return BUCKET_COUNT - 1;
+    }
+    int shift = exponent - SUB_BUCKET_BITS;
+    int sub = (int) (micros >>> shift) & (SUB_BUCKET_COUNT - 1);
+    return LINEAR_LIMIT + (exponent - LINEAR_EXPONENT) * SUB_BUCKET_COUNT + sub;
+  }
+
+  // the largest latency counted into the bucket
+  static long upperBoundOf(int bucket) {
+    if (bucket < LINEAR_LIMIT) {
+      return bucket;
+    }
+    int exponent = (bucket - LINEAR_LIMIT) / SUB_BUCKET_COUNT + LINEAR_EXPONENT;
+    int sub = (bucket - LINEAR_LIMIT) % SUB_BUCKET_COUNT;
+    int shift = exponent - SUB_BUCKET_BITS;
+    return ((long) (SUB_BUCKET_COUNT + sub + 1) << shift) - 1;
+  }
+
+  void record(long latencyNanos) {
+    AtomicLongArray current = buckets.get();
+    current.incrementAndGet(bucketOf(TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+    // the last slot is the total count
+    current.incrementAndGet(BUCKET_COUNT);
+  }
+
+  long sampleCount() {
+    return buckets.get().get(BUCKET_COUNT);
+  }
+
+  /**
+   * Computes the percentile of the current window and starts a new one.
+   *
+   * @return the percentile in microseconds, or -1 if the current window has less than {@link
+   *     #MIN_SAMPLES} samples, in which case the window is kept to collect more.
+   */
+  long rotate() {
+    AtomicLongArray current = buckets.get();
+    long total = current.get(BUCKET_COUNT);
+    if (total < MIN_SAMPLES) {
+      return -1;
+    }
+    // the samples recorded into the old window during the swapping are dropped, which is fine
+    // for an estimation
+    buckets.set(new AtomicLongArray(BUCKET_COUNT + 1));
+
+    long rank = (total * percentile + 99) / 100;
+    long count = 0;
+    for (int i = 0; i < BUCKET_COUNT; ++i) {
+      count += current.get(i);
+      if (count >= rank) {
+        return upperBoundOf(i);
+      }
+    }
+    return upperBoundOf(BUCKET_COUNT - 1);
+  }
+}
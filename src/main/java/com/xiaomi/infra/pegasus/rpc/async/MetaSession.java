@@ -9,11 +9,9 @@ import com.xiaomi.infra.pegasus.base.rpc_address;
 import com.xiaomi.infra.pegasus.operator.client_operator;
 import com.xiaomi.infra.pegasus.operator.query_cfg_operator;
 import com.xiaomi.infra.pegasus.replication.partition_configuration;
+import com.xiaomi.infra.pegasus.tools.Completion;
 import io.netty.channel.EventLoopGroup;
 import java.util.*;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 
 public class MetaSession extends HostNameResolver {
@@ -24,15 +22,34 @@ public class MetaSession extends HostNameResolver {
       int defaultMaxQueryCount,
       EventLoopGroup g)
       throws IllegalArgumentException {
+    this(manager, addrList, eachQueryTimeoutInMills, defaultMaxQueryCount, g, null);
+  }
+
+  /** @param cachedLeader the meta leader cached from the last run, nullable. */
+  public MetaSession(
+      ClusterManager manager,
+      String[] addrList,
+      int eachQueryTimeoutInMills,
+      int defaultMaxQueryCount,
+      EventLoopGroup g,
+      rpc_address cachedLeader)
+      throws IllegalArgumentException {
     clusterManager = manager;
     metaList = new ArrayList<ReplicaSession>();
 
     if (addrList.length == 1 && !InetAddresses.isInetAddress(addrList[0])) {
-      // if the given string is not a valid ip address,
-      // then take it as a hostname for a try.
-      resolveHost(addrList[0]);
-      if (!metaList.isEmpty()) {
-        hostPort = addrList[0];
+      hostPort = addrList[0];
+      if (cachedLeader != null) {
+        // the hostname is resolved once the cached leader fails
+        logger.info("add cached leader {} as meta server of {}", cachedLeader, hostPort);
+        metaList.add(clusterManager.getReplicaSession(cachedLeader));
+      } else {
+        // if the given string is not a valid ip address,
+        // then take it as a hostname for a try.
+        resolveHost(hostPort);
+        if (metaList.isEmpty()) {
+          hostPort = null;
+        }
       }
     } else {
       for (String addr : addrList) {
@@ -49,6 +66,12 @@ public class MetaSession extends HostNameResolver {
       throw new IllegalArgumentException("no valid meta server address");
     }
     curLeader = 0;
+    for (int i = 0; cachedLeader != null && i < metaList.size(); i++) {
+      if (metaList.get(i).getAddress().equals(cachedLeader)) {
+        curLeader = i;
+        break;
+      }
+    }
 
     this.eachQueryTimeoutInMills = eachQueryTimeoutInMills;
     this.defaultMaxQueryCount = defaultMaxQueryCount;
@@ -72,6 +95,10 @@ public class MetaSession extends HostNameResolver {
     return addr;
   }
 
+  public final synchronized rpc_address getLeader() {
+    return metaList.get(curLeader).getAddress();
+  }
+
   public final void asyncQuery(client_operator op, Runnable callbackFunc, int maxQueryCount) {
     if (maxQueryCount == 0) {
       maxQueryCount = defaultMaxQueryCount;
@@ -84,27 +111,9 @@ public class MetaSession extends HostNameResolver {
   }
 
   public final void query(client_operator op, int maxQueryCount) {
-    FutureTask<Void> v =
-        new FutureTask<Void>(
-            new Callable<Void>() {
-              @Override
-              public Void call() throws Exception {
-                return null;
-              }
-            });
-    asyncQuery(op, v, maxQueryCount);
-    while (true) {
-      try {
-        v.get();
-        return;
-      } catch (InterruptedException e) {
-        logger.info("operation {} got interrupt exception: ", op.get_gpid().toString(), e);
-      } catch (ExecutionException e) {
-        logger.warn(
-            "operation {} got execution exception, just return: ", op.get_gpid().toString(), e);
-        return;
-      }
-    }
+    Completion completion = new Completion();
+    asyncQuery(op, completion, maxQueryCount);
+    completion.awaitUninterruptibly();
   }
 
   public final void closeSession() {
@@ -0,0 +1,75 @@
+// Copyright (c) 2017, Xiaomi, Inc.  All rights reserved.
+// This source code is licensed under the Apache License Version 2.0, which
+// can be found in the LICENSE file in the root directory of this source tree.
+package com.xiaomi.infra.pegasus.rpc.async;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * ReadRouter selects the replica to read from among the primary and the secondaries of a partition,
+ * according to the load observed by the client.
+ */
+public final class ReadRouter {
+  public enum Policy {
+    PRIMARY,
+    LEAST_OUTSTANDING,
+    EWMA;
+
+    public static Policy fromString(String name) {
+      return Policy.valueOf(name.trim().toUpperCase());
+    }
+  }
+
+  private ReadRouter() {}
+
+  /**
+   * Selects the replica to read from.
+   *
+   * @param primary the primary session, not null.
+   * @param secondaries the secondary sessions.
+   * @return the selected session, which is the primary if no secondary is available.
+   */
+  public static ReplicaSession select(
+      Policy policy, ReplicaSession primary, List<ReplicaSession> secondaries) {
+    int count = secondaries.size() + 1;
+    if (policy == Policy.PRIMARY || count == 1) {
+      return primary;
+    }
+
+    // begin the scan at random to break ties evenly
+    int start = ThreadLocalRandom.current().nextInt(count);
+    // the primary is read if all the replicas are unavailable
+    ReplicaSession best = primary;
+    long bestScore = Long.MAX_VALUE;
+    for (int i = 0; i < count; ++i) {
+      int index = (start + i) % count;
+      ReplicaSession session = index == 0 ? primary : secondaries.get(index - 1);
+      long score = score(policy, session);
+      if (score < bestScore) {
+        best = session;
+        bestScore = score;
+      }
+    }
+    return best;
+  }
+
+  static long score(Policy policy, ReplicaSession session) {
+    if (session.getCircuitState() != CircuitBreaker.State.CLOSED) {
+      return Long.MAX_VALUE;
+    }
+    int outstanding = 0;
+    long latency = 0;
+    ReplicaSession[] connections = session.allConnections();
+    for (ReplicaSession connection : connections) {
+      outstanding += connection.getPendingCount();
+      latency += connection.getLatencyEwmaNanos();
+    }
+    if (policy == Policy.LEAST_OUTSTANDING) {
+      return outstanding;
+    }
+    // the latency is weighted by the outstanding requests, so that a fast server is not flooded
+    // before its latency rises
+    return latency / connections.length * (outstanding + 1);
+  }
+}
@@ -6,19 +6,24 @@ package com.xiaomi.infra.pegasus.rpc.async;
 import com.xiaomi.infra.pegasus.base.error_code.error_types;
 import com.xiaomi.infra.pegasus.base.rpc_address;
 import com.xiaomi.infra.pegasus.operator.client_operator;
+import com.xiaomi.infra.pegasus.rpc.ClusterOptions;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.*;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollMode;
 import io.netty.channel.socket.SocketChannel;
+import io.netty.util.concurrent.EventExecutor;
 import java.net.UnknownHostException;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
 import java.util.Queue;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import org.apache.thrift.protocol.TMessage;
 import org.slf4j.Logger;
 
@@ -27,40 +32,146 @@ public class ReplicaSession {
     public int sequenceId;
     public com.xiaomi.infra.pegasus.operator.client_operator op;
     public Runnable callback;
-    public ScheduledFuture<?> timeoutTask;
     public long timeoutMs;
     public boolean isBackupRequest;
+
+    // the session which sends the request, notified when the request times out.
+    ReplicaSession session;
+    // when the request is sent, which measures the latency of the session.
+    long sendNanos;
+    // the links of the timeout wheel, guarded by the lock of timeoutBucket.
+    long deadlineTick;
+    RequestEntry timeoutPrev;
+    RequestEntry timeoutNext;
+    volatile TimeoutWheel.Bucket timeoutBucket;
+    // WAITING -> ADMITTED -> REMOVED, or WAITING -> REMOVED, only used by the admission control.
+    volatile int admitState = WAITING;
   }
 
+  static final int WAITING = 0;
+  static final int ADMITTED = 1;
+  static final int REMOVED = 2;
+  private static final AtomicIntegerFieldUpdater<RequestEntry> ADMIT_STATE =
+      AtomicIntegerFieldUpdater.newUpdater(RequestEntry.class, "admitState");
+
   public enum ConnState {
     CONNECTED,
     CONNECTING,
     DISCONNECTED
   }
 
+  // How to handle a request when the session has too many in-flight requests or its outbound
+  // buffer is above the high water mark.
+  public enum OverloadPolicy {
+    FAIL_FAST, // fail the request with ERR_BUSY
+    BLOCK, // block the caller until the request is admitted or timed out
+    QUEUE; // hold the request back and send it once the session drains
+
+    public static OverloadPolicy fromString(String name) {
+      return OverloadPolicy.valueOf(name.trim().toUpperCase());
+    }
+  }
+
   public ReplicaSession(rpc_address address, EventLoopGroup rpcGroup, int socketTimeout) {
+    this(address, rpcGroup, socketTimeout, (ClusterOptions) null);
+  }
+
+  public ReplicaSession(
+      rpc_address address,
+      EventLoopGroup rpcGroup,
+      int socketTimeout,
+      final ClusterOptions options) {
+    this(address, rpcGroup, socketTimeout, options, null);
+  }
+
+  public ReplicaSession(
+      rpc_address address,
+      EventLoopGroup rpcGroup,
+      int socketTimeout,
+      final ClusterOptions options,
+      TimeoutWheel timeoutWheel) {
+    this(address, rpcGroup, socketTimeout, options, timeoutWheel, null, null);
+  }
+
+  /**
+   * @param circuitBreaker the circuit breaker of the replica server, which must be shared by all
+   *     the connections to it. The session has its own one if it's null.
+   * @param manager the cluster manager whose threads are never blocked by the session, nullable.
+   */
+  ReplicaSession(
+      rpc_address address,
+      EventLoopGroup rpcGroup,
+      int socketTimeout,
+      final ClusterOptions options,
+      TimeoutWheel timeoutWheel,
+      CircuitBreaker circuitBreaker,
+      ClusterManager manager) {
     this.address = address;
     this.rpcGroup = rpcGroup;
+    this.manager = manager;
+    // a standalone session tracks the timeouts itself, and stops the wheel when it's closed.
+    this.ownsTimeoutWheel = timeoutWheel == null;
+    if (ownsTimeoutWheel) {
+      timeoutWheel =
+          new TimeoutWheel(TimeoutWheel.DEFAULT_TICK_MS, TimeoutWheel.DEFAULT_TICKS_PER_WHEEL);
+      timeoutWheel.start(rpcGroup.next());
+    }
+    this.timeoutWheel = timeoutWheel;
+    if (options != null) {
+      this.maxInflight = options.sessionMaxInflight();
+      this.checkWritable = options.writeBufferHighWaterMark() > 0;
+      this.overloadPolicy = OverloadPolicy.fromString(options.sessionOverloadPolicy());
+    } else {
+      this.maxInflight = 0;
+      this.checkWritable = false;
+      this.overloadPolicy = OverloadPolicy.FAIL_FAST;
+    }
+    this.admissionEnabled = maxInflight > 0 || checkWritable;
+    this.circuitBreaker = circuitBreaker == null ? CircuitBreaker.create(options) : circuitBreaker;
 
     final ReplicaSession this_ = this;
     boot = new Bootstrap();
     boot.group(rpcGroup)
-        .channel(ClusterManager.getSocketChannelClass())
+        .channel(ClusterManager.getSocketChannelClass(rpcGroup))
         .option(ChannelOption.TCP_NODELAY, true)
         .option(ChannelOption.SO_KEEPALIVE, true)
-        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, socketTimeout)
-        .handler(
-            new ChannelInitializer<SocketChannel>() {
-              @Override
-              public void initChannel(SocketChannel ch) {
-                ChannelPipeline pipeline = ch.pipeline();
-                pipeline.addLast("ThriftEncoder", new ThriftFrameEncoder());
-                pipeline.addLast("ThriftDecoder", new ThriftFrameDecoder(this_));
-                pipeline.addLast("ClientHandler", new ReplicaSession.DefaultHandler());
-              }
-            });
-
-    this.firstRecentTimedOutMs = new AtomicLong(0);
+        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, socketTimeout);
+    if (options != null && rpcGroup instanceof EpollEventLoopGroup) {
+      boot.option(
+          EpollChannelOption.EPOLL_MODE,
+          options.epollEdgeTriggered() ? EpollMode.EDGE_TRIGGERED : EpollMode.LEVEL_TRIGGERED);
+      boot.option(EpollChannelOption.TCP_QUICKACK, options.epollTcpQuickAck());
+      if (options.epollBusyPollMicros() > 0) {
+        boot.option(EpollChannelOption.SO_BUSY_POLL, options.epollBusyPollMicros());
+      }
+    }
+    if (checkWritable) {
+      int high = options.writeBufferHighWaterMark();
+      int low =
+          options.writeBufferLowWaterMark() > 0 ? options.writeBufferLowWaterMark() : high / 2;
+      boot.option(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(low, high));
+    }
+    boot.handler(
+        new ChannelInitializer<SocketChannel>() {
+          @Override
+          public void initChannel(SocketChannel ch) {
+            ChannelPipeline pipeline = ch.pipeline();
+            // the flush batcher should be closer to the head than the encoder, so that it can
+            // see the size of the encoded frames.
+            if (options != null && options.flushBatchMaxMessages() > 0) {
+              pipeline.addLast(
+                  "FlushBatcher",
+                  new FlushBatchHandler(
+                      options.flushBatchMaxMessages(),
+                      options.flushBatchMaxBytes(),
+                      options.flushBatchMaxDelayMicros(),
+                      options.enablePerfCounter()));
+            }
+            pipeline.addLast("ThriftEncoder", new ThriftFrameEncoder());
+            pipeline.addLast("ThriftDecoder", new ThriftFrameDecoder(this_));
+            pipeline.addLast("ClientHandler", new ReplicaSession.DefaultHandler());
+          }
+        });
   }
 
   // You can specify a message response filter with constructor or with "setMessageResponseFilter"
@@ -89,42 +200,73 @@ public class ReplicaSession {
     entry.sequenceId = seqId.getAndIncrement();
     entry.op = op;
     entry.callback = callbackFunc;
-    // NOTICE: must make sure the msg is put into the pendingResponse map BEFORE
-    // the timer task is scheduled.
-    pendingResponse.put(entry.sequenceId, entry);
-    entry.timeoutTask = addTimer(entry.sequenceId, timeoutInMilliseconds);
+    if (!circuitBreaker.allowRequest()) {
+      // fail fast, the caller is expected to query the meta and retry on another server
+      logger.debug("{}: circuit breaker is open, reject the request", name());
+      op.rpc_error.errno = error_types.ERR_SESSION_RESET;
+      callbackFunc.run();
+      return entry.sequenceId;
+    }
+    entry.session = this;
+    entry.sendNanos = System.nanoTime();
+    // NOTICE: must make sure the msg is put into the pendingResponse table BEFORE
+    // the timeout is tracked.
+    pendingResponse.put(entry);
+    timeoutWheel.add(entry, timeoutInMilliseconds);
     entry.timeoutMs = timeoutInMilliseconds;
     entry.isBackupRequest = isBackupRequest;
 
+    if (admissionEnabled && !tryAdmit(entry)) {
+      onOverload(entry);
+    } else {
+      send(entry);
+    }
+    return entry.sequenceId;
+  }
+
+  private void send(RequestEntry entry) {
     // We store the connection_state & netty channel in a struct so that they can fetch and update
     // in atomic.
     // Moreover, we can avoid the lock protection when we want to get the netty channel for send
     // message
     VolatileFields cache = fields;
     if (cache.state == ConnState.CONNECTED) {
-      write(entry, cache);
+      write(entry, cache, true);
+      return;
+    }
+
+    pendingSend.offer(entry);
+    // The session may become connected after the state is checked, and the pending queue may have
+    // been drained before the entry is offered, so check it again.
+    cache = fields;
+    if (cache.state == ConnState.CONNECTED) {
+      drainPendingSend(cache);
     } else {
-      synchronized (pendingSend) {
-        cache = fields;
-        if (cache.state == ConnState.CONNECTED) {
-          write(entry, cache);
-        } else {
-          pendingSend.offer(entry);
-        }
-      }
       tryConnect();
     }
-    return entry.sequenceId;
   }
 
   public void closeSession() {
+    closeChannel();
+    if (ownsTimeoutWheel) {
+      // the requests in flight are notified by the disconnection, and the wheel is started again
+      // if the session is reconnected.
+      timeoutWheel.stop();
+    }
+  }
+
+  private void closeChannel() {
     VolatileFields f = fields;
     if (f.state == ConnState.CONNECTED && f.nettyChannel != null) {
       try {
         // close().sync() means calling system API `close()` synchronously,
         // but the connection may not be completely closed then, that is,
         // the state may not be marked as DISCONNECTED immediately.
-        f.nettyChannel.close().sync();
+        ChannelFuture closed = f.nettyChannel.close();
+        if (!f.nettyChannel.eventLoop().inEventLoop()) {
+          // the close is done already if it's called by the event loop of the channel.
+          closed.sync();
+        }
         logger.info("channel to {} closed", address.toString());
       } catch (Exception ex) {
         logger.warn("close channel {} failed: ", address.toString(), ex);
@@ -143,14 +285,87 @@ public class ReplicaSession {
     }
   }
 
+  // Closes all the connections to the server when its circuit breaker is opened, either by a
+  // timeout or by a slow response, so that the pending requests fail with ERR_SESSION_RESET and
+  // the callers query the meta for the new configuration.
+  private void closeConnections() {
+    logger.warn(
+        "{}: actively close the sessions because it's not responding, circuit breaker is {}",
+        name(),
+        circuitBreaker.getState());
+    for (ReplicaSession connection : allConnections()) {
+      connection.closeChannel(); // maybe fail when the session is already disconnected.
+    }
+  }
+
   public RequestEntry getAndRemoveEntry(int seqID) {
-    return pendingResponse.remove(seqID);
+    RequestEntry entry = pendingResponse.remove(seqID);
+    if (entry != null && admissionEnabled) {
+      if (ADMIT_STATE.getAndSet(entry, REMOVED) == ADMITTED) {
+        inflight.decrementAndGet();
+        onCapacityAvailable();
+      }
+    }
+    return entry;
+  }
+
+  // Stops tracking the timeout of the entry once it is responded.
+  void cancelTimeout(RequestEntry entry) {
+    timeoutWheel.cancel(entry);
   }
 
   public final String name() {
     return address.toString();
   }
 
+  /**
+   * Selects a connection to send the next request to the same replica server. It's this session
+   * itself unless multiple connections per server are configured.
+   */
+  public ReplicaSession selectConnection() {
+    ReplicaSessionGroup g = group;
+    return g == null ? this : g.select();
+  }
+
+  /** All the connections to the same replica server, including this session. */
+  public ReplicaSession[] allConnections() {
+    ReplicaSessionGroup g = group;
+    return g == null ? new ReplicaSession[] {this} : g.sessions();
+  }
+
+  /** The number of requests which are sent but not responded yet. */
+  public int getPendingCount() {
+    return pendingResponse.size();
+  }
+
+  /**
+   * The EWMA latency of the responses of this session, in which a timeout counts as a response as
+   * slow as the request timeout. It decays while the session is idle, so that a session which was
+   * once slow can be tried again, but not while requests are outstanding, so that a server which
+   * doesn't respond never looks fast.
+   */
+  public long getLatencyEwmaNanos() {
+    long idleNanos = System.nanoTime() - latencyUpdateNanos;
+    if (idleNanos <= LATENCY_DECAY_NANOS || !pendingResponse.isEmpty()) {
+      return latencyEwmaNanos;
+    }
+    return (long) (latencyEwmaNanos * Math.exp(-(double) idleNanos / LATENCY_DECAY_NANOS));
+  }
+
+  // called by the event loop of the channel and the timeout wheel, a sample may be lost if they
+  // race, which is acceptable for the routing.
+  void recordLatency(long latencyNanos) {
+    long ewma = latencyEwmaNanos;
+    latencyEwmaNanos =
+        ewma == 0 ? latencyNanos : ewma + (latencyNanos - ewma) / LATENCY_EWMA_WEIGHT;
+    latencyUpdateNanos = System.nanoTime();
+  }
+
+  /** The state of the circuit breaker of the replica server. */
+  public CircuitBreaker.State getCircuitState() {
+    return circuitBreaker.getState();
+  }
+
   public final rpc_address getAddress() {
     return address;
   }
@@ -166,19 +381,19 @@ public class ReplicaSession {
    * @return a nullable ChannelFuture.
    */
   public ChannelFuture tryConnect() {
-    boolean needConnect = false;
-    synchronized (pendingSend) {
-      if (fields.state == ConnState.DISCONNECTED) {
-        VolatileFields cache = new VolatileFields();
-        cache.state = ConnState.CONNECTING;
-        fields = cache;
-        needConnect = true;
+    VolatileFields cache = fields;
+    if (cache.state == ConnState.DISCONNECTED) {
+      VolatileFields connecting = new VolatileFields();
+      connecting.state = ConnState.CONNECTING;
+      // only the winner of the state transition starts connecting.
+      if (FIELDS.compareAndSet(this, cache, connecting)) {
+        logger.info("{}: the session is disconnected, needs to reconnect", name());
+        if (ownsTimeoutWheel) {
+          timeoutWheel.start(rpcGroup.next());
+        }
+        return doConnect();
       }
     }
-    if (needConnect) {
-      logger.info("{}: the session is disconnected, needs to reconnect", name());
-      return doConnect();
-    }
     return null;
   }
 
@@ -212,62 +427,72 @@ public class ReplicaSession {
     newCache.state = ConnState.CONNECTED;
     newCache.nettyChannel = activeChannel;
 
-    synchronized (pendingSend) {
-      if (fields.state != ConnState.CONNECTING) {
-        // this session may have been closed or connected already
-        logger.info("{}: session is {}, skip to mark it connected", name(), fields.state);
-        return;
-      }
+    VolatileFields cache = fields;
+    if (cache.state != ConnState.CONNECTING || !FIELDS.compareAndSet(this, cache, newCache)) {
+      // this session may have been closed or connected already
+      logger.info("{}: session is {}, skip to mark it connected", name(), fields.state);
+      return;
+    }
 
-      while (!pendingSend.isEmpty()) {
-        RequestEntry e = pendingSend.poll();
-        if (pendingResponse.get(e.sequenceId) != null) {
-          write(e, newCache);
-        } else {
-          logger.info("{}: {} is removed from pending, perhaps timeout", name(), e.sequenceId);
-        }
+    // the requests offered from now on will see the CONNECTED state and be written directly.
+    drainPendingSend(newCache);
+    onCapacityAvailable();
+  }
+
+  // Writes all the requests waiting for the connection, and flushes them at once.
+  private void drainPendingSend(VolatileFields cache) {
+    int count = 0;
+    RequestEntry e;
+    while ((e = pendingSend.poll()) != null) {
+      if (pendingResponse.get(e.sequenceId) == e) {
+        write(e, cache, false);
+        count++;
+      } else {
+        logger.info("{}: {} is removed from pending, perhaps timeout", name(), e.sequenceId);
       }
-      fields = newCache;
+    }
+    if (count > 0) {
+      cache.nettyChannel.flush();
     }
   }
 
   void markSessionDisconnect() {
     VolatileFields cache = fields;
-    synchronized (pendingSend) {
-      if (cache.state != ConnState.DISCONNECTED) {
-        // NOTICE:
-        // 1. when a connection is reset, the timeout response
-        // is not answered in the order they query
-        // 2. It's likely that when the session is disconnecting
-        // but the caller of the api query/asyncQuery didn't notice
-        // this. In this case, we are relying on the timeout task.
-        try {
-          while (!pendingSend.isEmpty()) {
-            RequestEntry e = pendingSend.poll();
-            tryNotifyFailureWithSeqID(e.sequenceId, error_types.ERR_SESSION_RESET, false);
-          }
-          List<RequestEntry> l = new LinkedList<RequestEntry>();
-          for (Map.Entry<Integer, RequestEntry> entry : pendingResponse.entrySet()) {
-            l.add(entry.getValue());
-          }
-          for (RequestEntry e : l) {
-            tryNotifyFailureWithSeqID(e.sequenceId, error_types.ERR_SESSION_RESET, false);
-          }
-        } catch (Exception e) {
-          logger.error(
-              "failed to notify callers due to unexpected exception [state={}]: ",
-              cache.state.toString(),
-              e);
-        } finally {
-          logger.info("{}: mark the session to be disconnected from state={}", name(), cache.state);
-          // ensure the state must be set DISCONNECTED
-          cache = new VolatileFields();
-          cache.state = ConnState.DISCONNECTED;
-          cache.nettyChannel = null;
-          fields = cache;
-        }
-      } else {
-        logger.warn("{}: session is closed already", name());
+    if (cache.state == ConnState.DISCONNECTED) {
+      logger.warn("{}: session is closed already", name());
+      return;
+    }
+
+    // NOTICE:
+    // 1. when a connection is reset, the timeout response
+    // is not answered in the order they query
+    // 2. It's likely that when the session is disconnecting
+    // but the caller of the api query/asyncQuery didn't notice
+    // this. In this case, we are relying on the timeout task.
+    try {
+      RequestEntry e;
+      while ((e = pendingSend.poll()) != null) {
+        tryNotifyFailureWithSeqID(e.sequenceId, error_types.ERR_SESSION_RESET, false);
+      }
+      for (RequestEntry entry : pendingResponse.snapshot()) {
+        tryNotifyFailureWithSeqID(entry.sequenceId, error_types.ERR_SESSION_RESET, false);
+      }
+      // the held back requests are all notified above
+      overloadQueue.clear();
+    } catch (Exception e) {
+      logger.error(
+          "failed to notify callers due to unexpected exception [state={}]: ",
+          cache.state.toString(),
+          e);
+    } finally {
+      logger.info("{}: mark the session to be disconnected from state={}", name(), cache.state);
+      // ensure the state must be set DISCONNECTED, unless it has been changed by others.
+      VolatileFields disconnected = new VolatileFields();
+      disconnected.state = ConnState.DISCONNECTED;
+      disconnected.nettyChannel = null;
+      if (FIELDS.compareAndSet(this, cache, disconnected) && !pendingSend.isEmpty()) {
+        // some requests are offered while the session is being reset, reconnect for them.
+        tryConnect();
       }
     }
   }
@@ -281,29 +506,19 @@ public class ReplicaSession {
         seqID,
         errno.toString(),
         isTimeoutTask);
-    RequestEntry entry = pendingResponse.remove(seqID);
+    RequestEntry entry = getAndRemoveEntry(seqID);
     if (entry != null) {
-      if (!isTimeoutTask && entry.timeoutTask != null) {
-        entry.timeoutTask.cancel(true);
+      if (!isTimeoutTask) {
+        timeoutWheel.cancel(entry);
       }
       if (errno == error_types.ERR_TIMEOUT) {
-        long firstTs = firstRecentTimedOutMs.get();
-        if (firstTs == 0) {
-          // it is the first timeout in the window.
-          firstRecentTimedOutMs.set(System.currentTimeMillis());
-        } else if (System.currentTimeMillis() - firstTs >= sessionResetTimeWindowMs) {
-          // ensure that closeSession() will be invoked only once.
-          if (firstRecentTimedOutMs.compareAndSet(firstTs, 0)) {
-            logger.warn(
-                "{}: actively close the session because it's not responding for {} seconds",
-                name(),
-                sessionResetTimeWindowMs / 1000);
-            closeSession(); // maybe fail when the session is already disconnected.
-            errno = error_types.ERR_SESSION_RESET;
-          }
-        }
-      } else {
-        firstRecentTimedOutMs.set(0);
+        recordLatency(TimeUnit.MILLISECONDS.toNanos(entry.timeoutMs));
+      }
+      // only the timeout which opens the circuit breaker, or which lasts for the reset window of a
+      // disabled one, closes the connections, so closeChannel() will be invoked only once.
+      if (errno == error_types.ERR_TIMEOUT && circuitBreaker.onFailure()) {
+        closeConnections();
+        errno = error_types.ERR_SESSION_RESET;
       }
       entry.op.rpc_error.errno = errno;
       entry.callback.run();
@@ -317,45 +532,175 @@ public class ReplicaSession {
     }
   }
 
-  private void write(final RequestEntry entry, VolatileFields cache) {
-    cache
-        .nettyChannel
-        .writeAndFlush(entry)
-        .addListener(
-            new ChannelFutureListener() {
-              @Override
-              public void operationComplete(ChannelFuture channelFuture) throws Exception {
-                // NOTICE: we never do the connection things, this should be the duty of
-                // ChannelHandler, we only notify the request
-                if (!channelFuture.isSuccess()) {
-                  logger.info(
-                      "{} write seqid {} failed: ",
-                      name(),
-                      entry.sequenceId,
-                      channelFuture.cause());
-                  tryNotifyFailureWithSeqID(entry.sequenceId, error_types.ERR_TIMEOUT, false);
-                }
-              }
-            });
-  }
-
-  // Notify the RPC caller when times out. If the RPC finishes in time,
-  // this task will be cancelled.
-  // TODO(wutao1): call it addTimeoutTicker
-  private ScheduledFuture<?> addTimer(final int seqID, long timeoutInMillseconds) {
-    return rpcGroup.schedule(
-        new Runnable() {
+  private void write(final RequestEntry entry, VolatileFields cache, boolean flush) {
+    ChannelFuture future =
+        flush ? cache.nettyChannel.writeAndFlush(entry) : cache.nettyChannel.write(entry);
+    future.addListener(
+        new ChannelFutureListener() {
           @Override
-          public void run() {
-            try {
-              tryNotifyFailureWithSeqID(seqID, error_types.ERR_TIMEOUT, true);
-            } catch (Exception e) {
-              logger.warn("try notify with sequenceID {} exception!", seqID, e);
+          public void operationComplete(ChannelFuture channelFuture) throws Exception {
+            // NOTICE: we never do the connection things, this should be the duty of
+            // ChannelHandler, we only notify the request
+            if (!channelFuture.isSuccess()) {
+              logger.info(
+                  "{} write seqid {} failed: ", name(), entry.sequenceId, channelFuture.cause());
+              tryNotifyFailureWithSeqID(entry.sequenceId, error_types.ERR_TIMEOUT, false);
             }
           }
-        },
-        timeoutInMillseconds,
-        TimeUnit.MILLISECONDS);
+        });
+  }
+
+  // Admits the entry if the session is not overloaded. It fails if the entry has been removed.
+  private boolean tryAdmit(RequestEntry entry) {
+    if (!hasCapacity()) {
+      return false;
+    }
+    if (maxInflight > 0) {
+      int n;
+      do {
+        n = inflight.get();
+        if (n >= maxInflight) {
+          return false;
+        }
+      } while (!inflight.compareAndSet(n, n + 1));
+    } else {
+      inflight.incrementAndGet();
+    }
+    if (!ADMIT_STATE.compareAndSet(entry, WAITING, ADMITTED)) {
+      // timed out or reset already
+      inflight.decrementAndGet();
+      return false;
+    }
+    return true;
+  }
+
+  private boolean hasCapacity() {
+    if (checkWritable) {
+      Channel channel = fields.nettyChannel;
+      if (channel != null && !channel.isWritable()) {
+        return false;
+      }
+    }
+    return maxInflight <= 0 || inflight.get() < maxInflight;
+  }
+
+  private void onOverload(RequestEntry entry) {
+    logger.debug(
+        "{}: session is overloaded, {} the request {}", name(), overloadPolicy, entry.sequenceId);
+    switch (overloadPolicy) {
+      case FAIL_FAST:
+        rejectWithBusy(entry);
+        return;
+      case BLOCK:
+        // never block the I/O threads, the request would never be admitted, nor the table
+        // executors, which the other tables share.
+        if (!inClientThread()) {
+          blockUntilAdmitted(entry);
+          return;
+        }
+        overloadQueue.offer(entry);
+        drainOverloadQueue();
+        return;
+      case QUEUE:
+        overloadQueue.offer(entry);
+        drainOverloadQueue();
+        return;
+    }
+  }
+
+  private void rejectWithBusy(RequestEntry entry) {
+    if (getAndRemoveEntry(entry.sequenceId) == entry) {
+      timeoutWheel.cancel(entry);
+      entry.op.rpc_error.errno = error_types.ERR_BUSY;
+      entry.callback.run();
+    }
+  }
+
+  private boolean inClientThread() {
+    if (manager != null) {
+      return manager.inClientThread();
+    }
+    for (EventExecutor executor : rpcGroup) {
+      if (executor.inEventLoop()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // Waits on a lock rather than a monitor, which would pin the carrier of a virtual thread.
+  private void blockUntilAdmitted(RequestEntry entry) {
+    long deadline = System.currentTimeMillis() + entry.timeoutMs;
+    blockedCallers.incrementAndGet();
+    try {
+      admitLock.lock();
+      try {
+        while (!tryAdmit(entry)) {
+          long remaining = deadline - System.currentTimeMillis();
+          if (entry.admitState == REMOVED || remaining <= 0) {
+            // the timeout will be notified by the timeout wheel
+            return;
+          }
+          admitted.await(remaining, TimeUnit.MILLISECONDS);
+        }
+      } finally {
+        admitLock.unlock();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      rejectWithBusy(entry);
+      return;
+    } finally {
+      blockedCallers.decrementAndGet();
+    }
+    send(entry);
+  }
+
+  private void onCapacityAvailable() {
+    if (!admissionEnabled) {
+      return;
+    }
+    drainOverloadQueue();
+    if (blockedCallers.get() > 0) {
+      admitLock.lock();
+      try {
+        admitted.signalAll();
+      } finally {
+        admitLock.unlock();
+      }
+    }
+  }
+
+  // Sends the held back requests in order. Only one thread drains the queue at a time.
+  private void drainOverloadQueue() {
+    while (!overloadQueue.isEmpty() && draining.compareAndSet(false, true)) {
+      boolean full = false;
+      try {
+        RequestEntry e;
+        while ((e = overloadQueue.peek()) != null) {
+          if (tryAdmit(e)) {
+            overloadQueue.poll();
+            send(e);
+          } else if (e.admitState == REMOVED) {
+            overloadQueue.poll();
+          } else {
+            full = true;
+            break;
+          }
+        }
+      } finally {
+        draining.set(false);
+      }
+      // if capacity is released after the check above, the releaser will drain the queue.
+      if (full && !hasCapacity()) {
+        return;
+      }
+    }
+  }
+
+  // for test
+  int getInflightCount() {
+    return inflight.get();
   }
 
   final class DefaultHandler extends SimpleChannelInboundHandler<RequestEntry> {
@@ -374,7 +719,12 @@ public class ReplicaSession {
     @Override
     public void channelRead0(ChannelHandlerContext ctx, final RequestEntry msg) {
       logger.debug("{}: handle response with seqid({})", name(), msg.sequenceId);
-      firstRecentTimedOutMs.set(0); // This session is currently healthy.
+      long latencyNanos = System.nanoTime() - msg.sendNanos;
+      recordLatency(latencyNanos);
+      if (circuitBreaker.onResponse(latencyNanos)) {
+        // the slow response itself is still delivered.
+        closeConnections();
+      }
       if (msg.callback != null) {
         msg.callback.run();
       } else {
@@ -383,6 +733,14 @@ public class ReplicaSession {
       }
     }
 
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+      if (ctx.channel().isWritable()) {
+        onCapacityAvailable();
+      }
+      ctx.fireChannelWritabilityChanged();
+    }
+
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
       logger.warn(
@@ -405,29 +763,56 @@ public class ReplicaSession {
 
   MessageResponseFilter filter = null;
 
-  final ConcurrentHashMap<Integer, RequestEntry> pendingResponse =
-      new ConcurrentHashMap<Integer, RequestEntry>();
+  // the group of connections to the same server, null if this session is used standalone.
+  volatile ReplicaSessionGroup group = null;
+
+  final InflightTable pendingResponse = new InflightTable();
   private final AtomicInteger seqId = new AtomicInteger(0);
 
-  final Queue<RequestEntry> pendingSend = new LinkedList<RequestEntry>();
+  // the requests waiting for the connection, which are offered by the callers and drained by the
+  // event loop once the channel is active.
+  final Queue<RequestEntry> pendingSend = new ConcurrentLinkedQueue<RequestEntry>();
 
   static final class VolatileFields {
     public ConnState state = ConnState.DISCONNECTED;
     public Channel nettyChannel = null;
   }
 
+  // the state transitions are done by CAS on it, which replaces the whole object.
   volatile VolatileFields fields = new VolatileFields();
+  private static final AtomicReferenceFieldUpdater<ReplicaSession, VolatileFields> FIELDS =
+      AtomicReferenceFieldUpdater.newUpdater(ReplicaSession.class, VolatileFields.class, "fields");
 
   private final rpc_address address;
   private Bootstrap boot;
   private EventLoopGroup rpcGroup;
-
-  // Session will be actively closed if all the rpcs across `sessionResetTimeWindowMs`
-  // are timed out, in that case we suspect that the server is unavailable.
-
-  // Timestamp of the first timed out rpc.
-  private AtomicLong firstRecentTimedOutMs;
-  private static final long sessionResetTimeWindowMs = 10 * 1000; // 10s
+  private final ClusterManager manager;
+  final TimeoutWheel timeoutWheel;
+  private final boolean ownsTimeoutWheel;
+
+  // The admission control, which is disabled if neither the in-flight limit nor the water marks of
+  // the outbound buffer is configured.
+  private final int maxInflight;
+  private final boolean checkWritable;
+  private final OverloadPolicy overloadPolicy;
+  private final boolean admissionEnabled;
+  private final AtomicInteger inflight = new AtomicInteger(0);
+  private final Queue<RequestEntry> overloadQueue = new ConcurrentLinkedQueue<RequestEntry>();
+  private final AtomicBoolean draining = new AtomicBoolean(false);
+  private final ReentrantLock admitLock = new ReentrantLock();
+  private final Condition admitted = admitLock.newCondition();
+  private final AtomicInteger blockedCallers = new AtomicInteger(0);
+
+  // The latency observed by the read routing, a new sample weights 1/LATENCY_EWMA_WEIGHT.
+  private static final int LATENCY_EWMA_WEIGHT = 8;
+  private static final long LATENCY_DECAY_NANOS = TimeUnit.SECONDS.toNanos(1);
+  private volatile long latencyEwmaNanos = 0;
+  volatile long latencyUpdateNanos = System.nanoTime();
+
+  // Session will be actively closed if the circuit breaker is opened by the timeouts, or all the
+  // requests time out for 10s when it's disabled, in that case we suspect that the server is
+  // unavailable. It's shared by all the connections to the server.
+  final CircuitBreaker circuitBreaker;
 
   private static final Logger logger = org.slf4j.LoggerFactory.getLogger(ReplicaSession.class);
 }
@@ -0,0 +1,79 @@
+// Copyright (c) 2017, Xiaomi, Inc.  All rights reserved.
+// This source code is licensed under the Apache License Version 2.0, which
+// can be found in the LICENSE file in the root directory of this source tree.
+package com.xiaomi.infra.pegasus.rpc.async;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ReplicaSessionGroup holds all the connections to one replica server, so that the traffic to a hot
+ * server can be spread across several event loops and socket buffers.
+ *
+ * <p>The connections share one circuit breaker, because it's the server rather than a connection
+ * that fails.
+ */
+public final class ReplicaSessionGroup {
+  public enum SelectPolicy {
+    ROUND_ROBIN,
+    LEAST_OUTSTANDING;
+
+    public static SelectPolicy fromString(String name) {
+      return SelectPolicy.valueOf(name.trim().toUpperCase());
+    }
+  }
+
+  private final ReplicaSession[] sessions;
+  private final SelectPolicy policy;
+  private final AtomicInteger next = new AtomicInteger(0);
+
+  /** The sessions must be created with the same options and circuit breaker. */
+  ReplicaSessionGroup(ReplicaSession[] sessions, SelectPolicy policy) {
+    assert sessions.length > 0;
+    this.sessions = sessions;
+    this.policy = policy;
+    for (ReplicaSession session : sessions) {
+      assert session.circuitBreaker == sessions[0].circuitBreaker;
+      session.group = this;
+    }
+  }
+
+  /** The first connection, which is also used as the handle of the replica server. */
+  public ReplicaSession first() {
+    return sessions[0];
+  }
+
+  public ReplicaSession[] sessions() {
+    return sessions;
+  }
+
+  /** Selects the connection to send the next request with. */
+  public ReplicaSession select() {
+    if (sessions.length == 1) {
+      return sessions[0];
+    }
+
+    int start = (next.getAndIncrement() & Integer.MAX_VALUE) % sessions.length;
+    if (policy == SelectPolicy.ROUND_ROBIN) {
+      return sessions[start];
+    }
+
+    // least outstanding: begin the scan from the round-robin position to break ties evenly.
+    ReplicaSession best = sessions[start];
+    int bestPending = Integer.MAX_VALUE;
+    for (int i = 0; i < sessions.length && bestPending > 0; i++) {
+      ReplicaSession s = sessions[(start + i) % sessions.length];
+      int pending = s.getPendingCount();
+      if (pending < bestPending) {
+        best = s;
+        bestPending = pending;
+      }
+    }
+    return best;
+  }
+
+  public void closeSessions() {
+    for (ReplicaSession session : sessions) {
+      session.closeSession();
+    }
+  }
+}
@@ -0,0 +1,66 @@
+// Copyright (c) 2017, Xiaomi, Inc.  All rights reserved.
+// This source code is licensed under the Apache License Version 2.0, which
+// can be found in the LICENSE file in the root directory of this source tree.
+package com.xiaomi.infra.pegasus.rpc.async;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RetryBudget limits the retries of a table in each second to {@code minPerSecond} plus {@code
+ * percent} of the first attempts. The first attempts of the previous second are also taken into
+ * account, so that the budget doesn't drop to the minimum at the beginning of each second.
+ */
+final class RetryBudget {
+  private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final int percent;
+  private final int minPerSecond;
+
+  private final AtomicLong windowStartNanos;
+  private final AtomicLong requests = new AtomicLong(0);
+  private final AtomicLong retries = new AtomicLong(0);
+  private volatile long lastRequests = 0;
+
+  /** @param percent the budget is unlimited if it's not positive. */
+  RetryBudget(int percent, int minPerSecond) {
+    this.percent = percent;
+    this.minPerSecond = Math.max(0, minPerSecond);
+    this.windowStartNanos = new AtomicLong(System.nanoTime());
+  }
+
+  /** Deposits a first attempt. */
+  void onRequest() {
+    if (percent <= 0) {
+      return;
+    }
+    roll();
+    requests.incrementAndGet();
+  }
+
+  /** Withdraws a retry, returns false if the budget is exhausted. */
+  boolean tryAcquire() {
+    if (percent <= 0) {
+      return true;
+    }
+    roll();
+    long allowed = minPerSecond + Math.max(lastRequests, requests.get()) * percent / 100;
+    if (retries.incrementAndGet() > allowed) {
+      retries.decrementAndGet();
+      return false;
+    }
+    return true;
+  }
+
+  private void roll() {
+    long start = windowStartNanos.get();
+    long now = System.nanoTime();
+    if (now - start < WINDOW_NANOS || !windowStartNanos.compareAndSet(start, now)) {
+      return;
+    }
+    // the requests of a window which is long ago don't count
+    lastRequests = now - start < 2 * WINDOW_NANOS ? requests.get() : 0;
+    requests.set(0);
+    retries.set(0);
+  }
+}
@@ -0,0 +1,156 @@
+// Copyright (c) 2017, Xiaomi, Inc.  All rights reserved.
+// This source code is licensed under the Apache License Version 2.0, which
+// can be found in the LICENSE file in the root directory of this source tree.
+package com.xiaomi.infra.pegasus.rpc.async;
+
+import com.xiaomi.infra.pegasus.base.rpc_address;
+import com.xiaomi.infra.pegasus.replication.query_cfg_response;
+import io.netty.util.concurrent.DefaultEventExecutor;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.apache.thrift.TBase;
+import org.apache.thrift.TDeserializer;
+import org.apache.thrift.TException;
+import org.apache.thrift.TSerializer;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.slf4j.Logger;
+
+/**
+ * RoutingCache persists the meta leader and the table configurations of a cluster on disk, in the
+ * thrift binary protocol, so that a new client can serve requests before meta responds.
+ *
+ * <p>The cache is best-effort: the failures to read or write it are only logged. The cached entries
+ * may be stale, which are refreshed from meta in the background, and corrected once the replica
+ * servers reject the requests routed by them.
+ *
+ * <p>The async methods do the file I/O on a dedicated thread in order, so that the table executors
+ * are never blocked by the disk.
+ */
+final class RoutingCache {
+  private static final Logger logger = org.slf4j.LoggerFactory.getLogger(RoutingCache.class);
+
+  private static final String LEADER_FILE = "meta_leader";
+  private static final String TABLE_SUFFIX = ".cfg";
+
+  // the cache of each cluster is kept in its own sub directory
+  private final Path dir;
+  // the thread is started on the first async call
+  private final EventExecutor ioExecutor =
+      new DefaultEventExecutor(new DefaultThreadFactory("pegasus-routing-cache", true));
+
+  RoutingCache(String cacheDir, String[] metaList) {
+    this.dir = Paths.get(cacheDir, clusterKey(metaList));
+  }
+
+  static String clusterKey(String[] metaList) {
+    String[] sorted = metaList.clone();
+    Arrays.sort(sorted);
+    return escape(String.join(",", sorted));
+  }
+
+  // the file names are restricted to the characters which are valid on every file system
+  private static String escape(String name) {
+    return name.replaceAll("[^A-Za-z0-9._-]", "_");
+  }
+
+  Path getDir() {
+    return dir;
+  }
+
+  /** @return the cached meta leader, null if absent. */
+  rpc_address loadLeader() {
+    rpc_address leader = new rpc_address();
+    return load(dir.resolve(LEADER_FILE), leader) ? leader : null;
+  }
+
+  void storeLeader(rpc_address leader) {
+    store(dir.resolve(LEADER_FILE), leader);
+  }
+
+  /** @return the cached configuration of the table, null if absent. */
+  query_cfg_response loadTable(String tableName) {
+    query_cfg_response resp = new query_cfg_response();
+    return load(tablePath(tableName), resp) ? resp : null;
+  }
+
+  void storeTable(String tableName, query_cfg_response resp) {
+    store(tablePath(tableName), resp);
+  }
+
+  void removeTable(String tableName) {
+    try {
+      Files.deleteIfExists(tablePath(tableName));
+    } catch (IOException e) {
+      logger.warn("failed to remove the routing cache of table({}): ", tableName, e);
+    }
+  }
+
+  /** @return the future of the cached configuration of the table, which is null if absent. */
+  Future<query_cfg_response> asyncLoadTable(String tableName) {
+    return ioExecutor.submit(() -> loadTable(tableName));
+  }
+
+  void asyncStoreTable(String tableName, query_cfg_response resp) {
+    ioExecutor.execute(() -> storeTable(tableName, resp));
+  }
+
+  void asyncStoreLeader(rpc_address leader) {
+    ioExecutor.execute(() -> storeLeader(leader));
+  }
+
+  void asyncRemoveTable(String tableName) {
+    ioExecutor.execute(() -> removeTable(tableName));
+  }
+
+  /** Finishes the pending writes and stops the I/O thread. */
+  Future<?> close() {
+    return ioExecutor.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+  }
+
+  private Path tablePath(String tableName) {
+    return dir.resolve(escape(tableName) + TABLE_SUFFIX);
+  }
+
+  private static boolean load(Path path, TBase<?, ?> base) {
+    try {
+      byte[] bytes = Files.readAllBytes(path);
+      new TDeserializer(new TBinaryProtocol.Factory()).deserialize(base, bytes);
+      return true;
+    } catch (NoSuchFileException e) {
+      return false;
+    } catch (IOException | TException | RuntimeException e) {
+      logger.warn("failed to load the routing cache {}: ", path, e);
+      return false;
+    }
+  }
+
+  // written to a temporary file first, so that a concurrent reader, which may be another client
+  // process sharing the directory, never sees a partial file
+  private static void store(Path path, TBase<?, ?> base) {
+    Path tmp = null;
+    try {
+      Files.createDirectories(path.getParent());
+      tmp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+      Files.write(tmp, new TSerializer(new TBinaryProtocol.Factory()).serialize(base));
+      Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException | TException e) {
+      logger.warn("failed to store the routing cache {}: ", path, e);
+      try {
+        if (tmp != null) {
+          Files.deleteIfExists(tmp);
+        }
+      } catch (IOException ignored) {
+        // nothing to do
+      }
+    }
+  }
+}
@@ -13,6 +13,11 @@ public class TByteBufTransport extends TTransport {
     buffer_ = b;
   }
 
+  // Rebinds the transport to another buffer, so that it can be reused across messages.
+  void setBuffer(io.netty.buffer.ByteBuf b) {
+    buffer_ = b;
+  }
+
   public boolean isOpen() {
     return true;
   }
@@ -42,4 +47,28 @@ public class TByteBufTransport extends TTransport {
   public byte[] getArray() {
     return buffer_.array();
   }
+
+  // The methods below let the protocol read primitives and binaries from the backing array of a
+  // heap buffer in place. They are no-ops for direct buffers, in which case the protocol falls back
+  // to read().
+
+  @Override
+  public byte[] getBuffer() {
+    return buffer_.hasArray() ? buffer_.array() : null;
+  }
+
+  @Override
+  public int getBufferPosition() {
+    return buffer_.hasArray() ? buffer_.arrayOffset() + buffer_.readerIndex() : 0;
+  }
+
+  @Override
+  public int getBytesRemainingInBuffer() {
+    return buffer_.hasArray() ? buffer_.readableBytes() : -1;
+  }
+
+  @Override
+  public void consumeBuffer(int len) {
+    buffer_.skipBytes(len);
+  }
 }
@@ -8,6 +8,7 @@ import com.xiaomi.infra.pegasus.base.gpid;
 import com.xiaomi.infra.pegasus.base.rpc_address;
 import com.xiaomi.infra.pegasus.client.FutureGroup;
 import com.xiaomi.infra.pegasus.client.PException;
+import com.xiaomi.infra.pegasus.metrics.MetricsManager;
 import com.xiaomi.infra.pegasus.operator.client_operator;
 import com.xiaomi.infra.pegasus.operator.query_cfg_operator;
 import com.xiaomi.infra.pegasus.replication.partition_configuration;
@@ -16,14 +17,21 @@ import com.xiaomi.infra.pegasus.replication.query_cfg_response;
 import com.xiaomi.infra.pegasus.rpc.ReplicationException;
 import com.xiaomi.infra.pegasus.rpc.Table;
 import com.xiaomi.infra.pegasus.rpc.TableOptions;
+import com.xiaomi.infra.pegasus.tools.Completion;
 import io.netty.channel.ChannelFuture;
 import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import org.apache.commons.lang3.StringEscapeUtils;
 import org.slf4j.Logger;
@@ -36,6 +44,21 @@ public class TableHandler extends Table {
     public rpc_address primaryAddress = new rpc_address();
     public ReplicaSession primarySession = null;
     public List<ReplicaSession> secondarySessions = new ArrayList<>();
+    // the version of the table configuration in which this partition is updated
+    public long updateVersion = 0;
+  }
+
+  // a request waiting for the partition to have a primary
+  static final class ParkedCall {
+    final ClientRequestRound round;
+    final int tryId;
+    final AtomicBoolean taken = new AtomicBoolean(false);
+    ScheduledFuture<?> expireTask;
+
+    ParkedCall(ClientRequestRound round, int tryId) {
+      this.round = round;
+      this.tryId = tryId;
+    }
   }
 
   static final class TableConfiguration {
@@ -45,15 +68,205 @@ public class TableHandler extends Table {
 
   private static final Logger logger = org.slf4j.LoggerFactory.getLogger(TableHandler.class);
   ClusterManager manager_;
-  EventExecutor executor_; // should be only one thread in this service
+  // the executor of the table-wide work, such as the meta query and the backup request window,
+  // while the work of each partition runs on its own shard
+  EventExecutor executor_;
+  // the executors which the work of the partitions is sharded to, beginning with executor_
+  EventExecutor[] shards_;
 
   AtomicReference<TableConfiguration> tableConfig_;
   AtomicBoolean inQuerying_;
   long lastQueryTime_;
+  // the refresh needs which are batched into the next query
+  volatile boolean needFullQuery_ = false;
+  final Set<Integer> pendingQueryPartitions_ = ConcurrentHashMap.newKeySet();
+  // the requests parked by partition until a primary is installed
+  final ConcurrentHashMap<Integer, Queue<ParkedCall>> parkedCalls_ = new ConcurrentHashMap<>();
   int backupRequestDelayMs;
+  ReadRouter.Policy readRoutingPolicy_;
+  RetryBudget retryBudget_;
+
+  // the window of the adaptive backup request delay, also the window of backupRequestMaxPercent
+  static final long BACKUP_REQUEST_WINDOW_MS = 1000;
+  // the delay is tracked in microseconds, null if the delay is fixed
+  LatencyWindow latencyWindow_;
+  volatile long backupRequestDelayUs;
+  int backupRequestMaxPercent;
+  // the reads which may send backup requests, and the sent backup requests, in current window
+  final AtomicLong backupableCount_ = new AtomicLong(0);
+  final AtomicLong backupRequestCount_ = new AtomicLong(0);
 
   public TableHandler(ClusterManager mgr, String name, TableOptions options)
       throws ReplicationException {
+    query_cfg_operator op = newQueryOperator(name);
+    query_cfg_response cached = loadCachedConfiguration(mgr, name);
+    if (cached != null) {
+      initialize(mgr, name, options, cached);
+      installCachedConfiguration(cached);
+      return;
+    }
+
+    mgr.getMetaSession().query(op, 5);
+    error_types err = MetaSession.getMetaServiceError(op);
+    if (err != error_types.ERR_OK) {
+      throw newMetaException(err, mgr, name);
+    }
+    query_cfg_response resp = op.get_response();
+    logger.info(
+        "query meta configuration succeed, table_name({}), app_id({}), partition_count({})",
+        name,
+        resp.app_id,
+        resp.partition_count);
+    initialize(mgr, name, options, resp);
+    storeRoutingCache(resp);
+
+    // Warm up the connections during client.openTable, so RPCs thereafter can
+    // skip the connect process.
+    FutureGroup<Void> futureGroup = installTableConfiguration(resp, true);
+    try {
+      futureGroup.waitAllCompleteOrOneFail(manager_.getTimeout());
+    } catch (PException e) {
+      logger.warn("failed to connect with some replica servers: ", e);
+    }
+  }
+
+  TableHandler(ClusterManager mgr, String name, TableOptions options, query_cfg_response resp) {
+    initialize(mgr, name, options, resp);
+  }
+
+  /**
+   * Opens the table without blocking. The meta query and the connection warm-up are done in the
+   * background, so that many tables can be opened concurrently.
+   */
+  static Future<Table> asyncOpen(
+      final ClusterManager mgr, final String name, final TableOptions options) {
+    final Promise<Table> promise = mgr.getExecutor().newPromise();
+    RoutingCache cache = mgr.getRoutingCache();
+    if (cache == null) {
+      asyncQueryAndOpen(mgr, name, options, promise);
+      return promise;
+    }
+
+    // the cache is read on its own thread, and the table is opened on the table executor
+    cache
+        .asyncLoadTable(name)
+        .addListener(
+            (Future<query_cfg_response> f) ->
+                mgr.getExecutor()
+                    .execute(
+                        () -> {
+                          query_cfg_response cached =
+                              f.isSuccess() ? validateCachedConfiguration(name, f.getNow()) : null;
+                          if (cached == null) {
+                            asyncQueryAndOpen(mgr, name, options, promise);
+                            return;
+                          }
+                          try {
+                            TableHandler table = new TableHandler(mgr, name, options, cached);
+                            table.installCachedConfiguration(cached);
+                            promise.setSuccess(table);
+                          } catch (Throwable e) {
+                            promise.tryFailure(e);
+                          }
+                        }));
+    return promise;
+  }
+
+  private static void asyncQueryAndOpen(
+      final ClusterManager mgr,
+      final String name,
+      final TableOptions options,
+      final Promise<Table> promise) {
+    final query_cfg_operator op = newQueryOperator(name);
+    mgr.getMetaSession()
+        .asyncQuery(
+            op,
+            () -> {
+              error_types err = MetaSession.getMetaServiceError(op);
+              if (err != error_types.ERR_OK) {
+                promise.setFailure(newMetaException(err, mgr, name));
+                return;
+              }
+              // move off the meta event loop
+              mgr.getExecutor()
+                  .execute(
+                      () -> {
+                        try {
+                          query_cfg_response resp = op.get_response();
+                          logger.info(
+                              "query meta configuration succeed, table_name({}), app_id({}), partition_count({})",
+                              name,
+                              resp.app_id,
+                              resp.partition_count);
+                          TableHandler table = new TableHandler(mgr, name, options, resp);
+                          table.storeRoutingCache(resp);
+                          table.warmUp(resp, promise);
+                        } catch (Throwable e) {
+                          promise.tryFailure(e);
+                        }
+                      });
+            },
+            5);
+  }
+
+  // the promise succeeds once the connections are warmed up, or timed out
+  private void warmUp(query_cfg_response resp, Promise<Table> promise) {
+    FutureGroup<Void> futureGroup = installTableConfiguration(resp, true);
+    ScheduledFuture<?> timeoutTask =
+        executor_.schedule(
+            () -> {
+              if (promise.trySuccess(this)) {
+                logger.warn(
+                    "{}: failed to connect with some replica servers in {}ms",
+                    tableName_,
+                    manager_.getTimeout());
+              }
+            },
+            manager_.getTimeout(),
+            TimeUnit.MILLISECONDS);
+    futureGroup.whenAllComplete(
+        () -> {
+          timeoutTask.cancel(false);
+          promise.trySuccess(this);
+        });
+  }
+
+  // only used by the blocking open, whose caller waits for the disk anyway
+  private static query_cfg_response loadCachedConfiguration(ClusterManager mgr, String name) {
+    RoutingCache cache = mgr.getRoutingCache();
+    return cache == null ? null : validateCachedConfiguration(name, cache.loadTable(name));
+  }
+
+  private static query_cfg_response validateCachedConfiguration(
+      String name, query_cfg_response resp) {
+    if (resp != null
+        && (resp.getPartitions() == null || resp.getPartitions().size() != resp.partition_count)) {
+      logger.warn("{}: ignore the incomplete cached configuration", name);
+      return null;
+    }
+    return resp;
+  }
+
+  // The table is served with the cached configuration at once, without waiting for the
+  // connections. It's validated by querying meta in the background, and the requests routed to the
+  // stale replicas are rejected by the replica servers, which also triggers the query.
+  private void installCachedConfiguration(query_cfg_response resp) {
+    logger.info("{}: open with the cached configuration, refresh it in the background", tableName_);
+    installTableConfiguration(resp, false);
+    tryQueryMeta(tableConfig_.get().updateVersion);
+  }
+
+  // only the configurations of the whole table are cached
+  private void storeRoutingCache(final query_cfg_response resp) {
+    final RoutingCache cache = manager_.getRoutingCache();
+    if (cache == null) {
+      return;
+    }
+    cache.asyncStoreTable(tableName_, resp);
+    cache.asyncStoreLeader(manager_.getMetaSession().getLeader());
+  }
+
+  private static query_cfg_operator newQueryOperator(String name) {
     int i = 0;
     for (; i < name.length(); i++) {
       char c = name.charAt(i);
@@ -75,20 +288,11 @@ public class TableHandler extends Table {
     }
 
     query_cfg_request req = new query_cfg_request(name, new ArrayList<Integer>());
-    query_cfg_operator op = new query_cfg_operator(new gpid(-1, -1), req);
-    mgr.getMetaSession().query(op, 5);
-    error_types err = MetaSession.getMetaServiceError(op);
-    if (err != error_types.ERR_OK) {
-      handleMetaException(err, mgr, name);
-      return;
-    }
-    query_cfg_response resp = op.get_response();
-    logger.info(
-        "query meta configuration succeed, table_name({}), app_id({}), partition_count({})",
-        name,
-        resp.app_id,
-        resp.partition_count);
+    return new query_cfg_operator(new gpid(-1, -1), req);
+  }
 
+  private void initialize(
+      ClusterManager mgr, String name, TableOptions options, query_cfg_response resp) {
     // superclass members
     tableName_ = name;
     appID_ = resp.app_id;
@@ -97,14 +301,35 @@ public class TableHandler extends Table {
     // members of this
     manager_ = mgr;
     executor_ = manager_.getExecutor();
+    shards_ = manager_.getTableExecutors(executor_);
     this.backupRequestDelayMs = options.backupRequestDelayMs();
+    this.readRoutingPolicy_ = manager_.getReadRoutingPolicy();
+    this.retryBudget_ = manager_.newRetryBudget();
+    this.backupRequestDelayUs = TimeUnit.MILLISECONDS.toMicros(backupRequestDelayMs);
+    this.backupRequestMaxPercent = options.backupRequestMaxPercent();
     if (backupRequestDelayMs > 0) {
-      logger.info("the delay time of backup request is \"{}\"", backupRequestDelayMs);
+      logger.info(
+          "the delay time of backup request is \"{}\", adaptive({}), percentile({}), max_percent({})",
+          backupRequestDelayMs,
+          options.enableAdaptiveBackupRequest(),
+          options.backupRequestDelayPercentile(),
+          backupRequestMaxPercent);
+      if (options.enableAdaptiveBackupRequest()) {
+        latencyWindow_ = new LatencyWindow(options.backupRequestDelayPercentile());
+      }
+      executor_.scheduleAtFixedRate(
+          new Runnable() {
+            @Override
+            public void run() {
+              rotateBackupRequestWindow();
+            }
+          },
+          BACKUP_REQUEST_WINDOW_MS,
+          BACKUP_REQUEST_WINDOW_MS,
+          TimeUnit.MILLISECONDS);
     }
 
     tableConfig_ = new AtomicReference<TableConfiguration>(null);
-    initTableConfiguration(resp);
-
     inQuerying_ = new AtomicBoolean(false);
     lastQueryTime_ = 0;
   }
@@ -115,24 +340,51 @@ public class TableHandler extends Table {
 
   // update the table configuration & appID_ according to to queried response
   // there should only be one thread to do the table config update
-  void initTableConfiguration(query_cfg_response resp) {
+  //
+  // The new configuration is published without waiting for the connections, which must not block
+  // the meta event loop. The requests to the connecting sessions are sent once connected. If
+  // warmUp, the connect futures are returned for the caller to wait for, otherwise null.
+  FutureGroup<Void> installTableConfiguration(query_cfg_response resp, boolean warmUp) {
     TableConfiguration oldConfig = tableConfig_.get();
 
     TableConfiguration newConfig = new TableConfiguration();
     newConfig.updateVersion = (oldConfig == null) ? 1 : (oldConfig.updateVersion + 1);
     newConfig.replicas = new ArrayList<>(resp.getPartition_count());
-    for (int i = 0; i != resp.getPartition_count(); ++i) {
-      ReplicaConfiguration newReplicaConfig = new ReplicaConfiguration();
-      newReplicaConfig.pid.set_app_id(resp.getApp_id());
-      newReplicaConfig.pid.set_pidx(i);
-      newConfig.replicas.add(newReplicaConfig);
+    // the response of some partitions is merged into the current configuration, which requires
+    // the table is not recreated or split
+    boolean merge =
+        oldConfig != null
+            && resp.getApp_id() == appID_
+            && resp.getPartition_count() == oldConfig.replicas.size();
+    if (merge) {
+      newConfig.replicas.addAll(oldConfig.replicas);
+    } else {
+      for (int i = 0; i != resp.getPartition_count(); ++i) {
+        ReplicaConfiguration newReplicaConfig = new ReplicaConfiguration();
+        newReplicaConfig.pid.set_app_id(resp.getApp_id());
+        newReplicaConfig.pid.set_pidx(i);
+        newReplicaConfig.updateVersion = newConfig.updateVersion;
+        newConfig.replicas.add(newReplicaConfig);
+      }
     }
 
     // create sessions for primary and secondaries
-    FutureGroup<Void> futureGroup = new FutureGroup<>(resp.getPartition_count());
+    FutureGroup<Void> futureGroup =
+        warmUp ? new FutureGroup<Void>(resp.getPartitions().size()) : null;
+    int updated = 0;
     for (partition_configuration pc : resp.getPartitions()) {
-      ReplicaConfiguration s = newConfig.replicas.get(pc.getPid().get_pidx());
+      int pidx = pc.getPid().get_pidx();
+      if (merge && !isChanged(oldConfig.replicas.get(pidx), pc)) {
+        // keep the unchanged partition as is, with its sessions
+        continue;
+      }
+      ReplicaConfiguration s = new ReplicaConfiguration();
+      s.pid.set_app_id(resp.getApp_id());
+      s.pid.set_pidx(pidx);
+      s.updateVersion = newConfig.updateVersion;
       s.ballot = pc.ballot;
+      newConfig.replicas.set(pidx, s);
+      updated++;
 
       // If the primary address is invalid, we don't create secondary session either.
       // Because all of these sessions will be recreated later.
@@ -140,9 +392,9 @@ public class TableHandler extends Table {
       if (!pc.primary.isInvalid()) {
         s.primarySession = tryConnect(pc.primary, futureGroup);
 
-        // backup request is enabled, get all secondary sessions
+        // backup request or read routing is enabled, get all secondary sessions
         s.secondarySessions.clear();
-        if (isBackupRequestEnabled()) {
+        if (isBackupRequestEnabled() || readRoutingPolicy_ != ReadRouter.Policy.PRIMARY) {
           // secondary sessions
           pc.secondaries.forEach(
               secondary -> {
@@ -154,29 +406,42 @@ public class TableHandler extends Table {
         }
       }
     }
-
-    // Warm up the connections during client.openTable, so RPCs thereafter can
-    // skip the connect process.
-    try {
-      futureGroup.waitAllCompleteOrOneFail(manager_.getTimeout());
-    } catch (PException e) {
-      logger.warn("failed to connect with some replica servers: ", e);
-    }
+    logger.info(
+        "{}: update table configuration to version({}), {} of {} partitions changed",
+        tableName_,
+        newConfig.updateVersion,
+        updated,
+        resp.getPartitions().size());
 
     // there should only be one thread to do the table config update
     appID_ = resp.getApp_id();
     tableConfig_.set(newConfig);
+    releaseParkedCalls(newConfig);
+    return futureGroup;
+  }
+
+  private static boolean isChanged(ReplicaConfiguration old, partition_configuration pc) {
+    return old.primarySession == null
+        || old.ballot != pc.ballot
+        || !old.primaryAddress.equals(pc.primary);
   }
 
+  /**
+   * Starts connecting to the replica server if it's disconnected.
+   *
+   * @param futureGroup collects the connect futures to wait for, nullable if not to wait.
+   */
   public ReplicaSession tryConnect(final rpc_address addr, FutureGroup<Void> futureGroup) {
     if (addr.isInvalid()) {
       return null;
     }
 
     ReplicaSession session = manager_.getReplicaSession(addr);
-    ChannelFuture fut = session.tryConnect();
-    if (fut != null) {
-      futureGroup.add(fut);
+    for (ReplicaSession connection : session.allConnections()) {
+      ChannelFuture fut = connection.tryConnect();
+      if (fut != null && futureGroup != null) {
+        futureGroup.add(fut);
+      }
     }
 
     return session;
@@ -186,9 +451,15 @@ public class TableHandler extends Table {
     error_types err = MetaSession.getMetaServiceError(op);
     if (err != error_types.ERR_OK) {
       logger.warn("query meta for table({}) failed, error_code({})", tableName_, err.toString());
+      RoutingCache cache = manager_.getRoutingCache();
+      if (err == error_types.ERR_OBJECT_NOT_FOUND && cache != null) {
+        // the cached table is dropped
+        cache.asyncRemoveTable(tableName_);
+      }
     } else {
       logger.info("query meta for table({}) received response", tableName_);
       query_cfg_response resp = op.get_response();
+      boolean partial = !op.get_request().getPartition_indices().isEmpty();
       if (resp.app_id != appID_ || resp.partition_count != tableConfig_.get().replicas.size()) {
         logger.warn(
             "table({}) meta reset, app_id({}->{}), partition_count({}->{})",
@@ -197,31 +468,104 @@ public class TableHandler extends Table {
             resp.app_id,
             tableConfig_.get().replicas.size(),
             resp.partition_count);
+        if (partial) {
+          // the partial response can't be merged, query the whole table
+          needFullQuery_ = true;
+        } else {
+          installTableConfiguration(resp, false);
+          storeRoutingCache(resp);
+        }
+      } else {
+        installTableConfiguration(resp, false);
+        if (!partial) {
+          storeRoutingCache(resp);
+        }
       }
-      initTableConfiguration(resp);
     }
 
+    requeryParkedPartitions();
     inQuerying_.set(false);
+    // the needs arrived during the query
+    if (needFullQuery_ || !pendingQueryPartitions_.isEmpty()) {
+      tryFlushQuery();
+    }
   }
 
+  /**
+   * Queries the configuration of the whole table from meta, unless it's updated after the cached
+   * version.
+   *
+   * @return true if the query is sent now.
+   */
   boolean tryQueryMeta(long cachedConfigVersion) {
-    if (!inQuerying_.compareAndSet(false, true)) return false;
+    if (tableConfig_.get().updateVersion > cachedConfigVersion) {
+      return false;
+    }
+    needFullQuery_ = true;
+    return tryFlushQuery();
+  }
 
-    long now = System.currentTimeMillis();
-    if (now - lastQueryTime_ < manager_.getRetryDelay()) {
-      inQuerying_.set(false);
+  /**
+   * Queries the configuration of a partition from meta, unless it's updated after the cached
+   * version. The partitions which need refreshing at the same time are batched into one query.
+   *
+   * @return true if the query is sent now.
+   */
+  boolean tryQueryMeta(long cachedConfigVersion, int pidx) {
+    TableConfiguration tableConfig = tableConfig_.get();
+    if (tableConfig.replicas.get(pidx).updateVersion > cachedConfigVersion) {
       return false;
     }
-    if (tableConfig_.get().updateVersion > cachedConfigVersion) {
+    pendingQueryPartitions_.add(pidx);
+    return tryFlushQuery();
+  }
+
+  // at most one query is in flight, and the queries are sent at least getRetryDelay() apart.
+  private boolean tryFlushQuery() {
+    if (!inQuerying_.compareAndSet(false, true)) {
+      // batched into the next query
+      return false;
+    }
+
+    long wait = lastQueryTime_ + manager_.getRetryDelay() - System.currentTimeMillis();
+    if (wait > 0) {
+      executor_.schedule(
+          new Runnable() {
+            @Override
+            public void run() {
+              sendQuery();
+            }
+          },
+          wait,
+          TimeUnit.MILLISECONDS);
+      return false;
+    }
+    return sendQuery();
+  }
+
+  private boolean sendQuery() {
+    boolean full = needFullQuery_;
+    needFullQuery_ = false;
+    List<Integer> partitions = new ArrayList<>();
+    Iterator<Integer> iter = pendingQueryPartitions_.iterator();
+    while (iter.hasNext()) {
+      partitions.add(iter.next());
+      iter.remove();
+    }
+    if (!full && partitions.isEmpty()) {
       inQuerying_.set(false);
       return false;
     }
+    // an empty list queries all the partitions
+    if (full || partitions.size() * 2 > tableConfig_.get().replicas.size()) {
+      partitions.clear();
+    }
 
-    lastQueryTime_ = now;
-    query_cfg_request req = new query_cfg_request(tableName_, new ArrayList<Integer>());
+    lastQueryTime_ = System.currentTimeMillis();
+    query_cfg_request req = new query_cfg_request(tableName_, partitions);
     final query_cfg_operator query_op = new query_cfg_operator(new gpid(-1, -1), req);
 
-    logger.info("query meta for table({}) query request", tableName_);
+    logger.info("query meta for table({}) query request, partitions({})", tableName_, partitions);
     manager_
         .getMetaSession()
         .asyncQuery(
@@ -238,7 +582,11 @@ public class TableHandler extends Table {
   }
 
   void onRpcReply(
-      ClientRequestRound round, int tryId, long cachedConfigVersion, String serverAddr) {
+      ClientRequestRound round,
+      int tryId,
+      long cachedConfigVersion,
+      String serverAddr,
+      boolean isBackupReply) {
     // judge if it is the first response
     if (round.isCompleted) {
       return;
@@ -261,6 +609,14 @@ public class TableHandler extends Table {
     boolean needQueryMeta = false;
     switch (operator.rpc_error.errno) {
       case ERR_OK:
+        if (operator.enableBackupRequest && isBackupRequestEnabled()) {
+          if (latencyWindow_ != null) {
+            latencyWindow_.record(System.nanoTime() - round.createNanoTime);
+          }
+          if (isBackupReply && round.enableCounter) {
+            MetricsManager.updateCount("pegasus.client.backup_request.win.qps@" + tableName_, 1L);
+          }
+        }
         round.thisRoundCompletion();
         return;
 
@@ -319,7 +675,7 @@ public class TableHandler extends Table {
     }
 
     if (needQueryMeta) {
-      tryQueryMeta(cachedConfigVersion);
+      tryQueryMeta(cachedConfigVersion, operator.get_gpid().get_pidx());
     }
 
     // must use new round here, because round.isSuccess is true now
@@ -336,25 +692,56 @@ public class TableHandler extends Table {
   }
 
   void tryDelayCall(final ClientRequestRound round, final int tryId) {
-    long nanoDelay = manager_.getRetryDelay(round.timeoutMs) * 1000000L;
-    if (round.expireNanoTime - System.nanoTime() > nanoDelay) {
-      executor_.schedule(
-          new Runnable() {
-            @Override
-            public void run() {
-              call(round, tryId);
-            }
-          },
-          nanoDelay,
-          TimeUnit.NANOSECONDS);
-    } else {
+    client_operator operator = round.getOperator();
+    long nanoDelay = manager_.getRetryDelay(round.timeoutMs, tryId - 1) * 1000000L;
+    if (round.expireNanoTime - System.nanoTime() <= nanoDelay) {
       // errno == ERR_UNKNOWN means the request has never attemptted to contact any replica servers
       // this may happen when we can't initialize a null replica session for a long time
-      if (round.getOperator().rpc_error.errno == error_types.ERR_UNKNOWN) {
-        round.getOperator().rpc_error.errno = error_types.ERR_TIMEOUT;
+      if (operator.rpc_error.errno == error_types.ERR_UNKNOWN) {
+        operator.rpc_error.errno = error_types.ERR_TIMEOUT;
       }
       round.thisRoundCompletion();
+      return;
     }
+
+    if (!retryBudget_.tryAcquire()) {
+      // counted by the perf counter, so it's not worth a warning each, which floods the log
+      logger.debug(
+          "{}: retry budget is exhausted, gpid({}), operator({}), try({}), error_code({}), not retry",
+          tableName_,
+          operator.get_gpid().toString(),
+          operator,
+          tryId,
+          operator.rpc_error.errno.toString());
+      if (round.enableCounter) {
+        MetricsManager.updateCount("pegasus.client.retry.budget_exhausted.qps@" + tableName_, 1L);
+      }
+      if (operator.rpc_error.errno == error_types.ERR_UNKNOWN) {
+        operator.rpc_error.errno = error_types.ERR_TIMEOUT;
+      }
+      round.thisRoundCompletion();
+      return;
+    }
+
+    if (round.enableCounter) {
+      // ERR_UNKNOWN means the partition has no primary
+      MetricsManager.updateCount(
+          "pegasus.client.retry."
+              + operator.rpc_error.errno.name().toLowerCase()
+              + ".qps@"
+              + tableName_,
+          1L);
+    }
+    executorOf(operator.get_gpid().get_pidx())
+        .schedule(
+            new Runnable() {
+              @Override
+              public void run() {
+                call(round, tryId);
+              }
+            },
+            nanoDelay,
+            TimeUnit.NANOSECONDS);
   }
 
   void call(final ClientRequestRound round, final int tryId) {
@@ -364,63 +751,216 @@ public class TableHandler extends Table {
         tableConfig.replicas.get(round.getOperator().get_gpid().get_pidx());
 
     if (handle.primarySession != null) {
-      // if backup request is enabled, schedule to send to secondary
+      // the reads which allow backup requests may also be routed to a secondary
+      ReplicaSession target = handle.primarySession;
+      if (round.operator.enableBackupRequest) {
+        target = ReadRouter.select(readRoutingPolicy_, target, handle.secondarySessions);
+      }
+
+      // if backup request is enabled, schedule to send to another replica
       if (round.operator.enableBackupRequest && isBackupRequestEnabled()) {
-        backupCall(round, tryId);
+        backupCall(round, tryId, target);
       }
 
-      // send request to primary
-      handle.primarySession.asyncSend(
+      // the secondaries serve only the requests marked as backup ones
+      final boolean toSecondary = target != handle.primarySession;
+      final ReplicaSession session = target.selectConnection();
+      session.asyncSend(
           round.getOperator(),
           new Runnable() {
             @Override
             public void run() {
-              onRpcReply(round, tryId, tableConfig.updateVersion, handle.primarySession.name());
+              onRpcReply(round, tryId, tableConfig.updateVersion, session.name(), false);
             }
           },
           round.timeoutMs,
-          false);
+          toSecondary);
     } else {
       logger.warn(
-          "{}: no primary for gpid({}), operator({}), try({}), retry later",
+          "{}: no primary for gpid({}), operator({}), try({}), wait for the primary",
           tableName_,
           round.getOperator().get_gpid().toString(),
           round.getOperator(),
           tryId);
-      tryQueryMeta(tableConfig.updateVersion);
-      tryDelayCall(round, tryId + 1);
+      int pidx = round.getOperator().get_gpid().get_pidx();
+      tryQueryMeta(tableConfig.updateVersion, pidx);
+      parkCall(round, tryId + 1, pidx);
+    }
+  }
+
+  // Parks the request until a primary of the partition is installed, or its deadline.
+  void parkCall(final ClientRequestRound round, final int tryId, int pidx) {
+    long nanoTimeout = round.expireNanoTime - System.nanoTime();
+    if (nanoTimeout <= 0) {
+      expireCall(round);
+      return;
+    }
+
+    final ParkedCall parked = new ParkedCall(round, tryId);
+    final Queue<ParkedCall> queue =
+        parkedCalls_.computeIfAbsent(pidx, k -> new ConcurrentLinkedQueue<ParkedCall>());
+    parked.expireTask =
+        executorOf(pidx)
+            .schedule(
+                new Runnable() {
+                  @Override
+                  public void run() {
+                    if (parked.taken.compareAndSet(false, true)) {
+                      queue.remove(parked);
+                      expireCall(round);
+                    }
+                  }
+                },
+                nanoTimeout,
+                TimeUnit.NANOSECONDS);
+    queue.offer(parked);
+
+    // the primary may be installed before the request is parked
+    TableConfiguration tableConfig = tableConfig_.get();
+    if (pidx < tableConfig.replicas.size()
+        && tableConfig.replicas.get(pidx).primarySession != null) {
+      releaseParkedCalls(tableConfig);
+    }
+  }
+
+  // Releases the requests parked for the partitions which have primaries now.
+  void releaseParkedCalls(TableConfiguration tableConfig) {
+    for (Map.Entry<Integer, Queue<ParkedCall>> entry : parkedCalls_.entrySet()) {
+      int pidx = entry.getKey();
+      if (pidx >= tableConfig.replicas.size()
+          || tableConfig.replicas.get(pidx).primarySession == null) {
+        continue;
+      }
+      ParkedCall parked;
+      while ((parked = entry.getValue().poll()) != null) {
+        if (!parked.taken.compareAndSet(false, true)) {
+          continue;
+        }
+        parked.expireTask.cancel(false);
+        final ParkedCall released = parked;
+        executorOf(entry.getKey())
+            .execute(
+                new Runnable() {
+                  @Override
+                  public void run() {
+                    call(released.round, released.tryId);
+                  }
+                });
+      }
     }
   }
 
-  void backupCall(final ClientRequestRound round, final int tryId) {
+  // Keeps querying the partitions whose parked requests are still waiting for a primary.
+  private void requeryParkedPartitions() {
+    TableConfiguration tableConfig = tableConfig_.get();
+    for (Map.Entry<Integer, Queue<ParkedCall>> entry : parkedCalls_.entrySet()) {
+      int pidx = entry.getKey();
+      if (!entry.getValue().isEmpty()
+          && pidx < tableConfig.replicas.size()
+          && tableConfig.replicas.get(pidx).primarySession == null) {
+        pendingQueryPartitions_.add(pidx);
+      }
+    }
+  }
+
+  private void expireCall(ClientRequestRound round) {
+    // errno == ERR_UNKNOWN means the request has never attemptted to contact any replica servers
+    if (round.getOperator().rpc_error.errno == error_types.ERR_UNKNOWN) {
+      round.getOperator().rpc_error.errno = error_types.ERR_TIMEOUT;
+    }
+    round.thisRoundCompletion();
+  }
+
+  void backupCall(final ClientRequestRound round, final int tryId, final ReplicaSession sent) {
     final TableConfiguration tableConfig = tableConfig_.get();
     final ReplicaConfiguration handle =
         tableConfig.replicas.get(round.getOperator().get_gpid().get_pidx());
 
+    // the replicas other than the one the request is sent to
+    final List<ReplicaSession> candidates = new ArrayList<>(handle.secondarySessions.size());
+    if (handle.primarySession != null && handle.primarySession != sent) {
+      candidates.add(handle.primarySession);
+    }
+    for (ReplicaSession secondary : handle.secondarySessions) {
+      if (secondary != sent) {
+        candidates.add(secondary);
+      }
+    }
+    if (candidates.isEmpty()) {
+      return;
+    }
+
+    backupableCount_.incrementAndGet();
     round.backupRequestTask =
-        executor_.schedule(
-            new Runnable() {
-              @Override
-              public void run() {
-                // pick a secondary at random
-                ReplicaSession secondarySession =
-                    handle.secondarySessions.get(
-                        new Random().nextInt(handle.secondarySessions.size()));
-                secondarySession.asyncSend(
-                    round.getOperator(),
-                    new Runnable() {
-                      @Override
-                      public void run() {
-                        onRpcReply(
-                            round, tryId, tableConfig.updateVersion, secondarySession.name());
-                      }
-                    },
-                    round.timeoutMs,
-                    true);
-              }
-            },
-            backupRequestDelayMs,
-            TimeUnit.MILLISECONDS);
+        executorOf(round.getOperator().get_gpid().get_pidx())
+            .schedule(
+                new Runnable() {
+                  @Override
+                  public void run() {
+                    if (!tryAcquireBackupRequest()) {
+                      return;
+                    }
+                    // pick a replica at random
+                    ReplicaSession secondarySession =
+                        candidates
+                            .get(ThreadLocalRandom.current().nextInt(candidates.size()))
+                            .selectConnection();
+                    secondarySession.asyncSend(
+                        round.getOperator(),
+                        new Runnable() {
+                          @Override
+                          public void run() {
+                            onRpcReply(
+                                round,
+                                tryId,
+                                tableConfig.updateVersion,
+                                secondarySession.name(),
+                                true);
+                          }
+                        },
+                        round.timeoutMs,
+                        true);
+                  }
+                },
+                backupRequestDelayUs,
+                TimeUnit.MICROSECONDS);
+  }
+
+  // bounds the backup requests of current window by backupRequestMaxPercent of the reads. A backup
+  // request is reserved before the check and given back if it's beyond the bound, so that the
+  // concurrent callers never overshoot it.
+  boolean tryAcquireBackupRequest() {
+    long count = backupRequestCount_.incrementAndGet();
+    if (backupRequestMaxPercent < 100
+        && count * 100 > backupableCount_.get() * backupRequestMaxPercent) {
+      backupRequestCount_.decrementAndGet();
+      return false;
+    }
+    if (manager_.counterEnabled()) {
+      MetricsManager.updateCount("pegasus.client.backup_request.qps@" + tableName_, 1L);
+    }
+    return true;
+  }
+
+  // runs in executor_ every BACKUP_REQUEST_WINDOW_MS
+  void rotateBackupRequestWindow() {
+    backupableCount_.set(0);
+    backupRequestCount_.set(0);
+    if (latencyWindow_ == null) {
+      return;
+    }
+    long percentileUs = latencyWindow_.rotate();
+    if (percentileUs < 0) {
+      // keep the current delay until enough samples are collected
+      return;
+    }
+    // the delay less than 1ms makes nearly every read a backup one, which is never expected
+    backupRequestDelayUs = Math.max(percentileUs, TimeUnit.MILLISECONDS.toMicros(1));
+    if (manager_.counterEnabled()) {
+      MetricsManager.setHistogramValue(
+          "pegasus.client.backup_request.delay@" + tableName_,
+          TimeUnit.MICROSECONDS.toNanos(backupRequestDelayUs));
+    }
   }
 
   @Override
@@ -430,14 +970,8 @@ public class TableHandler extends Table {
 
   @Override
   public void operate(client_operator op, int timeoutMs) throws ReplicationException {
-    final FutureTask<Void> syncer =
-        new FutureTask<Void>(
-            new Callable<Void>() {
-              @Override
-              public Void call() throws Exception {
-                return null;
-              }
-            });
+    // parks the caller rather than blocking on a monitor, which pins a virtual thread
+    final Completion syncer = new Completion();
     ClientOPCallback cb =
         new ClientOPCallback() {
           @Override
@@ -449,15 +983,12 @@ public class TableHandler extends Table {
     asyncOperate(op, cb, timeoutMs);
 
     try {
-      syncer.get(timeoutMs, TimeUnit.MILLISECONDS);
+      if (!syncer.await(timeoutMs, TimeUnit.MILLISECONDS)) {
+        op.rpc_error.errno = error_types.ERR_TIMEOUT;
+      }
     } catch (InterruptedException e) {
       logger.info("got exception: " + e);
       throw new ReplicationException(e);
-    } catch (ExecutionException e) {
-      logger.info("got exception: " + e);
-      throw new ReplicationException(e);
-    } catch (TimeoutException e) {
-      op.rpc_error.errno = error_types.ERR_TIMEOUT;
     }
 
     if (op.rpc_error.errno != error_types.ERR_OK) {
@@ -467,7 +998,22 @@ public class TableHandler extends Table {
 
   @Override
   public EventExecutor getExecutor() {
-    return executor_;
+    return manager_.getCallbackExecutor().select(shards_);
+  }
+
+  @Override
+  public EventExecutor getExecutor(byte[] hashKey) {
+    return manager_.getCallbackExecutor().select(shards_, hashKey);
+  }
+
+  @Override
+  public boolean inEventLoop() {
+    return manager_.inClientThread();
+  }
+
+  // the retries, backup requests and parked requests of a partition are scheduled on its shard
+  EventExecutor executorOf(int pidx) {
+    return shards_[pidx % shards_.length];
   }
 
   @Override
@@ -483,11 +1029,12 @@ public class TableHandler extends Table {
 
     ClientRequestRound round =
         new ClientRequestRound(op, callback, manager_.counterEnabled(), (long) timeoutMs);
+    retryBudget_.onRequest();
     call(round, 1);
   }
 
-  private void handleMetaException(error_types err_type, ClusterManager mgr, String name)
-      throws ReplicationException {
+  private static ReplicationException newMetaException(
+      error_types err_type, ClusterManager mgr, String name) {
     String metaServer = Arrays.toString(mgr.getMetaList());
     String message = "";
     String header = "[metaServer=" + metaServer + ",tableName=" + name + "]";
@@ -505,7 +1052,7 @@ public class TableHandler extends Table {
       case ERR_SESSION_RESET:
         message = " Unable to connect to the meta servers!";
     }
-    throw new ReplicationException(err_type, header + message);
+    return new ReplicationException(err_type, header + message);
   }
 
   private boolean isBackupRequestEnabled() {
@@ -18,6 +18,9 @@ public class ThriftFrameDecoder extends ByteToMessageDecoder {
   private static final Logger logger = org.slf4j.LoggerFactory.getLogger(ThriftFrameDecoder.class);
 
   private ReplicaSession session;
+  // the decoder is bound to one channel, so the protocol is reused by all the frames.
+  private final TByteBufTransport transport = new TByteBufTransport(null);
+  private final TBinaryProtocol iprot = new TBinaryProtocol(transport);
 
   public ThriftFrameDecoder(ReplicaSession s) {
     session = s;
@@ -35,7 +38,7 @@ public class ThriftFrameDecoder extends ByteToMessageDecoder {
     }
 
     int nextReaderIndex = in.readerIndex() + frameSize;
-    TBinaryProtocol iprot = new TBinaryProtocol(new TByteBufTransport(in));
+    transport.setBuffer(in);
     com.xiaomi.infra.pegasus.base.error_code ec = new com.xiaomi.infra.pegasus.base.error_code();
 
     try {
@@ -50,9 +53,7 @@ public class ThriftFrameDecoder extends ByteToMessageDecoder {
       } else {
         ReplicaSession.RequestEntry e = session.getAndRemoveEntry(msgHeader.seqid);
         if (e != null) {
-          if (e.timeoutTask != null) {
-            e.timeoutTask.cancel(true);
-          }
+          session.cancelTimeout(e);
           e.op.rpc_error.errno = ec.errno;
           if (e.op.rpc_error.errno == error_code.error_types.ERR_OK) {
             try {
@@ -75,6 +76,7 @@ public class ThriftFrameDecoder extends ByteToMessageDecoder {
       logger.error("{}: got exception in thrift decode: ", ctx.channel().toString(), e);
       throw e;
     } finally {
+      transport.setBuffer(null);
       in.readerIndex(nextReaderIndex);
     }
   }
@@ -3,6 +3,7 @@
 // can be found in the LICENSE file in the root directory of this source tree.
 package com.xiaomi.infra.pegasus.rpc.async;
 
+import com.xiaomi.infra.pegasus.operator.client_operator;
 import com.xiaomi.infra.pegasus.rpc.ThriftHeader;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
@@ -14,13 +15,20 @@ import org.slf4j.Logger;
 public class ThriftFrameEncoder extends MessageToByteEncoder<ReplicaSession.RequestEntry> {
   private static final Logger logger = org.slf4j.LoggerFactory.getLogger(ThriftFrameEncoder.class);
 
+  // the encoder is bound to one channel and only called in its event loop, so the protocol can be
+  // reused by all the messages.
+  private final TByteBufTransport transport = new TByteBufTransport(null);
+  private final TBinaryProtocol protocol = new TBinaryProtocol(transport);
+
   public ThriftFrameEncoder() {}
 
   @Override
   protected ByteBuf allocateBuffer(
       ChannelHandlerContext ctx, ReplicaSession.RequestEntry entry, boolean preferDirect)
       throws Exception {
-    return preferDirect ? ctx.alloc().ioBuffer(256) : ctx.alloc().heapBuffer(256);
+    int size =
+        ThriftHeader.HEADER_LENGTH + client_operator.META_SIZE + entry.op.estimated_body_size();
+    return preferDirect ? ctx.alloc().ioBuffer(size) : ctx.alloc().heapBuffer(size);
   }
 
   @Override
@@ -30,20 +38,24 @@ public class ThriftFrameEncoder extends MessageToByteEncoder<ReplicaSession.Requ
 
     // write the Memory buffer
     out.writerIndex(initIndex + ThriftHeader.HEADER_LENGTH);
-    TBinaryProtocol protocol = new TBinaryProtocol(new TByteBufTransport(out));
-
-    // write meta
-    e.op.prepare_thrift_meta(protocol, (int) e.timeoutMs, e.isBackupRequest);
-    int meta_length = out.readableBytes() - ThriftHeader.HEADER_LENGTH;
+    transport.setBuffer(out);
+    try {
+      // write meta
+      e.op.prepare_thrift_meta(protocol, (int) e.timeoutMs, e.isBackupRequest);
+      int meta_length = out.readableBytes() - ThriftHeader.HEADER_LENGTH;
 
-    // write body
-    e.op.send_data(protocol, e.sequenceId);
+      // write body
+      e.op.send_data(protocol, e.sequenceId);
 
-    // write header
-    out.setBytes(
-        initIndex,
-        e.op.prepare_thrift_header(
-            meta_length, out.readableBytes() - ThriftHeader.HEADER_LENGTH - meta_length));
+      // write header
+      e.op.prepare_thrift_header(
+          out,
+          initIndex,
+          meta_length,
+          out.readableBytes() - ThriftHeader.HEADER_LENGTH - meta_length);
+    } finally {
+      transport.setBuffer(null);
+    }
   }
 
   @Override
@@ -0,0 +1,180 @@
+// Copyright (c) 2017, Xiaomi, Inc.  All rights reserved.
+// This source code is licensed under the Apache License Version 2.0, which
+// can be found in the LICENSE file in the root directory of this source tree.
+package com.xiaomi.infra.pegasus.rpc.async;
+
+import com.xiaomi.infra.pegasus.base.error_code.error_types;
+import io.netty.util.concurrent.EventExecutor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+
+/**
+ * TimeoutWheel is a hashed timing wheel which tracks the deadlines of the in-flight requests.
+ *
+ * <p>The request entries are linked into the bucket of their deadline tick directly, so adding and
+ * cancelling a timeout are O(1) and allocate nothing. A ticker task sweeps the buckets every {@code
+ * tickMs} milliseconds and notifies the expired requests with ERR_TIMEOUT, thus a request times out
+ * at most one tick later than its deadline.
+ *
+ * <p>Each bucket is guarded by its own lock, so the callers on different buckets won't contend.
+ */
+final class TimeoutWheel {
+  static final int DEFAULT_TICK_MS = 10;
+  static final int DEFAULT_TICKS_PER_WHEEL = 512;
+
+  static final class Bucket {
+    // the doubly linked list of entries, guarded by the bucket itself
+    private ReplicaSession.RequestEntry head = null;
+  }
+
+  private final long tickNanos;
+  private final Bucket[] buckets;
+  private final int mask;
+  private final long startNanos;
+
+  // all the ticks before or equal to it are being swept or have been swept.
+  private volatile long sweptTick = 0;
+  private ScheduledFuture<?> ticker = null;
+
+  TimeoutWheel(int tickMs, int ticksPerWheel) {
+    assert tickMs > 0;
+    assert ticksPerWheel > 0 && (ticksPerWheel & (ticksPerWheel - 1)) == 0;
+    this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMs);
+    this.buckets = new Bucket[ticksPerWheel];
+    for (int i = 0; i < ticksPerWheel; i++) {
+      buckets[i] = new Bucket();
+    }
+    this.mask = ticksPerWheel - 1;
+    this.startNanos = System.nanoTime();
+  }
+
+  synchronized void start(EventExecutor executor) {
+    if (ticker == null) {
+      ticker =
+          executor.scheduleAtFixedRate(
+              new Runnable() {
+                @Override
+                public void run() {
+                  advance(System.nanoTime());
+                }
+              },
+              tickNanos,
+              tickNanos,
+              TimeUnit.NANOSECONDS);
+    }
+  }
+
+  synchronized boolean isStarted() {
+    return ticker != null;
+  }
+
+  synchronized void stop() {
+    if (ticker != null) {
+      ticker.cancel(false);
+      ticker = null;
+    }
+  }
+
+  /** Starts tracking the deadline of the entry, which must not be tracked already. */
+  void add(ReplicaSession.RequestEntry entry, long timeoutMs) {
+    long deadline = System.nanoTime() - startNanos + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    // round up to make sure the entry never expires before the deadline
+    long tick = (deadline + tickNanos - 1) / tickNanos;
+    while (true) {
+      long swept = sweptTick;
+      if (tick <= swept) {
+        tick = swept + 1;
+      }
+      Bucket bucket = buckets[(int) (tick & mask)];
+      synchronized (bucket) {
+        // the ticker marks the tick as swept before locking its bucket, so the entry is guaranteed
+        // to be visited if the tick is still unswept here.
+        if (tick > sweptTick) {
+          entry.deadlineTick = tick;
+          entry.timeoutPrev = null;
+          entry.timeoutNext = bucket.head;
+          if (bucket.head != null) {
+            bucket.head.timeoutPrev = entry;
+          }
+          bucket.head = entry;
+          entry.timeoutBucket = bucket;
+          return;
+        }
+      }
+    }
+  }
+
+  /** Stops tracking the entry. It's safe to cancel an entry which is expired or not tracked. */
+  void cancel(ReplicaSession.RequestEntry entry) {
+    Bucket bucket = entry.timeoutBucket;
+    if (bucket == null) {
+      return;
+    }
+    synchronized (bucket) {
+      if (entry.timeoutBucket == bucket) {
+        unlink(bucket, entry);
+      }
+    }
+  }
+
+  /** Expires all the entries whose deadlines are before {@code nowNanos}. */
+  void advance(long nowNanos) {
+    long nowTick = (nowNanos - startNanos) / tickNanos;
+    // if the ticker has fallen behind more than a round, every bucket is swept only once.
+    long tick = Math.max(sweptTick + 1, nowTick - mask);
+    for (; tick <= nowTick; tick++) {
+      sweptTick = tick;
+      expire(sweepBucket(buckets[(int) (tick & mask)], tick));
+    }
+  }
+
+  // Unlinks the expired entries from the bucket and chains them with timeoutNext.
+  private ReplicaSession.RequestEntry sweepBucket(Bucket bucket, long tick) {
+    ReplicaSession.RequestEntry expired = null;
+    synchronized (bucket) {
+      ReplicaSession.RequestEntry e = bucket.head;
+      while (e != null) {
+        ReplicaSession.RequestEntry next = e.timeoutNext;
+        if (e.deadlineTick <= tick) {
+          unlink(bucket, e);
+          e.timeoutNext = expired;
+          expired = e;
+        }
+        e = next;
+      }
+    }
+    return expired;
+  }
+
+  private static void expire(ReplicaSession.RequestEntry e) {
+    while (e != null) {
+      ReplicaSession.RequestEntry next = e.timeoutNext;
+      e.timeoutNext = null;
+      if (e.session != null) {
+        try {
+          e.session.tryNotifyFailureWithSeqID(e.sequenceId, error_types.ERR_TIMEOUT, true);
+        } catch (Exception ex) {
+          logger.warn("try notify with sequenceID {} exception!", e.sequenceId, ex);
+        }
+      }
+      e = next;
+    }
+  }
+
+  private static void unlink(Bucket bucket, ReplicaSession.RequestEntry e) {
+    if (e.timeoutPrev != null) {
+      e.timeoutPrev.timeoutNext = e.timeoutNext;
+    } else {
+      bucket.head = e.timeoutNext;
+    }
+    if (e.timeoutNext != null) {
+      e.timeoutNext.timeoutPrev = e.timeoutPrev;
+    }
+    e.timeoutPrev = null;
+    e.timeoutNext = null;
+    e.timeoutBucket = null;
+  }
+
+  private static final Logger logger = org.slf4j.LoggerFactory.getLogger(TimeoutWheel.class);
+}
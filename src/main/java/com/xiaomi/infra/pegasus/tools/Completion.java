@@ -0,0 +1,126 @@
+// Copyright (c) 2017, Xiaomi, Inc.  All rights reserved.
+// This source code is licensed under the Apache License Version 2.0, which
+// can be found in the LICENSE file in the root directory of this source tree.
+package com.xiaomi.infra.pegasus.tools;
+
+import io.netty.util.concurrent.BlockingOperationException;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GenericFutureListener;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Completion lets a synchronous caller wait for an asynchronous operation by parking its thread,
+ * which is unparked once the operation completes. It never waits on a monitor, so a virtual thread
+ * waiting for it doesn't pin its carrier thread.
+ *
+ * <p>A Completion must be created by the thread which waits for it, and waited at most once.
+ */
+public final class Completion implements Runnable, GenericFutureListener<Future<Object>> {
+  private final Thread waiter = Thread.currentThread();
+  private volatile boolean done = false;
+
+  /** Completes the operation and unparks the waiter. */
+  @Override
+  public void run() {
+    done = true;
+    LockSupport.unpark(waiter);
+  }
+
+  @Override
+  public void operationComplete(Future<Object> future) {
+    run();
+  }
+
+  public boolean isDone() {
+    return done;
+  }
+
+  /**
+   * Fails like {@link io.netty.util.concurrent.DefaultPromise#await} does when the caller may be
+   * the thread to complete the operation, e.g. an event loop of the client, where parking would
+   * stall the operation until the timeout.
+   *
+   * @param inEventLoop whether the caller is such a thread.
+   * @throws BlockingOperationException if {@code inEventLoop} is true.
+   */
+  public static void checkDeadLock(boolean inEventLoop) {
+    if (inEventLoop) {
+      throw new BlockingOperationException(Thread.currentThread().getName());
+    }
+  }
+
+  /** @return false if the operation isn't completed in the timeout. */
+  public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    while (!done) {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        return false;
+      }
+      LockSupport.parkNanos(this, remaining);
+    }
+    return true;
+  }
+
+  /**
+   * Waits for the future like {@link Future#await(long, TimeUnit)}, but by parking the caller. The
+   * listeners of the future had better be notified by the completing thread, otherwise the wake-up
+   * takes a hop through the executor of the future.
+   *
+   * @return false if the future isn't completed in the timeout.
+   */
+  public static boolean await(Future<?> future, long timeout, TimeUnit unit)
+      throws InterruptedException {
+    if (future.isDone()) {
+      return true;
+    }
+    Completion completion = new Completion();
+    future.addListener(completion);
+    return completion.await(timeout, unit);
+  }
+
+  /** Waits without a timeout, the interruption is kept until the operation completes. */
+  public void awaitUninterruptibly() {
+    boolean interrupted = false;
+    while (!done) {
+      LockSupport.park(this);
+      if (Thread.interrupted()) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      waiter.interrupt();
+    }
+  }
+
+  /** Waits for the future like {@link Future#awaitUninterruptibly()}, but by parking the caller. */
+  public static void awaitUninterruptibly(Future<?> future) {
+    if (!future.isDone()) {
+      Completion completion = new Completion();
+      future.addListener(completion);
+      completion.awaitUninterruptibly();
+    }
+  }
+
+  /** Waits for the future like {@link java.util.concurrent.Future#get(long, TimeUnit)}. */
+  public static <T> T get(Future<T> future, long timeout, TimeUnit unit)
+      throws InterruptedException, ExecutionException, TimeoutException {
+    if (!await(future, timeout, unit)) {
+      throw new TimeoutException();
+    }
+    if (future.isSuccess()) {
+      return future.getNow();
+    }
+    if (future.isCancelled()) {
+      throw new CancellationException();
+    }
+    throw new ExecutionException(future.cause());
+  }
+}
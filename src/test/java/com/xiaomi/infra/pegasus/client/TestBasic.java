@@ -6,9 +6,14 @@ package com.xiaomi.infra.pegasus.client;
 /** @author qinzuoyan */
 import io.netty.util.concurrent.Future;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.junit.Assert;
@@ -2630,4 +2635,96 @@ public class TestBasic {
           e.getMessage().contains("Exceed the multi value length threshold = 1048576"));
     }
   }
+
+  @Test
+  public void asyncOpenTable() throws Exception {
+    PegasusClientInterface client = PegasusClientFactory.getSingletonClient();
+    List<PegasusTableInterface> tables = client.openTables(Arrays.asList("temp", "temp"));
+    Assert.assertEquals(2, tables.size());
+    Assert.assertSame(tables.get(0), tables.get(1));
+    Assert.assertSame(tables.get(0), client.openTable("temp"));
+
+    Future<PegasusTableInterface> f = client.asyncOpenTable("table_not_exist");
+    f.awaitUninterruptibly();
+    Assert.assertFalse(f.isSuccess());
+    Assert.assertTrue(f.cause() instanceof PException);
+    Assert.assertTrue(f.cause().getMessage().contains("ERR_OBJECT_NOT_FOUND"));
+
+    // the failed open is not cached
+    Assert.assertNotSame(f, client.asyncOpenTable("table_not_exist"));
+  }
+
+  @Test
+  public void openTableInListener() throws Exception {
+    // the listeners are notified on the table executors by default
+    PegasusClientInterface client = PegasusClientFactory.createClient(ClientOptions.create());
+    PegasusTableInterface temp = client.openTable("temp");
+    List<Object> opened = Collections.synchronizedList(new ArrayList<>());
+    CountDownLatch done = new CountDownLatch(1);
+    temp.asyncGet("openTableInListener".getBytes(), "sort_key".getBytes(), 0)
+        .addListener(
+            f -> {
+              try {
+                opened.add(client.openTable("table_not_exist"));
+              } catch (Throwable e) {
+                opened.add(e);
+              }
+              done.countDown();
+            });
+    Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+    Assert.assertTrue(opened.get(0) instanceof PException);
+    Assert.assertTrue(((PException) opened.get(0)).getMessage().contains("ERR_OBJECT_NOT_FOUND"));
+    client.close();
+
+    // the first open of a table in the listener
+    PegasusClientInterface another = PegasusClientFactory.createClient(ClientOptions.create());
+    List<Object> tables = Collections.synchronizedList(new ArrayList<>());
+    CountDownLatch anotherDone = new CountDownLatch(1);
+    another
+        .asyncOpenTable("table_not_exist")
+        .addListener(
+            f -> {
+              try {
+                tables.add(another.openTable("temp"));
+                tables.addAll(another.openTables(Arrays.asList("temp", "temp")));
+              } catch (Throwable e) {
+                tables.add(e);
+              }
+              anotherDone.countDown();
+            });
+    Assert.assertTrue(anotherDone.await(10, TimeUnit.SECONDS));
+    Assert.assertEquals(3, tables.size());
+    Assert.assertSame(another.openTable("temp"), tables.get(0));
+    Assert.assertSame(tables.get(0), tables.get(1));
+    Assert.assertSame(tables.get(0), tables.get(2));
+    another.close();
+  }
+
+  @Test
+  public void completableTable() throws Exception {
+    PegasusClientInterface client = PegasusClientFactory.getSingletonClient();
+    PegasusCompletableTableInterface table = client.openTable("temp").asCompletable();
+    byte[] hashKey = "completableTable".getBytes();
+    byte[] sortKey = "sort_key".getBytes();
+    byte[] value = "value".getBytes();
+
+    byte[] got =
+        table
+            .asyncSet(hashKey, sortKey, value, 0)
+            .thenCompose(v -> table.asyncGet(hashKey, sortKey, 0))
+            .get();
+    Assert.assertArrayEquals(value, got);
+    Assert.assertTrue(table.asyncExist(hashKey, sortKey, 0).get());
+
+    table.asyncDel(hashKey, sortKey, 0).get();
+    Assert.assertNull(table.asyncGet(hashKey, sortKey, 0).get());
+
+    // the failure is propagated as the cause
+    try {
+      table.asyncSortKeyCount(null, 0).get();
+      Assert.fail();
+    } catch (ExecutionException e) {
+      Assert.assertTrue(e.getCause() instanceof PException);
+    }
+  }
 }
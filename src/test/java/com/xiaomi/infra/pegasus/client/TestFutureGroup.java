@@ -5,7 +5,9 @@ package com.xiaomi.infra.pegasus.client;
 
 import io.netty.util.concurrent.Promise;
 import io.netty.util.concurrent.SingleThreadEventExecutor;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.junit.Assert;
 import org.junit.Rule;
@@ -86,4 +88,27 @@ public class TestFutureGroup {
     }
     Assert.fail();
   }
+
+  @Test
+  public void testWhenAllComplete() throws Exception {
+    TestEventExecutor executor = new TestEventExecutor();
+    Promise<Void> succeeded = executor.newPromise();
+    Promise<Void> failed = executor.newPromise();
+
+    FutureGroup<Void> group = new FutureGroup<>(2);
+    group.add(succeeded);
+    group.add(failed);
+    CountDownLatch completed = new CountDownLatch(1);
+    group.whenAllComplete(completed::countDown);
+
+    succeeded.setSuccess(null);
+    Assert.assertFalse(completed.await(100, TimeUnit.MILLISECONDS));
+    failed.setFailure(new Exception("failed"));
+    Assert.assertTrue(completed.await(1, TimeUnit.SECONDS));
+
+    // no task to wait for
+    AtomicBoolean executed = new AtomicBoolean(false);
+    new FutureGroup<Void>(0).whenAllComplete(() -> executed.set(true));
+    Assert.assertTrue(executed.get());
+  }
 }
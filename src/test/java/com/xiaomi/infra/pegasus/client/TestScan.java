@@ -242,6 +242,79 @@ public class TestScan {
     compare(data, base);
   }
 
+  @Test
+  public void testNextBatch() throws PException {
+    System.out.println("TEST nextBatch...");
+
+    ScanOptions options = new ScanOptions();
+    TreeMap<String, TreeMap<String, String>> data = new TreeMap<String, TreeMap<String, String>>();
+    List<PegasusScannerInterface> scanners = client.getUnorderedScanners(tableName, 3, options);
+    Assert.assertTrue(scanners.size() <= 3);
+
+    for (PegasusScannerInterface scanner : scanners) {
+      // mixed with next, which takes the first record of the batch
+      Pair<Pair<byte[], byte[]>, byte[]> first = scanner.next();
+      if (first != null) {
+        checkAndPut(
+            data,
+            new String(first.getLeft().getLeft()),
+            new String(first.getLeft().getRight()),
+            new String(first.getRight()));
+      }
+      ScanBatch batch;
+      while ((batch = scanner.nextBatch()) != null) {
+        Assert.assertTrue(batch.size() > 0);
+        for (int i = 0; i < batch.size(); i++) {
+          checkAndPut(
+              data,
+              new String(batch.getHashKey(i)),
+              new String(batch.getSortKey(i)),
+              new String(batch.getValue(i)));
+          Assert.assertArrayEquals(batch.getSortKey(i), batch.get(i).getLeft().getRight());
+        }
+      }
+      scanner.close();
+    }
+    compare(data, base);
+  }
+
+  @Test
+  public void testPrefetch() throws PException {
+    System.out.println("TEST prefetch...");
+
+    for (long maxBytes : new long[] {16 * 1024 * 1024, 1}) {
+      ScanOptions options = new ScanOptions();
+      options.batchSize = 50;
+      options.prefetchBatches = 2;
+      options.prefetchMaxBytes = maxBytes;
+      TreeMap<String, TreeMap<String, String>> data =
+          new TreeMap<String, TreeMap<String, String>>();
+      List<PegasusScannerInterface> scanners = client.getUnorderedScanners(tableName, 3, options);
+      for (PegasusScannerInterface scanner : scanners) {
+        Pair<Pair<byte[], byte[]>, byte[]> item;
+        while ((item = scanner.next()) != null) {
+          checkAndPut(
+              data,
+              new String(item.getLeft().getLeft()),
+              new String(item.getLeft().getRight()),
+              new String(item.getRight()));
+        }
+        scanner.close();
+      }
+      compare(data, base);
+    }
+
+    // closed while prefetching
+    ScanOptions options = new ScanOptions();
+    options.batchSize = 10;
+    options.prefetchBatches = 4;
+    PegasusScannerInterface scanner =
+        client.getScanner(
+            tableName, expectedHashKey.getBytes(), new byte[] {}, new byte[] {}, options);
+    Assert.assertNotNull(scanner.next());
+    scanner.close();
+  }
+
   @Test
   public void testAsyncScan() throws PException {
     System.out.println("TEST asyncNext...");
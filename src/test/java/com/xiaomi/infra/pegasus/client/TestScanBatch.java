@@ -0,0 +1,93 @@
+// Copyright (c) 2017, Xiaomi, Inc.  All rights reserved.
+// This source code is licensed under the Apache License Version 2.0, which
+// can be found in the LICENSE file in the root directory of this source tree.
+package com.xiaomi.infra.pegasus.client;
+
+import com.xiaomi.infra.pegasus.apps.key_value;
+import com.xiaomi.infra.pegasus.base.blob;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestScanBatch {
+  @Test
+  public void testSplitKeys() throws Exception {
+    List<key_value> kvs = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      kvs.add(
+          new key_value(
+              new blob(PegasusClient.generateKey(("h" + i).getBytes(), ("s" + i).getBytes())),
+              new blob(("v" + i).getBytes())));
+    }
+    // the rest of the batch after the first record
+    ScanBatch batch = new ScanBatch(kvs, 1, kvs.size());
+    Assert.assertEquals(3, batch.size());
+    for (int i = 0; i < batch.size(); i++) {
+      Assert.assertArrayEquals(("h" + (i + 1)).getBytes(), batch.getHashKey(i));
+      Assert.assertArrayEquals(("s" + (i + 1)).getBytes(), batch.getSortKey(i));
+      Assert.assertArrayEquals(("v" + (i + 1)).getBytes(), batch.getValue(i));
+      Assert.assertArrayEquals(batch.getHashKey(i), batch.get(i).getLeft().getLeft());
+      Assert.assertArrayEquals(batch.getSortKey(i), batch.get(i).getLeft().getRight());
+    }
+
+    try {
+      batch.getValue(3);
+      Assert.fail();
+    } catch (IndexOutOfBoundsException e) {
+      // expected
+    }
+  }
+
+  // a scanner of the records "<i>", which only implements the record interfaces
+  private static class RecordScanner implements PegasusScannerInterface {
+    private final int count;
+    private int next = 0;
+
+    RecordScanner(int count) {
+      this.count = count;
+    }
+
+    @Override
+    public Pair<Pair<byte[], byte[]>, byte[]> next() throws PException {
+      if (next >= count) {
+        return null;
+      }
+      byte[] key = String.valueOf(next++).getBytes();
+      return new ImmutablePair<>(new ImmutablePair<>(key, key), key);
+    }
+
+    @Override
+    public Future<Pair<Pair<byte[], byte[]>, byte[]>> asyncNext() {
+      try {
+        return ImmediateEventExecutor.INSTANCE.newSucceededFuture(next());
+      } catch (PException e) {
+        return ImmediateEventExecutor.INSTANCE.newFailedFuture(e);
+      }
+    }
+
+    @Override
+    public void close() {}
+  }
+
+  @Test
+  public void testDefaultBatch() throws Exception {
+    PegasusScannerInterface scanner = new RecordScanner(2);
+    ScanBatch batch = scanner.nextBatch();
+    Assert.assertEquals(1, batch.size());
+    Assert.assertArrayEquals("0".getBytes(), batch.getHashKey(0));
+    Assert.assertArrayEquals("0".getBytes(), batch.getSortKey(0));
+    Assert.assertArrayEquals("0".getBytes(), batch.getValue(0));
+
+    batch = scanner.asyncNextBatch().get();
+    Assert.assertEquals(1, batch.size());
+    Assert.assertArrayEquals("1".getBytes(), batch.getHashKey(0));
+
+    Assert.assertNull(scanner.asyncNextBatch().get());
+    Assert.assertNull(scanner.nextBatch());
+  }
+}
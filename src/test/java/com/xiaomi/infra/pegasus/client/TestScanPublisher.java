@@ -0,0 +1,214 @@
+// Copyright (c) 2017, Xiaomi, Inc.  All rights reserved.
+// This source code is licensed under the Apache License Version 2.0, which
+// can be found in the LICENSE file in the root directory of this source tree.
+package com.xiaomi.infra.pegasus.client;
+
+import io.netty.util.concurrent.DefaultPromise;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestScanPublisher {
+  private ExecutorService completer;
+  private AtomicInteger inflight;
+  private AtomicInteger maxInflight;
+
+  @Before
+  public void before() throws Exception {
+    completer = Executors.newFixedThreadPool(4);
+    inflight = new AtomicInteger(0);
+    maxInflight = new AtomicInteger(0);
+  }
+
+  @After
+  public void after() throws Exception {
+    completer.shutdownNow();
+  }
+
+  // a scanner of the records "<id>:<i>", whose fetches are completed by another thread
+  private class FakeScanner implements PegasusScannerInterface {
+    private final String id;
+    private final int count;
+    private int next = 0;
+    private volatile boolean closed = false;
+
+    FakeScanner(String id, int count) {
+      this.id = id;
+      this.count = count;
+    }
+
+    @Override
+    public Pair<Pair<byte[], byte[]>, byte[]> next() throws PException {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Future<Pair<Pair<byte[], byte[]>, byte[]>> asyncNext() {
+      DefaultPromise<Pair<Pair<byte[], byte[]>, byte[]>> promise =
+          new DefaultPromise<>(GlobalEventExecutor.INSTANCE);
+      maxInflight.accumulateAndGet(inflight.incrementAndGet(), Math::max);
+      int i = next < count ? next++ : -1;
+      completer.execute(
+          () -> {
+            inflight.decrementAndGet();
+            if (i < 0) {
+              promise.setSuccess(null);
+            } else {
+              byte[] key = (id + ":" + i).getBytes();
+              promise.setSuccess(
+                  new ImmutablePair<>(new ImmutablePair<>(key, key), "value".getBytes()));
+            }
+          });
+      return promise;
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+
+  private static class CollectingSubscriber
+      implements PegasusScanPublisher.Subscriber<Pair<Pair<byte[], byte[]>, byte[]>> {
+    final List<String> keys = new ArrayList<>();
+    final CountDownLatch done = new CountDownLatch(1);
+    final AtomicReference<Throwable> error = new AtomicReference<>();
+    volatile PegasusScanPublisher.Subscription subscription;
+
+    @Override
+    public void onSubscribe(PegasusScanPublisher.Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(Pair<Pair<byte[], byte[]>, byte[]> item) {
+      synchronized (keys) {
+        keys.add(new String(item.getLeft().getLeft()));
+      }
+    }
+
+    @Override
+    public void onError(Throwable cause) {
+      error.set(cause);
+      done.countDown();
+    }
+
+    @Override
+    public void onComplete() {
+      done.countDown();
+    }
+
+    int size() {
+      synchronized (keys) {
+        return keys.size();
+      }
+    }
+  }
+
+  @Test
+  public void testDemand() throws Exception {
+    FakeScanner scanner = new FakeScanner("a", 10);
+    CollectingSubscriber subscriber = new CollectingSubscriber();
+    new PegasusScanPublisher(scanner).subscribe(subscriber);
+    Thread.sleep(50);
+    // nothing is fetched without demand
+    Assert.assertEquals(0, scanner.next);
+
+    subscriber.subscription.request(3);
+    while (subscriber.size() < 3) {
+      Thread.sleep(1);
+    }
+    Thread.sleep(50);
+    Assert.assertEquals(3, subscriber.size());
+    Assert.assertEquals(3, scanner.next);
+
+    subscriber.subscription.request(Long.MAX_VALUE);
+    Assert.assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+    Assert.assertNull(subscriber.error.get());
+    for (int i = 0; i < 10; i++) {
+      Assert.assertEquals("a:" + i, subscriber.keys.get(i));
+    }
+    Assert.assertTrue(scanner.closed);
+  }
+
+  @Test
+  public void testConcurrentScanners() throws Exception {
+    List<PegasusScannerInterface> scanners = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      scanners.add(new FakeScanner("s" + i, 100));
+    }
+    CollectingSubscriber subscriber = new CollectingSubscriber();
+    new PegasusScanPublisher(scanners, 3).subscribe(subscriber);
+    subscriber.subscription.request(Long.MAX_VALUE);
+    Assert.assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+    Assert.assertNull(subscriber.error.get());
+    Assert.assertEquals(800, subscriber.size());
+    Assert.assertTrue(maxInflight.get() <= 3);
+
+    // the records of a scanner are in order
+    for (int i = 0; i < 8; i++) {
+      int expected = 0;
+      for (String key : subscriber.keys) {
+        if (key.startsWith("s" + i + ":")) {
+          Assert.assertEquals("s" + i + ":" + expected++, key);
+        }
+      }
+      Assert.assertEquals(100, expected);
+      Assert.assertTrue(((FakeScanner) scanners.get(i)).closed);
+    }
+  }
+
+  @Test
+  public void testCancel() throws Exception {
+    List<PegasusScannerInterface> scanners = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      scanners.add(new FakeScanner("s" + i, 100));
+    }
+    CollectingSubscriber subscriber = new CollectingSubscriber();
+    new PegasusScanPublisher(scanners, 2).subscribe(subscriber);
+    subscriber.subscription.request(5);
+    while (subscriber.size() < 5) {
+      Thread.sleep(1);
+    }
+    subscriber.subscription.cancel();
+    Thread.sleep(50);
+    for (PegasusScannerInterface scanner : scanners) {
+      Assert.assertTrue(((FakeScanner) scanner).closed);
+    }
+    Assert.assertEquals(1, subscriber.done.getCount());
+  }
+
+  @Test
+  public void testInvalidRequest() throws Exception {
+    CollectingSubscriber subscriber = new CollectingSubscriber();
+    PegasusScanPublisher publisher = new PegasusScanPublisher(new FakeScanner("a", 10));
+    publisher.subscribe(subscriber);
+    subscriber.subscription.request(0);
+    Assert.assertTrue(subscriber.done.await(1, TimeUnit.SECONDS));
+    Assert.assertTrue(subscriber.error.get() instanceof IllegalArgumentException);
+
+    // subscribed only once
+    CollectingSubscriber another = new CollectingSubscriber();
+    publisher.subscribe(another);
+    Assert.assertTrue(another.error.get() instanceof IllegalStateException);
+
+    // an empty publisher completes without demand
+    CollectingSubscriber empty = new CollectingSubscriber();
+    new PegasusScanPublisher(new ArrayList<>(), 1).subscribe(empty);
+    Assert.assertEquals(0, empty.done.getCount());
+    Assert.assertNull(empty.error.get());
+  }
+}
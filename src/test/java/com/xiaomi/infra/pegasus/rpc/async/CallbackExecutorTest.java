@@ -0,0 +1,152 @@
+// Copyright (c) 2017, Xiaomi, Inc.  All rights reserved.
+// This source code is licensed under the Apache License Version 2.0, which
+// can be found in the LICENSE file in the root directory of this source tree.
+package com.xiaomi.infra.pegasus.rpc.async;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.DefaultPromise;
+import io.netty.util.concurrent.EventExecutor;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CallbackExecutorTest {
+  private EventLoopGroup group;
+  private EventExecutor[] tableExecutors;
+  private ExecutorService userExecutor;
+
+  @Before
+  public void before() throws Exception {
+    group = ClusterManager.getEventLoopGroupInstance(2);
+    List<EventExecutor> executors = new ArrayList<>();
+    group.forEach(executors::add);
+    tableExecutors = executors.toArray(new EventExecutor[0]);
+    userExecutor = Executors.newFixedThreadPool(4);
+  }
+
+  @After
+  public void after() throws Exception {
+    userExecutor.shutdownNow();
+    group.shutdownGracefully();
+  }
+
+  @Test
+  public void testTable() throws Exception {
+    CallbackExecutor callback = new CallbackExecutor(CallbackExecutor.Mode.TABLE, userExecutor);
+    Set<EventExecutor> selected = new HashSet<>();
+    for (int i = 0; i < 4; i++) {
+      selected.add(callback.select(tableExecutors, "key".getBytes()));
+    }
+    // in turn regardless of the key
+    Assert.assertEquals(2, selected.size());
+  }
+
+  @Test
+  public void testDirect() throws Exception {
+    CallbackExecutor callback = new CallbackExecutor(CallbackExecutor.Mode.DIRECT, null);
+    DefaultPromise<Void> promise = new DefaultPromise<>(callback.select(tableExecutors));
+    AtomicReference<Thread> notified = new AtomicReference<>();
+    promise.addListener(f -> notified.set(Thread.currentThread()));
+
+    Thread completer = new Thread(() -> promise.setSuccess(null));
+    completer.start();
+    // waiting for a future of the direct mode isn't a deadlock
+    Assert.assertTrue(promise.await(1000));
+    completer.join();
+    Assert.assertSame(completer, notified.get());
+  }
+
+  @Test
+  public void testExecutor() throws Exception {
+    try {
+      new CallbackExecutor(CallbackExecutor.Mode.EXECUTOR, null);
+      Assert.fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+
+    ExecutorService named = Executors.newSingleThreadExecutor(r -> new Thread(r, "user-callback"));
+    CallbackExecutor callback = new CallbackExecutor(CallbackExecutor.Mode.EXECUTOR, named);
+    DefaultPromise<Void> promise = new DefaultPromise<>(callback.select(tableExecutors));
+    CountDownLatch latch = new CountDownLatch(1);
+    AtomicReference<String> threadName = new AtomicReference<>();
+    promise.addListener(
+        f -> {
+          threadName.set(Thread.currentThread().getName());
+          latch.countDown();
+        });
+    promise.setSuccess(null);
+    Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+    Assert.assertEquals("user-callback", threadName.get());
+    named.shutdownNow();
+  }
+
+  @Test
+  public void testOrdered() throws Exception {
+    CallbackExecutor callback = new CallbackExecutor(CallbackExecutor.Mode.ORDERED, userExecutor);
+    EventExecutor executor = callback.select(tableExecutors, "key".getBytes());
+    Assert.assertSame(executor, callback.select(tableExecutors, "key".getBytes()));
+
+    // the listeners of a key never run concurrently, and run in the completion order
+    int count = 1000;
+    CountDownLatch latch = new CountDownLatch(count);
+    AtomicInteger running = new AtomicInteger(0);
+    AtomicInteger next = new AtomicInteger(0);
+    AtomicInteger disorders = new AtomicInteger(0);
+    for (int i = 0; i < count; i++) {
+      final int seq = i;
+      DefaultPromise<Void> promise = new DefaultPromise<>(executor);
+      promise.addListener(
+          f -> {
+            if (running.incrementAndGet() != 1 || next.getAndIncrement() != seq) {
+              disorders.incrementAndGet();
+            }
+            running.decrementAndGet();
+            latch.countDown();
+          });
+      promise.setSuccess(null);
+    }
+    Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+    Assert.assertEquals(0, disorders.get());
+
+    // striped over the table executors without a user executor
+    callback = new CallbackExecutor(CallbackExecutor.Mode.ORDERED, null);
+    executor = callback.select(tableExecutors, "key".getBytes());
+    Assert.assertTrue(executor == tableExecutors[0] || executor == tableExecutors[1]);
+    Assert.assertSame(executor, callback.select(tableExecutors, "key".getBytes()));
+  }
+
+  @Test
+  public void testShutdownDelegating() throws Exception {
+    EventExecutor executor = new CallbackExecutor.DelegatingEventExecutor(userExecutor);
+    Assert.assertFalse(executor.isShutdown());
+    Assert.assertFalse(executor.terminationFuture().isDone());
+    Assert.assertFalse(executor.awaitTermination(10, TimeUnit.MILLISECONDS));
+
+    Assert.assertTrue(executor.shutdownGracefully().await(1, TimeUnit.SECONDS));
+    Assert.assertTrue(executor.terminationFuture().isSuccess());
+    Assert.assertTrue(executor.isShuttingDown());
+    Assert.assertTrue(executor.isTerminated());
+    Assert.assertTrue(executor.awaitTermination(10, TimeUnit.MILLISECONDS));
+    try {
+      executor.execute(() -> {});
+      Assert.fail();
+    } catch (RejectedExecutionException e) {
+      // expected
+    }
+    // the delegate is owned by the user
+    Assert.assertFalse(userExecutor.isShutdown());
+  }
+}
@@ -0,0 +1,207 @@
+// Copyright (c) 2017, Xiaomi, Inc.  All rights reserved.
+// This source code is licensed under the Apache License Version 2.0, which
+// can be found in the LICENSE file in the root directory of this source tree.
+package com.xiaomi.infra.pegasus.rpc.async;
+
+import com.xiaomi.infra.pegasus.apps.update_request;
+import com.xiaomi.infra.pegasus.base.blob;
+import com.xiaomi.infra.pegasus.base.error_code.error_types;
+import com.xiaomi.infra.pegasus.base.gpid;
+import com.xiaomi.infra.pegasus.base.rpc_address;
+import com.xiaomi.infra.pegasus.operator.client_operator;
+import com.xiaomi.infra.pegasus.operator.rrdb_put_operator;
+import com.xiaomi.infra.pegasus.rpc.ClusterOptions;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.ReferenceCountUtil;
+import java.net.InetSocketAddress;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CircuitBreakerTest {
+  @Test
+  public void testFailurePercent() throws Exception {
+    CircuitBreaker breaker = new CircuitBreaker(60000, 10, 50, 0, 60000);
+    for (int i = 0; i < 4; i++) {
+      breaker.onResponse(1000);
+      Assert.assertFalse(breaker.onFailure());
+    }
+    Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    breaker.onResponse(1000);
+    // 5 of 10 failed
+    Assert.assertTrue(breaker.onFailure());
+    Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    Assert.assertFalse(breaker.allowRequest());
+    // opened only once
+    Assert.assertFalse(breaker.onFailure());
+  }
+
+  @Test
+  public void testConsecutiveFailures() throws Exception {
+    CircuitBreaker breaker = new CircuitBreaker(60000, 3, 50, 0, 60000);
+    Assert.assertFalse(breaker.onFailure());
+    Assert.assertFalse(breaker.onFailure());
+    Assert.assertTrue(breaker.onFailure());
+    Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+  }
+
+  @Test
+  public void testSlowCall() throws Exception {
+    CircuitBreaker breaker = new CircuitBreaker(60000, 2, 60, 10, 60000);
+    Assert.assertFalse(breaker.onResponse(TimeUnit.MILLISECONDS.toNanos(1)));
+    Assert.assertFalse(breaker.onResponse(TimeUnit.MILLISECONDS.toNanos(20)));
+    Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    Assert.assertTrue(breaker.onResponse(TimeUnit.MILLISECONDS.toNanos(20)));
+    Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+  }
+
+  @Test
+  public void testHalfOpen() throws Exception {
+    CircuitBreaker breaker = new CircuitBreaker(60000, 1, 50, 0, 100);
+    Assert.assertTrue(breaker.onFailure());
+    Assert.assertFalse(breaker.allowRequest());
+    Thread.sleep(150);
+
+    // only one probe is let through
+    Assert.assertTrue(breaker.allowRequest());
+    Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    Assert.assertFalse(breaker.allowRequest());
+
+    // the probe fails
+    Assert.assertTrue(breaker.onFailure());
+    Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    Thread.sleep(150);
+
+    // the probe succeeds
+    Assert.assertTrue(breaker.allowRequest());
+    breaker.onResponse(1000);
+    Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    Assert.assertTrue(breaker.allowRequest());
+  }
+
+  @Test
+  public void testDisabled() throws Exception {
+    CircuitBreaker breaker = new CircuitBreaker(60000, 1, 0, 0, 60000);
+    for (int i = 0; i < 10; i++) {
+      Assert.assertFalse(breaker.onFailure());
+    }
+    Assert.assertTrue(breaker.allowRequest());
+  }
+
+  @Test
+  public void testSessionFailFast() throws Exception {
+    EventLoopGroup group = ClusterManager.getEventLoopGroupInstance(2);
+    // a server which never responds
+    Channel server = newSilentServer(group);
+    int port = ((InetSocketAddress) server.localAddress()).getPort();
+
+    Properties config = new Properties();
+    config.setProperty(ClusterOptions.PEGASUS_META_SERVERS_KEY, "127.0.0.1:34601");
+    config.setProperty(ClusterOptions.PEGASUS_CIRCUIT_BREAKER_FAILURE_PERCENT_KEY, "50");
+    config.setProperty(ClusterOptions.PEGASUS_CIRCUIT_BREAKER_MIN_REQUESTS_KEY, "2");
+    config.setProperty(ClusterOptions.PEGASUS_CIRCUIT_BREAKER_OPEN_MS_KEY, "60000");
+    ReplicaSession session =
+        new ReplicaSession(
+            rpc_address.fromIpPort("127.0.0.1:" + port),
+            group,
+            1000,
+            ClusterOptions.create(config),
+            null);
+    session.tryConnect().awaitUninterruptibly();
+
+    CountDownLatch latch = new CountDownLatch(2);
+    client_operator[] ops = new client_operator[2];
+    for (int i = 0; i < ops.length; i++) {
+      ops[i] = newOp();
+      session.asyncSend(ops[i], latch::countDown, 100, false);
+    }
+    Assert.assertTrue(latch.await(3, TimeUnit.SECONDS));
+    Assert.assertEquals(CircuitBreaker.State.OPEN, session.getCircuitState());
+    // the timeout which opens the circuit breaker resets the session
+    Assert.assertTrue(
+        ops[0].rpc_error.errno == error_types.ERR_SESSION_RESET
+            || ops[1].rpc_error.errno == error_types.ERR_SESSION_RESET);
+
+    // failed immediately without waiting for the timeout
+    CountDownLatch rejected = new CountDownLatch(1);
+    client_operator op = newOp();
+    session.asyncSend(op, rejected::countDown, 10000, false);
+    Assert.assertEquals(0, rejected.getCount());
+    Assert.assertEquals(error_types.ERR_SESSION_RESET, op.rpc_error.errno);
+
+    server.close().sync();
+    group.shutdownGracefully().sync();
+  }
+
+  @Test
+  public void testSlowCallResetsSession() throws Exception {
+    EventLoopGroup group = ClusterManager.getEventLoopGroupInstance(2);
+    Channel server = newSilentServer(group);
+    int port = ((InetSocketAddress) server.localAddress()).getPort();
+
+    Properties config = new Properties();
+    config.setProperty(ClusterOptions.PEGASUS_META_SERVERS_KEY, "127.0.0.1:34601");
+    config.setProperty(ClusterOptions.PEGASUS_CIRCUIT_BREAKER_FAILURE_PERCENT_KEY, "50");
+    config.setProperty(ClusterOptions.PEGASUS_CIRCUIT_BREAKER_MIN_REQUESTS_KEY, "1");
+    config.setProperty(ClusterOptions.PEGASUS_CIRCUIT_BREAKER_SLOW_CALL_MS_KEY, "10");
+    config.setProperty(ClusterOptions.PEGASUS_CIRCUIT_BREAKER_OPEN_MS_KEY, "60000");
+    ReplicaSession session =
+        new ReplicaSession(
+            rpc_address.fromIpPort("127.0.0.1:" + port),
+            group,
+            1000,
+            ClusterOptions.create(config),
+            null);
+    session.tryConnect().awaitUninterruptibly();
+
+    CountDownLatch pending = new CountDownLatch(1);
+    client_operator op = newOp();
+    session.asyncSend(op, pending::countDown, 10000, false);
+
+    // a response slower than the threshold opens the breaker, the same as a timeout
+    ReplicaSession.RequestEntry slow = new ReplicaSession.RequestEntry();
+    slow.sendNanos = System.nanoTime() - TimeUnit.SECONDS.toNanos(1);
+    CountDownLatch responded = new CountDownLatch(1);
+    slow.callback = responded::countDown;
+    session.new DefaultHandler().channelRead0(null, slow);
+    Assert.assertEquals(0, responded.getCount());
+    Assert.assertEquals(CircuitBreaker.State.OPEN, session.getCircuitState());
+
+    // the session is reset, so the pending request fails at once and the caller queries the meta
+    Assert.assertTrue(pending.await(3, TimeUnit.SECONDS));
+    Assert.assertEquals(error_types.ERR_SESSION_RESET, op.rpc_error.errno);
+
+    session.closeSession();
+    server.close().sync();
+    group.shutdownGracefully().sync();
+  }
+
+  private static Channel newSilentServer(EventLoopGroup group) throws Exception {
+    return new ServerBootstrap()
+        .group(group)
+        .channel(NioServerSocketChannel.class)
+        .childHandler(
+            new ChannelInboundHandlerAdapter() {
+              @Override
+              public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                ReferenceCountUtil.release(msg);
+              }
+            })
+        .bind("127.0.0.1", 0)
+        .sync()
+        .channel();
+  }
+
+  private static client_operator newOp() {
+    update_request request =
+        new update_request(new blob("key".getBytes()), new blob("value".getBytes()), 0);
+    return new rrdb_put_operator(new gpid(1, 1), "temp", request, 0);
+  }
+}
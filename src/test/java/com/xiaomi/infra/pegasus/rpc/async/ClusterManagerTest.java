@@ -8,6 +8,14 @@ import com.xiaomi.infra.pegasus.base.rpc_address;
 import com.xiaomi.infra.pegasus.rpc.ClusterOptions;
 import com.xiaomi.infra.pegasus.rpc.ReplicationException;
 import com.xiaomi.infra.pegasus.rpc.TableOptions;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -81,4 +89,97 @@ public class ClusterManagerTest {
     }
     testManager.close();
   }
+
+  @Test
+  public void testNativeEpoll() throws Exception {
+    Properties config = new Properties();
+    config.setProperty(ClusterOptions.PEGASUS_META_SERVERS_KEY, "127.0.0.1:34601");
+    config.setProperty(ClusterOptions.PEGASUS_ENABLE_PERF_COUNTER_KEY, "false");
+    config.setProperty(ClusterOptions.PEGASUS_ENABLE_NATIVE_EPOLL_KEY, "true");
+    config.setProperty(ClusterOptions.PEGASUS_EPOLL_TCP_QUICKACK_KEY, "true");
+    config.setProperty(ClusterOptions.PEGASUS_EPOLL_BUSY_POLL_MICROS_KEY, "50");
+    ClusterOptions opts = ClusterOptions.create(config);
+    Assert.assertTrue(opts.enableNativeEpoll());
+    Assert.assertTrue(opts.epollTcpQuickAck());
+    Assert.assertTrue(opts.epollEdgeTriggered());
+    Assert.assertEquals(50, opts.epollBusyPollMicros());
+
+    // the client must work no matter the native library is available or not.
+    ClusterManager testManager = new ClusterManager(opts);
+    ReplicaSession session = testManager.getReplicaSession(rpc_address.fromIpPort("127.0.0.1:1"));
+    Assert.assertNotNull(session);
+    Assert.assertEquals(ReplicaSession.ConnState.DISCONNECTED, session.getState());
+    testManager.close();
+  }
+
+  @Test
+  public void testTableWorkers() throws Exception {
+    Properties config = new Properties();
+    config.setProperty(ClusterOptions.PEGASUS_META_SERVERS_KEY, "127.0.0.1:34601");
+    config.setProperty(ClusterOptions.PEGASUS_ENABLE_PERF_COUNTER_KEY, "false");
+    config.setProperty(ClusterOptions.PEGASUS_TABLE_WORKERS_KEY, "4");
+    ClusterManager testManager = new ClusterManager(ClusterOptions.create(config));
+
+    EventExecutor first = testManager.getExecutor();
+    EventExecutor[] executors = testManager.getTableExecutors(first);
+    Assert.assertEquals(4, executors.length);
+    Assert.assertSame(first, executors[0]);
+    Assert.assertEquals(4, new HashSet<>(Arrays.asList(executors)).size());
+    Assert.assertFalse(testManager.inExecutor());
+    Assert.assertFalse(testManager.inClientThread());
+    for (EventExecutor executor : executors) {
+      Assert.assertTrue(executor.submit(testManager::inExecutor).get());
+      Assert.assertTrue(executor.submit(testManager::inClientThread).get());
+    }
+
+    // the I/O threads are client threads but not table executors
+    ReplicaSession session = testManager.getReplicaSession(rpc_address.fromIpPort("127.0.0.1:1"));
+    Promise<Boolean> inIoThread = ImmediateEventExecutor.INSTANCE.newPromise();
+    session
+        .tryConnect()
+        .addListener(
+            f -> inIoThread.setSuccess(testManager.inClientThread() && !testManager.inExecutor()));
+    Assert.assertTrue(inIoThread.get(3, TimeUnit.SECONDS));
+
+    // the tasks queued behind a blocked executor
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    first.execute(
+        () -> {
+          started.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        });
+    Assert.assertTrue(started.await(1, TimeUnit.SECONDS));
+    for (int i = 0; i < 3; i++) {
+      first.execute(() -> {});
+    }
+    Assert.assertEquals(3, testManager.getTableExecutorQueueDepth());
+    release.countDown();
+    testManager.close();
+  }
+
+  @Test
+  public void testRetryDelay() throws Exception {
+    Properties config = new Properties();
+    config.setProperty(ClusterOptions.PEGASUS_META_SERVERS_KEY, "127.0.0.1:34601");
+    config.setProperty(ClusterOptions.PEGASUS_ENABLE_PERF_COUNTER_KEY, "false");
+    config.setProperty(ClusterOptions.PEGASUS_RETRY_BACKOFF_BASE_MS_KEY, "20");
+    ClusterManager testManager = new ClusterManager(ClusterOptions.create(config));
+
+    for (int i = 0; i < 100; i++) {
+      // jittered between the half and the whole backoff
+      long first = testManager.getRetryDelay(1000, 1);
+      Assert.assertTrue(first >= 10 && first <= 20);
+      long third = testManager.getRetryDelay(1000, 3);
+      Assert.assertTrue(third >= 40 && third <= 80);
+      // bounded by a third of the timeout
+      long last = testManager.getRetryDelay(1000, 30);
+      Assert.assertTrue(last >= 166 && last <= 333);
+    }
+    testManager.close();
+  }
 }
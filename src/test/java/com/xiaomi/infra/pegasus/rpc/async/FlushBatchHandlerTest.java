@@ -0,0 +1,121 @@
+// Copyright (c) 2017, Xiaomi, Inc.  All rights reserved.
+// This source code is licensed under the Apache License Version 2.0, which
+// can be found in the LICENSE file in the root directory of this source tree.
+package com.xiaomi.infra.pegasus.rpc.async;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FlushBatchHandlerTest {
+  private EventLoopGroup group;
+  private Channel server;
+
+  @Before
+  public void before() throws Exception {
+    group = new DefaultEventLoopGroup(1);
+    server =
+        new ServerBootstrap()
+            .group(group)
+            .channel(LocalServerChannel.class)
+            .childHandler(
+                new ChannelInboundHandlerAdapter() {
+                  @Override
+                  public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                    ReferenceCountUtil.release(msg);
+                  }
+                })
+            .bind(new LocalAddress("FlushBatchHandlerTest"))
+            .sync()
+            .channel();
+  }
+
+  @After
+  public void after() throws Exception {
+    server.close().sync();
+    group.shutdownGracefully().sync();
+  }
+
+  private Channel connect(FlushBatchHandler handler) throws Exception {
+    return new Bootstrap()
+        .group(group)
+        .channel(LocalChannel.class)
+        .handler(handler)
+        .connect(server.localAddress())
+        .sync()
+        .channel();
+  }
+
+  // Issue the writes in one task to emulate the requests arrived in the same event-loop tick, and
+  // wait until the deferred flush is executed.
+  private static void writeInOneTick(Channel channel, int count, int size) throws Exception {
+    channel
+        .eventLoop()
+        .submit(
+            () -> {
+              for (int i = 0; i < count; i++) {
+                channel.writeAndFlush(Unpooled.wrappedBuffer(new byte[size]));
+              }
+            })
+        .sync();
+    channel.eventLoop().submit(() -> {}).sync();
+  }
+
+  @Test
+  public void testFlushOncePerTick() throws Exception {
+    FlushBatchHandler handler = new FlushBatchHandler(100, 1024 * 1024, 0, false);
+    Channel channel = connect(handler);
+
+    writeInOneTick(channel, 10, 16);
+    Assert.assertEquals(1, handler.getFlushCount());
+    Assert.assertEquals(10, handler.getFrameCount());
+
+    // a single request is flushed without waiting for others
+    writeInOneTick(channel, 1, 16);
+    Assert.assertEquals(2, handler.getFlushCount());
+    Assert.assertEquals(11, handler.getFrameCount());
+    channel.close().sync();
+  }
+
+  @Test
+  public void testFlushOnThreshold() throws Exception {
+    FlushBatchHandler handler = new FlushBatchHandler(4, 40, 0, false);
+    Channel channel = connect(handler);
+
+    // message count reaches the limit: 4 + 1
+    writeInOneTick(channel, 5, 1);
+    Assert.assertEquals(2, handler.getFlushCount());
+
+    // byte size reaches the limit: 2 + 2 + 1
+    writeInOneTick(channel, 5, 20);
+    Assert.assertEquals(5, handler.getFlushCount());
+    Assert.assertEquals(10, handler.getFrameCount());
+    channel.close().sync();
+  }
+
+  @Test
+  public void testFlushOnClose() throws Exception {
+    FlushBatchHandler handler = new FlushBatchHandler(100, 1024 * 1024, 1000 * 1000, false);
+    Channel channel = connect(handler);
+
+    // the delayed flush won't be triggered in 1 second
+    writeInOneTick(channel, 3, 8);
+    Assert.assertEquals(0, handler.getFlushCount());
+    channel.close().sync();
+    Assert.assertEquals(1, handler.getFlushCount());
+    Assert.assertEquals(3, handler.getFrameCount());
+  }
+}
@@ -0,0 +1,93 @@
+// Copyright (c) 2017, Xiaomi, Inc.  All rights reserved.
+// This source code is licensed under the Apache License Version 2.0, which
+// can be found in the LICENSE file in the root directory of this source tree.
+package com.xiaomi.infra.pegasus.rpc.async;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class InflightTableTest {
+  private static ReplicaSession.RequestEntry newEntry(int seqId) {
+    ReplicaSession.RequestEntry entry = new ReplicaSession.RequestEntry();
+    entry.sequenceId = seqId;
+    return entry;
+  }
+
+  @Test
+  public void testPutAndRemove() throws Exception {
+    InflightTable table = new InflightTable(8);
+    Assert.assertTrue(table.isEmpty());
+    Assert.assertNull(table.remove(1));
+
+    ReplicaSession.RequestEntry e1 = newEntry(1);
+    table.put(e1);
+    Assert.assertSame(e1, table.get(1));
+    // same slot, different generation
+    Assert.assertNull(table.get(9));
+    Assert.assertNull(table.remove(9));
+
+    Assert.assertSame(e1, table.remove(1));
+    Assert.assertNull(table.remove(1));
+    Assert.assertTrue(table.isEmpty());
+
+    // negative sequence ids after the counter wraps around
+    ReplicaSession.RequestEntry e2 = newEntry(Integer.MIN_VALUE);
+    table.put(e2);
+    Assert.assertSame(e2, table.remove(Integer.MIN_VALUE));
+  }
+
+  @Test
+  public void testOverflow() throws Exception {
+    InflightTable table = new InflightTable(4);
+    List<ReplicaSession.RequestEntry> entries = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      ReplicaSession.RequestEntry e = newEntry(i);
+      entries.add(e);
+      table.put(e);
+    }
+    Assert.assertEquals(10, table.size());
+    Assert.assertEquals(10, table.snapshot().size());
+    for (int i = 9; i >= 0; i--) {
+      Assert.assertSame(entries.get(i), table.get(i));
+      Assert.assertSame(entries.get(i), table.remove(i));
+    }
+    Assert.assertTrue(table.isEmpty());
+    Assert.assertTrue(table.snapshot().isEmpty());
+  }
+
+  @Test
+  public void testConcurrentRemove() throws Exception {
+    InflightTable table = new InflightTable(1024);
+    int count = 100000;
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    AtomicInteger removed = new AtomicInteger(0);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      table.put(newEntry(i));
+      final int seqId = i;
+      // both the response and the timeout try to remove the entry, only one of them succeeds
+      for (int j = 0; j < 2; j++) {
+        futures.add(
+            pool.submit(
+                () -> {
+                  if (table.remove(seqId) != null) {
+                    removed.incrementAndGet();
+                  }
+                }));
+      }
+    }
+    for (Future<?> f : futures) {
+      f.get(10, TimeUnit.SECONDS);
+    }
+    pool.shutdown();
+    Assert.assertEquals(count, removed.get());
+    Assert.assertTrue(table.isEmpty());
+  }
+}
@@ -0,0 +1,52 @@
+// Copyright (c) 2017, Xiaomi, Inc.  All rights reserved.
+// This source code is licensed under the Apache License Version 2.0, which
+// can be found in the LICENSE file in the root directory of this source tree.
+package com.xiaomi.infra.pegasus.rpc.async;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatencyWindowTest {
+  @Test
+  public void testBuckets() throws Exception {
+    for (long us = 0; us < 1000000; us += 7) {
+      int bucket = LatencyWindow.bucketOf(us);
+      Assert.assertTrue(us <= LatencyWindow.upperBoundOf(bucket));
+      if (bucket > 0) {
+        Assert.assertTrue(us > LatencyWindow.upperBoundOf(bucket - 1));
+      }
+      // at most 12.5% larger
+      Assert.assertTrue(LatencyWindow.upperBoundOf(bucket) <= us + us / 8 + 1);
+    }
+    Assert.assertEquals(LatencyWindow.BUCKET_COUNT - 1, LatencyWindow.bucketOf(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void testRotate() throws Exception {
+    LatencyWindow window = new LatencyWindow(95);
+    for (int i = 1; i < LatencyWindow.MIN_SAMPLES; ++i) {
+      window.record(TimeUnit.MILLISECONDS.toNanos(1));
+    }
+    // not enough samples, the window is kept
+    Assert.assertEquals(-1, window.rotate());
+    Assert.assertEquals(LatencyWindow.MIN_SAMPLES - 1, window.sampleCount());
+
+    // 900 fast reads and 100 slow reads
+    for (int i = LatencyWindow.MIN_SAMPLES - 1; i < 900; ++i) {
+      window.record(TimeUnit.MILLISECONDS.toNanos(1));
+    }
+    for (int i = 0; i < 100; ++i) {
+      window.record(TimeUnit.MILLISECONDS.toNanos(50));
+    }
+    long p95 = window.rotate();
+    Assert.assertTrue(p95 >= 50000 && p95 <= 50000 * 9 / 8);
+    Assert.assertEquals(0, window.sampleCount());
+
+    for (int i = 0; i < 1000; ++i) {
+      window.record(TimeUnit.MILLISECONDS.toNanos(1));
+    }
+    long p = window.rotate();
+    Assert.assertTrue(p >= 1000 && p <= 1000 * 9 / 8);
+  }
+}
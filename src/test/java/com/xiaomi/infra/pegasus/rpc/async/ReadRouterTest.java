@@ -0,0 +1,123 @@
+// Copyright (c) 2017, Xiaomi, Inc.  All rights reserved.
+// This source code is licensed under the Apache License Version 2.0, which
+// can be found in the LICENSE file in the root directory of this source tree.
+package com.xiaomi.infra.pegasus.rpc.async;
+
+import com.xiaomi.infra.pegasus.base.error_code;
+import com.xiaomi.infra.pegasus.base.gpid;
+import com.xiaomi.infra.pegasus.base.rpc_address;
+import com.xiaomi.infra.pegasus.operator.rrdb_put_operator;
+import io.netty.channel.EventLoopGroup;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ReadRouterTest {
+  private EventLoopGroup group;
+  private ReplicaSession primary;
+  private List<ReplicaSession> secondaries;
+
+  @Before
+  public void before() throws Exception {
+    group = ClusterManager.getEventLoopGroupInstance(1);
+    primary = new ReplicaSession(rpc_address.fromIpPort("127.0.0.1:34801"), group, 1000);
+    secondaries =
+        Arrays.asList(
+            new ReplicaSession(rpc_address.fromIpPort("127.0.0.1:34802"), group, 1000),
+            new ReplicaSession(rpc_address.fromIpPort("127.0.0.1:34803"), group, 1000));
+  }
+
+  @After
+  public void after() throws Exception {
+    group.shutdownGracefully();
+  }
+
+  private static void addPending(ReplicaSession session, int count) {
+    for (int i = 0; i < count; i++) {
+      ReplicaSession.RequestEntry entry = new ReplicaSession.RequestEntry();
+      entry.sequenceId = session.pendingResponse.size();
+      session.pendingResponse.put(entry);
+    }
+  }
+
+  @Test
+  public void testPrimary() throws Exception {
+    addPending(primary, 10);
+    for (int i = 0; i < 10; i++) {
+      Assert.assertSame(
+          primary, ReadRouter.select(ReadRouter.Policy.PRIMARY, primary, secondaries));
+    }
+    // no secondary to route to
+    Assert.assertSame(
+        primary,
+        ReadRouter.select(ReadRouter.Policy.LEAST_OUTSTANDING, primary, Collections.emptyList()));
+  }
+
+  @Test
+  public void testLeastOutstanding() throws Exception {
+    addPending(primary, 3);
+    addPending(secondaries.get(0), 1);
+    addPending(secondaries.get(1), 2);
+    for (int i = 0; i < 10; i++) {
+      Assert.assertSame(
+          secondaries.get(0),
+          ReadRouter.select(ReadRouter.Policy.LEAST_OUTSTANDING, primary, secondaries));
+    }
+  }
+
+  @Test
+  public void testEwma() throws Exception {
+    primary.recordLatency(TimeUnit.MILLISECONDS.toNanos(1));
+    secondaries.get(0).recordLatency(TimeUnit.MILLISECONDS.toNanos(20));
+    secondaries.get(1).recordLatency(TimeUnit.MILLISECONDS.toNanos(5));
+    Assert.assertSame(primary, ReadRouter.select(ReadRouter.Policy.EWMA, primary, secondaries));
+
+    // the fast primary is loaded
+    addPending(primary, 10);
+    Assert.assertSame(
+        secondaries.get(1), ReadRouter.select(ReadRouter.Policy.EWMA, primary, secondaries));
+
+    // a slow response raises the ewma partially
+    for (int i = 0; i < 3; i++) {
+      secondaries.get(1).recordLatency(TimeUnit.MILLISECONDS.toNanos(100));
+    }
+    long ewma = secondaries.get(1).getLatencyEwmaNanos();
+    Assert.assertTrue(ewma > TimeUnit.MILLISECONDS.toNanos(5));
+    Assert.assertTrue(ewma < TimeUnit.MILLISECONDS.toNanos(100));
+  }
+
+  @Test
+  public void testEwmaOfUnresponsiveReplica() throws Exception {
+    primary.recordLatency(TimeUnit.MILLISECONDS.toNanos(5));
+    secondaries.get(0).recordLatency(TimeUnit.MILLISECONDS.toNanos(5));
+    secondaries.get(1).recordLatency(TimeUnit.MILLISECONDS.toNanos(1));
+    ReplicaSession hung = secondaries.get(1);
+
+    // a timeout is recorded as slow as the request timeout
+    ReplicaSession.RequestEntry entry = new ReplicaSession.RequestEntry();
+    entry.sequenceId = 100;
+    entry.timeoutMs = 1000;
+    entry.op = new rrdb_put_operator(new gpid(1, 1), null, null, 0);
+    entry.callback = () -> {};
+    hung.pendingResponse.put(entry);
+    hung.tryNotifyFailureWithSeqID(100, error_code.error_types.ERR_TIMEOUT, true);
+    Assert.assertTrue(hung.getLatencyEwmaNanos() > TimeUnit.MILLISECONDS.toNanos(100));
+    Assert.assertNotSame(hung, ReadRouter.select(ReadRouter.Policy.EWMA, primary, secondaries));
+
+    // the ewma doesn't decay while the requests are outstanding
+    addPending(hung, 1);
+    long ewma = hung.getLatencyEwmaNanos();
+    hung.latencyUpdateNanos -= TimeUnit.SECONDS.toNanos(10);
+    Assert.assertEquals(ewma, hung.getLatencyEwmaNanos());
+    Assert.assertNotSame(hung, ReadRouter.select(ReadRouter.Policy.EWMA, primary, secondaries));
+
+    // but decays once it's idle
+    hung.pendingResponse.remove(0);
+    Assert.assertTrue(hung.getLatencyEwmaNanos() < TimeUnit.MILLISECONDS.toNanos(1));
+  }
+}
@@ -0,0 +1,144 @@
+// Copyright (c) 2017, Xiaomi, Inc.  All rights reserved.
+// This source code is licensed under the Apache License Version 2.0, which
+// can be found in the LICENSE file in the root directory of this source tree.
+package com.xiaomi.infra.pegasus.rpc.async;
+
+import com.xiaomi.infra.pegasus.apps.update_request;
+import com.xiaomi.infra.pegasus.base.blob;
+import com.xiaomi.infra.pegasus.base.error_code.error_types;
+import com.xiaomi.infra.pegasus.base.gpid;
+import com.xiaomi.infra.pegasus.base.rpc_address;
+import com.xiaomi.infra.pegasus.operator.client_operator;
+import com.xiaomi.infra.pegasus.operator.rrdb_put_operator;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.ReferenceCountUtil;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests the requests sent while the session is connecting, to a server which never responds. */
+public class ReplicaSessionConnectTest {
+  private EventLoopGroup group;
+  private Channel server;
+  private rpc_address address;
+  private final AtomicLong receivedBytes = new AtomicLong(0);
+
+  @Before
+  public void before() throws Exception {
+    group = ClusterManager.getEventLoopGroupInstance(4);
+    server =
+        new ServerBootstrap()
+            .group(group)
+            .channel(NioServerSocketChannel.class)
+            .childHandler(
+                new ChannelInboundHandlerAdapter() {
+                  @Override
+                  public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                    receivedBytes.addAndGet(((ByteBuf) msg).readableBytes());
+                    ReferenceCountUtil.release(msg);
+                  }
+                })
+            .bind("127.0.0.1", 0)
+            .sync()
+            .channel();
+    int port = ((InetSocketAddress) server.localAddress()).getPort();
+    address = rpc_address.fromIpPort("127.0.0.1:" + port);
+  }
+
+  @After
+  public void after() throws Exception {
+    server.close().sync();
+    group.shutdownGracefully().sync();
+  }
+
+  private static client_operator newOp() {
+    update_request request =
+        new update_request(new blob("key".getBytes()), new blob("value".getBytes()), 0);
+    return new rrdb_put_operator(new gpid(1, 1), "temp", request, 0);
+  }
+
+  private static int frameSize() {
+    EmbeddedChannel channel = new EmbeddedChannel(new ThriftFrameEncoder());
+    ReplicaSession.RequestEntry entry = new ReplicaSession.RequestEntry();
+    entry.op = newOp();
+    channel.writeOutbound(entry);
+    ByteBuf frame = channel.readOutbound();
+    int size = frame.readableBytes();
+    frame.release();
+    return size;
+  }
+
+  @Test
+  public void testSendWhileConnecting() throws Exception {
+    ReplicaSession session = new ReplicaSession(address, group, 1000);
+    int threadCount = 8;
+    int requestsPerThread = 500;
+    int total = threadCount * requestsPerThread;
+    CountDownLatch start = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(total);
+    AtomicInteger resetCount = new AtomicInteger(0);
+
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < threadCount; i++) {
+      Thread t =
+          new Thread(
+              () -> {
+                try {
+                  start.await();
+                } catch (InterruptedException e) {
+                  return;
+                }
+                for (int j = 0; j < requestsPerThread; j++) {
+                  client_operator op = newOp();
+                  session.asyncSend(
+                      op,
+                      () -> {
+                        if (op.rpc_error.errno == error_types.ERR_SESSION_RESET) {
+                          resetCount.incrementAndGet();
+                        }
+                        done.countDown();
+                      },
+                      10000,
+                      false);
+                }
+              });
+      t.start();
+      threads.add(t);
+    }
+    // all the callers race with the connecting
+    start.countDown();
+    for (Thread t : threads) {
+      t.join();
+    }
+
+    // every request is sent exactly once through the only connection
+    long expectBytes = (long) total * frameSize();
+    long deadline = System.currentTimeMillis() + 5000;
+    while (receivedBytes.get() < expectBytes && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    Assert.assertEquals(expectBytes, receivedBytes.get());
+    Assert.assertEquals(ReplicaSession.ConnState.CONNECTED, session.getState());
+    Assert.assertTrue(session.pendingSend.isEmpty());
+    Assert.assertEquals(total, session.getPendingCount());
+
+    session.closeSession();
+    Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+    Assert.assertEquals(total, resetCount.get());
+  }
+}
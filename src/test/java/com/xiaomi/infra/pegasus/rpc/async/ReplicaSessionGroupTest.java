@@ -0,0 +1,134 @@
+// Copyright (c) 2017, Xiaomi, Inc.  All rights reserved.
+// This source code is licensed under the Apache License Version 2.0, which
+// can be found in the LICENSE file in the root directory of this source tree.
+package com.xiaomi.infra.pegasus.rpc.async;
+
+import com.xiaomi.infra.pegasus.apps.update_request;
+import com.xiaomi.infra.pegasus.base.blob;
+import com.xiaomi.infra.pegasus.base.error_code;
+import com.xiaomi.infra.pegasus.base.gpid;
+import com.xiaomi.infra.pegasus.base.rpc_address;
+import com.xiaomi.infra.pegasus.operator.client_operator;
+import com.xiaomi.infra.pegasus.operator.rrdb_put_operator;
+import com.xiaomi.infra.pegasus.rpc.ClusterOptions;
+import io.netty.channel.EventLoopGroup;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ReplicaSessionGroupTest {
+  private ClusterManager manager;
+
+  @Before
+  public void before() throws Exception {
+    Properties config = new Properties();
+    config.setProperty(ClusterOptions.PEGASUS_META_SERVERS_KEY, "127.0.0.1:34601");
+    config.setProperty(ClusterOptions.PEGASUS_ENABLE_PERF_COUNTER_KEY, "false");
+    config.setProperty(ClusterOptions.PEGASUS_CONNECTIONS_PER_SERVER_KEY, "3");
+    config.setProperty(ClusterOptions.PEGASUS_CIRCUIT_BREAKER_FAILURE_PERCENT_KEY, "50");
+    manager = new ClusterManager(ClusterOptions.create(config));
+  }
+
+  @After
+  public void after() throws Exception {
+    manager.close();
+  }
+
+  private static void addPending(ReplicaSession session, int count) {
+    for (int i = 0; i < count; i++) {
+      ReplicaSession.RequestEntry entry = new ReplicaSession.RequestEntry();
+      entry.sequenceId = i;
+      session.pendingResponse.put(entry);
+    }
+  }
+
+  @Test
+  public void testConnectionsPerServer() throws Exception {
+    rpc_address addr = rpc_address.fromIpPort("127.0.0.1:34801");
+    ReplicaSessionGroup group = manager.getReplicaSessionGroup(addr);
+    Assert.assertEquals(3, group.sessions().length);
+    Assert.assertSame(group, manager.getReplicaSessionGroup(addr));
+    Assert.assertSame(group.first(), manager.getReplicaSession(addr));
+    for (ReplicaSession session : group.sessions()) {
+      Assert.assertEquals(addr, session.getAddress());
+      Assert.assertEquals(3, session.allConnections().length);
+    }
+  }
+
+  @Test
+  public void testLeastOutstanding() throws Exception {
+    ReplicaSessionGroup group =
+        manager.getReplicaSessionGroup(rpc_address.fromIpPort("127.0.0.1:34801"));
+    ReplicaSession[] sessions = group.sessions();
+    addPending(sessions[0], 5);
+    addPending(sessions[1], 1);
+    addPending(sessions[2], 3);
+    for (int i = 0; i < 10; i++) {
+      Assert.assertSame(sessions[1], sessions[0].selectConnection());
+    }
+  }
+
+  @Test
+  public void testRoundRobin() throws Exception {
+    EventLoopGroup rpcGroup = ClusterManager.getEventLoopGroupInstance(1);
+    ReplicaSession[] sessions = new ReplicaSession[3];
+    CircuitBreaker circuitBreaker = CircuitBreaker.create(null);
+    for (int i = 0; i < sessions.length; i++) {
+      sessions[i] =
+          new ReplicaSession(
+              rpc_address.fromIpPort("127.0.0.1:34801"),
+              rpcGroup,
+              1000,
+              null,
+              null,
+              circuitBreaker,
+              null);
+    }
+    ReplicaSessionGroup group =
+        new ReplicaSessionGroup(sessions, ReplicaSessionGroup.SelectPolicy.ROUND_ROBIN);
+    addPending(sessions[1], 10);
+    int[] selected = new int[3];
+    for (int i = 0; i < 30; i++) {
+      ReplicaSession s = group.select();
+      for (int j = 0; j < sessions.length; j++) {
+        if (s == sessions[j]) {
+          selected[j]++;
+        }
+      }
+    }
+    Assert.assertArrayEquals(new int[] {10, 10, 10}, selected);
+    rpcGroup.shutdownGracefully();
+  }
+
+  @Test
+  public void testSharedCircuitBreaker() throws Exception {
+    ReplicaSessionGroup group =
+        manager.getReplicaSessionGroup(rpc_address.fromIpPort("127.0.0.1:34801"));
+    ReplicaSession[] sessions = group.sessions();
+    for (ReplicaSession session : sessions) {
+      Assert.assertSame(sessions[0].circuitBreaker, session.circuitBreaker);
+    }
+
+    // the failures of different connections open the breaker of the server
+    for (int i = 0; i < 10; i++) {
+      sessions[i % sessions.length].circuitBreaker.onFailure();
+    }
+    for (ReplicaSession session : sessions) {
+      Assert.assertEquals(CircuitBreaker.State.OPEN, session.getCircuitState());
+    }
+
+    // all the connections fail fast
+    for (ReplicaSession session : sessions) {
+      CountDownLatch rejected = new CountDownLatch(1);
+      update_request request =
+          new update_request(new blob("key".getBytes()), new blob("value".getBytes()), 0);
+      client_operator op = new rrdb_put_operator(new gpid(1, 1), "temp", request, 0);
+      session.asyncSend(op, rejected::countDown, 10000, false);
+      Assert.assertEquals(0, rejected.getCount());
+      Assert.assertEquals(error_code.error_types.ERR_SESSION_RESET, op.rpc_error.errno);
+    }
+  }
+}
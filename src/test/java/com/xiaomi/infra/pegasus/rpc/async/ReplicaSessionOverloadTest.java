@@ -0,0 +1,184 @@
+// Copyright (c) 2017, Xiaomi, Inc.  All rights reserved.
+// This source code is licensed under the Apache License Version 2.0, which
+// can be found in the LICENSE file in the root directory of this source tree.
+package com.xiaomi.infra.pegasus.rpc.async;
+
+import com.xiaomi.infra.pegasus.apps.update_request;
+import com.xiaomi.infra.pegasus.base.blob;
+import com.xiaomi.infra.pegasus.base.error_code.error_types;
+import com.xiaomi.infra.pegasus.base.gpid;
+import com.xiaomi.infra.pegasus.base.rpc_address;
+import com.xiaomi.infra.pegasus.operator.client_operator;
+import com.xiaomi.infra.pegasus.operator.rrdb_put_operator;
+import com.xiaomi.infra.pegasus.rpc.ClusterOptions;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import java.net.InetSocketAddress;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests the admission control of a session to a server which never responds. */
+public class ReplicaSessionOverloadTest {
+  private EventLoopGroup group;
+  private Channel server;
+  private rpc_address address;
+
+  @Before
+  public void before() throws Exception {
+    group = ClusterManager.getEventLoopGroupInstance(2);
+    server =
+        new ServerBootstrap()
+            .group(group)
+            .channel(NioServerSocketChannel.class)
+            .childHandler(
+                new ChannelInboundHandlerAdapter() {
+                  @Override
+                  public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                    ReferenceCountUtil.release(msg);
+                  }
+                })
+            .bind("127.0.0.1", 0)
+            .sync()
+            .channel();
+    int port = ((InetSocketAddress) server.localAddress()).getPort();
+    address = rpc_address.fromIpPort("127.0.0.1:" + port);
+  }
+
+  @After
+  public void after() throws Exception {
+    server.close().sync();
+    group.shutdownGracefully().sync();
+  }
+
+  private ReplicaSession newSession(int maxInflight, String policy) {
+    Properties config = new Properties();
+    config.setProperty(ClusterOptions.PEGASUS_META_SERVERS_KEY, "127.0.0.1:34601");
+    config.setProperty(
+        ClusterOptions.PEGASUS_SESSION_MAX_INFLIGHT_KEY, String.valueOf(maxInflight));
+    config.setProperty(ClusterOptions.PEGASUS_SESSION_OVERLOAD_POLICY_KEY, policy);
+    ReplicaSession session =
+        new ReplicaSession(address, group, 1000, ClusterOptions.create(config), null);
+    session.tryConnect().awaitUninterruptibly();
+    return session;
+  }
+
+  private static client_operator newOp() {
+    update_request request =
+        new update_request(new blob("key".getBytes()), new blob("value".getBytes()), 0);
+    return new rrdb_put_operator(new gpid(1, 1), "temp", request, 0);
+  }
+
+  @Test
+  public void testFailFast() throws Exception {
+    ReplicaSession session = newSession(2, "fail_fast");
+    CountDownLatch latch = new CountDownLatch(3);
+    client_operator[] ops = new client_operator[3];
+    for (int i = 0; i < ops.length; i++) {
+      ops[i] = newOp();
+      session.asyncSend(ops[i], latch::countDown, 300, false);
+    }
+    // rejected immediately
+    Assert.assertEquals(2, latch.getCount());
+    Assert.assertEquals(error_types.ERR_BUSY, ops[2].rpc_error.errno);
+    Assert.assertEquals(2, session.getInflightCount());
+
+    Assert.assertTrue(latch.await(3, TimeUnit.SECONDS));
+    Assert.assertEquals(error_types.ERR_TIMEOUT, ops[0].rpc_error.errno);
+    Assert.assertEquals(error_types.ERR_TIMEOUT, ops[1].rpc_error.errno);
+    Assert.assertEquals(0, session.getInflightCount());
+    session.closeSession();
+  }
+
+  @Test
+  public void testQueue() throws Exception {
+    ReplicaSession session = newSession(1, "queue");
+    CountDownLatch first = new CountDownLatch(1);
+    CountDownLatch second = new CountDownLatch(1);
+    client_operator op1 = newOp();
+    client_operator op2 = newOp();
+    session.asyncSend(op1, first::countDown, 300, false);
+    session.asyncSend(op2, second::countDown, 2000, false);
+    Assert.assertEquals(1, session.getInflightCount());
+
+    // the second request is sent after the first one times out
+    Assert.assertTrue(first.await(3, TimeUnit.SECONDS));
+    Assert.assertEquals(error_types.ERR_TIMEOUT, op1.rpc_error.errno);
+    Assert.assertEquals(1, session.getInflightCount());
+    Assert.assertEquals(1, second.getCount());
+
+    Assert.assertTrue(second.await(5, TimeUnit.SECONDS));
+    Assert.assertEquals(error_types.ERR_TIMEOUT, op2.rpc_error.errno);
+    Assert.assertEquals(0, session.getInflightCount());
+    session.closeSession();
+  }
+
+  @Test
+  public void testBlock() throws Exception {
+    ReplicaSession session = newSession(1, "block");
+    CountDownLatch latch = new CountDownLatch(2);
+    session.asyncSend(newOp(), latch::countDown, 300, false);
+
+    long start = System.currentTimeMillis();
+    session.asyncSend(newOp(), latch::countDown, 2000, false);
+    // blocked until the first request times out
+    Assert.assertTrue(System.currentTimeMillis() - start >= 200);
+    // the permit is released right before the timeout of the first request is notified
+    long deadline = System.currentTimeMillis() + 1000;
+    while (latch.getCount() > 1 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(1);
+    }
+    Assert.assertEquals(1, latch.getCount());
+    Assert.assertEquals(1, session.getInflightCount());
+
+    Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+    session.closeSession();
+  }
+
+  @Test
+  public void testBlockOnlyOutOfEventLoops() throws Exception {
+    ReplicaSession session = newSession(1, "block");
+    CountDownLatch latch = new CountDownLatch(3);
+    session.asyncSend(newOp(), latch::countDown, 300, false);
+
+    // an event loop of the session is never blocked, the request is held back instead
+    long blockedMs =
+        group
+            .submit(
+                () -> {
+                  long start = System.currentTimeMillis();
+                  session.asyncSend(newOp(), latch::countDown, 2000, false);
+                  return System.currentTimeMillis() - start;
+                })
+            .get();
+    Assert.assertTrue(blockedMs < 200);
+
+    // an application thread built by netty's thread factory is blocked as any other thread
+    AtomicLong appBlockedMs = new AtomicLong();
+    Thread app =
+        new DefaultThreadFactory("app")
+            .newThread(
+                () -> {
+                  long start = System.currentTimeMillis();
+                  session.asyncSend(newOp(), latch::countDown, 2000, false);
+                  appBlockedMs.set(System.currentTimeMillis() - start);
+                });
+    app.start();
+    app.join();
+    Assert.assertTrue(appBlockedMs.get() >= 200);
+
+    Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+    session.closeSession();
+  }
+}
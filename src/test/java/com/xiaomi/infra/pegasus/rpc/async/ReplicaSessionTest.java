@@ -226,14 +226,13 @@ public class ReplicaSessionTest {
     }
 
     // Edge case (this is not yet confirmed to happen)
-    // seqId=100 in wait-queue, but entry.timeoutTask is set null because some sort of bug in netty.
+    // seqId=100 in wait-queue, but its timeout is not tracked.
     AtomicBoolean passed = new AtomicBoolean(false);
     ReplicaSession.RequestEntry entry = new ReplicaSession.RequestEntry();
     entry.sequenceId = 100;
     entry.callback = () -> passed.set(true);
-    entry.timeoutTask = null; // simulate the timeoutTask has been null
     entry.op = new rrdb_put_operator(new gpid(1, 1), null, null, 0);
-    rs.pendingResponse.put(100, entry);
+    rs.pendingResponse.put(entry);
     rs.tryNotifyFailureWithSeqID(100, error_code.error_types.ERR_TIMEOUT, false);
     Assert.assertTrue(passed.get());
 
@@ -0,0 +1,42 @@
+// Copyright (c) 2017, Xiaomi, Inc.  All rights reserved.
+// This source code is licensed under the Apache License Version 2.0, which
+// can be found in the LICENSE file in the root directory of this source tree.
+package com.xiaomi.infra.pegasus.rpc.async;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RetryBudgetTest {
+  @Test
+  public void testBudget() throws Exception {
+    RetryBudget budget = new RetryBudget(20, 2);
+    // the min retries without any request
+    Assert.assertTrue(budget.tryAcquire());
+    Assert.assertTrue(budget.tryAcquire());
+    Assert.assertFalse(budget.tryAcquire());
+
+    // 20% of the first attempts
+    for (int i = 0; i < 100; i++) {
+      budget.onRequest();
+    }
+    for (int i = 0; i < 20; i++) {
+      Assert.assertTrue(budget.tryAcquire());
+    }
+    Assert.assertFalse(budget.tryAcquire());
+
+    // the first attempts of the last second still count
+    Thread.sleep(1100);
+    for (int i = 0; i < 22; i++) {
+      Assert.assertTrue(budget.tryAcquire());
+    }
+    Assert.assertFalse(budget.tryAcquire());
+  }
+
+  @Test
+  public void testUnlimited() throws Exception {
+    RetryBudget budget = new RetryBudget(0, 0);
+    for (int i = 0; i < 1000; i++) {
+      Assert.assertTrue(budget.tryAcquire());
+    }
+  }
+}
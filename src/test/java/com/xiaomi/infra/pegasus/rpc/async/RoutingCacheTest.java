@@ -0,0 +1,145 @@
+// Copyright (c) 2017, Xiaomi, Inc.  All rights reserved.
+// This source code is licensed under the Apache License Version 2.0, which
+// can be found in the LICENSE file in the root directory of this source tree.
+package com.xiaomi.infra.pegasus.rpc.async;
+
+import com.xiaomi.infra.pegasus.base.error_code;
+import com.xiaomi.infra.pegasus.base.error_code.error_types;
+import com.xiaomi.infra.pegasus.base.gpid;
+import com.xiaomi.infra.pegasus.base.rpc_address;
+import com.xiaomi.infra.pegasus.replication.partition_configuration;
+import com.xiaomi.infra.pegasus.replication.query_cfg_response;
+import com.xiaomi.infra.pegasus.rpc.ClusterOptions;
+import com.xiaomi.infra.pegasus.rpc.Table;
+import com.xiaomi.infra.pegasus.rpc.TableOptions;
+import io.netty.util.concurrent.Future;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RoutingCacheTest {
+  private Path dir;
+
+  @Before
+  public void before() throws Exception {
+    dir = Files.createTempDirectory("routing_cache");
+  }
+
+  @After
+  public void after() throws Exception {
+    try (Stream<Path> paths = Files.walk(dir)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+    }
+  }
+
+  private static query_cfg_response newResponse(int appId, int partitionCount) {
+    List<partition_configuration> partitions = new ArrayList<>();
+    for (int i = 0; i < partitionCount; i++) {
+      partitions.add(
+          new partition_configuration(
+              new gpid(appId, i),
+              i + 1,
+              3,
+              rpc_address.fromIpPort("127.0.0.1:3480" + (i % 3 + 1)),
+              Arrays.asList(rpc_address.fromIpPort("127.0.0.1:34804")),
+              new ArrayList<>(),
+              100));
+    }
+    return new query_cfg_response(
+        new error_code(error_types.ERR_OK), appId, partitionCount, true, partitions);
+  }
+
+  @Test
+  public void testStoreAndLoad() throws Exception {
+    String[] metaList = {"127.0.0.1:34601", "127.0.0.1:34602"};
+    RoutingCache cache = new RoutingCache(dir.toString(), metaList);
+    Assert.assertNull(cache.loadLeader());
+    Assert.assertNull(cache.loadTable("temp"));
+
+    rpc_address leader = rpc_address.fromIpPort("127.0.0.1:34602");
+    query_cfg_response resp = newResponse(2, 8);
+    cache.storeLeader(leader);
+    cache.storeTable("temp", resp);
+
+    // loaded by another client of the same cluster
+    RoutingCache other =
+        new RoutingCache(dir.toString(), new String[] {"127.0.0.1:34602", "127.0.0.1:34601"});
+    Assert.assertEquals(leader, other.loadLeader());
+    query_cfg_response loaded = other.loadTable("temp");
+    Assert.assertEquals(resp, loaded);
+    Assert.assertEquals(8, loaded.getPartitions().size());
+    Assert.assertEquals(
+        rpc_address.fromIpPort("127.0.0.1:34802"), loaded.getPartitions().get(1).primary);
+
+    // the other clusters are isolated
+    RoutingCache isolated = new RoutingCache(dir.toString(), new String[] {"127.0.0.1:34603"});
+    Assert.assertNull(isolated.loadTable("temp"));
+
+    other.removeTable("temp");
+    Assert.assertNull(cache.loadTable("temp"));
+  }
+
+  @Test
+  public void testCorruptedFile() throws Exception {
+    String[] metaList = {"127.0.0.1:34601"};
+    RoutingCache cache = new RoutingCache(dir.toString(), metaList);
+    cache.storeTable("temp", newResponse(2, 4));
+    Files.write(cache.getDir().resolve("temp.cfg"), new byte[] {1, 2, 3});
+    Assert.assertNull(cache.loadTable("temp"));
+
+    // overwritten by the next store
+    cache.storeTable("temp", newResponse(3, 4));
+    Assert.assertEquals(3, cache.loadTable("temp").app_id);
+  }
+
+  @Test
+  public void testAsyncAccess() throws Exception {
+    RoutingCache cache = new RoutingCache(dir.toString(), new String[] {"127.0.0.1:34601"});
+    Assert.assertNull(cache.asyncLoadTable("temp").get());
+
+    // the I/O is done in order on the thread of the cache
+    rpc_address leader = rpc_address.fromIpPort("127.0.0.1:34601");
+    query_cfg_response resp = newResponse(2, 4);
+    cache.asyncStoreLeader(leader);
+    cache.asyncStoreTable("temp", resp);
+    Assert.assertEquals(resp, cache.asyncLoadTable("temp").get());
+    Assert.assertEquals(leader, cache.loadLeader());
+
+    cache.asyncRemoveTable("temp");
+    Assert.assertNull(cache.asyncLoadTable("temp").get());
+
+    // the pending writes are finished when closed
+    cache.asyncStoreTable("temp", resp);
+    Assert.assertTrue(cache.close().await(5, TimeUnit.SECONDS));
+    Assert.assertEquals(resp, cache.loadTable("temp"));
+  }
+
+  @Test
+  public void testOpenFromCache() throws Exception {
+    String[] metaList = {"127.0.0.1:34601"};
+    new RoutingCache(dir.toString(), metaList).storeTable("temp", newResponse(2, 8));
+
+    // opened without meta, which isn't running
+    Properties config = new Properties();
+    config.setProperty(ClusterOptions.PEGASUS_META_SERVERS_KEY, metaList[0]);
+    config.setProperty(ClusterOptions.PEGASUS_ENABLE_PERF_COUNTER_KEY, "false");
+    config.setProperty(ClusterOptions.PEGASUS_ROUTING_CACHE_DIR_KEY, dir.toString());
+    ClusterManager manager = new ClusterManager(ClusterOptions.create(config));
+    Future<Table> future = manager.asyncOpenTable("temp", TableOptions.forTest());
+    Assert.assertTrue(future.await(5, TimeUnit.SECONDS));
+    Assert.assertTrue(future.isSuccess());
+    Assert.assertEquals(2, future.getNow().getAppID());
+    Assert.assertEquals(8, future.getNow().getPartitionCount());
+    manager.close();
+  }
+}
@@ -0,0 +1,72 @@
+// Copyright (c) 2017, Xiaomi, Inc.  All rights reserved.
+// This source code is licensed under the Apache License Version 2.0, which
+// can be found in the LICENSE file in the root directory of this source tree.
+package com.xiaomi.infra.pegasus.rpc.async;
+
+import com.xiaomi.infra.pegasus.base.blob;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TByteBufTransportTest {
+  private static void writeBlobs(ByteBuf buf) throws Exception {
+    TBinaryProtocol oprot = new TBinaryProtocol(new TByteBufTransport(buf));
+    oprot.writeI32(2);
+    new blob("hello".getBytes()).write(oprot);
+    new blob("world".getBytes()).write(oprot);
+  }
+
+  private static void readBlobs(ByteBuf buf) throws Exception {
+    TBinaryProtocol iprot = new TBinaryProtocol(new TByteBufTransport(buf));
+    Assert.assertEquals(2, iprot.readI32());
+    blob b1 = new blob();
+    b1.read(iprot);
+    blob b2 = new blob();
+    b2.read(iprot);
+    Assert.assertArrayEquals("hello".getBytes(), b1.data);
+    Assert.assertArrayEquals("world".getBytes(), b2.data);
+    Assert.assertEquals(0, buf.readableBytes());
+  }
+
+  @Test
+  public void testReadInPlace() throws Exception {
+    ByteBuf heap = Unpooled.buffer();
+    // leave some bytes before the reader index
+    heap.writeLong(0);
+    heap.skipBytes(8);
+    writeBlobs(heap);
+
+    TByteBufTransport trans = new TByteBufTransport(heap);
+    Assert.assertSame(heap.array(), trans.getBuffer());
+    Assert.assertEquals(8, trans.getBufferPosition());
+    Assert.assertEquals(heap.readableBytes(), trans.getBytesRemainingInBuffer());
+    trans.consumeBuffer(4);
+    Assert.assertEquals(12, trans.getBufferPosition());
+
+    heap.readerIndex(8);
+    readBlobs(heap);
+
+    // the data of the blobs are not the views of the frame buffer
+    heap.readerIndex(8);
+    TBinaryProtocol iprot = new TBinaryProtocol(new TByteBufTransport(heap));
+    iprot.readI32();
+    blob b = new blob();
+    b.read(iprot);
+    heap.setByte(16, 'j');
+    Assert.assertArrayEquals("hello".getBytes(), b.data);
+  }
+
+  @Test
+  public void testReadDirect() throws Exception {
+    ByteBuf direct = Unpooled.directBuffer();
+    writeBlobs(direct);
+
+    TByteBufTransport trans = new TByteBufTransport(direct);
+    Assert.assertNull(trans.getBuffer());
+    Assert.assertEquals(-1, trans.getBytesRemainingInBuffer());
+    readBlobs(direct);
+    direct.release();
+  }
+}
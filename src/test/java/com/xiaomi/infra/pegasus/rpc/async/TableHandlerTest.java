@@ -3,16 +3,38 @@
 // can be found in the LICENSE file in the root directory of this source tree.
 package com.xiaomi.infra.pegasus.rpc.async;
 
+import com.xiaomi.infra.pegasus.base.blob;
 import com.xiaomi.infra.pegasus.base.error_code;
 import com.xiaomi.infra.pegasus.base.error_code.error_types;
+import com.xiaomi.infra.pegasus.base.gpid;
 import com.xiaomi.infra.pegasus.base.rpc_address;
 import com.xiaomi.infra.pegasus.operator.client_operator;
+import com.xiaomi.infra.pegasus.operator.rrdb_put_operator;
+import com.xiaomi.infra.pegasus.replication.partition_configuration;
+import com.xiaomi.infra.pegasus.replication.query_cfg_response;
 import com.xiaomi.infra.pegasus.rpc.ClusterOptions;
 import com.xiaomi.infra.pegasus.rpc.ReplicationException;
 import com.xiaomi.infra.pegasus.rpc.TableOptions;
 import com.xiaomi.infra.pegasus.rpc.async.TableHandler.ReplicaConfiguration;
 import com.xiaomi.infra.pegasus.tools.Toollet;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.EventExecutor;
+import java.net.InetSocketAddress;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -186,6 +208,46 @@ public class TableHandlerTest {
     Assert.assertEquals(oldBallot + 1, handle.ballot);
   }
 
+  @Test
+  public void testTryQueryPartition() throws Exception {
+    System.out.println("TableHandlerTest#testTryQueryPartition");
+    TableHandler table = testManager.openTable("temp", TableOptions.forTest());
+    TableHandler.TableConfiguration tableConfig = table.tableConfig_.get();
+
+    // mark a handler to inactive
+    ReplicaConfiguration handle = tableConfig.replicas.get(1);
+    long oldBallot = handle.ballot - 1;
+    handle.ballot = oldBallot;
+    handle.primarySession = null;
+
+    Assert.assertTrue(table.tryQueryMeta(tableConfig.updateVersion, 1));
+    // batched into the query in flight
+    Assert.assertFalse(table.tryQueryMeta(tableConfig.updateVersion, 2));
+
+    final TableHandler finalRef = table;
+    Assert.assertTrue(
+        Toollet.waitCondition(
+            new Toollet.BoolCallable() {
+              @Override
+              public boolean call() {
+                return finalRef.getReplicaConfig(1).primarySession != null;
+              }
+            },
+            10));
+    TableHandler.TableConfiguration newConfig = table.tableConfig_.get();
+    Assert.assertTrue(newConfig.updateVersion > tableConfig.updateVersion);
+    Assert.assertEquals(oldBallot + 1, newConfig.replicas.get(1).ballot);
+    // the unchanged partitions are kept as is
+    for (int i = 0; i < newConfig.replicas.size(); ++i) {
+      if (i != 1) {
+        Assert.assertSame(tableConfig.replicas.get(i), newConfig.replicas.get(i));
+      }
+    }
+
+    // the partition has been updated since the cached version
+    Assert.assertFalse(table.tryQueryMeta(tableConfig.updateVersion, 1));
+  }
+
   @Test
   public void testConnectAfterQueryMeta() throws Exception {
     System.out.println("TableHandlerTest#testConnectAfterQueryMeta");
@@ -204,4 +266,231 @@ public class TableHandlerTest {
       Assert.assertEquals(r.primarySession.getState(), ReplicaSession.ConnState.CONNECTED);
     }
   }
+
+  // a table of one partition without primary, whose calls are recorded instead of sent
+  private static class ParkingTable extends TableHandler {
+    final BlockingQueue<Integer> calls = new LinkedBlockingQueue<>();
+
+    ParkingTable(ClusterManager mgr) {
+      this(mgr, newNoPrimaryResponse());
+    }
+
+    private ParkingTable(ClusterManager mgr, query_cfg_response resp) {
+      super(mgr, "temp", TableOptions.forTest(), resp);
+      installTableConfiguration(resp, false);
+    }
+
+    private static query_cfg_response newNoPrimaryResponse() {
+      List<partition_configuration> partitions = new ArrayList<>();
+      partitions.add(
+          new partition_configuration(
+              new gpid(1, 0), 1, 3, new rpc_address(), new ArrayList<>(), new ArrayList<>(), 0));
+      return new query_cfg_response(new error_code(error_types.ERR_OK), 1, 1, true, partitions);
+    }
+
+    @Override
+    void call(ClientRequestRound round, int tryId) {
+      calls.add(tryId);
+    }
+
+    void installPrimary() {
+      TableConfiguration config = tableConfig_.get();
+      config.replicas.get(0).primarySession =
+          manager_.getReplicaSession(rpc_address.fromIpPort("127.0.0.1:34801"));
+    }
+  }
+
+  private static client_operator newOperator() {
+    com.xiaomi.infra.pegasus.apps.update_request request =
+        new com.xiaomi.infra.pegasus.apps.update_request(
+            new blob("hello".getBytes()), new blob("value".getBytes()), 0);
+    return new rrdb_put_operator(new gpid(1, 0), "temp", request, 0);
+  }
+
+  @Test
+  public void testReleaseParkedCall() throws Exception {
+    ParkingTable table = new ParkingTable(testManager);
+    CountDownLatch completed = new CountDownLatch(1);
+    ClientRequestRound round =
+        new ClientRequestRound(newOperator(), op -> completed.countDown(), false, 300);
+    table.parkCall(round, 2, 0);
+    Assert.assertEquals(1, table.parkedCalls_.get(0).size());
+    Assert.assertNull(table.calls.poll(50, TimeUnit.MILLISECONDS));
+
+    // released with its try id once a primary is installed
+    table.installPrimary();
+    table.releaseParkedCalls(table.tableConfig_.get());
+    Assert.assertEquals(Integer.valueOf(2), table.calls.poll(1, TimeUnit.SECONDS));
+    Assert.assertTrue(table.parkedCalls_.get(0).isEmpty());
+
+    // and never expired after that
+    Assert.assertFalse(completed.await(500, TimeUnit.MILLISECONDS));
+    Assert.assertNull(table.calls.poll());
+  }
+
+  @Test
+  public void testExpireParkedCall() throws Exception {
+    ParkingTable table = new ParkingTable(testManager);
+    CountDownLatch completed = new CountDownLatch(1);
+    AtomicLong completedNanos = new AtomicLong(0);
+    client_operator operator = newOperator();
+    ClientRequestRound round =
+        new ClientRequestRound(
+            operator,
+            op -> {
+              completedNanos.set(System.nanoTime());
+              completed.countDown();
+            },
+            false,
+            100);
+    table.parkCall(round, 1, 0);
+    Assert.assertTrue(completed.await(1, TimeUnit.SECONDS));
+    // the request which has never been sent times out at the deadline of its round
+    Assert.assertEquals(error_types.ERR_TIMEOUT, operator.rpc_error.errno);
+    Assert.assertTrue(completedNanos.get() >= round.expireNanoTime);
+    Assert.assertTrue(table.parkedCalls_.get(0).isEmpty());
+
+    // an expired request isn't released
+    table.installPrimary();
+    table.releaseParkedCalls(table.tableConfig_.get());
+    Assert.assertNull(table.calls.poll(100, TimeUnit.MILLISECONDS));
+
+    // a request past its deadline expires without being parked
+    client_operator late = newOperator();
+    table.parkCall(new ClientRequestRound(late, op -> {}, false, System.nanoTime() - 1, 100), 1, 0);
+    Assert.assertEquals(error_types.ERR_TIMEOUT, late.rpc_error.errno);
+    Assert.assertTrue(table.parkedCalls_.get(0).isEmpty());
+  }
+
+  @Test
+  public void testPrimaryInstalledBeforePark() throws Exception {
+    ParkingTable table = new ParkingTable(testManager);
+    // the primary is installed after the call finds no primary but before it's parked, so the
+    // release of the installation finds nothing to release
+    table.installPrimary();
+    table.releaseParkedCalls(table.tableConfig_.get());
+
+    CountDownLatch completed = new CountDownLatch(1);
+    table.parkCall(
+        new ClientRequestRound(newOperator(), op -> completed.countDown(), false, 300), 3, 0);
+    Assert.assertEquals(Integer.valueOf(3), table.calls.poll(1, TimeUnit.SECONDS));
+    Assert.assertTrue(table.parkedCalls_.get(0).isEmpty());
+    Assert.assertFalse(completed.await(500, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void testBackupRequestCap() throws Exception {
+    ParkingTable table = new ParkingTable(testManager);
+    table.backupableCount_.set(10);
+
+    // no backup request at all
+    table.backupRequestMaxPercent = 0;
+    Assert.assertFalse(table.tryAcquireBackupRequest());
+    Assert.assertEquals(0, table.backupRequestCount_.get());
+
+    // exactly 10% of the reads
+    table.backupRequestMaxPercent = 10;
+    Assert.assertTrue(table.tryAcquireBackupRequest());
+    Assert.assertFalse(table.tryAcquireBackupRequest());
+    Assert.assertEquals(1, table.backupRequestCount_.get());
+
+    // the concurrent callers never overshoot the cap
+    table.rotateBackupRequestWindow();
+    table.backupableCount_.set(100);
+    table.backupRequestMaxPercent = 50;
+    AtomicInteger acquired = new AtomicInteger(0);
+    Thread[] threads = new Thread[8];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] =
+          new Thread(
+              () -> {
+                for (int j = 0; j < 20; j++) {
+                  if (table.tryAcquireBackupRequest()) {
+                    acquired.incrementAndGet();
+                  }
+                }
+              });
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    Assert.assertEquals(50, acquired.get());
+    Assert.assertEquals(50, table.backupRequestCount_.get());
+  }
+
+  @Test
+  public void testInstallWithoutWaitingConnect() throws Exception {
+    EventLoopGroup serverGroup = ClusterManager.getEventLoopGroupInstance(1);
+    AtomicLong receivedBytes = new AtomicLong(0);
+    Channel server =
+        new ServerBootstrap()
+            .group(serverGroup)
+            .channel(NioServerSocketChannel.class)
+            .childHandler(
+                new ChannelInboundHandlerAdapter() {
+                  @Override
+                  public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                    receivedBytes.addAndGet(((ByteBuf) msg).readableBytes());
+                    ReferenceCountUtil.release(msg);
+                  }
+                })
+            .bind("127.0.0.1", 0)
+            .sync()
+            .channel();
+    int port = ((InetSocketAddress) server.localAddress()).getPort();
+    rpc_address primary = rpc_address.fromIpPort("127.0.0.1:" + port);
+
+    // hold the io threads, so that the connect can't be done before they're released
+    CountDownLatch hold = new CountDownLatch(1);
+    List<EventExecutor> loops = new ArrayList<>();
+    testManager.getReplicaGroup().forEach(loops::add);
+    CountDownLatch held = new CountDownLatch(loops.size());
+    for (EventExecutor loop : loops) {
+      loop.execute(
+          () -> {
+            held.countDown();
+            try {
+              hold.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+          });
+    }
+    Assert.assertTrue(held.await(1, TimeUnit.SECONDS));
+
+    List<partition_configuration> partitions = new ArrayList<>();
+    partitions.add(
+        new partition_configuration(
+            new gpid(1, 0), 1, 3, primary, new ArrayList<>(), new ArrayList<>(), 0));
+    query_cfg_response resp =
+        new query_cfg_response(new error_code(error_types.ERR_OK), 1, 1, true, partitions);
+    TableHandler table = new TableHandler(testManager, "temp", TableOptions.forTest(), resp);
+    try {
+      // returns without waiting for the connection, which is still in progress
+      Assert.assertNull(table.installTableConfiguration(resp, false));
+      ReplicaSession session = table.tableConfig_.get().replicas.get(0).primarySession;
+      Assert.assertNotNull(session);
+      Assert.assertEquals(ReplicaSession.ConnState.CONNECTING, session.getState());
+
+      // the request to the connecting session is queued, and sent once it's active
+      session.asyncSend(newOperator(), () -> {}, 10000, false);
+      Assert.assertEquals(1, session.pendingSend.size());
+      Assert.assertEquals(0, receivedBytes.get());
+
+      hold.countDown();
+      long deadline = System.currentTimeMillis() + 5000;
+      while (receivedBytes.get() == 0 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      Assert.assertTrue(receivedBytes.get() > 0);
+      Assert.assertEquals(ReplicaSession.ConnState.CONNECTED, session.getState());
+      Assert.assertTrue(session.pendingSend.isEmpty());
+    } finally {
+      hold.countDown();
+      testManager.close();
+      server.close().sync();
+      serverGroup.shutdownGracefully().sync();
+    }
+  }
 }
@@ -0,0 +1,83 @@
+// Copyright (c) 2017, Xiaomi, Inc.  All rights reserved.
+// This source code is licensed under the Apache License Version 2.0, which
+// can be found in the LICENSE file in the root directory of this source tree.
+package com.xiaomi.infra.pegasus.rpc.async;
+
+import com.xiaomi.infra.pegasus.apps.key_value;
+import com.xiaomi.infra.pegasus.apps.multi_put_request;
+import com.xiaomi.infra.pegasus.apps.update_request;
+import com.xiaomi.infra.pegasus.base.blob;
+import com.xiaomi.infra.pegasus.base.gpid;
+import com.xiaomi.infra.pegasus.operator.client_operator;
+import com.xiaomi.infra.pegasus.operator.rrdb_multi_put_operator;
+import com.xiaomi.infra.pegasus.operator.rrdb_put_operator;
+import com.xiaomi.infra.pegasus.rpc.ThriftHeader;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ThriftFrameEncoderTest {
+  private static ByteBuf encode(EmbeddedChannel channel, client_operator op, int seqId) {
+    ReplicaSession.RequestEntry entry = new ReplicaSession.RequestEntry();
+    entry.sequenceId = seqId;
+    entry.op = op;
+    entry.timeoutMs = 1000;
+    Assert.assertTrue(channel.writeOutbound(entry));
+    return channel.readOutbound();
+  }
+
+  private static void checkFrame(ByteBuf frame, client_operator op) {
+    Assert.assertEquals('T', frame.getByte(0));
+    Assert.assertEquals('T', frame.getByte(3));
+    Assert.assertEquals(1, frame.getInt(4));
+    int metaLength = frame.getInt(8);
+    int bodyLength = frame.getInt(12);
+    Assert.assertEquals(
+        frame.readableBytes(), ThriftHeader.HEADER_LENGTH + metaLength + bodyLength);
+    Assert.assertTrue(metaLength <= client_operator.META_SIZE);
+    Assert.assertTrue(bodyLength <= op.estimated_body_size());
+    // allocated once without growing
+    Assert.assertTrue(
+        frame.capacity()
+            <= ThriftHeader.HEADER_LENGTH + client_operator.META_SIZE + op.estimated_body_size());
+
+    byte[] expectHeader = op.prepare_thrift_header(metaLength, bodyLength);
+    byte[] actualHeader = new byte[ThriftHeader.HEADER_LENGTH];
+    frame.getBytes(0, actualHeader);
+    Assert.assertArrayEquals(expectHeader, actualHeader);
+  }
+
+  @Test
+  public void testEncode() throws Exception {
+    EmbeddedChannel channel = new EmbeddedChannel(new ThriftFrameEncoder());
+
+    List<key_value> kvs = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      kvs.add(new key_value(new blob(("sort_key_" + i).getBytes()), new blob(new byte[1000])));
+    }
+    client_operator multiPut =
+        new rrdb_multi_put_operator(
+            new gpid(1, 1), "temp", new multi_put_request(new blob("hash".getBytes()), kvs, 0), 0);
+    client_operator put =
+        new rrdb_put_operator(
+            new gpid(1, 1),
+            "temp",
+            new update_request(new blob("key".getBytes()), new blob("value".getBytes()), 0),
+            0);
+
+    // the protocol of the channel is reused by the subsequent frames
+    for (int i = 0; i < 3; i++) {
+      ByteBuf frame = encode(channel, multiPut, i);
+      checkFrame(frame, multiPut);
+      frame.release();
+
+      frame = encode(channel, put, i);
+      checkFrame(frame, put);
+      frame.release();
+    }
+    Assert.assertFalse(channel.finish());
+  }
+}
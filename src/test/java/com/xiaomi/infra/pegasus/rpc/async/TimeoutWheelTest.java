@@ -0,0 +1,130 @@
+// Copyright (c) 2017, Xiaomi, Inc.  All rights reserved.
+// This source code is licensed under the Apache License Version 2.0, which
+// can be found in the LICENSE file in the root directory of this source tree.
+package com.xiaomi.infra.pegasus.rpc.async;
+
+import com.xiaomi.infra.pegasus.base.error_code;
+import com.xiaomi.infra.pegasus.base.gpid;
+import com.xiaomi.infra.pegasus.base.rpc_address;
+import com.xiaomi.infra.pegasus.operator.rrdb_put_operator;
+import com.xiaomi.infra.pegasus.tools.Tools;
+import io.netty.channel.EventLoopGroup;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TimeoutWheelTest {
+  private static long afterMs(long startNanos, long ms) {
+    return startNanos + TimeUnit.MILLISECONDS.toNanos(ms);
+  }
+
+  @Test
+  public void testAddAndCancel() throws Exception {
+    TimeoutWheel wheel = new TimeoutWheel(10, 8);
+    long start = System.nanoTime();
+
+    ReplicaSession.RequestEntry e1 = new ReplicaSession.RequestEntry();
+    ReplicaSession.RequestEntry e2 = new ReplicaSession.RequestEntry();
+    wheel.add(e1, 50);
+    wheel.add(e2, 50);
+    wheel.cancel(e1);
+    Assert.assertNull(e1.timeoutBucket);
+    // cancel twice is harmless
+    wheel.cancel(e1);
+
+    wheel.advance(start);
+    Assert.assertNotNull(e2.timeoutBucket);
+    wheel.advance(afterMs(start, 100));
+    Assert.assertNull(e2.timeoutBucket);
+  }
+
+  @Test
+  public void testMultipleRounds() throws Exception {
+    // a round of the wheel is 80ms
+    TimeoutWheel wheel = new TimeoutWheel(10, 8);
+    long start = System.nanoTime();
+
+    ReplicaSession.RequestEntry e = new ReplicaSession.RequestEntry();
+    wheel.add(e, 200);
+    wheel.advance(afterMs(start, 100));
+    Assert.assertNotNull(e.timeoutBucket);
+    wheel.advance(afterMs(start, 180));
+    Assert.assertNotNull(e.timeoutBucket);
+    wheel.advance(afterMs(start, 220));
+    Assert.assertNull(e.timeoutBucket);
+
+    // the entry added into a swept tick is moved to the next one
+    ReplicaSession.RequestEntry late = new ReplicaSession.RequestEntry();
+    wheel.add(late, 0);
+    Assert.assertNotNull(late.timeoutBucket);
+    wheel.advance(afterMs(start, 240));
+    Assert.assertNull(late.timeoutBucket);
+  }
+
+  @Test
+  public void testNotifyTimeout() throws Exception {
+    EventLoopGroup rpcGroup = ClusterManager.getEventLoopGroupInstance(1);
+    TimeoutWheel wheel = new TimeoutWheel(10, 8);
+    ReplicaSession session =
+        new ReplicaSession(rpc_address.fromIpPort("127.0.0.1:34801"), rpcGroup, 1000, null, wheel);
+
+    AtomicBoolean notified = new AtomicBoolean(false);
+    FutureTask<Void> cb =
+        new FutureTask<Void>(
+            () -> {
+              notified.set(true);
+              return null;
+            });
+    ReplicaSession.RequestEntry entry = new ReplicaSession.RequestEntry();
+    entry.sequenceId = 100;
+    entry.session = session;
+    entry.op = new rrdb_put_operator(new gpid(1, 1), null, null, 0);
+    entry.callback = cb;
+    session.pendingResponse.put(entry);
+
+    long start = System.nanoTime();
+    wheel.add(entry, 20);
+    wheel.advance(afterMs(start, 10));
+    Assert.assertFalse(notified.get());
+
+    // started by the event loop
+    wheel.start(rpcGroup.next());
+    Tools.waitUninterruptable(cb, 1000);
+    Assert.assertTrue(notified.get());
+    Assert.assertEquals(error_code.error_types.ERR_TIMEOUT, entry.op.rpc_error.errno);
+    Assert.assertTrue(session.pendingResponse.isEmpty());
+
+    wheel.stop();
+    rpcGroup.shutdownGracefully();
+  }
+
+  @Test
+  public void testStandaloneSession() throws Exception {
+    EventLoopGroup rpcGroup = ClusterManager.getEventLoopGroupInstance(1);
+    ReplicaSession session =
+        new ReplicaSession(rpc_address.fromIpPort("127.0.0.1:34801"), rpcGroup, 1000);
+    Assert.assertTrue(session.timeoutWheel.isStarted());
+
+    // the wheel owned by the session is stopped when it's closed, and started again when the
+    // session is reconnected
+    session.closeSession();
+    Assert.assertFalse(session.timeoutWheel.isStarted());
+    session.tryConnect();
+    Assert.assertTrue(session.timeoutWheel.isStarted());
+    session.closeSession();
+    Assert.assertFalse(session.timeoutWheel.isStarted());
+
+    // the wheel shared by the sessions is left alone
+    TimeoutWheel wheel = new TimeoutWheel(10, 8);
+    wheel.start(rpcGroup.next());
+    ReplicaSession shared =
+        new ReplicaSession(rpc_address.fromIpPort("127.0.0.1:34801"), rpcGroup, 1000, null, wheel);
+    shared.closeSession();
+    Assert.assertTrue(wheel.isStarted());
+
+    wheel.stop();
+    rpcGroup.shutdownGracefully();
+  }
+}
@@ -0,0 +1,91 @@
+// Copyright (c) 2017, Xiaomi, Inc.  All rights reserved.
+// This source code is licensed under the Apache License Version 2.0, which
+// can be found in the LICENSE file in the root directory of this source tree.
+package com.xiaomi.infra.pegasus.tools;
+
+import io.netty.util.concurrent.BlockingOperationException;
+import io.netty.util.concurrent.DefaultPromise;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestCompletion {
+  @Test
+  public void testAwait() throws Exception {
+    Completion completion = new Completion();
+    Thread completer =
+        new Thread(
+            () -> {
+              try {
+                Thread.sleep(50);
+              } catch (InterruptedException e) {
+                // nothing to do
+              }
+              completion.run();
+            });
+    completer.start();
+    Assert.assertTrue(completion.await(5, TimeUnit.SECONDS));
+    Assert.assertTrue(completion.isDone());
+    completer.join();
+
+    Assert.assertFalse(new Completion().await(10, TimeUnit.MILLISECONDS));
+
+    Thread.currentThread().interrupt();
+    try {
+      new Completion().await(1, TimeUnit.SECONDS);
+      Assert.fail();
+    } catch (InterruptedException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testAwaitUninterruptibly() throws Exception {
+    Completion completion = new Completion();
+    Thread.currentThread().interrupt();
+    new Thread(completion).start();
+    completion.awaitUninterruptibly();
+    // the interruption is kept
+    Assert.assertTrue(Thread.interrupted());
+  }
+
+  @Test
+  public void testGet() throws Exception {
+    // the futures of the sync interfaces are notified by the completing thread, which never
+    // fails the wait as a deadlock
+    DefaultPromise<String> promise = new DefaultPromise<>(ImmediateEventExecutor.INSTANCE);
+    new Thread(() -> promise.setSuccess("value")).start();
+    Assert.assertEquals("value", Completion.get(promise, 5, TimeUnit.SECONDS));
+
+    DefaultPromise<String> failed = new DefaultPromise<>(ImmediateEventExecutor.INSTANCE);
+    failed.setFailure(new IllegalStateException());
+    try {
+      Completion.get(failed, 5, TimeUnit.SECONDS);
+      Assert.fail();
+    } catch (ExecutionException e) {
+      Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+
+    try {
+      Completion.get(
+          new DefaultPromise<>(ImmediateEventExecutor.INSTANCE), 10, TimeUnit.MILLISECONDS);
+      Assert.fail();
+    } catch (TimeoutException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testCheckDeadLock() throws Exception {
+    Completion.checkDeadLock(false);
+    try {
+      Completion.checkDeadLock(true);
+      Assert.fail();
+    } catch (BlockingOperationException e) {
+      // expected
+    }
+  }
+}